@@ -0,0 +1,75 @@
+/*
+ Author: Samuel Agyakwa
+ Date: 02/20/2020
+ */
+
+package benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import utils.CustomCSVReader;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * CustomCSVReader.parseCSVLine, and the reusable CustomCSVReader tokenizer, on short, long and heavily quoted rows.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class CSVParseBenchmark {
+    @Param({"short", "long", "quoted"})
+    public String rowShape;
+
+    private String csvLine;
+    private CustomCSVReader csvReader;
+
+    @Setup
+    public void setUp() {
+        csvReader = new CustomCSVReader();
+        switch (rowShape) {
+            case "short":
+                csvLine = "10,AU,Australia";
+                break;
+            case "long":
+                StringBuilder longRow = new StringBuilder("13342870113f5f7781cf665");
+                for (int column = 0; column < 40; column++) {
+                    longRow.append(",A.K. ASSOCIATES INC. 41 WALPOLE STREET ").append(column);
+                }
+                csvLine = longRow.toString();
+                break;
+            case "quoted":
+                StringBuilder quotedRow = new StringBuilder("\"13342870113f5f7781cf665\"");
+                for (int column = 0; column < 10; column++) {
+                    quotedRow.append(",\"A.K. \"\"ASSOCIATES\"\", INC.\",\"41 WALPOLE, STREET\"");
+                }
+                csvLine = quotedRow.toString();
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown row shape " + rowShape);
+        }
+    }
+
+    @Benchmark
+    public String parseCSVLine() {
+        return CustomCSVReader.parseCSVLine(csvLine);
+    }
+
+    @Benchmark
+    public boolean reusableTokenizer(Blackhole blackhole) {
+        return csvReader.parseLine(csvLine, (fieldIndex, field) -> blackhole.consume(field.length()));
+    }
+}
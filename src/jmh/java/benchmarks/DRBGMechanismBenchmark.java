@@ -0,0 +1,75 @@
+/*
+ Author: Samuel Agyakwa
+ Date: 02/20/2020
+ */
+
+package benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.invoke.MethodHandle;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ID generation for each DRBG mechanism of the SUN provider. generateRandomAlphaNumericString instantiates a new
+ * DRBG per call and always configures HASH_DRBG itself, so it is measured once, as the per-call baseline. The mechanism
+ * comparison runs on the long-lived DRBGEngine, which takes the mechanism as a constructor argument.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DRBGMechanismBenchmark {
+    private static final String CUSTOMER_ROW = "13342870113f5f7781cf665A.K. ASSOCIATES INC.AMIN41 WALPOLE STREETSHARONMA02067";
+
+    @State(Scope.Thread)
+    public static class PerCallState {
+        Object transactionGenerator;
+        MethodHandle generateRandomAlphaNumericString;
+
+        @Setup
+        public void setUp() throws ReflectiveOperationException {
+            transactionGenerator = GeneratorBridge.newInstance("TransactionGenerator", new Class<?>[0]);
+            generateRandomAlphaNumericString = GeneratorBridge.method("TransactionGenerator",
+                    "generateRandomAlphaNumericString", String.class);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class EngineState {
+        @Param({"Hash_DRBG", "HMAC_DRBG", "CTR_DRBG"})
+        public String mechanism;
+
+        Object drbgEngine;
+        MethodHandle generate;
+
+        @Setup
+        public void setUp() throws ReflectiveOperationException {
+            drbgEngine = GeneratorBridge.newInstance("DRBGEngine", new Class<?>[]{String.class, byte[].class},
+                    mechanism, "DRBGMechanismBenchmark".getBytes(StandardCharsets.UTF_8));
+            generate = GeneratorBridge.method("DRBGEngine", "generate", String.class);
+        }
+    }
+
+    @Benchmark
+    public Object perCallInstantiation(PerCallState state) throws Throwable {
+        return state.generateRandomAlphaNumericString.invoke(state.transactionGenerator, CUSTOMER_ROW);
+    }
+
+    @Benchmark
+    public Object longLivedEngine(EngineState state) throws Throwable {
+        return state.generate.invoke(state.drbgEngine, CUSTOMER_ROW);
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ Author: Samuel Agyakwa
+ Date: 02/20/2020
+ */
+
+package benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.lang.invoke.MethodHandle;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-to-end generateAllAlphaNumericID on generated customer files. One operation is a whole file, so this runs in
+ * single shot mode; rows per second is the row count divided by the score.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Benchmark)
+public class EndToEndBenchmark {
+    @Param({"10000", "1000000", "10000000"})
+    public int rows;
+
+    private Path csvFile;
+    private Object transactionGenerator;
+    private MethodHandle generateAllAlphaNumericID;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, ReflectiveOperationException {
+        csvFile = Files.createTempFile("customers-" + rows, ".csv");
+        try (BufferedWriter writer = Files.newBufferedWriter(csvFile, StandardCharsets.UTF_8)) {
+            writer.write("Account,Company,Firstname,Lastname,Address_1,Address_2,City,State,Zip\n");
+            for (int row = 0; row < rows; row++) {
+                writer.write(Integer.toHexString(row * 31 + 7));
+                writer.write(",\"A.K. ASSOCIATES, INC.\",AMIN,,41 WALPOLE STREET,,SHARON,MA,02067\n");
+            }
+        }
+
+        transactionGenerator = GeneratorBridge.newInstance("TransactionGenerator", new Class<?>[0]);
+        generateAllAlphaNumericID = GeneratorBridge.method("TransactionGenerator", "generateAllAlphaNumericID",
+                String.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(csvFile);
+    }
+
+    @Benchmark
+    public Object generateAllAlphaNumericID() throws Throwable {
+        return generateAllAlphaNumericID.invoke(transactionGenerator, csvFile.toString());
+    }
+}
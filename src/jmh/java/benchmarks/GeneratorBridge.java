@@ -0,0 +1,49 @@
+/*
+ Author: Samuel Agyakwa
+ Date: 02/20/2020
+ */
+
+package benchmarks;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+
+/**
+ * JMH refuses benchmark classes in the default package, but the generator classes live there and can't be imported
+ * from a named package. This class looks them up by name once, during benchmark setup, and hands out method handles,
+ * so the measured code only pays for a method handle call.
+ */
+final class GeneratorBridge {
+    private GeneratorBridge() {
+    }
+
+    /**
+     * @param className  is the name of a class in the default package
+     * @param parameters is the constructor's parameter types
+     * @param arguments  is the constructor's arguments
+     * @return a new instance of the class
+     * @throws ReflectiveOperationException if the class or constructor can't be found or called
+     */
+    static Object newInstance(String className, Class<?>[] parameters, Object... arguments)
+            throws ReflectiveOperationException {
+        Constructor<?> constructor = Class.forName(className).getDeclaredConstructor(parameters);
+        constructor.setAccessible(true);
+        return constructor.newInstance(arguments);
+    }
+
+    /**
+     * @param className  is the name of a class in the default package
+     * @param methodName is the name of the method, which may be protected
+     * @param parameters is the method's parameter types
+     * @return a method handle for the method, taking the target object as its first argument
+     * @throws ReflectiveOperationException if the class or method can't be found
+     */
+    static MethodHandle method(String className, String methodName, Class<?>... parameters)
+            throws ReflectiveOperationException {
+        Method method = Class.forName(className).getDeclaredMethod(methodName, parameters);
+        method.setAccessible(true);
+        return MethodHandles.lookup().unreflect(method);
+    }
+}
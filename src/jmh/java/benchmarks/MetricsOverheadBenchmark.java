@@ -0,0 +1,61 @@
+/*
+ Author: Samuel Agyakwa
+ Date: 02/20/2020
+ */
+
+package benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import utils.GenerationMetrics;
+import utils.RecordingMetrics;
+
+import java.lang.invoke.MethodHandle;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The cost of the phase metrics on the per-ID hot path. "disabled" is the default every generator runs with, and
+ * should be indistinguishable from an engine without any instrumentation. "recording" reads the clock around every
+ * byte draw and character mapping, and records both into the lock-free histograms of RecordingMetrics.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class MetricsOverheadBenchmark {
+    private static final String CUSTOMER_ROW = "13342870113f5f7781cf665A.K. ASSOCIATES INC.AMIN41 WALPOLE STREETSHARONMA02067";
+
+    @Param({"disabled", "recording"})
+    public String metrics;
+
+    private Object drbgEngine;
+    private MethodHandle generate;
+
+    @Setup
+    public void setUp() throws ReflectiveOperationException {
+        GenerationMetrics generationMetrics = metrics.equals("recording")
+                ? new RecordingMetrics()
+                : GenerationMetrics.DISABLED;
+        drbgEngine = GeneratorBridge.newInstance("DRBGEngine",
+                new Class<?>[]{String.class, byte[].class, GenerationMetrics.class}, "HASH_DRBG",
+                "MetricsOverheadBenchmark".getBytes(StandardCharsets.UTF_8), generationMetrics);
+        generate = GeneratorBridge.method("DRBGEngine", "generate", String.class);
+    }
+
+    @Benchmark
+    public Object generate() throws Throwable {
+        return generate.invoke(drbgEngine, CUSTOMER_ROW);
+    }
+}
@@ -0,0 +1,74 @@
+/*
+ Author: Samuel Agyakwa
+ Date: 02/20/2020
+ */
+
+package benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import utils.ReseedPolicy;
+
+import java.lang.invoke.MethodHandle;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ID generation on a long-lived DRBGEngine under each reseed policy, from never reseeding to prediction resistance on
+ * every call. The difference to "never" is the amortized cost of the fresh entropy the policy pulls in.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class ReseedPolicyBenchmark {
+    private static final String CUSTOMER_ROW = "13342870113f5f7781cf665A.K. ASSOCIATES INC.AMIN41 WALPOLE STREETSHARONMA02067";
+
+    @Param({"never", "everyCall", "every10000Ids", "every100Ids", "every10Millis", "every64KBytes"})
+    public String policy;
+
+    private Object drbgEngine;
+    private MethodHandle generate;
+
+    @Setup
+    public void setUp() throws Throwable {
+        drbgEngine = GeneratorBridge.newInstance("DRBGEngine", new Class<?>[]{String.class, byte[].class},
+                "HASH_DRBG", "ReseedPolicyBenchmark".getBytes(StandardCharsets.UTF_8));
+        GeneratorBridge.method("DRBGEngine", "setReseedPolicy", ReseedPolicy.class)
+                .invoke(drbgEngine, reseedPolicy(policy));
+        generate = GeneratorBridge.method("DRBGEngine", "generate", String.class);
+    }
+
+    @Benchmark
+    public Object generate() throws Throwable {
+        return generate.invoke(drbgEngine, CUSTOMER_ROW);
+    }
+
+    private static ReseedPolicy reseedPolicy(String policy) {
+        switch (policy) {
+            case "everyCall":
+                return ReseedPolicy.predictionResistanceOnEveryCall();
+            case "every10000Ids":
+                return ReseedPolicy.everyIds(10_000);
+            case "every100Ids":
+                return ReseedPolicy.everyIds(100);
+            case "every10Millis":
+                return ReseedPolicy.everyMillis(10);
+            case "every64KBytes":
+                return ReseedPolicy.everyBytes(1 << 16);
+            default:
+                return ReseedPolicy.never();
+        }
+    }
+}
@@ -0,0 +1,310 @@
+/*
+ Author: Samuel Agyakwa
+ Date: 02/20/2020
+ */
+
+package benchmarks;
+
+import utils.SyntheticCSVGenerator;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.invoke.MethodHandle;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * End-to-end throughput regression check, run by "gradlew throughputCheck" (not by "gradlew check"). Every
+ * generation path runs over the same deterministic synthetic customer file, and the harness records rows per second,
+ * peak heap and GC time. A path fails when its rows per second fall below the stored baseline, or its peak heap grows
+ * above it, by more than the tolerance. A path that looks regressed is measured again before it fails, so a burst of
+ * load from another process on the machine doesn't fail the build. GC time is reported but not checked, it is too
+ * noisy for short runs.
+ *
+ * Baselines depend on the machine, so the check is only meaningful on the machine its baseline was written on, and a
+ * new machine (or an intended change in performance) needs a new baseline: run with --update to write the measured
+ * results as the baseline. Without a baseline file the check fails, rather than passing by writing one.
+ *
+ * Usage: ThroughputRegressionHarness baselineFile [--update] [--tolerance=0.25] [--rows=20000]
+ */
+public final class ThroughputRegressionHarness {
+    private static final int DEFAULT_ROWS = 20_000;
+    private static final double DEFAULT_TOLERANCE = 0.25;
+    private static final int MEASURED_RUNS = 5;
+    private static final int CONFIRMATION_ROUNDS = 2; // A path only fails if it regresses in every round
+    private static final int PARALLELISM = 4;
+
+    // The shape of the synthetic file, a baseline is only comparable with runs over the same shape
+    private static final int COLUMNS = 9;
+    private static final double QUOTED_FIELD_DENSITY = 0.2;
+    private static final double NEWLINE_DENSITY = 0.05;
+    private static final long SEED = 20200220;
+
+    private ThroughputRegressionHarness() {
+    }
+
+    /**
+     * One generation path, as called on a TransactionGenerator through a method handle.
+     */
+    private interface GenerationPath {
+        void generate(Object transactionGenerator, String csvFilePath) throws Throwable;
+    }
+
+    /**
+     * What one path measured, the best of its runs.
+     */
+    private static final class Measurement {
+        private final double rowsPerSecond;
+        private final long peakHeapBytes;
+        private final long gcMillis;
+
+        private Measurement(double rowsPerSecond, long peakHeapBytes, long gcMillis) {
+            this.rowsPerSecond = rowsPerSecond;
+            this.peakHeapBytes = peakHeapBytes;
+            this.gcMillis = gcMillis;
+        }
+    }
+
+    public static void main(String[] args) throws Throwable {
+        if (args.length == 0) {
+            System.err.println("Usage: ThroughputRegressionHarness baselineFile [--update] [--tolerance=0.25] "
+                    + "[--rows=20000]");
+            System.exit(2);
+        }
+        Path baselineFile = Paths.get(args[0]);
+        boolean update = false;
+        double tolerance = DEFAULT_TOLERANCE;
+        int rows = DEFAULT_ROWS;
+        for (int i = 1; i < args.length; i++) {
+            if (args[i].equals("--update")) {
+                update = true;
+            } else if (args[i].startsWith("--tolerance=")) {
+                tolerance = Double.parseDouble(args[i].substring("--tolerance=".length()));
+            } else if (args[i].startsWith("--rows=")) {
+                rows = Integer.parseInt(args[i].substring("--rows=".length()));
+            } else {
+                throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+
+        Path csvFile = Files.createTempFile("synthetic-customers", ".csv");
+        try {
+            new SyntheticCSVGenerator(COLUMNS, QUOTED_FIELD_DENSITY, NEWLINE_DENSITY, SEED).write(csvFile, rows,
+                    true);
+            String shape = rows + " rows, " + new SyntheticCSVGenerator(COLUMNS, QUOTED_FIELD_DENSITY,
+                    NEWLINE_DENSITY, SEED);
+            check(baselineFile, shape, csvFile, rows, update, tolerance);
+        } finally {
+            Files.delete(csvFile);
+        }
+    }
+
+    private static void check(Path baselineFile, String shape, Path csvFile, int rows, boolean update,
+                              double tolerance) throws Throwable {
+        Properties baseline = load(baselineFile);
+        if (baseline == null && !update) {
+            System.err.println("There is no baseline at " + baselineFile + ", run with --update to write one");
+            System.exit(1);
+        }
+
+        Object transactionGenerator = GeneratorBridge.newInstance("TransactionGenerator", new Class<?>[0]);
+        Map<String, GenerationPath> paths = paths();
+        Map<String, Measurement> measurements = new LinkedHashMap<>();
+        for (Map.Entry<String, GenerationPath> path : paths.entrySet()) {
+            measurements.put(path.getKey(), measure(path.getValue(), transactionGenerator, csvFile, rows));
+        }
+
+        if (update) {
+            save(baselineFile, shape, measurements);
+            System.out.println("Wrote the baseline to " + baselineFile);
+            return;
+        }
+        if (!shape.equals(baseline.getProperty("shape"))) {
+            System.err.println("The baseline is for " + baseline.getProperty("shape") + ", not " + shape
+                    + ", run with --update to replace it");
+            System.exit(1);
+        }
+
+        List<String> regressions = new ArrayList<>();
+        for (Map.Entry<String, Measurement> entry : measurements.entrySet()) {
+            String path = entry.getKey();
+            String baselineRowsPerSecond = baseline.getProperty(path + ".rowsPerSecond");
+            if (baselineRowsPerSecond == null) {
+                System.out.println(path + " has no baseline yet");
+                continue;
+            }
+            double expectedRowsPerSecond = Double.parseDouble(baselineRowsPerSecond);
+            long expectedPeakHeapBytes = Long.parseLong(baseline.getProperty(path + ".peakHeapBytes"));
+
+            Measurement measurement = entry.getValue();
+            String regression = regression(path, measurement, expectedRowsPerSecond, expectedPeakHeapBytes,
+                    tolerance);
+            for (int round = 0; regression != null && round < CONFIRMATION_ROUNDS; round++) {
+                System.out.println(path + " looks regressed, measuring it again");
+                measurement = measure(paths.get(path), transactionGenerator, csvFile, rows);
+                regression = regression(path, measurement, expectedRowsPerSecond, expectedPeakHeapBytes,
+                        tolerance);
+            }
+            System.out.printf("%s: %.0f rows/s (baseline %.0f), peak heap %d MB (baseline %d MB), GC %d ms "
+                            + "(baseline %s ms)%n", path, measurement.rowsPerSecond, expectedRowsPerSecond,
+                    measurement.peakHeapBytes >> 20, expectedPeakHeapBytes >> 20, measurement.gcMillis,
+                    baseline.getProperty(path + ".gcMillis"));
+            if (regression != null) {
+                regressions.add(regression);
+            }
+        }
+
+        if (!regressions.isEmpty()) {
+            for (String regression : regressions) {
+                System.err.println("REGRESSION: " + regression);
+            }
+            System.exit(1);
+        }
+        System.out.println("No regressions, tolerance " + tolerance);
+    }
+
+    /**
+     * @return a description of how the measurement regressed from the baseline, or null if it is within tolerance
+     */
+    private static String regression(String path, Measurement measurement, double expectedRowsPerSecond,
+                                     long expectedPeakHeapBytes, double tolerance) {
+        if (measurement.rowsPerSecond < expectedRowsPerSecond * (1 - tolerance)) {
+            return String.format("%s throughput fell to %.0f rows/s, more than %.0f%% below %.0f", path,
+                    measurement.rowsPerSecond, tolerance * 100, expectedRowsPerSecond);
+        }
+        if (measurement.peakHeapBytes > expectedPeakHeapBytes * (1 + tolerance)) {
+            return String.format("%s peak heap grew to %d MB, more than %.0f%% above %d MB", path,
+                    measurement.peakHeapBytes >> 20, tolerance * 100, expectedPeakHeapBytes >> 20);
+        }
+        return null;
+    }
+
+    /**
+     * @return every generation path, by name
+     */
+    private static Map<String, GenerationPath> paths() throws ReflectiveOperationException {
+        MethodHandle generateAllAlphaNumericID = GeneratorBridge.method("TransactionGenerator",
+                "generateAllAlphaNumericID", String.class, boolean.class, boolean.class, int.class);
+        MethodHandle generateAllAlphaNumericIDBlock = GeneratorBridge.method("TransactionGenerator",
+                "generateAllAlphaNumericIDBlock", String.class, boolean.class);
+        MethodHandle generateAllAlphaNumericIDMapped = GeneratorBridge.method("TransactionGenerator",
+                "generateAllAlphaNumericIDMapped", String.class, boolean.class);
+        MethodHandle generateAllAlphaNumericIDParallel = GeneratorBridge.method("TransactionGenerator",
+                "generateAllAlphaNumericIDParallel", String.class, boolean.class, int.class);
+
+        Map<String, GenerationPath> paths = new LinkedHashMap<>();
+        paths.put("perID", (generator, csvFilePath) ->
+                generateAllAlphaNumericID.invoke(generator, csvFilePath, true, false, 1));
+        paths.put("batch", (generator, csvFilePath) ->
+                generateAllAlphaNumericID.invoke(generator, csvFilePath, true, false, 256));
+        paths.put("idBlock", (generator, csvFilePath) ->
+                generateAllAlphaNumericIDBlock.invoke(generator, csvFilePath, true));
+        paths.put("mapped", (generator, csvFilePath) ->
+                generateAllAlphaNumericIDMapped.invoke(generator, csvFilePath, true));
+        paths.put("parallel", (generator, csvFilePath) ->
+                generateAllAlphaNumericIDParallel.invoke(generator, csvFilePath, true, PARALLELISM));
+        return paths;
+    }
+
+    /**
+     * Runs a path over the synthetic file: once to warm up, then MEASURED_RUNS times.
+     *
+     * @param path                 is the path to measure
+     * @param transactionGenerator is the TransactionGenerator to run the path on
+     * @param csvFile              is the synthetic file
+     * @param rows                 is the number of rows of the synthetic file
+     * @return the best rows per second, the highest peak heap and the lowest GC time of the runs
+     */
+    private static Measurement measure(GenerationPath path, Object transactionGenerator, Path csvFile, int rows)
+            throws Throwable {
+        path.generate(transactionGenerator, csvFile.toString()); // Warm up
+        double bestRowsPerSecond = 0;
+        long peakHeapBytes = 0;
+        long gcMillis = Long.MAX_VALUE;
+        for (int run = 0; run < MEASURED_RUNS; run++) {
+            System.gc();
+            resetPeakHeap();
+            long gcMillisBefore = gcMillis();
+            long startTime = System.nanoTime();
+            path.generate(transactionGenerator, csvFile.toString());
+            long elapsedTime = System.nanoTime() - startTime;
+
+            bestRowsPerSecond = Math.max(bestRowsPerSecond, rows * 1e9 / elapsedTime);
+            peakHeapBytes = Math.max(peakHeapBytes, peakHeap());
+            gcMillis = Math.min(gcMillis, gcMillis() - gcMillisBefore);
+        }
+        return new Measurement(bestRowsPerSecond, peakHeapBytes, gcMillis);
+    }
+
+    private static void resetPeakHeap() {
+        for (MemoryPoolMXBean memoryPool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (memoryPool.getType() == MemoryType.HEAP) {
+                memoryPool.resetPeakUsage();
+            }
+        }
+    }
+
+    /**
+     * @return the sum of the peak usage of every heap pool since the last reset, an upper bound of the peak heap
+     */
+    private static long peakHeap() {
+        long peakHeapBytes = 0;
+        for (MemoryPoolMXBean memoryPool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (memoryPool.getType() == MemoryType.HEAP) {
+                peakHeapBytes += memoryPool.getPeakUsage().getUsed();
+            }
+        }
+        return peakHeapBytes;
+    }
+
+    private static long gcMillis() {
+        long gcMillis = 0;
+        for (GarbageCollectorMXBean garbageCollector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            gcMillis += Math.max(0, garbageCollector.getCollectionTime());
+        }
+        return gcMillis;
+    }
+
+    private static Properties load(Path baselineFile) throws IOException {
+        if (!Files.exists(baselineFile)) {
+            return null;
+        }
+        Properties baseline = new Properties();
+        try (InputStream inputStream = Files.newInputStream(baselineFile)) {
+            baseline.load(inputStream);
+        }
+        return baseline;
+    }
+
+    private static void save(Path baselineFile, String shape, Map<String, Measurement> measurements)
+            throws IOException {
+        Properties baseline = new Properties();
+        baseline.setProperty("shape", shape);
+        for (Map.Entry<String, Measurement> entry : measurements.entrySet()) {
+            Measurement measurement = entry.getValue();
+            baseline.setProperty(entry.getKey() + ".rowsPerSecond", Long.toString(Math.round(
+                    measurement.rowsPerSecond)));
+            baseline.setProperty(entry.getKey() + ".peakHeapBytes", Long.toString(measurement.peakHeapBytes));
+            baseline.setProperty(entry.getKey() + ".gcMillis", Long.toString(measurement.gcMillis));
+            System.out.printf("%s: %.0f rows/s, peak heap %d MB, GC %d ms%n", entry.getKey(),
+                    measurement.rowsPerSecond, measurement.peakHeapBytes >> 20, measurement.gcMillis);
+        }
+        if (baselineFile.getParent() != null) {
+            Files.createDirectories(baselineFile.getParent());
+        }
+        try (OutputStream outputStream = Files.newOutputStream(baselineFile)) {
+            baseline.store(outputStream, "Throughput baseline, written by ThroughputRegressionHarness --update");
+        }
+    }
+}
@@ -0,0 +1,558 @@
+/*
+ Author: Samuel Agyakwa
+ Date: 02/20/2020
+
+ Long-lived DRBG engine. Instead of instantiating a brand new DRBG for every customer row (which means a full
+ instantiate + fresh entropy seeding per ID), the DRBG is instantiated once and every customer row is fed into it as
+ additional input through DrbgParameters.nextBytes. Per SP 800-90A, additional input is mixed into the internal state
+ before the output is produced, so the customer data still shapes the output of every single ID.
+
+ The DRBG is instantiated with prediction resistance support, but draws only ask for it when the reseed policy says so
+ (ReseedPolicy.predictionResistanceOnEveryCall). By default they don't, unlike a plain nextBytes or nextInt on the same
+ instantiation, which reseeds from the entropy source on every call. The default policy reseeds once every
+ ReseedPolicy.DEFAULT_RESEED_IDS IDs instead, so fresh entropy still comes in, and a leaked internal state only
+ predicts the IDs up to the next reseed.
+
+ Random bytes are drawn in blocks (one nextBytes call per ID, or per batch of IDs) and mapped onto the alphabet of the
+ ID format by its table driven encoder (see IdEncoder), instead of calling nextInt once for every character.
+ */
+
+import org.jetbrains.annotations.NotNull;
+import utils.EntropyPool;
+import utils.GenerationMetrics;
+import utils.IDCollisionIndex;
+import utils.IdBlock;
+import utils.IdFormat;
+import utils.ReseedPolicy;
+import utils.RowDigest;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.security.DrbgParameters;
+import java.security.NoSuchAlgorithmException;
+import java.security.NoSuchProviderException;
+import java.security.SecureRandom;
+import java.security.Security;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * DRBG engine that is instantiated once and reused for every generated ID.
+ * An engine keeps a reusable output buffer, so a single instance should not be shared between threads.
+ */
+public class DRBGEngine {
+    static final String ACCEPTED_CHARACTERS = IdFormat.BASE62_ALPHABET;
+    static final short MAX_ID_LENGTH = 24;
+    static final IdFormat DEFAULT_ID_FORMAT = IdFormat.base62(MAX_ID_LENGTH);
+    static final String HASH_DRBG = "HASH_DRBG";
+    static final String SECURE_RANDOM_CONFIG = "securerandom.drbg.config";
+    static final String SECURE_RANDOM_ALGORITHM = "DRBG";
+    static final String SECURE_RANDOM_PROVIDER = "SUN";
+    static final int SECURITY_STRENGTH = 256;
+
+    // Identifies this application's DRBG instantiations, so they differ from any other instantiation
+    static final String DEFAULT_PERSONALIZATION = "Alphanumeric-Secure-Random-Generator";
+
+    // The mechanism is a JVM-wide security property, so it may only change while nobody else is instantiating
+    private static final ReentrantReadWriteLock MECHANISM_LOCK = new ReentrantReadWriteLock();
+
+    private final SecureRandom secureRandomObject;
+    private final byte[] topUpBlock; // Extra random bytes for an ID that ran out of accepted bytes
+    private IdFormat idFormat;
+    private int bytesPerId; // Random bytes drawn for every ID, see IdFormat.randomBytesPerId
+    private int randomLength; // The length of an ID before its check character
+    private byte[] randomBlock; // Random bytes for one ID
+    private StringBuilder scratchID; // Reused by generateInto, the ID is copied into the IdBlock
+    private IdBlock idPacker; // Only used to pack IDs for the collision index, never holds any
+    private IDCollisionIndex collisionIndex; // Optional uniqueness guard, null when IDs aren't checked
+    private byte[] packedID; // The ID packed as a collision index key
+    private long collisions;
+    private GenerationMetrics metrics;
+    private boolean timed; // Only read the clock when the metrics are enabled
+    private ReseedPolicy reseedPolicy;
+    private long idsSinceReseed;
+    private long bytesSinceReseed;
+    private long lastReseedNanos;
+    private long reseeds;
+    private EntropyPool entropyPool; // Optional source of pooled seed material for policy reseeds
+    private final RowDigest rowDigest; // Reduces String rows to the additional input of their draw
+
+    /**
+     * Constructor that instantiates the DRBG once, using HASH_DRBG and the default personalization string.
+     *
+     * @throws NoSuchAlgorithmException if a DRBG implementation is not available from the SUN provider
+     * @throws NoSuchProviderException  if the SUN provider is not available
+     */
+    public DRBGEngine() throws NoSuchAlgorithmException, NoSuchProviderException {
+        this(HASH_DRBG, DEFAULT_PERSONALIZATION.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Constructor that instantiates the DRBG once, with 256 bits of security strength and prediction resistance +
+     * reseeding support.
+     *
+     * @param mechanism              is the securerandom.drbg.config value (e.g. "HASH_DRBG", "HMAC_DRBG", "CTR_DRBG")
+     * @param personalizationString is the personalization string used to instantiate the DRBG
+     * @throws NoSuchAlgorithmException if a DRBG implementation is not available from the SUN provider
+     * @throws NoSuchProviderException  if the SUN provider is not available
+     */
+    public DRBGEngine(@NotNull String mechanism, byte[] personalizationString)
+            throws NoSuchAlgorithmException, NoSuchProviderException {
+        this(mechanism, personalizationString, GenerationMetrics.DISABLED);
+    }
+
+    /**
+     * Constructor that instantiates the DRBG once, and reports the time spent in each phase to the given metrics.
+     *
+     * @param mechanism              is the securerandom.drbg.config value (e.g. "HASH_DRBG", "HMAC_DRBG", "CTR_DRBG")
+     * @param personalizationString is the personalization string used to instantiate the DRBG
+     * @param metrics                is where to record the instantiation, byte draw and character mapping times
+     * @throws NoSuchAlgorithmException if a DRBG implementation is not available from the SUN provider
+     * @throws NoSuchProviderException  if the SUN provider is not available
+     */
+    public DRBGEngine(@NotNull String mechanism, byte[] personalizationString, @NotNull GenerationMetrics metrics)
+            throws NoSuchAlgorithmException, NoSuchProviderException {
+        setMetrics(metrics);
+        long startTime = this.timed ? System.nanoTime() : 0;
+
+        this.secureRandomObject = instantiate(mechanism, personalizationString);
+        if (this.timed) this.metrics.record(GenerationMetrics.Phase.DRBG_SEED, System.nanoTime() - startTime);
+
+        this.topUpBlock = new byte[Long.BYTES];
+        this.rowDigest = new RowDigest();
+        setIdFormat(DEFAULT_ID_FORMAT);
+        this.reseedPolicy = ReseedPolicy.defaultPolicy();
+        this.lastReseedNanos = System.nanoTime();
+    }
+
+    /**
+     * Instantiates a DRBG from the SUN provider with 256 bits of security strength and prediction resistance +
+     * reseeding support. The SUN DRBG reads its mechanism from the securerandom.drbg.config security property when it
+     * is instantiated, so the property is only set when it names a different mechanism, and never while another thread
+     * is instantiating. Instantiations of the mechanism already configured run concurrently.
+     *
+     * @param mechanism              is the securerandom.drbg.config value (e.g. "HASH_DRBG", "HMAC_DRBG", "CTR_DRBG")
+     * @param personalizationString is the personalization string used to instantiate the DRBG
+     * @return the instantiated DRBG
+     * @throws NoSuchAlgorithmException if a DRBG implementation is not available from the SUN provider
+     * @throws NoSuchProviderException  if the SUN provider is not available
+     */
+    static SecureRandom instantiate(@NotNull String mechanism, byte[] personalizationString)
+            throws NoSuchAlgorithmException, NoSuchProviderException {
+        MECHANISM_LOCK.readLock().lock();
+        try {
+            if (mechanism.equals(Security.getProperty(SECURE_RANDOM_CONFIG))) {
+                return newSecureRandom(personalizationString);
+            }
+        } finally {
+            MECHANISM_LOCK.readLock().unlock();
+        }
+
+        // A different mechanism, wait for every running instantiation to finish before switching
+        MECHANISM_LOCK.writeLock().lock();
+        try {
+            if (!mechanism.equals(Security.getProperty(SECURE_RANDOM_CONFIG))) {
+                Security.setProperty(SECURE_RANDOM_CONFIG, mechanism);
+            }
+            return newSecureRandom(personalizationString);
+        } finally {
+            MECHANISM_LOCK.writeLock().unlock();
+        }
+    }
+
+    private static SecureRandom newSecureRandom(byte[] personalizationString)
+            throws NoSuchAlgorithmException, NoSuchProviderException {
+        return SecureRandom.getInstance(SECURE_RANDOM_ALGORITHM,
+                DrbgParameters.instantiation(SECURITY_STRENGTH, DrbgParameters.Capability.PR_AND_RESEED,
+                        personalizationString), SECURE_RANDOM_PROVIDER);
+    }
+
+    /**
+     * Generates an ID (24 alphanumeric characters, unless another ID format was set) from the long-lived DRBG, using
+     * the digest of the customer's information (see RowDigest) as additional input. The bytes for the whole ID are
+     * drawn with a single nextBytes call.
+     *
+     * @param customerInfoString is the String of the customer's information, using it as bits.
+     * @return a StringBuilder object containing a secure random ID
+     */
+    @NotNull
+    public StringBuilder generate(@NotNull String customerInfoString) {
+        StringBuilder randomAlphanumericID = new StringBuilder(this.idFormat.getTotalLength());
+
+        // One DRBG round-trip per ID, with the customer row mixed in as additional input
+        byte[] additionalInput = this.rowDigest.digest(customerInfoString);
+        drawBytes(this.randomBlock, additionalInput);
+        fillID(randomAlphanumericID, this.randomBlock, 0, additionalInput);
+
+        return randomAlphanumericID;
+    }
+
+    /**
+     * Generates an ID from the long-lived DRBG, using raw customer bytes (e.g. a row parsed straight from a memory
+     * mapped file) as additional input, without going through a String.
+     *
+     * @param customerBytes is the buffer holding the customer's information
+     * @param offset        is the index of the first byte of the customer's information
+     * @param length        is the number of bytes of the customer's information
+     * @return a StringBuilder object containing a secure random ID
+     */
+    @NotNull
+    public StringBuilder generate(@NotNull byte[] customerBytes, int offset, int length) {
+        StringBuilder randomAlphanumericID = new StringBuilder(this.idFormat.getTotalLength());
+
+        // DrbgParameters.nextBytes only takes a whole array as additional input (e.g. a RowDigest)
+        byte[] additionalInput = offset == 0 && length == customerBytes.length ? customerBytes
+                : Arrays.copyOfRange(customerBytes, offset, offset + length);
+        drawBytes(this.randomBlock, additionalInput);
+        fillID(randomAlphanumericID, this.randomBlock, 0, additionalInput);
+
+        return randomAlphanumericID;
+    }
+
+    /**
+     * Generates an ID like generate(String), but packs it straight into an IdBlock instead of returning a new
+     * StringBuilder.
+     *
+     * @param customerInfoString is the String of the customer's information, using it as bits.
+     * @param idBlock            is the block to add the ID to, for IDs of this engine's format
+     * @return the index of the ID in the block
+     */
+    public int generateInto(@NotNull String customerInfoString, @NotNull IdBlock idBlock) {
+        byte[] additionalInput = this.rowDigest.digest(customerInfoString);
+        drawBytes(this.randomBlock, additionalInput);
+        this.scratchID.setLength(0);
+        fillID(this.scratchID, this.randomBlock, 0, additionalInput);
+
+        return idBlock.add(this.scratchID);
+    }
+
+    /**
+     * Generates an ID like generate(byte[], int, int), but packs it straight into an IdBlock instead of returning a new
+     * StringBuilder.
+     *
+     * @param customerBytes is the customer's information, e.g. the digest of the selected columns of a row
+     * @param idBlock       is the block to add the ID to, for IDs of this engine's format
+     * @return the index of the ID in the block
+     */
+    public int generateInto(@NotNull byte[] customerBytes, @NotNull IdBlock idBlock) {
+        drawBytes(this.randomBlock, customerBytes);
+        this.scratchID.setLength(0);
+        fillID(this.scratchID, this.randomBlock, 0, customerBytes);
+
+        return idBlock.add(this.scratchID);
+    }
+
+    /**
+     * @param initialCapacity is the number of IDs to make room for up front
+     * @return an empty IdBlock for IDs of the default format, 24 alphanumeric characters
+     */
+    @NotNull
+    public static IdBlock newIdBlock(int initialCapacity) {
+        return new IdBlock(DEFAULT_ID_FORMAT, initialCapacity);
+    }
+
+    /**
+     * Generates one ID per customer row, drawing the bytes for the whole batch with a single nextBytes call. The digest
+     * of every row of the batch is mixed in as additional input for that call, so the customer data still shapes the
+     * output of each ID in the batch.
+     *
+     * @param customerInfoStrings is the list of customer information Strings, one per ID
+     * @return a list of StringBuilder objects, one secure random ID per customer row, in input order
+     */
+    @NotNull
+    public List<StringBuilder> generateBatch(@NotNull List<String> customerInfoStrings) {
+        if (customerInfoStrings.isEmpty()) {
+            return new ArrayList<>(0);
+        }
+
+        byte[] additionalInput = new byte[customerInfoStrings.size() * RowDigest.DIGEST_SIZE];
+        for (int row = 0; row < customerInfoStrings.size(); row++) {
+            System.arraycopy(this.rowDigest.digest(customerInfoStrings.get(row)), 0, additionalInput,
+                    row * RowDigest.DIGEST_SIZE, RowDigest.DIGEST_SIZE);
+        }
+        return generateBatch(additionalInput, customerInfoStrings.size());
+    }
+
+    /**
+     * Generates a batch of IDs with a single nextBytes call, like generateBatch(List), from customer information that
+     * is already bytes (e.g. the row digests of the batch, one after the other).
+     *
+     * @param additionalInput is the customer information of every row of the batch
+     * @param idCount         is the number of IDs to generate
+     * @return a list of StringBuilder objects, idCount secure random IDs
+     */
+    @NotNull
+    public List<StringBuilder> generateBatch(@NotNull byte[] additionalInput, int idCount) {
+        List<StringBuilder> randomIDList = new ArrayList<>(idCount);
+        if (idCount == 0) {
+            return randomIDList;
+        }
+
+        byte[] batchBlock = new byte[idCount * this.bytesPerId];
+        drawBytes(batchBlock, additionalInput);
+
+        for (int i = 0; i < idCount; i++) {
+            StringBuilder randomAlphanumericID = new StringBuilder(this.idFormat.getTotalLength());
+            fillID(randomAlphanumericID, batchBlock, i * this.bytesPerId, additionalInput);
+            randomIDList.add(randomAlphanumericID);
+        }
+
+        return randomIDList;
+    }
+
+    /**
+     * Maps a slice of bytesPerId random bytes onto an ID of the engine's format. In the rare case the slice runs out
+     * because too many bits were rejected, the ID is topped up with fresh bytes from the DRBG. When the uniqueness
+     * guard is on, an ID that was already issued is regenerated from fresh bytes. Top-ups and redraws go through
+     * drawBytes like every other draw, with the same additional input, so the reseed policy covers them too.
+     *
+     * @param randomAlphanumericID is the ID to fill
+     * @param randomBytes          is the block of random bytes to read from
+     * @param offset               is the start of this ID's slice of the block
+     * @param additionalInput      is the customer information the ID's bytes were drawn with
+     */
+    private void fillID(StringBuilder randomAlphanumericID, byte[] randomBytes, int offset, byte[] additionalInput) {
+        long startTime = this.timed ? System.nanoTime() : 0;
+        mapID(randomAlphanumericID, randomBytes, offset, additionalInput);
+        if (this.timed) {
+            this.metrics.record(GenerationMetrics.Phase.CHARACTER_MAPPING, System.nanoTime() - startTime);
+        }
+
+        if (this.collisionIndex != null) {
+            this.idPacker.pack(randomAlphanumericID, this.packedID, 0);
+
+            // The ID was issued before, throw it away and draw a new one
+            while (!this.collisionIndex.add(this.packedID, 0)) {
+                this.collisions++;
+                randomAlphanumericID.setLength(0);
+                drawBytes(this.randomBlock, additionalInput);
+                mapID(randomAlphanumericID, this.randomBlock, 0, additionalInput);
+                this.idPacker.pack(randomAlphanumericID, this.packedID, 0);
+            }
+        }
+    }
+
+    /**
+     * Builds an ID from a slice of bytesPerId random bytes: the prefix, the random characters (topped up if the slice
+     * runs out) and the check character.
+     *
+     * @param randomAlphanumericID is the empty ID to fill
+     * @param randomBytes          is the block of random bytes to read from
+     * @param offset               is the start of this ID's slice of the block
+     * @param additionalInput      is the customer information to draw top-up bytes with
+     */
+    private void mapID(StringBuilder randomAlphanumericID, byte[] randomBytes, int offset, byte[] additionalInput) {
+        randomAlphanumericID.append(this.idFormat.getPrefix());
+        this.idFormat.appendRandomCharacters(randomBytes, offset, offset + this.bytesPerId, randomAlphanumericID);
+        while (randomAlphanumericID.length() < this.randomLength) {
+            drawBytes(this.topUpBlock, additionalInput, 0); // More bytes for the same ID
+            this.idFormat.appendRandomCharacters(this.topUpBlock, 0, this.topUpBlock.length, randomAlphanumericID);
+        }
+        this.idFormat.appendCheckCharacter(randomAlphanumericID);
+    }
+
+    /**
+     * Fills a block with random bytes from the DRBG, with the given additional input, in a single nextBytes call.
+     * The DRBG is reseeded first if the reseed policy says so. Every draw of the engine goes through here, so the
+     * policy (and getReseeds) covers all of them.
+     *
+     * @param block           is the block to fill, bytesPerId bytes per ID
+     * @param additionalInput is the additional input mixed into the DRBG state before the bytes are produced
+     */
+    private void drawBytes(byte[] block, byte[] additionalInput) {
+        drawBytes(block, additionalInput, block.length / this.bytesPerId);
+    }
+
+    /**
+     * Same as drawBytes(block, additionalInput), for a block that isn't a whole number of IDs (e.g. top-up bytes).
+     * A block that would take an ID or byte count policy past its limit is drawn in pieces, with a reseed wherever the
+     * limit falls, so a batch never draws more IDs or bytes from one seed than the policy allows.
+     *
+     * @param block           is the block to fill
+     * @param additionalInput is the additional input mixed into the DRBG state before the bytes are produced
+     * @param idCount         is the number of new IDs the bytes are for, counted by the reseed policy
+     */
+    private void drawBytes(byte[] block, byte[] additionalInput, int idCount) {
+        int drawn = 0;
+        do {
+            if (this.reseedPolicy.isReseedDue(this.idsSinceReseed, this.bytesSinceReseed,
+                    this.reseedPolicy.isTimed() ? System.nanoTime() - this.lastReseedNanos : 0)) {
+                reseed();
+            }
+
+            // Up to the policy's limit, which only ID and byte count policies have (top-up bytes aren't new IDs)
+            long pieceLimit = this.reseedPolicy.bytesBeforeReseed(this.bytesSinceReseed);
+            long idsLeft = this.reseedPolicy.idsBeforeReseed(this.idsSinceReseed);
+            if (idCount > 0 && idsLeft < block.length) {
+                pieceLimit = Math.min(pieceLimit, idsLeft * this.bytesPerId);
+            }
+            int pieceLength = (int) Math.min(block.length - drawn, pieceLimit);
+            byte[] piece = drawn == 0 && pieceLength == block.length ? block : new byte[pieceLength];
+
+            long startTime = this.timed ? System.nanoTime() : 0;
+            boolean predictionResistance = this.reseedPolicy.isPredictionResistant();
+            this.secureRandomObject.nextBytes(piece, DrbgParameters.nextBytes(SECURITY_STRENGTH,
+                    predictionResistance, additionalInput));
+            if (this.timed) this.metrics.record(GenerationMetrics.Phase.BYTE_DRAW, System.nanoTime() - startTime);
+            if (piece != block) {
+                System.arraycopy(piece, 0, block, drawn, pieceLength);
+            }
+
+            if (predictionResistance) {
+                this.reseeds++; // A prediction resistant draw reseeds from the entropy source first
+            } else if (idCount > 0) {
+                // The IDs whose last byte is in this piece
+                this.idsSinceReseed += (drawn + pieceLength) / this.bytesPerId - drawn / this.bytesPerId;
+                this.bytesSinceReseed += pieceLength;
+            } else {
+                this.bytesSinceReseed += pieceLength;
+            }
+            drawn += pieceLength;
+        } while (drawn < block.length);
+    }
+
+    /**
+     * Reseeds the DRBG with fresh entropy, and restarts the reseed policy's counts. Without an entropy pool, the DRBG
+     * reseeds itself from the system entropy source. With one, a pooled seed is the entropy input of the reseed, so the
+     * generator thread never reads the entropy source itself.
+     */
+    private void reseed() {
+        long startTime = this.timed ? System.nanoTime() : 0;
+        if (this.entropyPool == null) {
+            this.secureRandomObject.reseed(DrbgParameters.reseed(false, null));
+        } else {
+            byte[] seed;
+            try {
+                seed = this.entropyPool.takeSeed();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Entropy pool could not provide a seed", e);
+            }
+            // The SUN DRBG runs setSeed as its reseed function, with the seed as the entropy input
+            this.secureRandomObject.setSeed(seed);
+            Arrays.fill(seed, (byte) 0);
+        }
+        if (this.timed) this.metrics.record(GenerationMetrics.Phase.DRBG_SEED, System.nanoTime() - startTime);
+
+        this.reseeds++;
+        this.idsSinceReseed = 0;
+        this.bytesSinceReseed = 0;
+        if (this.reseedPolicy.isTimed()) {
+            this.lastReseedNanos = System.nanoTime();
+        }
+    }
+
+    /**
+     * Turns on the uniqueness guard: every ID this engine generates from now on is checked against the index and added
+     * to it, and an ID that was already issued is regenerated. The index may be shared between engines.
+     *
+     * @param collisionIndex is the index of issued IDs, keyed on IDs packed like in an IdBlock (18 bytes for the
+     *                       default format)
+     */
+    public void setCollisionIndex(IDCollisionIndex collisionIndex) {
+        this.collisionIndex = collisionIndex;
+    }
+
+    /**
+     * Sets what the IDs this engine generates from now on look like, e.g. IdFormat.crockfordBase32(26). The default is
+     * 24 base 62 characters. Random bytes are drawn in slices of the format's randomBytesPerId(), so a format with
+     * fewer bits of entropy per ID also costs fewer DRBG output bytes per ID.
+     *
+     * @param idFormat is the alphabet, length, prefix and check character of the IDs
+     */
+    public void setIdFormat(@NotNull IdFormat idFormat) {
+        this.idFormat = idFormat;
+        this.bytesPerId = idFormat.randomBytesPerId();
+        this.randomLength = idFormat.getPrefix().length() + idFormat.getLength();
+        this.randomBlock = new byte[this.bytesPerId];
+        this.scratchID = new StringBuilder(idFormat.getTotalLength());
+        this.idPacker = new IdBlock(idFormat, 0);
+        this.packedID = new byte[this.idPacker.bytesPerId()];
+    }
+
+    /**
+     * @return the format of the IDs this engine generates
+     */
+    @NotNull
+    public IdFormat getIdFormat() {
+        return this.idFormat;
+    }
+
+    /**
+     * Sets where this engine records the time spent drawing bytes and mapping them onto the alphabet.
+     *
+     * @param metrics is the metrics to record to, GenerationMetrics.DISABLED to stop recording
+     */
+    public void setMetrics(@NotNull GenerationMetrics metrics) {
+        this.metrics = metrics;
+        this.timed = metrics.isEnabled();
+    }
+
+    /**
+     * Sets how often the DRBG pulls fresh entropy. The counts of the policy start over from now.
+     *
+     * @param reseedPolicy is the policy to apply before every draw, ReseedPolicy.defaultPolicy() by default
+     * @throws IllegalStateException if the policy is prediction resistant and the engine reseeds from a pool
+     */
+    public void setReseedPolicy(@NotNull ReseedPolicy reseedPolicy) {
+        checkEntropyPool(reseedPolicy, this.entropyPool);
+        this.reseedPolicy = reseedPolicy;
+        this.idsSinceReseed = 0;
+        this.bytesSinceReseed = 0;
+        this.lastReseedNanos = System.nanoTime();
+    }
+
+    /**
+     * Makes reseeds due under the reseed policy take their entropy input from a shared pool instead of the system
+     * entropy source. The seed is handed to SecureRandom.setSeed, which the SUN DRBG runs as its reseed function with
+     * the seed as the entropy input, so it is a true reseed and is counted by getReseeds.
+     *
+     * Prediction resistance means reseeding from the entropy source at the moment of every draw, which a seed read
+     * ahead of time into a pool can't give, so a pool can't be combined with a prediction resistant policy.
+     *
+     * @param entropyPool is the pool to take seeds from, or null to reseed from the system entropy source
+     * @throws IllegalArgumentException if the pool's seeds are shorter than the security strength
+     * @throws IllegalStateException    if the reseed policy is prediction resistant
+     */
+    public void setEntropyPool(EntropyPool entropyPool) {
+        checkEntropyPool(this.reseedPolicy, entropyPool);
+        this.entropyPool = entropyPool;
+    }
+
+    /**
+     * Checks that an engine can reseed from a pool under a policy.
+     *
+     * @param reseedPolicy is the reseed policy
+     * @param entropyPool  is the pool, or null for none
+     * @throws IllegalArgumentException if the pool's seeds are shorter than the security strength
+     * @throws IllegalStateException    if there is a pool and the policy is prediction resistant
+     */
+    static void checkEntropyPool(ReseedPolicy reseedPolicy, EntropyPool entropyPool) {
+        if (entropyPool == null) {
+            return;
+        }
+        if (entropyPool.getSeedSize() * 8 < SECURITY_STRENGTH) {
+            throw new IllegalArgumentException("Pooled seeds must have at least " + SECURITY_STRENGTH + " bits");
+        }
+        if (reseedPolicy != null && reseedPolicy.isPredictionResistant()) {
+            throw new IllegalStateException("Prediction resistant draws must reseed from the entropy source, not a "
+                    + "pool");
+        }
+    }
+
+    /**
+     * @return the number of times the DRBG was reseeded by the reseed policy, prediction resistant draws included
+     */
+    public long getReseeds() {
+        return this.reseeds;
+    }
+
+    /**
+     * @return the number of generated IDs that were already in the collision index and had to be regenerated
+     */
+    public long getCollisions() {
+        return this.collisions;
+    }
+}
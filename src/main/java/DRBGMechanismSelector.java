@@ -0,0 +1,193 @@
+/*
+ Author: Samuel Agyakwa
+ Date: 02/20/2020
+
+ Startup selection of the DRBG mechanism. Which SUN DRBG mechanism is fastest depends on the platform: Hash_DRBG and
+ HMAC_DRBG run on SHA-256, CTR_DRBG runs on AES-256 and can come out ahead on CPUs with AES instructions. Instead of
+ fixing the mechanism, the caller lists the mechanisms it accepts, and a short calibration with a fixed time budget
+ generates IDs with each of them on a DRBGEngine (the same path the generators use), and picks the fastest one that
+ the platform supports at the required security strength.
+ */
+
+import org.jetbrains.annotations.NotNull;
+
+import java.nio.charset.StandardCharsets;
+import java.security.DrbgParameters;
+import java.security.NoSuchAlgorithmException;
+import java.security.NoSuchProviderException;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Picks the fastest acceptable DRBG mechanism by measuring them.
+ */
+public class DRBGMechanismSelector {
+    static final List<String> ALL_MECHANISMS = Collections.unmodifiableList(
+            Arrays.asList("HASH_DRBG", "HMAC_DRBG", "CTR_DRBG"));
+    static final long DEFAULT_CALIBRATION_MILLIS = 300;
+    private static final String CALIBRATION_ROW =
+            "13342870113f5f7781cf665A.K. ASSOCIATES INC.AMIN41 WALPOLE STREETSHARONMA02067";
+
+    private final List<String> acceptableMechanisms;
+    private final int minimumStrength;
+    private final long calibrationNanos;
+
+    /**
+     * Constructor that accepts every SUN mechanism at 256 bits of security strength, with the default time budget.
+     */
+    public DRBGMechanismSelector() {
+        this(ALL_MECHANISMS, DRBGEngine.SECURITY_STRENGTH, DEFAULT_CALIBRATION_MILLIS);
+    }
+
+    /**
+     * @param acceptableMechanisms is the securerandom.drbg.config values to choose from (e.g. "HASH_DRBG", "CTR_DRBG")
+     * @param minimumStrength      is the lowest security strength, in bits, a chosen DRBG may have
+     * @param calibrationMillis    is the time budget of the whole calibration, split evenly between the mechanisms
+     */
+    public DRBGMechanismSelector(@NotNull List<String> acceptableMechanisms, int minimumStrength,
+                                 long calibrationMillis) {
+        if (acceptableMechanisms.isEmpty()) {
+            throw new IllegalArgumentException("At least one mechanism must be acceptable");
+        }
+        // DRBGEngine always instantiates at 256 bits, the highest strength the SUN DRBG supports
+        if (minimumStrength < 1 || minimumStrength > DRBGEngine.SECURITY_STRENGTH) {
+            throw new IllegalArgumentException("Minimum strength must be between 1 and "
+                    + DRBGEngine.SECURITY_STRENGTH + " bits");
+        }
+        if (calibrationMillis < 1) {
+            throw new IllegalArgumentException("Calibration budget must be at least 1 millisecond");
+        }
+
+        this.acceptableMechanisms = new ArrayList<>(acceptableMechanisms);
+        this.minimumStrength = minimumStrength;
+        this.calibrationNanos = TimeUnit.MILLISECONDS.toNanos(calibrationMillis);
+    }
+
+    /**
+     * Measures every acceptable mechanism and picks the fastest supported one.
+     *
+     * @return the chosen mechanism and the measured rates
+     * @throws NoSuchAlgorithmException if none of the acceptable mechanisms is supported at the minimum strength
+     */
+    @NotNull
+    public Selection select() throws NoSuchAlgorithmException {
+        long budgetPerMechanism = this.calibrationNanos / this.acceptableMechanisms.size();
+        Map<String, Double> idsPerSecond = new LinkedHashMap<>();
+        Map<String, String> unsupported = new LinkedHashMap<>();
+        String chosenMechanism = null;
+
+        for (String mechanism : this.acceptableMechanisms) {
+            try {
+                double rate = calibrate(mechanism, budgetPerMechanism);
+                idsPerSecond.put(mechanism, rate);
+                if (chosenMechanism == null || rate > idsPerSecond.get(chosenMechanism)) {
+                    chosenMechanism = mechanism;
+                }
+            } catch (NoSuchAlgorithmException | NoSuchProviderException | IllegalArgumentException e) {
+                unsupported.put(mechanism, e.toString());
+            }
+        }
+
+        if (chosenMechanism == null) {
+            throw new NoSuchAlgorithmException("No acceptable DRBG mechanism is supported: " + unsupported);
+        }
+        return new Selection(chosenMechanism, idsPerSecond, unsupported);
+    }
+
+    /**
+     * Generates IDs with one mechanism for a fixed time. The first quarter of the time warms the code up, and only the
+     * rest is measured.
+     *
+     * @param mechanism  is the securerandom.drbg.config value to measure
+     * @param budgetNanos is the time to spend on the mechanism
+     * @return the measured number of IDs per second
+     * @throws NoSuchAlgorithmException if the mechanism is not available, or too weak
+     * @throws NoSuchProviderException  if the SUN provider is not available
+     */
+    private double calibrate(String mechanism, long budgetNanos)
+            throws NoSuchAlgorithmException, NoSuchProviderException {
+        // The strength a mechanism reports is checked on a separate instantiation, engines don't expose their DRBG
+        SecureRandom secureRandom = DRBGEngine.instantiate(mechanism, null);
+        int strength = ((DrbgParameters.Instantiation) secureRandom.getParameters()).getStrength();
+        if (strength < this.minimumStrength) {
+            throw new NoSuchAlgorithmException(mechanism + " only has " + strength + " bits of security strength");
+        }
+
+        DRBGEngine engine = new DRBGEngine(mechanism,
+                (DRBGEngine.DEFAULT_PERSONALIZATION + " calibration").getBytes(StandardCharsets.UTF_8));
+        long warmUpEnd = System.nanoTime() + budgetNanos / 4;
+        while (System.nanoTime() < warmUpEnd) {
+            engine.generate(CALIBRATION_ROW);
+        }
+
+        long generatedIDs = 0;
+        long startTime = System.nanoTime();
+        long measureEnd = startTime + budgetNanos - budgetNanos / 4;
+        long now;
+        do {
+            engine.generate(CALIBRATION_ROW);
+            generatedIDs++;
+            now = System.nanoTime();
+        } while (now < measureEnd);
+
+        return generatedIDs * 1_000_000_000.0 / (now - startTime);
+    }
+
+    /**
+     * The outcome of a calibration.
+     */
+    public static final class Selection {
+        private final String mechanism;
+        private final Map<String, Double> idsPerSecond;
+        private final Map<String, String> unsupported;
+
+        Selection(String mechanism, Map<String, Double> idsPerSecond, Map<String, String> unsupported) {
+            this.mechanism = mechanism;
+            this.idsPerSecond = Collections.unmodifiableMap(idsPerSecond);
+            this.unsupported = Collections.unmodifiableMap(unsupported);
+        }
+
+        /**
+         * @return the fastest supported mechanism, as a securerandom.drbg.config value
+         */
+        public String getMechanism() {
+            return this.mechanism;
+        }
+
+        /**
+         * @return the measured IDs per second of every supported mechanism, in the order they were listed
+         */
+        public Map<String, Double> getIdsPerSecond() {
+            return this.idsPerSecond;
+        }
+
+        /**
+         * @return the reason every unsupported mechanism was skipped
+         */
+        public Map<String, String> getUnsupported() {
+            return this.unsupported;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder report = new StringBuilder("Chose ").append(this.mechanism).append(" (");
+            String separator = "";
+            for (Map.Entry<String, Double> rate : this.idsPerSecond.entrySet()) {
+                report.append(separator).append(rate.getKey()).append(": ")
+                        .append(Math.round(rate.getValue())).append(" IDs/s");
+                separator = ", ";
+            }
+            for (String mechanism : this.unsupported.keySet()) {
+                report.append(separator).append(mechanism).append(": unsupported");
+                separator = ", ";
+            }
+            return report.append(')').toString();
+        }
+    }
+}
@@ -0,0 +1,177 @@
+/*
+ Author: Samuel Agyakwa
+ Date: 02/20/2020
+
+ Pool of pre-generated IDs for the online path, where a single ID is needed per transaction and the latency of
+ generating it (DRBG setup and reseeding) would otherwise be paid by the caller. A background producer thread keeps a
+ lock-free ring buffer filled: once the number of ready IDs drops to the low watermark, it refills the buffer up to the
+ high watermark. Taking an ID is a single poll of the ring buffer. If the buffer is ever empty, the caller falls back to
+ generating an ID synchronously, and the underrun is counted.
+
+ Pooled IDs are drawn before the transaction they are used for exists, so they can't be mixed with that transaction's
+ customer data. The producer's DRBG is instantiated with its own personalization string, and every pooled ID is drawn
+ with its sequence number as additional input.
+ */
+
+import org.jetbrains.annotations.NotNull;
+import utils.LockFreeRingBuffer;
+
+import java.nio.charset.StandardCharsets;
+import java.security.NoSuchAlgorithmException;
+import java.security.NoSuchProviderException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Bounded pool of ready-made 24 alphanumeric IDs, refilled in the background.
+ */
+public class IDPool implements AutoCloseable {
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final LockFreeRingBuffer<String> readyIDs;
+    private final int lowWatermark;
+    private final int highWatermark;
+    private final DRBGEngine producerEngine;
+    private final DRBGEngine fallbackEngine; // Only used by callers that find the pool empty
+    private final Thread producerThread;
+    private volatile boolean running;
+
+    // Metrics
+    private final AtomicLong underruns;
+    private final AtomicLong producedIDs;
+    private final AtomicLong refillNanos;
+
+    /**
+     * Constructor that creates the pool with HASH_DRBG engines and starts its producer thread.
+     *
+     * @param capacity      is the maximum number of ready IDs (rounded up to a power of two)
+     * @param lowWatermark  is the number of ready IDs at or below which the producer starts refilling
+     * @param highWatermark is the number of ready IDs the producer refills up to
+     * @throws NoSuchAlgorithmException if a DRBG implementation is not available from the SUN provider
+     * @throws NoSuchProviderException  if the SUN provider is not available
+     */
+    public IDPool(int capacity, int lowWatermark, int highWatermark)
+            throws NoSuchAlgorithmException, NoSuchProviderException {
+        this(DRBGEngine.HASH_DRBG, capacity, lowWatermark, highWatermark);
+    }
+
+    /**
+     * Constructor that creates the pool and starts its producer thread.
+     *
+     * @param mechanism     is the securerandom.drbg.config value of the producer and fallback engines
+     * @param capacity      is the maximum number of ready IDs (rounded up to a power of two)
+     * @param lowWatermark  is the number of ready IDs at or below which the producer starts refilling
+     * @param highWatermark is the number of ready IDs the producer refills up to
+     * @throws NoSuchAlgorithmException if a DRBG implementation is not available from the SUN provider
+     * @throws NoSuchProviderException  if the SUN provider is not available
+     */
+    public IDPool(@NotNull String mechanism, int capacity, int lowWatermark, int highWatermark)
+            throws NoSuchAlgorithmException, NoSuchProviderException {
+        this.readyIDs = new LockFreeRingBuffer<>(capacity);
+        if (lowWatermark < 0 || lowWatermark >= highWatermark || highWatermark > this.readyIDs.capacity()) {
+            throw new IllegalArgumentException("Watermarks must satisfy 0 <= low < high <= capacity");
+        }
+
+        this.lowWatermark = lowWatermark;
+        this.highWatermark = highWatermark;
+        this.producerEngine = new DRBGEngine(mechanism,
+                (DRBGEngine.DEFAULT_PERSONALIZATION + " pool producer").getBytes(StandardCharsets.UTF_8));
+        this.fallbackEngine = new DRBGEngine(mechanism,
+                (DRBGEngine.DEFAULT_PERSONALIZATION + " pool fallback").getBytes(StandardCharsets.UTF_8));
+        this.underruns = new AtomicLong();
+        this.producedIDs = new AtomicLong();
+        this.refillNanos = new AtomicLong();
+
+        this.running = true;
+        this.producerThread = new Thread(this::produce, "id-pool-producer");
+        this.producerThread.setDaemon(true);
+        this.producerThread.start();
+    }
+
+    /**
+     * Takes a ready ID from the pool, or generates one synchronously if the pool is empty.
+     *
+     * @return a 24 alphanumeric secure random ID
+     */
+    @NotNull
+    public String take() {
+        String randomAlphanumericID = this.readyIDs.poll();
+
+        if (randomAlphanumericID == null) {
+            this.underruns.incrementAndGet();
+            LockSupport.unpark(this.producerThread);
+            synchronized (this.fallbackEngine) {
+                return this.fallbackEngine.generate("pool fallback " + System.nanoTime()).toString();
+            }
+        }
+
+        // Wake the producer as soon as we cross the low watermark, instead of waiting for it to poll
+        if (this.readyIDs.size() == this.lowWatermark) {
+            LockSupport.unpark(this.producerThread);
+        }
+        return randomAlphanumericID;
+    }
+
+    /**
+     * Producer loop: refills up to the high watermark whenever the pool is at or below the low watermark.
+     */
+    private void produce() {
+        while (this.running) {
+            if (this.readyIDs.size() > this.lowWatermark) {
+                LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+                continue;
+            }
+
+            long refillStart = System.nanoTime();
+            long refilled = 0;
+            while (this.running && this.readyIDs.size() < this.highWatermark) {
+                long sequenceNumber = this.producedIDs.get() + refilled;
+                if (!this.readyIDs.offer(this.producerEngine.generate("pool " + sequenceNumber).toString())) {
+                    break;
+                }
+                refilled++;
+            }
+            this.producedIDs.addAndGet(refilled);
+            this.refillNanos.addAndGet(System.nanoTime() - refillStart);
+        }
+    }
+
+    /**
+     * @return the number of ready IDs in the pool right now
+     */
+    public int getDepth() {
+        return this.readyIDs.size();
+    }
+
+    /**
+     * @return the number of take() calls that found the pool empty and generated synchronously
+     */
+    public long getUnderruns() {
+        return this.underruns.get();
+    }
+
+    /**
+     * @return the number of IDs the background producer has put in the pool
+     */
+    public long getProducedIDs() {
+        return this.producedIDs.get();
+    }
+
+    /**
+     * @return the producer's refill rate in IDs per second, measured over the time it spent refilling
+     */
+    public double getRefillRate() {
+        long nanos = this.refillNanos.get();
+        return nanos == 0 ? 0 : this.producedIDs.get() * 1_000_000_000.0 / nanos;
+    }
+
+    /**
+     * Stops the producer thread. IDs still in the pool can be taken, after that take() generates synchronously.
+     */
+    @Override
+    public void close() {
+        this.running = false;
+        LockSupport.unpark(this.producerThread);
+    }
+}
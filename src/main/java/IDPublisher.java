@@ -0,0 +1,295 @@
+/*
+ Author: Samuel Agyakwa
+ Date: 02/20/2020
+
+ Reactive front end of the CSV driven generator, for consumers that are slower than generation in bursts (e.g. a
+ writer to a message broker). Each subscriber gets its own pass over the CSV file, with its own DRBG engine, and IDs are
+ only generated as the subscriber's request(n) demand allows. On top of the demand, at most produceAheadBudget IDs are
+ generated ahead of time and kept, so the next request can be served at once without memory growing with the file.
+
+ All work for a subscription (reading rows, generating IDs and calling the subscriber) runs as one task at a time on
+ the executor: request and cancel only record what was asked and make sure a task is running (the usual "drain loop"
+ with a work-in-progress counter). So the subscriber is never called concurrently, never called from inside its own
+ request call, and the engine is only ever used by one thread at a time.
+ */
+
+import org.jetbrains.annotations.NotNull;
+import utils.ColumnProjection;
+import utils.CustomCSVReader;
+import utils.RowDigest;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Flow.Publisher of one ID per CSV row, in input row order, honouring the subscriber's demand.
+ */
+public class IDPublisher implements Flow.Publisher<CharSequence> {
+    static final int DEFAULT_PRODUCE_AHEAD_BUDGET = 256;
+
+    private final Path csvFile;
+    private final boolean withHeader;
+    private final int produceAheadBudget;
+    private final Executor executor;
+    private final Callable<DRBGEngine> engineFactory;
+    private final ColumnProjection columnProjection; // The columns that feed the engines, null for whole rows
+    private final LongAdder generatedIDs; // By every subscription, delivered or not
+
+    /**
+     * @param csvFile            is the path of the CSV file, read once per subscriber
+     * @param withHeader         is a boolean value to be set if your CSV file has a header line (the first line)
+     * @param produceAheadBudget is the most IDs generated ahead of demand per subscriber, 0 to only generate on demand
+     * @param executor           is the executor the subscriptions run on
+     * @param engineFactory      makes the DRBG engine of a new subscription
+     */
+    public IDPublisher(@NotNull Path csvFile, boolean withHeader, int produceAheadBudget, @NotNull Executor executor,
+                       @NotNull Callable<DRBGEngine> engineFactory) {
+        this(csvFile, withHeader, produceAheadBudget, executor, engineFactory, null);
+    }
+
+    /**
+     * @param csvFile            is the path of the CSV file, read once per subscriber
+     * @param withHeader         is a boolean value to be set if your CSV file has a header line (the first line)
+     * @param produceAheadBudget is the most IDs generated ahead of demand per subscriber, 0 to only generate on demand
+     * @param executor           is the executor the subscriptions run on
+     * @param engineFactory      makes the DRBG engine of a new subscription
+     * @param columnProjection   is the columns whose digest feeds the engine (see RowDigest), or null for whole rows
+     */
+    public IDPublisher(@NotNull Path csvFile, boolean withHeader, int produceAheadBudget, @NotNull Executor executor,
+                       @NotNull Callable<DRBGEngine> engineFactory, ColumnProjection columnProjection) {
+        if (produceAheadBudget < 0) {
+            throw new IllegalArgumentException("Produce ahead budget can't be negative");
+        }
+        this.csvFile = csvFile;
+        this.withHeader = withHeader;
+        this.produceAheadBudget = produceAheadBudget;
+        this.executor = executor;
+        this.engineFactory = engineFactory;
+        this.columnProjection = columnProjection;
+        this.generatedIDs = new LongAdder();
+    }
+
+    /**
+     * @return the common ForkJoinPool, or a thread per task when the pool has a single thread (like SubmissionPublisher),
+     * so a subscription can't hold up every other task of the pool
+     */
+    static Executor defaultExecutor() {
+        return ForkJoinPool.getCommonPoolParallelism() > 1
+                ? ForkJoinPool.commonPool()
+                : task -> new Thread(task, "id-publisher").start();
+    }
+
+    /**
+     * @return the number of IDs generated for every subscriber so far, including the ones generated ahead of demand
+     * that were never delivered
+     */
+    public long getGeneratedCount() {
+        return this.generatedIDs.sum();
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super CharSequence> subscriber) {
+        Objects.requireNonNull(subscriber, "subscriber");
+        new IDSubscription(subscriber).start();
+    }
+
+    /**
+     * One subscriber's pass over the CSV file. Everything but the two atomic counters and the cancelled flag is only
+     * touched by the running drain task.
+     */
+    private final class IDSubscription implements Flow.Subscription, Runnable {
+        private final Flow.Subscriber<? super CharSequence> subscriber;
+        private final AtomicLong demand; // Requested and not yet delivered, Long.MAX_VALUE for unbounded
+        private final AtomicInteger workInProgress; // Signals not yet handled by the drain task
+        private final ArrayDeque<CharSequence> producedAhead;
+        private volatile boolean cancelled;
+        private volatile Throwable invalidRequest;
+        private boolean subscribed;
+        private boolean done; // Completed, failed or cancelled, nothing more is sent
+        private DRBGEngine engine;
+        private BufferedReader bufferedReader;
+        private CustomCSVReader csvReader;
+        private RowDigest rowDigest; // Only with a column projection
+
+        private IDSubscription(Flow.Subscriber<? super CharSequence> subscriber) {
+            this.subscriber = subscriber;
+            this.demand = new AtomicLong();
+            this.workInProgress = new AtomicInteger();
+            this.producedAhead = new ArrayDeque<>(Math.min(produceAheadBudget, 1024));
+        }
+
+        private void start() {
+            // onSubscribe runs in the drain task too, so a request made inside it can't overlap with it
+            signal();
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                this.invalidRequest = new IllegalArgumentException("Requested " + n + " IDs, must be positive");
+            } else {
+                this.demand.accumulateAndGet(n, (current, added) -> current + added < 0 ? Long.MAX_VALUE
+                        : current + added);
+            }
+            signal();
+        }
+
+        @Override
+        public void cancel() {
+            this.cancelled = true;
+            signal();
+        }
+
+        private void signal() {
+            if (this.workInProgress.getAndIncrement() == 0) {
+                executor.execute(this);
+            }
+        }
+
+        /**
+         * The drain task: runs until every signal that came in while it was running is handled.
+         */
+        @Override
+        public void run() {
+            int missed = 1;
+            do {
+                if (!this.done) {
+                    drain();
+                }
+                missed = this.workInProgress.addAndGet(-missed);
+            } while (missed != 0);
+        }
+
+        private void drain() {
+            try {
+                if (!this.subscribed) {
+                    this.subscribed = true;
+                    this.subscriber.onSubscribe(this);
+                    open();
+                }
+
+                while (!this.cancelled) {
+                    if (this.invalidRequest != null) {
+                        fail(this.invalidRequest);
+                        return;
+                    }
+
+                    long currentDemand = this.demand.get();
+                    if (currentDemand > 0) {
+                        CharSequence randomAlphanumericID = this.producedAhead.isEmpty()
+                                ? nextID()
+                                : this.producedAhead.poll();
+                        if (randomAlphanumericID == null) {
+                            complete();
+                            return;
+                        }
+                        if (currentDemand != Long.MAX_VALUE) {
+                            this.demand.decrementAndGet();
+                        }
+                        this.subscriber.onNext(randomAlphanumericID);
+                    } else if (this.producedAhead.size() < produceAheadBudget && this.bufferedReader != null) {
+                        // No demand right now, use the budget to get ahead of the next request
+                        CharSequence randomAlphanumericID = nextID();
+                        if (randomAlphanumericID != null) {
+                            this.producedAhead.add(randomAlphanumericID);
+                        }
+                    } else {
+                        if (this.bufferedReader == null && this.producedAhead.isEmpty()) {
+                            complete(); // A file without rows completes without any demand
+                        }
+                        return;
+                    }
+                }
+                release();
+            } catch (Throwable e) {
+                // A failing read, engine or subscriber ends the subscription, with onError unless it already ended
+                if (this.done || this.cancelled) {
+                    release();
+                } else {
+                    fail(e);
+                }
+            }
+        }
+
+        private void open() throws Exception {
+            this.engine = engineFactory.call();
+            this.bufferedReader = Files.newBufferedReader(csvFile, StandardCharsets.UTF_8);
+            this.csvReader = new CustomCSVReader();
+            if (withHeader) // Treat the first row as a header
+                this.csvReader.readRow(this.bufferedReader);
+            if (columnProjection != null) {
+                this.csvReader.setColumnProjection(columnProjection);
+                this.rowDigest = new RowDigest();
+            }
+        }
+
+        /**
+         * @return the ID of the next row, or null at the end of the file (which is then closed)
+         * @throws IOException in case there are any IO errors
+         */
+        private CharSequence nextID() throws IOException {
+            if (this.bufferedReader == null) {
+                return null;
+            }
+            if (this.rowDigest != null) {
+                if (!this.csvReader.readRow(this.bufferedReader, this.rowDigest)) {
+                    closeReader();
+                    return null;
+                }
+                generatedIDs.increment();
+                return this.engine.generate(this.rowDigest.finish(), 0, RowDigest.DIGEST_SIZE);
+            }
+
+            String customerRow = this.csvReader.readRow(this.bufferedReader);
+            if (customerRow == null) {
+                closeReader();
+                return null;
+            }
+            generatedIDs.increment();
+            return this.engine.generate(customerRow);
+        }
+
+        private void complete() {
+            release();
+            this.subscriber.onComplete();
+        }
+
+        private void fail(Throwable e) {
+            release();
+            this.subscriber.onError(e);
+        }
+
+        /**
+         * Marks the subscription as done, and lets go of the file and every ID generated ahead.
+         */
+        private void release() {
+            this.done = true;
+            this.producedAhead.clear();
+            try {
+                closeReader();
+            } catch (IOException ignored) {
+                // Nothing more is read from the file
+            }
+        }
+
+        private void closeReader() throws IOException {
+            if (this.bufferedReader != null) {
+                BufferedReader reader = this.bufferedReader;
+                this.bufferedReader = null;
+                reader.close();
+            }
+        }
+    }
+}
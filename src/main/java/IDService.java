@@ -0,0 +1,315 @@
+/*
+ Author: Samuel Agyakwa
+ Date: 02/20/2020
+
+ Local HTTP service that issues IDs, on the JDK's built-in com.sun.net.httpserver, for callers that would otherwise wrap
+ the generator in their own server. Two endpoints:
+ - GET /id gives one ID
+ - GET /ids?count=N gives N IDs, one per line, streamed out in chunks as they are generated, so a large batch doesn't
+   have to be held in memory and the first IDs arrive before the last ones are drawn
+ Both take an optional customer=... parameter, which is mixed into the IDs as DRBG additional input like a CSV row.
+
+ Each request runs on its own virtual thread when the JVM has them (Java 21 and later, found by reflection since this
+ code is built for Java 9), and on a cached pool of platform threads otherwise. Because virtual threads are never
+ reused, the thread-local engines of TransactionGenerator would mean one DRBG instantiation per request, so requests
+ borrow a long-lived engine from an idle queue instead, and give it back when done. There are never more engines than
+ requests that were ever served at the same time.
+
+ Making a service sets the JVM-wide system property sun.net.httpserver.nodelay to true, unless it is already set. It is
+ a process-wide side effect: every com.sun.net.httpserver server in the JVM reads it, once, when the first one is made.
+ Set it to false before making the first service to keep Nagle's algorithm on.
+ */
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * HTTP service issuing single IDs and streamed batches of IDs.
+ */
+public class IDService implements AutoCloseable {
+    static final int DEFAULT_MAX_BATCH_SIZE = 100_000;
+    private static final int IDS_PER_CHUNK = 256;
+    private static final String NO_DELAY_PROPERTY = "sun.net.httpserver.nodelay";
+
+    private final HttpServer server;
+    private final ExecutorService requestExecutor;
+    private final boolean virtualThreads;
+    private final int maxBatchSize;
+    private final Callable<DRBGEngine> engineFactory;
+    private final Queue<DRBGEngine> idleEngines;
+    private final AtomicInteger engineCount;
+    private final AtomicLong requestCounter; // Makes the additional input of every request different
+
+    /**
+     * Constructor that binds the service, without starting it. Sets sun.net.httpserver.nodelay for the whole JVM if it
+     * isn't set yet, see the note at the top of this file.
+     *
+     * @param address       is the address to listen on, port 0 for any free port
+     * @param maxBatchSize  is the largest count a batch request may ask for
+     * @param engineFactory makes the DRBG engines requests borrow
+     * @throws IOException in case the address can't be bound
+     */
+    public IDService(@NotNull InetSocketAddress address, int maxBatchSize, @NotNull Callable<DRBGEngine> engineFactory)
+            throws IOException {
+        if (maxBatchSize < 1) {
+            throw new IllegalArgumentException("Max batch size must be at least 1");
+        }
+        this.maxBatchSize = maxBatchSize;
+        this.engineFactory = engineFactory;
+        this.idleEngines = new ConcurrentLinkedQueue<>();
+        this.engineCount = new AtomicInteger();
+        this.requestCounter = new AtomicLong();
+
+        ExecutorService virtualThreadExecutor = newVirtualThreadExecutor();
+        this.virtualThreads = virtualThreadExecutor != null;
+        this.requestExecutor = this.virtualThreads ? virtualThreadExecutor : Executors.newCachedThreadPool(
+                new ThreadFactory() {
+                    private final AtomicInteger threadCounter = new AtomicInteger();
+
+                    @Override
+                    public Thread newThread(@NotNull Runnable task) {
+                        Thread thread = new Thread(task, "id-service-" + this.threadCounter.getAndIncrement());
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                });
+
+        // The server writes the headers and the body of a response separately, and with Nagle's algorithm on, the body
+        // waits for the client's delayed ACK of the headers (about 40 ms a request). Read once, by the first server
+        if (System.getProperty(NO_DELAY_PROPERTY) == null) {
+            System.setProperty(NO_DELAY_PROPERTY, "true");
+        }
+        this.server = HttpServer.create(address, 0);
+        this.server.createContext("/id", this::handleSingle);
+        this.server.createContext("/ids", this::handleBatch);
+        this.server.setExecutor(this.requestExecutor);
+    }
+
+    /**
+     * @return an executor starting a virtual thread per task, or null if this JVM has no virtual threads
+     */
+    private static ExecutorService newVirtualThreadExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Starts accepting requests.
+     */
+    public void start() {
+        this.server.start();
+    }
+
+    /**
+     * @return the port the service listens on
+     */
+    public int getPort() {
+        return this.server.getAddress().getPort();
+    }
+
+    /**
+     * @return true if requests run on virtual threads, false if on pooled platform threads
+     */
+    public boolean usesVirtualThreads() {
+        return this.virtualThreads;
+    }
+
+    /**
+     * @return the number of DRBG engines instantiated so far, at most the peak number of concurrent requests
+     */
+    public int getEngineCount() {
+        return this.engineCount.get();
+    }
+
+    /**
+     * Stops accepting requests, waits a moment for the running ones, and stops the request threads.
+     */
+    @Override
+    public void close() {
+        this.server.stop(1);
+        this.requestExecutor.shutdownNow();
+    }
+
+    private void handleSingle(HttpExchange exchange) throws IOException {
+        try {
+            if (!checkRequest(exchange, "/id")) {
+                return;
+            }
+            String customer;
+            try {
+                customer = queryParameter(exchange, "customer");
+            } catch (IllegalArgumentException e) {
+                sendError(exchange, 400, "Malformed query");
+                return;
+            }
+            long requestNumber = this.requestCounter.getAndIncrement();
+
+            DRBGEngine engine = borrowEngine();
+            StringBuilder randomAlphanumericID;
+            try {
+                randomAlphanumericID = engine.generate(additionalInput(customer, requestNumber, 0));
+            } finally {
+                this.idleEngines.offer(engine);
+            }
+
+            byte[] response = (randomAlphanumericID + "\n").getBytes(StandardCharsets.US_ASCII);
+            exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=us-ascii");
+            exchange.sendResponseHeaders(200, response.length);
+            try (OutputStream responseBody = exchange.getResponseBody()) {
+                responseBody.write(response);
+            }
+        } catch (Exception e) {
+            sendError(exchange, 500, "Could not generate an ID");
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void handleBatch(HttpExchange exchange) throws IOException {
+        try {
+            if (!checkRequest(exchange, "/ids")) {
+                return;
+            }
+            String countParameter;
+            String customer;
+            try {
+                countParameter = queryParameter(exchange, "count");
+                customer = queryParameter(exchange, "customer");
+            } catch (IllegalArgumentException e) {
+                sendError(exchange, 400, "Malformed query");
+                return;
+            }
+            int count;
+            try {
+                count = Integer.parseInt(String.valueOf(countParameter));
+            } catch (NumberFormatException e) {
+                count = -1;
+            }
+            if (count < 1 || count > this.maxBatchSize) {
+                sendError(exchange, 400, "count must be between 1 and " + this.maxBatchSize);
+                return;
+            }
+            long requestNumber = this.requestCounter.getAndIncrement();
+
+            DRBGEngine engine = borrowEngine();
+            try {
+                int lineLength = engine.getIdFormat().getTotalLength() + 1;
+                byte[] chunk = new byte[Math.min(count, IDS_PER_CHUNK) * lineLength];
+                exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=us-ascii");
+                exchange.sendResponseHeaders(200, 0); // Chunked, the length isn't known up front
+
+                try (OutputStream responseBody = exchange.getResponseBody()) {
+                    int chunkLength = 0;
+                    for (int i = 0; i < count; i++) {
+                        StringBuilder randomAlphanumericID = engine.generate(additionalInput(customer, requestNumber,
+                                i));
+                        for (int c = 0; c < randomAlphanumericID.length(); c++) {
+                            chunk[chunkLength++] = (byte) randomAlphanumericID.charAt(c);
+                        }
+                        chunk[chunkLength++] = '\n';
+                        if (chunkLength == chunk.length) {
+                            responseBody.write(chunk, 0, chunkLength);
+                            chunkLength = 0;
+                        }
+                    }
+                    responseBody.write(chunk, 0, chunkLength);
+                }
+            } finally {
+                this.idleEngines.offer(engine);
+            }
+        } catch (IOException e) {
+            // The client went away part way through the batch, nothing more can be sent
+        } catch (Exception e) {
+            sendError(exchange, 500, "Could not generate IDs");
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private DRBGEngine borrowEngine() throws Exception {
+        DRBGEngine engine = this.idleEngines.poll();
+        if (engine == null) {
+            engine = this.engineFactory.call();
+            this.engineCount.incrementAndGet();
+        }
+        return engine;
+    }
+
+    private static String additionalInput(String customer, long requestNumber, int index) {
+        return (customer == null ? "service" : customer) + " " + requestNumber + " " + index;
+    }
+
+    /**
+     * Contexts match every path starting with theirs, so anything but the exact path is answered with 404.
+     *
+     * @param exchange is the request
+     * @param path     is the path of the endpoint
+     * @return true if the request is a GET of the path, false if an error was sent instead
+     * @throws IOException in case the error can't be sent
+     */
+    private static boolean checkRequest(HttpExchange exchange, String path) throws IOException {
+        if (!path.equals(exchange.getRequestURI().getPath())) {
+            sendError(exchange, 404, "Not found");
+            return false;
+        }
+        if (!"GET".equals(exchange.getRequestMethod())) {
+            exchange.getResponseHeaders().set("Allow", "GET");
+            sendError(exchange, 405, "Only GET is supported");
+            return false;
+        }
+        return true;
+    }
+
+    private static void sendError(HttpExchange exchange, int status, String message) throws IOException {
+        if (exchange.getResponseCode() != -1) {
+            return; // The headers are already sent, the client sees a cut short response instead
+        }
+        byte[] response = (message + "\n").getBytes(StandardCharsets.US_ASCII);
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=us-ascii");
+        exchange.sendResponseHeaders(status, response.length);
+        try (OutputStream responseBody = exchange.getResponseBody()) {
+            responseBody.write(response);
+        }
+    }
+
+    /**
+     * @param exchange is the request
+     * @param name     is the name of the query parameter
+     * @return the decoded value of the first query parameter with the name, or null if there is none
+     * @throws UnsupportedEncodingException never, UTF-8 is always supported
+     * @throws IllegalArgumentException     if the query has a malformed % escape
+     */
+    private static String queryParameter(HttpExchange exchange, String name) throws UnsupportedEncodingException {
+        String query = exchange.getRequestURI().getRawQuery();
+        if (query == null) {
+            return null;
+        }
+        for (String parameter : query.split("&")) {
+            int equals = parameter.indexOf('=');
+            String parameterName = equals < 0 ? parameter : parameter.substring(0, equals);
+            if (URLDecoder.decode(parameterName, "UTF-8").equals(name)) {
+                return equals < 0 ? "" : URLDecoder.decode(parameter.substring(equals + 1), "UTF-8");
+            }
+        }
+        return null;
+    }
+}
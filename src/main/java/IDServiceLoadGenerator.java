@@ -0,0 +1,207 @@
+/*
+ Author: Samuel Agyakwa
+ Date: 02/20/2020
+
+ Closed loop load generator for IDService: a number of client threads each send a request, read the whole response,
+ and send the next one, for a fixed time. It reports requests per second and latency percentiles. Connections are kept
+ alive between requests (HttpURLConnection reuses them as long as every response is read to the end), so the numbers
+ are about the service rather than TCP handshakes.
+
+ Usage: java IDServiceLoadGenerator [url] [clients] [seconds]
+ Without a url it starts a service on a free localhost port and runs against /id.
+ */
+
+import org.jetbrains.annotations.NotNull;
+import utils.LatencyHistogram;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Measures the throughput and latency of an ID endpoint.
+ */
+public class IDServiceLoadGenerator {
+    private static final int DEFAULT_CLIENTS = 16;
+    private static final int DEFAULT_SECONDS = 10;
+    private static final int WARMUP_SECONDS = 2;
+
+    private final URL url;
+    private final int clients;
+
+    /**
+     * @param url     is the endpoint to request, e.g. http://localhost:8080/ids?count=100
+     * @param clients is the number of client threads, each with one request in flight at a time
+     */
+    public IDServiceLoadGenerator(@NotNull URL url, int clients) {
+        if (clients < 1) {
+            throw new IllegalArgumentException("There must be at least 1 client");
+        }
+        this.url = url;
+        this.clients = clients;
+    }
+
+    /**
+     * Sends requests from every client thread for the given time, and measures them.
+     *
+     * @param duration is how long to send requests for
+     * @param unit     is the unit of the duration
+     * @return the requests per second and latency percentiles of the run
+     * @throws InterruptedException if interrupted while waiting for the client threads
+     */
+    public Result run(long duration, @NotNull TimeUnit unit) throws InterruptedException {
+        LatencyHistogram latencies = new LatencyHistogram();
+        AtomicLong errors = new AtomicLong();
+        long startTime = System.nanoTime();
+        long endTime = startTime + unit.toNanos(duration);
+
+        List<Thread> clientThreads = new ArrayList<>(this.clients);
+        for (int client = 0; client < this.clients; client++) {
+            Thread clientThread = new Thread(() -> {
+                byte[] readBuffer = new byte[8192];
+                while (System.nanoTime() < endTime) {
+                    long requestStart = System.nanoTime();
+                    if (request(readBuffer)) {
+                        latencies.record(System.nanoTime() - requestStart);
+                    } else {
+                        errors.incrementAndGet();
+                    }
+                }
+            }, "load-client-" + client);
+            clientThread.start();
+            clientThreads.add(clientThread);
+        }
+        for (Thread clientThread : clientThreads) {
+            clientThread.join();
+        }
+
+        return new Result(latencies, errors.get(), System.nanoTime() - startTime);
+    }
+
+    /**
+     * @param readBuffer is the client thread's buffer to read responses into
+     * @return true if the request got a 200 response, read to the end
+     */
+    private boolean request(byte[] readBuffer) {
+        try {
+            HttpURLConnection connection = (HttpURLConnection) this.url.openConnection();
+            int status = connection.getResponseCode();
+            try (InputStream response = status == 200 ? connection.getInputStream() : connection.getErrorStream()) {
+                if (response != null) {
+                    while (response.read(readBuffer) != -1) {
+                        // Read to the end, so the connection can be reused
+                    }
+                }
+            }
+            return status == 200;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Throughput and latency of one run. Latencies are in nanoseconds.
+     */
+    public static final class Result {
+        private final long requests;
+        private final long errors;
+        private final double requestsPerSecond;
+        private final long p50;
+        private final long p90;
+        private final long p99;
+        private final long p999;
+        private final long max;
+
+        private Result(LatencyHistogram latencies, long errors, long elapsedNanos) {
+            this.requests = latencies.getCount();
+            this.errors = errors;
+            this.requestsPerSecond = this.requests * 1e9 / elapsedNanos;
+            this.p50 = latencies.percentile(0.5);
+            this.p90 = latencies.percentile(0.9);
+            this.p99 = latencies.percentile(0.99);
+            this.p999 = latencies.percentile(0.999);
+            this.max = latencies.getMax();
+        }
+
+        /**
+         * @return the number of requests that got a 200 response
+         */
+        public long getRequests() {
+            return this.requests;
+        }
+
+        /**
+         * @return the number of requests that failed or got another response
+         */
+        public long getErrors() {
+            return this.errors;
+        }
+
+        public double getRequestsPerSecond() {
+            return this.requestsPerSecond;
+        }
+
+        public long getP50() {
+            return this.p50;
+        }
+
+        public long getP90() {
+            return this.p90;
+        }
+
+        public long getP99() {
+            return this.p99;
+        }
+
+        public long getP999() {
+            return this.p999;
+        }
+
+        public long getMax() {
+            return this.max;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d requests (%d errors), %.0f requests/s, latency p50 %.3f ms, p90 %.3f ms, "
+                            + "p99 %.3f ms, p99.9 %.3f ms, max %.3f ms", this.requests, this.errors,
+                    this.requestsPerSecond, this.p50 / 1e6, this.p90 / 1e6, this.p99 / 1e6, this.p999 / 1e6,
+                    this.max / 1e6);
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        int clients = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_CLIENTS;
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_SECONDS;
+
+        IDService localService = null;
+        URL url;
+        if (args.length > 0) {
+            url = new URL(args[0]);
+        } else {
+            localService = new TransactionGenerator().serveAlphaNumericID(new InetSocketAddress(
+                    InetAddress.getLoopbackAddress(), 0), IDService.DEFAULT_MAX_BATCH_SIZE);
+            url = new URL("http", "localhost", localService.getPort(), "/id");
+            System.out.println("Started a local service on port " + localService.getPort()
+                    + (localService.usesVirtualThreads() ? ", on virtual threads" : ", on platform threads"));
+        }
+
+        try {
+            IDServiceLoadGenerator loadGenerator = new IDServiceLoadGenerator(url, clients);
+            loadGenerator.run(WARMUP_SECONDS, TimeUnit.SECONDS);
+            System.out.println(url + ", " + clients + " clients, " + seconds + " s: "
+                    + loadGenerator.run(seconds, TimeUnit.SECONDS));
+        } finally {
+            if (localService != null) {
+                localService.close();
+            }
+        }
+    }
+}
@@ -4,6 +4,8 @@
 
  Main class
  */
+import utils.IDOutputWriter;
+
 import java.io.IOException;
 import java.security.NoSuchAlgorithmException;
 import java.security.NoSuchProviderException;
@@ -12,11 +14,19 @@ public class MainGenerator {
     public static void main(String[] args) {
         TransactionGenerator tr = new TransactionGenerator();
         try {
-            System.out.println(tr.generateAllAlphaNumericID("src/main/java/customers.csv", false, true));
+            // Measure which DRBG mechanism is fastest on this machine, and use it for the whole file
+            System.out.println(tr.autoSelectDRBGMechanism(new DRBGMechanismSelector()));
+
+            // Write the IDs to a file as they are generated, instead of printing one huge list
+            long rowCount = tr.generateAllAlphaNumericIDToFile("src/main/java/customers.csv", false,
+                    "customer_ids.csv", IDOutputWriter.Format.CSV, 100_000);
+            System.out.println("Wrote " + rowCount + " IDs to customer_ids.csv");
 
         } catch (IOException e) {
             System.out.println("\n\nGenerating with one String");
             System.out.println("CSV file does not exist");
+        } catch (NoSuchAlgorithmException | NoSuchProviderException e) {
+            System.out.println("Invalid Algorithm has been set");
         }
 
         try {
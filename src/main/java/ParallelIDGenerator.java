@@ -0,0 +1,340 @@
+/*
+ Author: Samuel Agyakwa
+ Date: 02/20/2020
+
+ Parallel batch generation. The CSV rows are read on the calling thread and split into chunks, and every chunk is
+ generated on a worker of a ForkJoinPool (or any executor passed in). Each worker borrows one of a fixed set of
+ DRBGEngine objects for the duration of a chunk, so there is never any contention on a DRBG, and every engine is its
+ own independently seeded instantiation with its own personalization string. The chunk results are collected in
+ submission order, so the IDs come back in input row order.
+ */
+
+import org.jetbrains.annotations.NotNull;
+import utils.ColumnProjection;
+import utils.CustomCSVReader;
+import utils.EntropyPool;
+import utils.GenerationMetrics;
+import utils.IDCollisionIndex;
+import utils.IdFormat;
+import utils.ReseedPolicy;
+import utils.RowDigest;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.security.NoSuchAlgorithmException;
+import java.security.NoSuchProviderException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * Generates the IDs of a CSV file on several threads, returning them in input row order.
+ */
+public class ParallelIDGenerator implements AutoCloseable {
+    static final int DEFAULT_CHUNK_SIZE = 4096;
+
+    private final ExecutorService executor;
+    private final boolean ownsExecutor; // Only shut down executors we created ourselves
+    private final BlockingQueue<DRBGEngine> engines;
+    private final int chunkSize;
+    private ColumnProjection columnProjection; // The columns that feed the engines, null for whole rows
+
+    /**
+     * Constructor that creates a ForkJoinPool with the given parallelism, and one HASH_DRBG engine per worker.
+     *
+     * @param parallelism is the number of worker threads
+     * @throws NoSuchAlgorithmException if a DRBG implementation is not available from the SUN provider
+     * @throws NoSuchProviderException  if the SUN provider is not available
+     */
+    public ParallelIDGenerator(int parallelism) throws NoSuchAlgorithmException, NoSuchProviderException {
+        this(DRBGEngine.HASH_DRBG, parallelism);
+    }
+
+    /**
+     * Constructor that creates a ForkJoinPool with the given parallelism, and one DRBG engine per worker.
+     *
+     * @param mechanism   is the securerandom.drbg.config value of every engine (e.g. "HASH_DRBG", "CTR_DRBG")
+     * @param parallelism is the number of worker threads
+     * @throws NoSuchAlgorithmException if a DRBG implementation is not available from the SUN provider
+     * @throws NoSuchProviderException  if the SUN provider is not available
+     */
+    public ParallelIDGenerator(@NotNull String mechanism, int parallelism)
+            throws NoSuchAlgorithmException, NoSuchProviderException {
+        this(new ForkJoinPool(parallelism), true, mechanism, parallelism, DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * Constructor that runs the chunks on a caller supplied executor. The executor is not shut down by close().
+     *
+     * @param executor    is the executor to run the chunks on
+     * @param parallelism is the number of DRBG engines, and so the number of chunks that can run at the same time
+     * @param chunkSize   is the number of CSV rows per chunk
+     * @throws NoSuchAlgorithmException if a DRBG implementation is not available from the SUN provider
+     * @throws NoSuchProviderException  if the SUN provider is not available
+     */
+    public ParallelIDGenerator(@NotNull ExecutorService executor, int parallelism, int chunkSize)
+            throws NoSuchAlgorithmException, NoSuchProviderException {
+        this(executor, DRBGEngine.HASH_DRBG, parallelism, chunkSize);
+    }
+
+    /**
+     * Constructor that runs the chunks on a caller supplied executor. The executor is not shut down by close().
+     *
+     * @param executor    is the executor to run the chunks on
+     * @param mechanism   is the securerandom.drbg.config value of every engine (e.g. "HASH_DRBG", "CTR_DRBG")
+     * @param parallelism is the number of DRBG engines, and so the number of chunks that can run at the same time
+     * @param chunkSize   is the number of CSV rows per chunk
+     * @throws NoSuchAlgorithmException if a DRBG implementation is not available from the SUN provider
+     * @throws NoSuchProviderException  if the SUN provider is not available
+     */
+    public ParallelIDGenerator(@NotNull ExecutorService executor, @NotNull String mechanism, int parallelism,
+                               int chunkSize) throws NoSuchAlgorithmException, NoSuchProviderException {
+        this(executor, false, mechanism, parallelism, chunkSize);
+    }
+
+    private ParallelIDGenerator(ExecutorService executor, boolean ownsExecutor, String mechanism, int parallelism,
+                                int chunkSize) throws NoSuchAlgorithmException, NoSuchProviderException {
+        if (parallelism < 1 || chunkSize < 1) {
+            throw new IllegalArgumentException("Parallelism and chunk size must be at least 1");
+        }
+
+        this.executor = executor;
+        this.ownsExecutor = ownsExecutor;
+        this.chunkSize = chunkSize;
+        this.engines = new ArrayBlockingQueue<>(parallelism);
+
+        // Every engine is instantiated separately, so each one is seeded with its own entropy input
+        for (int worker = 0; worker < parallelism; worker++) {
+            this.engines.add(new DRBGEngine(mechanism,
+                    (DRBGEngine.DEFAULT_PERSONALIZATION + " worker " + worker).getBytes(StandardCharsets.UTF_8)));
+        }
+    }
+
+    /**
+     * Reads a CSV file, and generates one 24 alphanumeric ID per row in parallel.
+     *
+     * @param csvFilePath is the String path of the CSV file
+     * @param withHeader  is a boolean value to be set if your CSV file has a header line (the first line)
+     * @return a list of StringBuilder objects of all generated random alphanumeric ID numbers, in input row order
+     * @throws IOException in case CSV file doesn't exist, there are any IO errors, or the generation is interrupted
+     */
+    public List<StringBuilder> generateAll(@NotNull String csvFilePath, boolean withHeader) throws IOException {
+        try (BufferedReader bufferedReader = Files.newBufferedReader(Paths.get(csvFilePath), StandardCharsets.UTF_8)) {
+            CustomCSVReader csvReader = new CustomCSVReader();
+            if (withHeader) // Treat the first row as a header
+                csvReader.readRow(bufferedReader);
+            return generateAll(bufferedReader, csvReader);
+        }
+    }
+
+    /**
+     * Reads CSV rows until the end of the reader, and generates one 24 alphanumeric ID per row in parallel.
+     *
+     * @param bufferedReader is the reader positioned at the first row to generate an ID for
+     * @return a list of StringBuilder objects of all generated random alphanumeric ID numbers, in input row order
+     * @throws IOException in case there are any IO errors, or the generation is interrupted
+     */
+    public List<StringBuilder> generateAll(@NotNull BufferedReader bufferedReader) throws IOException {
+        return generateAll(bufferedReader, new CustomCSVReader());
+    }
+
+    /**
+     * Reads CSV rows until the end of the reader, and generates one 24 alphanumeric ID per row in parallel.
+     *
+     * @param bufferedReader is the reader positioned at the first row to generate an ID for
+     * @param csvReader      is the tokenizer to read the rows with
+     * @return a list of StringBuilder objects of all generated random alphanumeric ID numbers, in input row order
+     * @throws IOException in case there are any IO errors, or the generation is interrupted
+     */
+    private List<StringBuilder> generateAll(BufferedReader bufferedReader, CustomCSVReader csvReader)
+            throws IOException {
+        List<Future<List<StringBuilder>>> chunkResults = new ArrayList<>();
+
+        // Chunks are submitted while the file is still being read
+        if (this.columnProjection != null) {
+            // The selected columns are digested as they are parsed, and the workers only get the digests
+            csvReader.setColumnProjection(this.columnProjection);
+            RowDigest rowDigest = new RowDigest();
+            byte[] chunkDigests = new byte[this.chunkSize * RowDigest.DIGEST_SIZE];
+            int chunkRows = 0;
+            while (csvReader.readRow(bufferedReader, rowDigest)) {
+                System.arraycopy(rowDigest.finish(), 0, chunkDigests, chunkRows++ * RowDigest.DIGEST_SIZE,
+                        RowDigest.DIGEST_SIZE);
+                if (chunkRows == this.chunkSize) {
+                    chunkResults.add(submitDigestChunk(chunkDigests, chunkRows));
+                    chunkDigests = new byte[this.chunkSize * RowDigest.DIGEST_SIZE];
+                    chunkRows = 0;
+                }
+            }
+            if (chunkRows > 0) {
+                chunkResults.add(submitDigestChunk(chunkDigests, chunkRows));
+            }
+        } else {
+            List<String> currentChunk = new ArrayList<>(this.chunkSize);
+            String customerRow;
+            while ((customerRow = csvReader.readRow(bufferedReader)) != null) {
+                currentChunk.add(customerRow);
+                if (currentChunk.size() == this.chunkSize) {
+                    chunkResults.add(submitChunk(currentChunk));
+                    currentChunk = new ArrayList<>(this.chunkSize);
+                }
+            }
+            if (!currentChunk.isEmpty()) {
+                chunkResults.add(submitChunk(currentChunk));
+            }
+        }
+
+        List<StringBuilder> randomIDList = new ArrayList<>(chunkResults.size() * this.chunkSize);
+        try {
+            for (Future<List<StringBuilder>> chunkResult : chunkResults) {
+                randomIDList.addAll(chunkResult.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for the ID chunks");
+        } catch (ExecutionException e) {
+            throw new IOException("Generating an ID chunk failed", e.getCause());
+        }
+
+        return randomIDList;
+    }
+
+    /**
+     * Submits one chunk of parsed CSV rows to the executor.
+     *
+     * @param chunk is the parsed CSV rows of this chunk
+     * @return the future list of IDs for the chunk, in the order of its rows
+     */
+    private Future<List<StringBuilder>> submitChunk(List<String> chunk) {
+        return this.executor.submit(() -> {
+            // Borrow an engine for the whole chunk, and give it back for the next chunk
+            DRBGEngine engine = this.engines.take();
+            try {
+                List<StringBuilder> chunkIDs = new ArrayList<>(chunk.size());
+                for (String customerInfoString : chunk) {
+                    chunkIDs.add(engine.generate(customerInfoString));
+                }
+                return chunkIDs;
+            } finally {
+                this.engines.put(engine);
+            }
+        });
+    }
+
+    /**
+     * Submits one chunk of row digests to the executor.
+     *
+     * @param chunkDigests is the digests of the selected columns of the chunk's rows, one after another
+     * @param chunkRows    is the number of rows in the chunk
+     * @return the future list of IDs for the chunk, in the order of its rows
+     */
+    private Future<List<StringBuilder>> submitDigestChunk(byte[] chunkDigests, int chunkRows) {
+        return this.executor.submit(() -> {
+            DRBGEngine engine = this.engines.take();
+            try {
+                List<StringBuilder> chunkIDs = new ArrayList<>(chunkRows);
+                byte[] customerDigest = new byte[RowDigest.DIGEST_SIZE];
+                for (int row = 0; row < chunkRows; row++) {
+                    System.arraycopy(chunkDigests, row * RowDigest.DIGEST_SIZE, customerDigest, 0,
+                            RowDigest.DIGEST_SIZE);
+                    chunkIDs.add(engine.generate(customerDigest, 0, RowDigest.DIGEST_SIZE));
+                }
+                return chunkIDs;
+            } finally {
+                this.engines.put(engine);
+            }
+        });
+    }
+
+    /**
+     * Picks the columns of every row that feed the engines (see TransactionGenerator.setColumnProjection). The rows
+     * are still read on the calling thread, which reduces the selected columns of each row to its digest. Call this
+     * before generating.
+     *
+     * @param columnProjection is the selected columns, or null to feed whole rows
+     */
+    public void setColumnProjection(ColumnProjection columnProjection) {
+        this.columnProjection = columnProjection;
+    }
+
+    /**
+     * Turns on the uniqueness guard for every worker's engine. The index is shared, and synchronizes itself. Call this
+     * before generating, while every engine is idle.
+     *
+     * @param collisionIndex is the (persistent) index of issued IDs
+     */
+    public void setCollisionIndex(@NotNull IDCollisionIndex collisionIndex) {
+        for (DRBGEngine engine : this.engines) {
+            engine.setCollisionIndex(collisionIndex);
+        }
+    }
+
+    /**
+     * Sets what the IDs of every worker's engine look like, instead of 24 base 62 characters. Call this before
+     * generating, while every engine is idle.
+     *
+     * @param idFormat is the alphabet, length, prefix and check character of the IDs
+     */
+    public void setIdFormat(@NotNull IdFormat idFormat) {
+        for (DRBGEngine engine : this.engines) {
+            engine.setIdFormat(idFormat);
+        }
+    }
+
+    /**
+     * Sets where every worker's engine records its phase timings. The metrics are shared, so they must be thread safe
+     * (RecordingMetrics is). Call this before generating, while every engine is idle.
+     *
+     * @param metrics is the metrics to record to, GenerationMetrics.DISABLED to stop recording
+     */
+    public void setMetrics(@NotNull GenerationMetrics metrics) {
+        for (DRBGEngine engine : this.engines) {
+            engine.setMetrics(metrics);
+        }
+    }
+
+    /**
+     * Sets how often every worker's engine pulls fresh entropy. Call this before generating, while every engine is idle.
+     *
+     * @param reseedPolicy is the policy every engine applies before each draw
+     * @throws IllegalStateException if the policy is prediction resistant and an entropy pool is set
+     */
+    public void setReseedPolicy(@NotNull ReseedPolicy reseedPolicy) {
+        for (DRBGEngine engine : this.engines) {
+            engine.setReseedPolicy(reseedPolicy);
+        }
+    }
+
+    /**
+     * Makes every worker's engine take the entropy input of its policy reseeds from a shared pool (see
+     * DRBGEngine.setEntropyPool). Call this before generating, while every engine is idle.
+     *
+     * @param entropyPool is the shared pool, or null to reseed from the system entropy source
+     * @throws IllegalArgumentException if the pool's seeds are shorter than the security strength
+     * @throws IllegalStateException    if the reseed policy is prediction resistant
+     */
+    public void setEntropyPool(EntropyPool entropyPool) {
+        for (DRBGEngine engine : this.engines) {
+            engine.setEntropyPool(entropyPool);
+        }
+    }
+
+    /**
+     * Shuts down the worker pool if it was created by this object.
+     */
+    @Override
+    public void close() {
+        if (this.ownsExecutor) {
+            this.executor.shutdown();
+        }
+    }
+}
@@ -0,0 +1,374 @@
+/*
+ Author: Samuel Agyakwa
+ Date: 02/20/2020
+
+ Sharded generation over several processes, for CSV files too large for one JVM. The coordinator splits the CSV file
+ into byte ranges that start at row boundaries (see CSVByteRangeSplitter) and writes a shard manifest next to the
+ output file. Every shard is generated by a worker process with its own DRBG instantiation, personalized with the run
+ ID and the shard number, which writes a (row byte offset, packed ID) record per row and then a done marker. Once
+ every shard is done, the coordinator merges the shard outputs back into input row order with a k-way merge on the
+ row offsets, numbering the rows as it goes, since no worker knows how many rows come before its range.
+
+ Processes only coordinate through files, so workers can run on any host that sees the same files:
+   java ShardedIDGenerator plan csvFile manifestFile shardCount [--header]
+   java ShardedIDGenerator worker manifestFile shard           (once per shard, anywhere)
+   java ShardedIDGenerator merge manifestFile outputFile
+ or run everything on this host, with one local worker process per shard:
+   java ShardedIDGenerator run csvFile outputFile shardCount [--header]
+ */
+
+import org.jetbrains.annotations.NotNull;
+import utils.CSVByteRangeSplitter;
+import utils.IDOutputWriter;
+import utils.IdBlock;
+import utils.IdFormat;
+import utils.MappedCSVReader;
+import utils.ShardManifest;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.NoSuchAlgorithmException;
+import java.security.NoSuchProviderException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Generates the IDs of a CSV file in several worker processes, and merges them into one output file in input row order.
+ */
+public class ShardedIDGenerator {
+    private static final int MERGE_BUFFER_SIZE = 1 << 16;
+
+    private final IdFormat idFormat;
+    private final String drbgMechanism;
+
+    /**
+     * @param idFormat      is the format of the IDs every worker generates
+     * @param drbgMechanism is the DRBG mechanism every worker generates with, e.g. DRBGEngine.HASH_DRBG
+     */
+    public ShardedIDGenerator(@NotNull IdFormat idFormat, @NotNull String drbgMechanism) {
+        this.idFormat = idFormat;
+        this.drbgMechanism = drbgMechanism;
+    }
+
+    /**
+     * Generates the IDs of a CSV file with one local worker process per shard, and writes a (row number, ID) record
+     * for every row to the output file, like TransactionGenerator.generateAllAlphaNumericIDToFile. The manifest and
+     * shard files are kept next to the output file until the merge is done, so running again after a failure only
+     * reruns the shards that didn't finish, as long as the CSV file is unchanged.
+     *
+     * @param csvFilePath    is the path of the CSV file
+     * @param withHeader     is a boolean value to be set if your CSV file has a header line (the first line)
+     * @param outputFilePath is the path of the file to write the records to
+     * @param format         is the layout of the records, CSV or binary
+     * @param shardCount     is the number of shards, and so the number of worker processes
+     * @return the number of rows in the output file
+     * @throws IOException in case the CSV file doesn't exist, a worker fails, or there are any IO errors
+     */
+    public long generate(@NotNull Path csvFilePath, boolean withHeader, @NotNull Path outputFilePath,
+                         @NotNull IDOutputWriter.Format format, int shardCount) throws IOException {
+        ShardManifest manifest = plan(csvFilePath, withHeader,
+                outputFilePath.resolveSibling(outputFilePath.getFileName() + ".manifest"), shardCount);
+        runLocalWorkers(manifest);
+        long rowCount = merge(manifest, outputFilePath, format);
+        manifest.delete();
+        return rowCount;
+    }
+
+    /**
+     * Splits a CSV file into shards, and saves the manifest. A saved manifest for the same file, split the same way
+     * and generating the same IDs, is kept along with its finished shards.
+     *
+     * @param csvFilePath  is the path of the CSV file
+     * @param withHeader   is a boolean value to be set if your CSV file has a header line (the first line)
+     * @param manifestFile is the path to save the manifest to
+     * @param shardCount   is the number of shards
+     * @return the manifest of the run
+     * @throws IOException in case the CSV file doesn't exist, or there are any IO errors
+     */
+    public ShardManifest plan(@NotNull Path csvFilePath, boolean withHeader, @NotNull Path manifestFile,
+                              int shardCount) throws IOException {
+        long[] boundaries = CSVByteRangeSplitter.split(csvFilePath, withHeader, shardCount);
+        ShardManifest savedManifest = ShardManifest.load(manifestFile);
+        if (savedManifest != null && isSameRun(savedManifest, csvFilePath, boundaries)) {
+            return savedManifest;
+        }
+
+        ShardManifest manifest = ShardManifest.create(manifestFile, csvFilePath, boundaries, this.idFormat,
+                this.drbgMechanism);
+        manifest.save();
+        return manifest;
+    }
+
+    /**
+     * Starts a worker process on this host for every shard that isn't done, and waits for all of them. The output of
+     * every worker goes to a log file next to its shard, which is deleted when the worker succeeds.
+     *
+     * @param manifest is the manifest of the run
+     * @throws IOException in case a worker can't be started or fails, or the wait is interrupted
+     */
+    public void runLocalWorkers(@NotNull ShardManifest manifest) throws IOException {
+        String javaCommand = Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+        List<Process> workers = new ArrayList<>();
+        List<Integer> workerShards = new ArrayList<>();
+        List<String> failures = new ArrayList<>();
+
+        try {
+            for (int shard = 0; shard < manifest.getShardCount(); shard++) {
+                if (manifest.getDoneRowCount(shard) >= 0) {
+                    continue; // Finished by an earlier attempt
+                }
+                workers.add(new ProcessBuilder(javaCommand, "-cp", System.getProperty("java.class.path"),
+                        ShardedIDGenerator.class.getName(), "worker", manifest.getManifestFile().toString(),
+                        Integer.toString(shard)).redirectErrorStream(true).redirectOutput(manifest.getWorkerLog(shard)
+                        .toFile()).start());
+                workerShards.add(shard);
+            }
+
+            for (int i = 0; i < workers.size(); i++) {
+                int shard = workerShards.get(i);
+                int exitCode = workers.get(i).waitFor();
+                if (exitCode != 0 || manifest.getDoneRowCount(shard) < 0) {
+                    failures.add("shard " + shard + " exited with " + exitCode + ", see " + manifest.getWorkerLog(
+                            shard));
+                } else {
+                    Files.deleteIfExists(manifest.getWorkerLog(shard));
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for the shard workers");
+        } finally {
+            // Only does anything if we didn't wait for every worker
+            for (Process worker : workers) {
+                worker.destroy();
+            }
+        }
+
+        if (!failures.isEmpty()) {
+            throw new IOException("Shard workers failed: " + String.join("; ", failures));
+        }
+    }
+
+    /**
+     * Generates the IDs of one shard, in this process. Does nothing if the shard is already done.
+     *
+     * @param manifestFile is the path of the manifest of the run
+     * @param shard        is the shard to generate
+     * @return the number of rows of the shard
+     * @throws IOException              in case there is no manifest, the CSV file changed since it was split, or there
+     *                                  are any IO errors
+     * @throws NoSuchAlgorithmException if a DRBG implementation is not available from the SUN provider
+     * @throws NoSuchProviderException  if the SUN provider is not available
+     */
+    public static long runWorker(@NotNull Path manifestFile, int shard)
+            throws IOException, NoSuchAlgorithmException, NoSuchProviderException {
+        ShardManifest manifest = ShardManifest.load(manifestFile);
+        if (manifest == null) {
+            throw new IOException("There is no shard manifest at " + manifestFile);
+        }
+        if (!manifest.isInputUnchanged()) {
+            throw new IOException(manifest.getCsvFile() + " changed since it was split, plan the run again");
+        }
+        long doneRowCount = manifest.getDoneRowCount(shard);
+        if (doneRowCount >= 0) {
+            return doneRowCount;
+        }
+
+        // Every shard is its own instantiation, and its personalization string tells it apart from every other shard
+        DRBGEngine engine = new DRBGEngine(manifest.getDrbgMechanism(), (DRBGEngine.DEFAULT_PERSONALIZATION + " run "
+                + manifest.getRunId() + " shard " + shard).getBytes(StandardCharsets.UTF_8));
+        engine.setIdFormat(manifest.getIdFormat());
+
+        MappedCSVReader csvReader = new MappedCSVReader();
+        long[] rowOffset = {manifest.getStartOffset(shard)};
+        long rowCount;
+        try (IDOutputWriter outputWriter = new IDOutputWriter(manifest.getShardOutput(shard),
+                IDOutputWriter.Format.BINARY, manifest.getIdFormat(), 0)) {
+            try {
+                // Records are keyed by the byte offset of their row, which orders them across every shard
+                rowCount = csvReader.read(manifest.getCsvFile(), manifest.getStartOffset(shard),
+                        manifest.getEndOffset(shard), false, (rowBuffer, rowLength) -> {
+                            try {
+                                outputWriter.write(rowOffset[0], engine.generate(rowBuffer, 0, rowLength));
+                            } catch (IOException e) {
+                                throw new UncheckedIOException(e);
+                            }
+                            rowOffset[0] = csvReader.getRowEndOffset();
+                        });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            outputWriter.sync();
+        }
+
+        manifest.markDone(shard, rowCount);
+        return rowCount;
+    }
+
+    /**
+     * Merges the outputs of every shard into one file in input row order, numbering the rows from 1.
+     *
+     * @param manifest       is the manifest of the run
+     * @param outputFilePath is the path of the file to write the records to
+     * @param format         is the layout of the records, CSV or binary
+     * @return the number of rows in the output file
+     * @throws IOException in case a shard isn't done, a shard output doesn't match its done marker, or there are any
+     *                     IO errors
+     */
+    public static long merge(@NotNull ShardManifest manifest, @NotNull Path outputFilePath,
+                             @NotNull IDOutputWriter.Format format) throws IOException {
+        IdBlock idCodec = new IdBlock(manifest.getIdFormat(), 0);
+        PriorityQueue<ShardCursor> cursors = new PriorityQueue<>(Math.max(1, manifest.getShardCount()),
+                Comparator.comparingLong(cursor -> cursor.rowOffset));
+        List<ShardCursor> openCursors = new ArrayList<>();
+        long rowNumber = 0;
+
+        try {
+            for (int shard = 0; shard < manifest.getShardCount(); shard++) {
+                long rowCount = manifest.getDoneRowCount(shard);
+                if (rowCount < 0) {
+                    throw new IOException("Shard " + shard + " of " + manifest + " isn't done");
+                }
+                ShardCursor cursor = new ShardCursor(manifest, shard, rowCount, idCodec.bytesPerId());
+                openCursors.add(cursor);
+                if (cursor.next()) {
+                    cursors.add(cursor);
+                }
+            }
+
+            try (IDOutputWriter outputWriter = new IDOutputWriter(outputFilePath, format, manifest.getIdFormat(), 0)) {
+                StringBuilder id = new StringBuilder(idCodec.idLength());
+                while (!cursors.isEmpty()) {
+                    ShardCursor cursor = cursors.poll();
+                    id.setLength(0);
+                    idCodec.unpack(cursor.packedID, 0, id);
+                    outputWriter.write(++rowNumber, id);
+                    if (cursor.next()) {
+                        cursors.add(cursor);
+                    }
+                }
+            }
+        } finally {
+            for (ShardCursor cursor : openCursors) {
+                cursor.input.close();
+            }
+        }
+        return rowNumber;
+    }
+
+    /**
+     * @return true if the saved manifest is for the same file, with the same boundaries and the same IDs
+     */
+    private boolean isSameRun(ShardManifest savedManifest, Path csvFilePath, long[] boundaries) throws IOException {
+        if (!savedManifest.getCsvFile().equals(csvFilePath.toAbsolutePath()) || !savedManifest.isInputUnchanged()
+                || savedManifest.getShardCount() != boundaries.length - 1
+                || !savedManifest.getDrbgMechanism().equals(this.drbgMechanism)) {
+            return false;
+        }
+        IdFormat savedIdFormat = savedManifest.getIdFormat();
+        if (!savedIdFormat.getAlphabet().equals(this.idFormat.getAlphabet())
+                || savedIdFormat.getLength() != this.idFormat.getLength()
+                || !savedIdFormat.getPrefix().equals(this.idFormat.getPrefix())
+                || savedIdFormat.hasCheckCharacter() != this.idFormat.hasCheckCharacter()) {
+            return false;
+        }
+        for (int shard = 0; shard < savedManifest.getShardCount(); shard++) {
+            if (savedManifest.getStartOffset(shard) != boundaries[shard]
+                    || savedManifest.getEndOffset(shard) != boundaries[shard + 1]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Reads the records of one shard output in order, checking them against the shard's range and row count.
+     */
+    private static final class ShardCursor {
+        private final int shard;
+        private final long startOffset;
+        private final long endOffset;
+        private final DataInputStream input;
+        private final byte[] packedID;
+        private long remainingRows;
+        private long rowOffset = -1; // The byte offset of the current record's row
+
+        private ShardCursor(ShardManifest manifest, int shard, long rowCount, int bytesPerId) throws IOException {
+            this.shard = shard;
+            this.startOffset = manifest.getStartOffset(shard);
+            this.endOffset = manifest.getEndOffset(shard);
+            this.input = new DataInputStream(new BufferedInputStream(Files.newInputStream(
+                    manifest.getShardOutput(shard)), MERGE_BUFFER_SIZE));
+            this.packedID = new byte[bytesPerId];
+            this.remainingRows = rowCount;
+        }
+
+        /**
+         * @return true if there was another record, which is now the current record
+         * @throws IOException in case the output doesn't match the shard, or there are any IO errors
+         */
+        private boolean next() throws IOException {
+            if (this.remainingRows == 0) {
+                if (this.input.read() != -1) {
+                    throw new IOException("Shard " + this.shard + " has more records than its done marker says");
+                }
+                return false;
+            }
+
+            long previousRowOffset = this.rowOffset;
+            try {
+                this.rowOffset = this.input.readLong();
+                this.input.readFully(this.packedID);
+            } catch (EOFException e) {
+                throw new IOException("Shard " + this.shard + " has fewer records than its done marker says", e);
+            }
+            if (this.rowOffset < this.startOffset || this.rowOffset >= this.endOffset
+                    || this.rowOffset <= previousRowOffset) {
+                throw new IOException("Shard " + this.shard + " has a record out of order, or outside of its range");
+            }
+            this.remainingRows--;
+            return true;
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        boolean withHeader = args.length > 4 && args[4].equals("--header");
+        String command = args.length > 0 ? args[0] : "";
+        if (command.equals("worker") && args.length == 3) {
+            long rowCount = runWorker(Paths.get(args[1]), Integer.parseInt(args[2]));
+            System.out.println("Shard " + args[2] + ": " + rowCount + " rows");
+        } else if (command.equals("plan") && args.length >= 4) {
+            System.out.println(new ShardedIDGenerator(DRBGEngine.DEFAULT_ID_FORMAT, DRBGEngine.HASH_DRBG).plan(
+                    Paths.get(args[1]), withHeader, Paths.get(args[2]), Integer.parseInt(args[3])));
+        } else if (command.equals("merge") && args.length == 3) {
+            ShardManifest manifest = ShardManifest.load(Paths.get(args[1]));
+            if (manifest == null) {
+                throw new IOException("There is no shard manifest at " + args[1]);
+            }
+            long rowCount = merge(manifest, Paths.get(args[2]), IDOutputWriter.Format.CSV);
+            manifest.delete();
+            System.out.println("Wrote " + rowCount + " IDs to " + args[2]);
+        } else if (command.equals("run") && args.length >= 4) {
+            long rowCount = new ShardedIDGenerator(DRBGEngine.DEFAULT_ID_FORMAT, DRBGEngine.HASH_DRBG).generate(
+                    Paths.get(args[1]), withHeader, Paths.get(args[2]), IDOutputWriter.Format.CSV,
+                    Integer.parseInt(args[3]));
+            System.out.println("Wrote " + rowCount + " IDs to " + args[2]);
+        } else {
+            System.err.println("Usage: ShardedIDGenerator run csvFile outputFile shardCount [--header]\n"
+                    + "       ShardedIDGenerator plan csvFile manifestFile shardCount [--header]\n"
+                    + "       ShardedIDGenerator worker manifestFile shard\n"
+                    + "       ShardedIDGenerator merge manifestFile outputFile");
+            System.exit(2);
+        }
+    }
+}
@@ -71,27 +71,57 @@ Source - https://docs.oracle.com/en/java/javase/11/docs/api/java.base/java/secur
 In this application, for every row in the cvs file, the information is put into an ArrayList of StringBuilder objects, in the
 generateRandomIDs method. The generateRandomAlphaNumeric method then takes it in as a string and adds it to the reseeding
 of the random generation.
+
+When a whole CSV file is generated, the DRBG is only instantiated once (see DRBGEngine), and each row is passed in as
+additional input for its ID instead of as the personalization string of a brand new instantiation. Instantiating (and
+seeding) a DRBG per row was by far the most expensive part of a run.
 */
 
 
 import org.jetbrains.annotations.NotNull;
+import utils.ColumnProjection;
 import utils.CustomCSVReader;
+import utils.EntropyPool;
+import utils.GenerationMetrics;
+import utils.IDCollisionIndex;
+import utils.IDOutputWriter;
+import utils.IdBlock;
+import utils.IdFormat;
+import utils.MappedCSVReader;
+import utils.ReseedPolicy;
+import utils.RowDigest;
+import utils.RowIndex;
+import utils.RunCheckpoint;
 
 import java.io.File;
 import java.io.IOException;
 import java.io.BufferedReader;
 import java.io.InputStreamReader;
 import java.io.FileInputStream;
+import java.io.UncheckedIOException;
+import java.lang.ref.WeakReference;
+import java.net.InetSocketAddress;
 import java.nio.charset.StandardCharsets;
-import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.security.Security;
-import java.security.DrbgParameters;
 import java.security.SecureRandom;
 import java.security.NoSuchProviderException;
 import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 
 /**
@@ -99,17 +129,36 @@ import java.util.List;
  */
 public class TransactionGenerator {
 
-    private int cvsLineCounter;  // To count csv lines and (possibly) print to log
-    private SecureRandom secureRandomObject; // Instantiation of our SecureRandom object
-    private String acceptedCharacters;
+    private final LongAdder cvsLineCounter;  // To count csv lines across every thread and (possibly) print to log
+    private final ThreadLocal<DRBGEngine> drbgEngines; // Long-lived DRBG per calling thread, instantiated on first use
+    private final Queue<WeakReference<DRBGEngine>> allDRBGEngines; // Each thread's engine, weakly, to apply settings to
+    private volatile boolean threadEngineMade; // Once a thread's engine exists, its format and mechanism are fixed
+    private final AtomicInteger engineCounter; // Numbers the engines, for their personalization strings
+    private volatile GenerationMetrics metrics; // Phase timings of whole CSV file runs
+    private volatile IDCollisionIndex collisionIndex; // Optional uniqueness guard of every thread's engine
+    private volatile String drbgMechanism; // The mechanism of every thread's engine
+    private volatile IdFormat idFormat; // What the IDs of whole CSV file runs look like
+    private volatile ReseedPolicy reseedPolicy; // How often every thread's engine pulls fresh entropy
+    private volatile EntropyPool entropyPool; // Optional shared source of that entropy
+    private volatile ColumnProjection columnProjection; // The columns that feed the generator, null for whole rows
+    private final String acceptedCharacters;
 
     /**
-     * Constructor that sets our counter for the csv lines, and creates a new SecureRandom instance.
+     * Constructor that sets our counter for the csv lines. DRBGs are only instantiated when they are first needed.
+     *
+     * One TransactionGenerator can be shared by several threads: every thread generates whole CSV files with its own
+     * DRBG engine, and the per-call generateRandomAlphaNumericString only uses local state.
      */
     public TransactionGenerator() {
-        this.cvsLineCounter = 0;
+        this.cvsLineCounter = new LongAdder();
         this.acceptedCharacters = "AaBbCcDdEeFfGgHhIiJjKkLlMmNnOoPpQqRrSsTtUuVvWwXxYyZz0123456789";
-        this.secureRandomObject = new SecureRandom();
+        this.drbgEngines = new ThreadLocal<>();
+        this.allDRBGEngines = new ConcurrentLinkedQueue<>();
+        this.engineCounter = new AtomicInteger();
+        this.metrics = GenerationMetrics.DISABLED;
+        this.drbgMechanism = DRBGEngine.HASH_DRBG;
+        this.idFormat = DRBGEngine.DEFAULT_ID_FORMAT;
+        this.reseedPolicy = ReseedPolicy.defaultPolicy();
     }
 
 
@@ -125,13 +174,28 @@ public class TransactionGenerator {
     // Read data from CSV File and generate random IDs in a list
     protected List<StringBuilder> generateAllAlphaNumericID(String csvFilePath, boolean withHeader, boolean withLogging)
             throws IOException {
-        // Logging
-        if (withLogging) logToConsole("Creating initial capacity for array list");
-        // Get size of CSV
-        int arrayListCapacity = (int) Files.lines(Paths.get(csvFilePath)).count();
-        // Set initial capacity of our list using the size of the CSV file
-        List<StringBuilder> randomIDList = new ArrayList<>(arrayListCapacity);
-        String currentCSVLine;
+        return generateAllAlphaNumericID(csvFilePath, withHeader, withLogging, 1);
+    }
+
+    /**
+     * This method takes in a CSV file path, and generates the IDs for its lines in batches. The random bytes for a
+     * whole batch are drawn from the DRBG with a single call, with every line of the batch as additional input.
+     *
+     * @param csvFilePath is the String path of the CSV file
+     * @param withHeader  is a boolean value to be set if your CSV file has a header line (the first line)
+     * @param withLogging is a boolean value to determine if we should log to our console
+     * @param batchSize   is the number of lines per DRBG call, 1 draws the bytes for every ID separately
+     * @return an ArrayList of StringBuilder objects of all generated random alphanumeric ID numbers
+     * @throws IOException in case CSV file doesn't exist, or there are any IO errors
+     */
+    protected List<StringBuilder> generateAllAlphaNumericID(String csvFilePath, boolean withHeader, boolean withLogging,
+                                                            int batchSize) throws IOException {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("Batch size must be at least 1");
+        }
+        // The list grows as we read, so the CSV file is only read once
+        List<StringBuilder> randomIDList = new ArrayList<>();
+        String customerRow;
 
         // Logging
         if (withLogging) {
@@ -139,32 +203,480 @@ public class TransactionGenerator {
             logToConsole("Setting Secure Random Algorithm to DRBG");
         }
 
+        // Read CSV file. A missing file is reported to the caller as an IOException
+        BufferedReader bufferedReader = new BufferedReader(new InputStreamReader(new FileInputStream
+                (new File(Paths.get(csvFilePath).toString()))));
         try {
-            // Read CSV file. For each row make random id for each line
-            BufferedReader bufferedReader = new BufferedReader(new InputStreamReader(new FileInputStream
-                    (new File(Paths.get(csvFilePath).toString()))));
-            if (withHeader) // Treat the first line as a header
-                bufferedReader.readLine();
-
-            while ((currentCSVLine = bufferedReader.readLine()) != null) {
-                this.cvsLineCounter++;
-                randomIDList.add(generateRandomAlphaNumericString(CustomCSVReader.parseCSVLine(currentCSVLine), withLogging));
-            }
+            // For each row make random id for each row. A row spans several lines if a quoted field has line breaks
+            CustomCSVReader csvReader = new CustomCSVReader();
+            if (withHeader) // Treat the first row as a header
+                csvReader.readRow(bufferedReader);
 
-            // Logging
-            if (withLogging) logToConsole("Closing our buffered reader");
-            bufferedReader.close(); // Close buffered reader
+            // Instantiate the DRBG once, and feed every row to it as additional input
+            DRBGEngine engine = getDRBGEngine();
+
+            // With a column projection, only the digest of the selected columns of every row is fed to the DRBG
+            ColumnProjection columnProjection = this.columnProjection;
+            if (columnProjection != null) {
+                generateProjected(csvReader, bufferedReader, columnProjection, engine, batchSize, randomIDList);
+            } else {
+                List<String> currentBatch = new ArrayList<>(batchSize);
+
+                // Rows are counted instead of logged one by one, the phase timings are in the metrics (see setMetrics)
+                while ((customerRow = readRow(csvReader, bufferedReader)) != null) {
+                    this.cvsLineCounter.increment();
+
+                    if (batchSize == 1) {
+                        randomIDList.add(engine.generate(customerRow));
+                    } else {
+                        currentBatch.add(customerRow);
+                        if (currentBatch.size() == batchSize) {
+                            randomIDList.addAll(engine.generateBatch(currentBatch));
+                            currentBatch.clear();
+                        }
+                    }
+                }
+                // Generate whatever is left over in the last, partial batch
+                randomIDList.addAll(engine.generateBatch(currentBatch));
+            }
         } catch (IOException | NoSuchAlgorithmException | NoSuchProviderException | IllegalArgumentException e) {
             // Logging
             if (withLogging) logToConsole(e.toString());
             e.printStackTrace();
+        } finally {
+            // Logging
+            if (withLogging) logToConsole("Closing our buffered reader");
+            bufferedReader.close(); // Close buffered reader
         }
 
         // Logging
-        if (withLogging) logToConsole("Returning our array list of 24 alphanumeric characters");
+        if (withLogging) {
+            logToConsole("Generated " + randomIDList.size() + " 24 alphanumeric characters");
+            if (this.metrics.isEnabled()) logToConsole(this.metrics.toString());
+            logToConsole("Returning our array list of 24 alphanumeric characters");
+        }
+        return randomIDList;
+    }
+
+    /**
+     * This method takes in a CSV file path, and generates an ID for every row into a packed IdBlock. Every ID takes 18
+     * bytes in the block (with the default ID format), instead of a StringBuilder object of its own.
+     *
+     * @param csvFilePath is the String path of the CSV file
+     * @param withHeader  is a boolean value to be set if your CSV file has a header line (the first line)
+     * @return an IdBlock of all generated random alphanumeric ID numbers, in input row order
+     * @throws IOException              in case CSV file doesn't exist, or there are any IO errors
+     * @throws NoSuchAlgorithmException if a DRBG implementation is not available from the SUN provider
+     * @throws NoSuchProviderException  if the SUN provider is not available
+     */
+    protected IdBlock generateAllAlphaNumericIDBlock(String csvFilePath, boolean withHeader)
+            throws IOException, NoSuchAlgorithmException, NoSuchProviderException {
+        DRBGEngine engine = getDRBGEngine();
+        IdBlock idBlock = new IdBlock(this.idFormat, 1024);
+        CustomCSVReader csvReader = new CustomCSVReader();
+        String customerRow;
+
+        try (BufferedReader bufferedReader = new BufferedReader(new InputStreamReader(new FileInputStream
+                (new File(Paths.get(csvFilePath).toString()))))) {
+            if (withHeader) // Treat the first row as a header
+                csvReader.readRow(bufferedReader);
+
+            ColumnProjection columnProjection = this.columnProjection;
+            if (columnProjection != null) {
+                csvReader.setColumnProjection(columnProjection);
+                RowDigest rowDigest = new RowDigest();
+                byte[] customerDigest;
+                while ((customerDigest = readRowDigest(csvReader, bufferedReader, rowDigest)) != null) {
+                    engine.generateInto(customerDigest, idBlock);
+                }
+            } else {
+                while ((customerRow = readRow(csvReader, bufferedReader)) != null) {
+                    engine.generateInto(customerRow, idBlock);
+                }
+            }
+        }
+        return idBlock;
+    }
+
+    /**
+     * This method takes in a CSV file path, memory maps the file, and generates an ID for every row. The rows are
+     * parsed straight from the mapped bytes, and each row's bytes (or the digest of its selected columns, see
+     * setColumnProjection) are passed to the DRBG as additional input, so no String is created per row.
+     *
+     * @param csvFilePath is the String path of the CSV file
+     * @param withHeader  is a boolean value to be set if your CSV file has a header line (the first line)
+     * @return an ArrayList of StringBuilder objects of all generated random alphanumeric ID numbers
+     * @throws IOException              in case CSV file doesn't exist, or there are any IO errors
+     * @throws NoSuchAlgorithmException if a DRBG implementation is not available from the SUN provider
+     * @throws NoSuchProviderException  if the SUN provider is not available
+     */
+    protected List<StringBuilder> generateAllAlphaNumericIDMapped(String csvFilePath, boolean withHeader)
+            throws IOException, NoSuchAlgorithmException, NoSuchProviderException {
+        DRBGEngine engine = getDRBGEngine();
+        List<StringBuilder> randomIDList = new ArrayList<>();
+        ColumnProjection columnProjection = this.columnProjection;
+        RowDigest rowDigest = new RowDigest();
+
+        MappedCSVReader csvReader = new MappedCSVReader();
+        csvReader.read(Paths.get(csvFilePath), withHeader, (rowBuffer, rowLength) -> randomIDList.add(
+                generateMapped(engine, csvReader, rowBuffer, rowLength, columnProjection, rowDigest)));
         return randomIDList;
     }
 
+    /**
+     * This method takes in a CSV file path, and writes a (row number, ID) record for every row to an output file
+     * instead of returning the IDs. Row numbers start at 1 with the first row after the header. Every
+     * checkpointInterval rows the output is synced to disk and a checkpoint (the input byte offset and the output
+     * position) is saved next to the output file, as outputFilePath + ".checkpoint". If a checkpoint is already there,
+     * the run carries on from it: the output is cut back to the checkpoint's position and the input is read from the
+     * checkpoint's offset, so an interrupted run only redoes the rows after its last checkpoint.
+     *
+     * The checkpoint is kept when the run completes, so running again only handles rows appended to the CSV file since.
+     * A last row without a line break may still be being written, so it is left out of every checkpoint: the next run
+     * cuts its record off and reads it again, whole or with whatever was appended to it. The checkpoint also holds a
+     * digest of the input bytes before its offset, and a run over a CSV file that was rewritten, shortened or replaced
+     * since fails rather than resume at a stale offset. Delete the checkpoint (and the output) to start over.
+     *
+     * @param csvFilePath        is the String path of the CSV file
+     * @param withHeader         is a boolean value to be set if your CSV file has a header line (the first line)
+     * @param outputFilePath     is the String path of the file to write the records to
+     * @param format             is the layout of the records, CSV or binary
+     * @param checkpointInterval is the number of rows between checkpoints
+     * @return the total number of rows in the output file, including rows written by earlier runs
+     * @throws IOException              in case CSV file doesn't exist, it changed since the checkpoint, or there are
+     *                                  any IO errors
+     * @throws NoSuchAlgorithmException if a DRBG implementation is not available from the SUN provider
+     * @throws NoSuchProviderException  if the SUN provider is not available
+     */
+    protected long generateAllAlphaNumericIDToFile(String csvFilePath, boolean withHeader, String outputFilePath,
+                                                   IDOutputWriter.Format format, long checkpointInterval)
+            throws IOException, NoSuchAlgorithmException, NoSuchProviderException {
+        if (checkpointInterval < 1) {
+            throw new IllegalArgumentException("Checkpoint interval must be at least 1");
+        }
+        DRBGEngine engine = getDRBGEngine();
+        Path csvFile = Paths.get(csvFilePath);
+        Path checkpointFile = Paths.get(outputFilePath + ".checkpoint");
+
+        // Carry on from the last checkpoint, if an earlier run saved one over the same input
+        RunCheckpoint lastCheckpoint = RunCheckpoint.load(checkpointFile);
+        if (lastCheckpoint == null) {
+            lastCheckpoint = RunCheckpoint.of(csvFile, 0, 0, 0);
+        } else if (!lastCheckpoint.matchesInput(csvFile)) {
+            throw new IOException(csvFilePath + " changed since the checkpoint " + checkpointFile
+                    + " was saved, delete the checkpoint and the output to start over");
+        }
+        long[] rowNumber = {lastCheckpoint.getRowCount()};
+        ColumnProjection columnProjection = this.columnProjection;
+        RowDigest rowDigest = new RowDigest();
+
+        MappedCSVReader csvReader = new MappedCSVReader();
+        try (IDOutputWriter outputWriter = new IDOutputWriter(Paths.get(outputFilePath), format,
+                this.idFormat, lastCheckpoint.getOutputPosition())) {
+            try {
+                // The header is only at the start of the file, a resumed run starts past it
+                csvReader.read(csvFile, lastCheckpoint.getInputOffset(),
+                        withHeader && lastCheckpoint.getInputOffset() == 0, (rowBuffer, rowLength) -> {
+                            try {
+                                if (!csvReader.isRowTerminated()) {
+                                    // Check the run in up to the start of an unfinished last row, not past it
+                                    saveCheckpoint(outputWriter, csvFile, csvReader.getRowStartOffset(),
+                                            rowNumber[0], checkpointFile);
+                                }
+                                outputWriter.write(++rowNumber[0], generateMapped(engine, csvReader, rowBuffer,
+                                        rowLength, columnProjection, rowDigest));
+                                if (rowNumber[0] % checkpointInterval == 0 && csvReader.isRowTerminated()) {
+                                    saveCheckpoint(outputWriter, csvFile, csvReader.getRowEndOffset(),
+                                            rowNumber[0], checkpointFile);
+                                }
+                            } catch (IOException e) {
+                                throw new UncheckedIOException(e);
+                            }
+                        });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+
+            // A last checkpoint for the rows after the last full interval (or the skipped header)
+            if (csvReader.isRowTerminated()) {
+                saveCheckpoint(outputWriter, csvFile, csvReader.getRowEndOffset(), rowNumber[0], checkpointFile);
+            }
+        }
+        return rowNumber[0];
+    }
+
+    /**
+     * This method takes in a CSV file path, and gives every row the ID it was given by the previous run over the file,
+     * generating IDs only for rows that are new or changed since. Rows are recognized by a fingerprint of their
+     * contents, kept with their IDs in an index file (see RowIndex), so a row keeps its ID when rows above it are
+     * added or deleted. The index is replaced with the rows of this run at the end, and created by the first run.
+     *
+     * Every row is still read and fingerprinted, but on a mostly unchanged file almost no DRBG work is done. Rows are
+     * fingerprinted whole, so a change to any column gives the row a new ID, drawn from its selected columns when a
+     * column projection is set.
+     *
+     * @param csvFilePath   is the String path of the CSV file
+     * @param withHeader    is a boolean value to be set if your CSV file has a header line (the first line)
+     * @param indexFilePath is the String path of the index file of the previous run
+     * @return the ID of every row in input row order, and the number of unchanged, appended, changed and deleted rows
+     * @throws IOException              in case CSV file doesn't exist, the index file is for another ID format, or
+     *                                  there are any IO errors
+     * @throws NoSuchAlgorithmException if a DRBG implementation is not available from the SUN provider
+     * @throws NoSuchProviderException  if the SUN provider is not available
+     */
+    protected RowIndex.Delta generateAllAlphaNumericIDIncremental(String csvFilePath, boolean withHeader,
+                                                                  String indexFilePath)
+            throws IOException, NoSuchAlgorithmException, NoSuchProviderException {
+        DRBGEngine engine = getDRBGEngine();
+        IdFormat runIdFormat = engine.getIdFormat();
+        Path indexFile = Paths.get(indexFilePath);
+        RowIndex previousIndex = RowIndex.load(indexFile, runIdFormat);
+        RowIndex newIndex = new RowIndex(runIdFormat, previousIndex.size());
+        RowIndex.Fingerprinter fingerprinter = new RowIndex.Fingerprinter();
+        ColumnProjection columnProjection = this.columnProjection;
+        RowDigest rowDigest = new RowDigest();
+        List<StringBuilder> randomIDList = new ArrayList<>(previousIndex.size());
+        BitSet generatedRows = new BitSet();
+
+        MappedCSVReader csvReader = new MappedCSVReader();
+        csvReader.read(Paths.get(csvFilePath), withHeader, (rowBuffer, rowLength) -> {
+            this.cvsLineCounter.increment();
+            int position = randomIDList.size();
+            byte[] fingerprint = fingerprinter.fingerprint(rowBuffer, csvReader.getFieldEnds(),
+                    csvReader.getFieldCount());
+
+            StringBuilder randomAlphanumericID;
+            int previousRow = previousIndex.claim(fingerprint, position);
+            if (previousRow >= 0) {
+                randomAlphanumericID = new StringBuilder(runIdFormat.getTotalLength());
+                previousIndex.appendID(previousRow, randomAlphanumericID);
+            } else {
+                randomAlphanumericID = generateMapped(engine, csvReader, rowBuffer, rowLength, columnProjection,
+                        rowDigest);
+                generatedRows.set(position);
+            }
+            randomIDList.add(randomAlphanumericID);
+            newIndex.add(fingerprint, randomAlphanumericID);
+        });
+        newIndex.save(indexFile);
+
+        // A new row in place of a row that is gone is a change, any other new row was added
+        int changed = 0;
+        for (int position = generatedRows.nextSetBit(0); position >= 0 && position < previousIndex.size();
+             position = generatedRows.nextSetBit(position + 1)) {
+            if (!previousIndex.isClaimed(position)) {
+                changed++;
+            }
+        }
+        int generated = generatedRows.cardinality();
+        return new RowIndex.Delta(randomIDList, randomIDList.size() - generated, generated - changed, changed,
+                previousIndex.size() - previousIndex.getClaimedCount() - changed);
+    }
+
+    /**
+     * Syncs the output written so far to disk, and then saves a checkpoint for it.
+     *
+     * @param outputWriter   is the writer of the output file
+     * @param csvFile        is the input file
+     * @param inputOffset    is the byte offset of the next input row to read
+     * @param rowCount       is the number of rows written
+     * @param checkpointFile is the path of the checkpoint file
+     * @throws IOException in case there are any IO errors
+     */
+    private void saveCheckpoint(IDOutputWriter outputWriter, Path csvFile, long inputOffset, long rowCount,
+                                Path checkpointFile) throws IOException {
+        outputWriter.sync();
+        RunCheckpoint.of(csvFile, inputOffset, outputWriter.position(), rowCount).save(checkpointFile);
+    }
+
+    /**
+     * This method takes in a CSV file path, and returns a lazy stream of IDs, one per line. The file is read once, and
+     * each ID is generated only when the stream asks for it, so heap usage does not grow with the size of the file.
+     * The stream holds the file open, so it should be closed (e.g. with try-with-resources) when done.
+     *
+     * @param csvFilePath is the String path of the CSV file
+     * @param withHeader  is a boolean value to be set if your CSV file has a header line (the first line)
+     * @return a sequential Stream of 24 alphanumeric IDs, in input line order
+     * @throws IOException              in case CSV file doesn't exist, or there are any IO errors opening it
+     * @throws NoSuchAlgorithmException if a DRBG implementation is not available from the SUN provider
+     * @throws NoSuchProviderException  if the SUN provider is not available
+     */
+    protected Stream<CharSequence> streamAlphaNumericID(String csvFilePath, boolean withHeader)
+            throws IOException, NoSuchAlgorithmException, NoSuchProviderException {
+        DRBGEngine engine = getDRBGEngine();
+        ColumnProjection columnProjection = this.columnProjection;
+        BufferedReader bufferedReader = new BufferedReader(new InputStreamReader(new FileInputStream
+                (new File(Paths.get(csvFilePath).toString()))));
+        CustomCSVReader csvReader = new CustomCSVReader();
+        try {
+            if (withHeader) // Treat the first row as a header
+                csvReader.readRow(bufferedReader);
+        } catch (IOException e) {
+            bufferedReader.close();
+            throw e;
+        }
+        csvReader.setColumnProjection(columnProjection);
+        RowDigest rowDigest = new RowDigest();
+
+        // Rows are read one ahead, so hasNext() knows whether there is another row. A digest stays in the RowDigest's
+        // buffer until the next row is read, which is after its ID is generated.
+        // Errors while reading further rows are thrown as UncheckedIOException by the stream
+        Iterator<CharSequence> randomIDs = new Iterator<CharSequence>() {
+            private String nextRow; // Without a column projection
+            private byte[] nextDigest; // With a column projection
+            private boolean hasNextRow = readNextRow();
+
+            @Override
+            public boolean hasNext() {
+                return this.hasNextRow;
+            }
+
+            @Override
+            public CharSequence next() {
+                if (!this.hasNextRow) {
+                    throw new NoSuchElementException();
+                }
+                StringBuilder randomAlphanumericID = columnProjection == null ? engine.generate(this.nextRow)
+                        : engine.generate(this.nextDigest, 0, RowDigest.DIGEST_SIZE);
+                this.hasNextRow = readNextRow();
+                return randomAlphanumericID;
+            }
+
+            private boolean readNextRow() {
+                try {
+                    if (columnProjection == null) {
+                        this.nextRow = readRow(csvReader, bufferedReader);
+                        return this.nextRow != null;
+                    }
+                    this.nextDigest = readRowDigest(csvReader, bufferedReader, rowDigest);
+                    return this.nextDigest != null;
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        };
+
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(randomIDs,
+                Spliterator.ORDERED | Spliterator.NONNULL), false)
+                .onClose(() -> {
+                    try {
+                        bufferedReader.close();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+    }
+
+    /**
+     * This method takes in a CSV file path, and returns a publisher of its IDs, one per line, for reactive consumers.
+     * Every subscriber gets its own pass over the file with its own engine, and IDs are only generated as the
+     * subscriber requests them, plus at most produceAheadBudget IDs generated ahead and kept for its next request.
+     * Cancelling stops generating and closes the file. Subscriptions run on the common ForkJoinPool, and take this
+     * object's settings (ID format, reseed policy, ...) as they are when they subscribe, except for the column
+     * projection, which is the one set when the publisher is made.
+     *
+     * @param csvFilePath        is the String path of the CSV file
+     * @param withHeader         is a boolean value to be set if your CSV file has a header line (the first line)
+     * @param produceAheadBudget is the most IDs generated ahead of a subscriber's demand, 0 to only generate on demand
+     * @return a Flow.Publisher of the IDs, in input line order
+     */
+    protected IDPublisher publishAlphaNumericID(String csvFilePath, boolean withHeader, int produceAheadBudget) {
+        return publishAlphaNumericID(csvFilePath, withHeader, produceAheadBudget, IDPublisher.defaultExecutor());
+    }
+
+    /**
+     * Same as publishAlphaNumericID(csvFilePath, withHeader, produceAheadBudget), with subscriptions running on the
+     * given executor. A subscription only ever runs as one task at a time.
+     *
+     * @param csvFilePath        is the String path of the CSV file
+     * @param withHeader         is a boolean value to be set if your CSV file has a header line (the first line)
+     * @param produceAheadBudget is the most IDs generated ahead of a subscriber's demand, 0 to only generate on demand
+     * @param executor           is the executor the subscriptions run on
+     * @return a Flow.Publisher of the IDs, in input line order
+     */
+    protected IDPublisher publishAlphaNumericID(String csvFilePath, boolean withHeader, int produceAheadBudget,
+                                                @NotNull Executor executor) {
+        return new IDPublisher(Paths.get(csvFilePath), withHeader, produceAheadBudget, executor,
+                this::newDRBGEngine, this.columnProjection);
+    }
+
+    /**
+     * Starts a local HTTP service issuing IDs: GET /id for one ID, and GET /ids?count=N for a batch streamed one ID per
+     * line. Requests run on virtual threads when the JVM has them, and borrow long-lived engines made with this
+     * object's settings (ID format, reseed policy, ...) as they are when the engine is made. Close it to stop it.
+     *
+     * @param address      is the address to listen on, e.g. new InetSocketAddress(InetAddress.getLoopbackAddress(), 0)
+     * @param maxBatchSize is the largest count a batch request may ask for
+     * @return the started service
+     * @throws IOException in case the address can't be bound
+     */
+    protected IDService serveAlphaNumericID(@NotNull InetSocketAddress address, int maxBatchSize) throws IOException {
+        IDService service = new IDService(address, maxBatchSize, this::newDRBGEngine);
+        service.start();
+        return service;
+    }
+
+    /**
+     * This method takes in a CSV file path, and generates the IDs for its lines on several threads. The lines are split
+     * into chunks, and every worker thread uses its own independently seeded DRBG. The workers' engines get this
+     * object's settings (DRBG mechanism, ID format, metrics, reseed policy, entropy pool and uniqueness guard), like
+     * the engines of the other whole-file paths, and the rows are fed to them through the column projection if one is
+     * set.
+     *
+     * @param csvFilePath is the String path of the CSV file
+     * @param withHeader  is a boolean value to be set if your CSV file has a header line (the first line)
+     * @param parallelism is the number of worker threads to generate with
+     * @return an ArrayList of StringBuilder objects of all generated random alphanumeric ID numbers, in input line order
+     * @throws IOException              in case CSV file doesn't exist, or there are any IO errors
+     * @throws NoSuchAlgorithmException if a DRBG implementation is not available from the SUN provider
+     * @throws NoSuchProviderException  if the SUN provider is not available
+     */
+    protected List<StringBuilder> generateAllAlphaNumericIDParallel(String csvFilePath, boolean withHeader,
+                                                                    int parallelism)
+            throws IOException, NoSuchAlgorithmException, NoSuchProviderException {
+        try (ParallelIDGenerator parallelIDGenerator = new ParallelIDGenerator(this.drbgMechanism,
+                parallelism)) {
+            parallelIDGenerator.setIdFormat(this.idFormat);
+            parallelIDGenerator.setMetrics(this.metrics);
+            parallelIDGenerator.setReseedPolicy(this.reseedPolicy);
+            parallelIDGenerator.setEntropyPool(this.entropyPool);
+            if (this.collisionIndex != null) {
+                parallelIDGenerator.setCollisionIndex(this.collisionIndex);
+            }
+            parallelIDGenerator.setColumnProjection(this.columnProjection);
+            return parallelIDGenerator.generateAll(csvFilePath, withHeader);
+        }
+    }
+
+    /**
+     * This method takes in a CSV file path, and generates the IDs for its rows in several worker processes (see
+     * ShardedIDGenerator). The file is split into byte ranges at row boundaries, every range is generated by its own
+     * JVM with its own DRBG, and the shard outputs are merged into one file of (row number, ID) records in input row
+     * order, like generateAllAlphaNumericIDToFile writes. The workers take this object's ID format and DRBG mechanism;
+     * the other settings (reseed policy, uniqueness guard, ...) belong to this process and don't reach them. A column
+     * projection would change which bytes the workers feed their DRBGs, so it is refused rather than ignored.
+     *
+     * @param csvFilePath    is the String path of the CSV file
+     * @param withHeader     is a boolean value to be set if your CSV file has a header line (the first line)
+     * @param outputFilePath is the String path of the file to write the records to
+     * @param format         is the layout of the records, CSV or binary
+     * @param shardCount     is the number of shards, and so the number of worker processes
+     * @return the number of rows in the output file
+     * @throws IOException           in case CSV file doesn't exist, a worker fails, or there are any IO errors
+     * @throws IllegalStateException if a column projection is set, the workers always feed whole rows
+     */
+    protected long generateAllAlphaNumericIDSharded(String csvFilePath, boolean withHeader, String outputFilePath,
+                                                    IDOutputWriter.Format format, int shardCount) throws IOException {
+        if (this.columnProjection != null) {
+            throw new IllegalStateException("Sharded workers can't apply the column projection "
+                    + this.columnProjection);
+        }
+        long rowCount = new ShardedIDGenerator(this.idFormat, this.drbgMechanism).generate(Paths.get(csvFilePath),
+                withHeader, Paths.get(outputFilePath), format, shardCount);
+        this.cvsLineCounter.add(rowCount);
+        return rowCount;
+    }
+
     /**
      * Overloaded function to set default parameter value for withHeader equal to true and withLogging equal false.
      * In the default case where only the csvFilePath paremeter is passed, it is assumed the CSV has a header and should
@@ -201,14 +713,10 @@ public class TransactionGenerator {
         // Set length of random alphanumeric
         final short maxIDLength = 24;
         final String HASH_DRBG = "HASH_DRBG";
-        final String HMAC_DRBG = "HMAC_DRBG";
-        final String secureRandomConfig = "securerandom.drbg.config";
-        final String secureRandomAlgorithm = "DRBG";
-        final String secureRandomProvider = "SUN";
-        final int securityStrength = 256;
         StringBuilder randomAlphanumericID = new StringBuilder(maxIDLength);
+        SecureRandom secureRandomObject;
 
-        // Try to use these two DRBG mechanisms. If those two are not available, go with whatever default is available.
+        // Use the HASH_DRBG mechanism. If it is not available, go with whatever default is available.
         /*
         HMAC-DRBG shuffles things around a bit more than Hash-DRBG and HMAC itself contains two
         hash invocations. Thus HMAC-DRBG is certainly slower. But as any possible weaknesses of HMAC will come from
@@ -219,29 +727,24 @@ public class TransactionGenerator {
         // Logging
         if (withLogging) logToConsole("Configuring Secure Random");
 
-        try{
-            Security.setProperty(secureRandomConfig, HASH_DRBG);
-        } catch (IllegalArgumentException e){
-            Security.setProperty(secureRandomConfig, HMAC_DRBG);
-        } finally {
-            // Put customer string through the DRBG generation
-            try {
-                this.secureRandomObject = SecureRandom.getInstance(secureRandomAlgorithm, DrbgParameters.instantiation(securityStrength,
-                        DrbgParameters.Capability.PR_AND_RESEED, customerInfoString.getBytes(StandardCharsets.UTF_16)), secureRandomProvider);
-
-            } catch (NoSuchAlgorithmException e) {
-                // Logging
-                if (withLogging) logToConsole(e.toString());
-                e.printStackTrace();
-            }
+        // Put customer string through the DRBG generation. The SecureRandom is local to this call, and the JVM-wide
+        // mechanism property is only written when it isn't HASH_DRBG already, so concurrent callers don't race
+        try {
+            // A fixed size digest of the customer string, instead of its UTF-16 bytes (twice its length, plus a BOM)
+            secureRandomObject = DRBGEngine.instantiate(HASH_DRBG, new RowDigest().digest(customerInfoString));
+        } catch (NoSuchAlgorithmException e) {
+            // Logging
+            if (withLogging) logToConsole(e.toString());
+            e.printStackTrace();
+            secureRandomObject = new SecureRandom();
         }
 
         // Logging
-        if (withLogging) logToConsole("Line " + this.cvsLineCounter + ": Generating 24 alphanumeric character");
+        if (withLogging) logToConsole("Line " + this.cvsLineCounter.sum() + ": Generating 24 alphanumeric character");
 
         // Go through and make 24 alphanumeric string
         for (int i = 0; i < maxIDLength; i++) {
-            int randCharAt = this.secureRandomObject.nextInt(this.acceptedCharacters.length()); // pick one of our accepted character's index
+            int randCharAt = secureRandomObject.nextInt(this.acceptedCharacters.length()); // pick one of our accepted character's index
             char randomCharacter = this.acceptedCharacters.charAt(randCharAt); // get the character at that index
 
             randomAlphanumericID.append(randomCharacter); // add the character to our string builder
@@ -266,6 +769,296 @@ public class TransactionGenerator {
         return generateRandomAlphaNumericString(customerInfoString, false);
     }
 
+    /**
+     * Turns on the optional uniqueness guard. From now on, every ID generated from a CSV file by this object is checked
+     * against the index of issued IDs, and regenerated if it was issued before. The index is shared by every thread's
+     * engine, and synchronizes itself. Call this before generating, while no thread is generating.
+     *
+     * @param collisionIndex is the (persistent) index of issued IDs
+     */
+    protected void enableUniquenessGuard(IDCollisionIndex collisionIndex) {
+        this.collisionIndex = collisionIndex;
+        for (DRBGEngine engine : liveDRBGEngines()) {
+            engine.setCollisionIndex(collisionIndex);
+        }
+    }
+
+    /**
+     * Sets where the phases of whole CSV file runs (CSV parse, DRBG instantiation, byte draw and character mapping) are
+     * timed to, e.g. a RecordingMetrics registered with JMX. By default nothing is timed.
+     *
+     * The metrics are shared by every thread's engine, so they must be thread safe (RecordingMetrics is). Call this
+     * before generating, while no thread is generating.
+     *
+     * @param metrics is the metrics to record to, GenerationMetrics.DISABLED to stop recording
+     */
+    protected void setMetrics(@NotNull GenerationMetrics metrics) {
+        this.metrics = metrics;
+        for (DRBGEngine engine : liveDRBGEngines()) {
+            engine.setMetrics(metrics);
+        }
+    }
+
+    /**
+     * Sets how often the DRBG engines of whole CSV file runs pull fresh entropy from the system entropy source, e.g.
+     * ReseedPolicy.everyMillis(1_000). By default they reseed every ReseedPolicy.DEFAULT_RESEED_IDS IDs, and
+     * ReseedPolicy.never() turns reseeding off. Call this before generating, while no thread is generating.
+     *
+     * @param reseedPolicy is the policy every thread's engine applies before each draw
+     * @throws IllegalStateException if the policy is prediction resistant and an entropy pool is set
+     */
+    protected void setReseedPolicy(@NotNull ReseedPolicy reseedPolicy) {
+        DRBGEngine.checkEntropyPool(reseedPolicy, this.entropyPool);
+        this.reseedPolicy = reseedPolicy;
+        for (DRBGEngine engine : liveDRBGEngines()) {
+            engine.setReseedPolicy(reseedPolicy);
+        }
+    }
+
+    /**
+     * Makes every thread's engine take the entropy input of its policy reseeds from a shared pool, which reads the
+     * entropy source in large blocks in the background, instead of each reseed reading the system entropy source (see
+     * DRBGEngine.setEntropyPool). Call this before generating, while no thread is generating.
+     *
+     * @param entropyPool is the shared pool, or null to reseed from the system entropy source
+     * @throws IllegalArgumentException if the pool's seeds are shorter than the security strength
+     * @throws IllegalStateException    if the reseed policy is prediction resistant
+     */
+    protected void setEntropyPool(EntropyPool entropyPool) {
+        DRBGEngine.checkEntropyPool(this.reseedPolicy, entropyPool);
+        this.entropyPool = entropyPool;
+        for (DRBGEngine engine : liveDRBGEngines()) {
+            engine.setEntropyPool(entropyPool);
+        }
+    }
+
+    /**
+     * Sets the DRBG mechanism whole CSV files are generated with, instead of HASH_DRBG. Engines are instantiated with
+     * their mechanism, so this can only be called before the first CSV file is generated.
+     *
+     * @param mechanism is the securerandom.drbg.config value (e.g. "HASH_DRBG", "HMAC_DRBG", "CTR_DRBG")
+     * @throws IllegalStateException if an engine was already instantiated
+     */
+    protected void setDRBGMechanism(@NotNull String mechanism) {
+        if (this.threadEngineMade) {
+            throw new IllegalStateException("The DRBG mechanism can't change after generating has started");
+        }
+        this.drbgMechanism = mechanism;
+    }
+
+    /**
+     * Picks the columns of every row that feed the generator, e.g. ColumnProjection.of(0, 3) for the customer ID and
+     * the account number. The reader skips the other columns, and the selected fields are reduced to a 32 byte digest
+     * (see RowDigest) that goes to the DRBG instead of the whole row, so the cost per row doesn't grow with the width
+     * of the file. Applies to every whole-file path except the sharded one, whose worker processes always feed whole
+     * rows and which throws IllegalStateException while a projection is set. The memory mapped paths parse every
+     * column, and only digest the selected ones. Call this before generating, while no thread is generating.
+     *
+     * @param columnProjection is the selected columns, or null to feed whole rows again
+     */
+    protected void setColumnProjection(ColumnProjection columnProjection) {
+        this.columnProjection = columnProjection;
+    }
+
+    /**
+     * Sets what the IDs of whole CSV files look like, e.g. IdFormat.crockfordBase32(26).withPrefix("cus_"), instead of
+     * 24 base 62 characters. Every thread's engine is made with the format, so this can only be called before the
+     * first CSV file is generated. The per-call generateRandomAlphaNumericString keeps its 24 base 62 characters.
+     *
+     * @param idFormat is the alphabet, length, prefix and check character of the IDs
+     * @throws IllegalStateException if an engine was already instantiated
+     */
+    protected void setIdFormat(@NotNull IdFormat idFormat) {
+        if (this.threadEngineMade) {
+            throw new IllegalStateException("The ID format can't change after generating has started");
+        }
+        this.idFormat = idFormat;
+    }
+
+    /**
+     * Runs a short calibration of the selector's acceptable DRBG mechanisms, and generates whole CSV files with the
+     * fastest one from then on. Like setDRBGMechanism, this can only be called before the first CSV file is generated.
+     *
+     * @param mechanismSelector is the acceptable mechanisms, minimum strength and time budget of the calibration
+     * @return the chosen mechanism and the measured rates of every mechanism
+     * @throws NoSuchAlgorithmException if none of the acceptable mechanisms is supported at the minimum strength
+     */
+    @NotNull
+    protected DRBGMechanismSelector.Selection autoSelectDRBGMechanism(@NotNull DRBGMechanismSelector mechanismSelector)
+            throws NoSuchAlgorithmException {
+        DRBGMechanismSelector.Selection selection = mechanismSelector.select();
+        setDRBGMechanism(selection.getMechanism());
+        return selection;
+    }
+
+    /**
+     * @return the number of CSV rows generated from, by every thread, since this object was created
+     */
+    protected long getRowCount() {
+        return this.cvsLineCounter.sum();
+    }
+
+    /**
+     * Reads the next CSV row, timing the parse when the metrics are enabled.
+     *
+     * @param csvReader      is the tokenizer to read the row with
+     * @param bufferedReader is the reader of the CSV file
+     * @return the flattened row, or null at the end of the file
+     * @throws IOException in case there are any IO errors
+     */
+    private String readRow(CustomCSVReader csvReader, BufferedReader bufferedReader) throws IOException {
+        if (!this.metrics.isEnabled()) {
+            return csvReader.readRow(bufferedReader);
+        }
+
+        long startTime = System.nanoTime();
+        String customerRow = csvReader.readRow(bufferedReader);
+        if (customerRow != null) {
+            this.metrics.record(GenerationMetrics.Phase.CSV_PARSE, System.nanoTime() - startTime);
+        }
+        return customerRow;
+    }
+
+    /**
+     * Generates an ID for every row, from the digest of the row's selected columns.
+     *
+     * @param csvReader        is the tokenizer to read the rows with, past the header
+     * @param bufferedReader   is the reader of the CSV file
+     * @param columnProjection is the columns that feed the generator
+     * @param engine           is the engine to generate with
+     * @param batchSize        is the number of rows per DRBG call
+     * @param randomIDList     is the list to add the IDs to
+     * @throws IOException in case there are any IO errors
+     */
+    private void generateProjected(CustomCSVReader csvReader, BufferedReader bufferedReader,
+                                   ColumnProjection columnProjection, DRBGEngine engine, int batchSize,
+                                   List<StringBuilder> randomIDList) throws IOException {
+        csvReader.setColumnProjection(columnProjection);
+        RowDigest rowDigest = new RowDigest();
+        byte[] batchDigests = new byte[batchSize * RowDigest.DIGEST_SIZE]; // The digests of a batch, one after another
+        int batchRows = 0;
+        byte[] customerDigest;
+
+        while ((customerDigest = readRowDigest(csvReader, bufferedReader, rowDigest)) != null) {
+            this.cvsLineCounter.increment();
+
+            if (batchSize == 1) {
+                randomIDList.add(engine.generate(customerDigest, 0, RowDigest.DIGEST_SIZE));
+            } else {
+                System.arraycopy(customerDigest, 0, batchDigests, batchRows++ * RowDigest.DIGEST_SIZE,
+                        RowDigest.DIGEST_SIZE);
+                if (batchRows == batchSize) {
+                    randomIDList.addAll(engine.generateBatch(batchDigests, batchRows));
+                    batchRows = 0;
+                }
+            }
+        }
+        // Generate whatever is left over in the last, partial batch
+        if (batchRows > 0) {
+            randomIDList.addAll(engine.generateBatch(Arrays.copyOf(batchDigests,
+                    batchRows * RowDigest.DIGEST_SIZE), batchRows));
+        }
+    }
+
+    /**
+     * Generates the ID of a row parsed by a MappedCSVReader, from the row's bytes or, with a column projection, from
+     * the digest of its selected columns.
+     *
+     * @param engine           is the engine to generate with
+     * @param csvReader        is the reader that parsed the row, for its field ends
+     * @param rowBuffer        is the buffer holding the parsed row
+     * @param rowLength        is the number of parsed bytes in the buffer
+     * @param columnProjection is the columns that feed the generator, or null for the whole row
+     * @param rowDigest        is the digest to reduce the selected columns with
+     * @return a StringBuilder object containing a secure random ID
+     */
+    private StringBuilder generateMapped(DRBGEngine engine, MappedCSVReader csvReader, byte[] rowBuffer, int rowLength,
+                                         ColumnProjection columnProjection, RowDigest rowDigest) {
+        if (columnProjection == null) {
+            return engine.generate(rowBuffer, 0, rowLength);
+        }
+        return engine.generate(rowDigest.digest(rowBuffer, csvReader.getFieldEnds(), csvReader.getFieldCount(),
+                columnProjection), 0, RowDigest.DIGEST_SIZE);
+    }
+
+    /**
+     * Reads the next CSV row into a digest of its selected columns, timing the parse when the metrics are enabled.
+     *
+     * @param csvReader      is the tokenizer to read the row with, with the column projection set
+     * @param bufferedReader is the reader of the CSV file
+     * @param rowDigest      is the digest to hand the selected fields to
+     * @return the digest of the row, reused for the next row, or null at the end of the file
+     * @throws IOException in case there are any IO errors
+     */
+    private byte[] readRowDigest(CustomCSVReader csvReader, BufferedReader bufferedReader, RowDigest rowDigest)
+            throws IOException {
+        long startTime = this.metrics.isEnabled() ? System.nanoTime() : 0;
+        if (!csvReader.readRow(bufferedReader, rowDigest)) {
+            return null;
+        }
+        byte[] customerDigest = rowDigest.finish();
+        if (this.metrics.isEnabled()) {
+            this.metrics.record(GenerationMetrics.Phase.CSV_PARSE, System.nanoTime() - startTime);
+        }
+        return customerDigest;
+    }
+
+    /**
+     * Returns the calling thread's long-lived DRBG engine, instantiating it the first time the thread needs it. Every
+     * engine is its own instantiation with its own personalization string, so threads never contend on a DRBG.
+     *
+     * @return the DRBGEngine shared by every row of every CSV file generated with this object on this thread
+     * @throws NoSuchAlgorithmException if a DRBG implementation is not available from the SUN provider
+     * @throws NoSuchProviderException  if the SUN provider is not available
+     */
+    private DRBGEngine getDRBGEngine() throws NoSuchAlgorithmException, NoSuchProviderException {
+        DRBGEngine engine = this.drbgEngines.get();
+        if (engine == null) {
+            engine = newDRBGEngine();
+            this.drbgEngines.set(engine);
+            this.threadEngineMade = true;
+            this.allDRBGEngines.removeIf(engineReference -> engineReference.get() == null);
+            this.allDRBGEngines.add(new WeakReference<>(engine));
+        }
+        return engine;
+    }
+
+    /**
+     * @return the engine of every thread that may still use it. An engine is only referenced by its thread, so once the
+     * thread stops its engine is collected, and its entry is dropped here
+     */
+    private List<DRBGEngine> liveDRBGEngines() {
+        List<DRBGEngine> engines = new ArrayList<>();
+        for (Iterator<WeakReference<DRBGEngine>> iterator = this.allDRBGEngines.iterator(); iterator.hasNext(); ) {
+            DRBGEngine engine = iterator.next().get();
+            if (engine == null) {
+                iterator.remove();
+            } else {
+                engines.add(engine);
+            }
+        }
+        return engines;
+    }
+
+    /**
+     * Instantiates an engine with its own personalization string and this object's current settings.
+     *
+     * @return a new DRBGEngine
+     * @throws NoSuchAlgorithmException if a DRBG implementation is not available from the SUN provider
+     * @throws NoSuchProviderException  if the SUN provider is not available
+     */
+    private DRBGEngine newDRBGEngine() throws NoSuchAlgorithmException, NoSuchProviderException {
+        DRBGEngine engine = new DRBGEngine(this.drbgMechanism, (DRBGEngine.DEFAULT_PERSONALIZATION + " engine "
+                + this.engineCounter.getAndIncrement()).getBytes(StandardCharsets.UTF_8), this.metrics);
+        engine.setIdFormat(this.idFormat);
+        if (this.collisionIndex != null) {
+            engine.setCollisionIndex(this.collisionIndex);
+        }
+        engine.setReseedPolicy(this.reseedPolicy);
+        engine.setEntropyPool(this.entropyPool);
+        return engine;
+    }
+
     /**
      * Basic logging to the console. Console logging instead of File Logging is sufficient.
      *
@@ -0,0 +1,114 @@
+/*
+ Author: Samuel Agyakwa
+ Date: 02/20/2020
+ */
+
+package utils;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * The purpose of this class is to split a CSV file into byte ranges of about the same size, each starting at the start
+ * of a row, so every range can be read (e.g. with MappedCSVReader) by a different process.
+ *
+ * A line break only ends a row outside of quotes, and a quoted field can span several lines, so a split point can't be
+ * found by looking around the middle of the file alone. With the quoting MappedCSVReader reads, a byte is inside quotes
+ * exactly when an odd number of quotes comes before it in the file (a doubled quote adds two), so one pass over the
+ * file counting quotes finds every split point. The pass only looks at bytes, without parsing or copying anything, so
+ * it is much faster than generating the IDs of the rows.
+ */
+public final class CSVByteRangeSplitter {
+    private static final byte QUOTE_BYTE = '"';
+    private static final byte LINE_FEED = '\n';
+
+    private CSVByteRangeSplitter() {
+    }
+
+    /**
+     * Splits a file into ranges. Range i is [boundaries[i], boundaries[i + 1]), the first range starts after the header
+     * (if there is one) and the last one ends at the end of the file. A range is empty if the file has fewer rows than
+     * ranges, and a row longer than a range makes the next range start after it.
+     *
+     * @param csvFilePath is the path of the csv file
+     * @param withHeader  is a boolean value to be set if the first row is a header, which is in no range
+     * @param rangeCount  is the number of ranges
+     * @return rangeCount + 1 ascending byte offsets, each one the start of a row or the end of the file
+     * @throws IOException in case the file doesn't exist, or there are any IO errors
+     */
+    public static long[] split(Path csvFilePath, boolean withHeader, int rangeCount) throws IOException {
+        return split(csvFilePath, withHeader, rangeCount, MappedCSVReader.DEFAULT_SEGMENT_SIZE);
+    }
+
+    /**
+     * Same as split(csvFilePath, withHeader, rangeCount), mapping segmentSize bytes of the file at a time.
+     *
+     * @param csvFilePath is the path of the csv file
+     * @param withHeader  is a boolean value to be set if the first row is a header, which is in no range
+     * @param rangeCount  is the number of ranges
+     * @param segmentSize is the number of bytes to map at a time
+     * @return rangeCount + 1 ascending byte offsets, each one the start of a row or the end of the file
+     * @throws IOException in case the file doesn't exist, or there are any IO errors
+     */
+    public static long[] split(Path csvFilePath, boolean withHeader, int rangeCount, int segmentSize)
+            throws IOException {
+        if (rangeCount < 1) {
+            throw new IllegalArgumentException("There must be at least 1 range");
+        }
+
+        long[] boundaries = new long[rangeCount + 1];
+        try (FileChannel fileChannel = FileChannel.open(csvFilePath, StandardOpenOption.READ)) {
+            long fileSize = fileChannel.size();
+            boolean quoted = false;
+            boolean inHeader = withHeader;
+            int nextBoundary = 1;
+            long target = target(0, fileSize, 1, rangeCount); // Where range nextBoundary should start
+
+            for (long segmentStart = 0; segmentStart < fileSize && (inHeader || nextBoundary < rangeCount);
+                 segmentStart += segmentSize) {
+                MappedByteBuffer segment = fileChannel.map(FileChannel.MapMode.READ_ONLY, segmentStart,
+                        Math.min(segmentSize, fileSize - segmentStart));
+
+                while (segment.hasRemaining()) {
+                    byte currentByte = segment.get();
+                    if (currentByte == QUOTE_BYTE) {
+                        quoted = !quoted;
+                    } else if (currentByte == LINE_FEED && !quoted) {
+                        long rowStart = segmentStart + segment.position();
+                        if (inHeader) {
+                            inHeader = false;
+                            boundaries[0] = rowStart; // The ranges split the rows after the header
+                            target = target(boundaries[0], fileSize, 1, rangeCount);
+                        }
+                        // Every range whose target the row reaches starts at the next row
+                        while (nextBoundary < rangeCount && rowStart >= target) {
+                            boundaries[nextBoundary++] = rowStart;
+                            target = target(boundaries[0], fileSize, nextBoundary, rangeCount);
+                        }
+                        if (nextBoundary == rangeCount) {
+                            break;
+                        }
+                    }
+                }
+            }
+
+            if (inHeader) {
+                boundaries[0] = fileSize; // A header without a line break, and no rows
+            }
+            for (int i = nextBoundary; i <= rangeCount; i++) {
+                boundaries[i] = fileSize;
+            }
+        }
+        return boundaries;
+    }
+
+    /**
+     * @return the offset range i should start at, if rows could be split anywhere
+     */
+    private static long target(long firstRowOffset, long fileSize, int range, int rangeCount) {
+        return firstRowOffset + (fileSize - firstRowOffset) * range / rangeCount;
+    }
+}
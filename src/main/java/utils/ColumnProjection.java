@@ -0,0 +1,97 @@
+/*
+ Author: Samuel Agyakwa
+ Date: 02/20/2020
+ */
+
+package utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The purpose of this class is to pick the columns of a CSV row that identify the customer (e.g. the customer ID and
+ * the account number), so only those columns feed the generator. A CustomCSVReader with a projection doesn't buffer
+ * the other columns at all, and stops tokenizing a row after its last selected column.
+ *
+ * Projections are immutable, so one projection can be shared by every thread's reader.
+ */
+public final class ColumnProjection {
+    private final int[] columns; // Selected column indexes, ascending
+    private final boolean[] selected; // Indexed by column, up to the last selected column
+
+    private ColumnProjection(int[] columns) {
+        this.columns = columns;
+        this.selected = new boolean[columns[columns.length - 1] + 1];
+        for (int column : columns) {
+            this.selected[column] = true;
+        }
+    }
+
+    /**
+     * @param columns is the indexes of the selected columns, starting at 0, in any order
+     * @return a projection of the columns
+     */
+    public static ColumnProjection of(int... columns) {
+        if (columns.length == 0) {
+            throw new IllegalArgumentException("At least one column must be selected");
+        }
+        int[] sortedColumns = columns.clone();
+        Arrays.sort(sortedColumns);
+        for (int i = 0; i < sortedColumns.length; i++) {
+            if (sortedColumns[i] < 0) {
+                throw new IllegalArgumentException("Column indexes can't be negative");
+            }
+            if (i > 0 && sortedColumns[i] == sortedColumns[i - 1]) {
+                throw new IllegalArgumentException("Column " + sortedColumns[i] + " is selected twice");
+            }
+        }
+        return new ColumnProjection(sortedColumns);
+    }
+
+    /**
+     * @param headerRow is the header row of the CSV file, e.g. "customer_id,name,account_number"
+     * @param names     is the names of the selected columns, as they are in the header
+     * @return a projection of the named columns
+     */
+    public static ColumnProjection ofNames(String headerRow, String... names) {
+        List<String> header = new ArrayList<>();
+        new CustomCSVReader().parseLine(headerRow, (fieldIndex, field) -> header.add(field.toString().trim()));
+
+        int[] columns = new int[names.length];
+        for (int i = 0; i < names.length; i++) {
+            columns[i] = header.indexOf(names[i]);
+            if (columns[i] == -1) {
+                throw new IllegalArgumentException("There is no column \"" + names[i] + "\" in the header");
+            }
+        }
+        return of(columns);
+    }
+
+    /**
+     * @param column is the index of a column, starting at 0
+     * @return true if the column is selected
+     */
+    public boolean isSelected(int column) {
+        return column < this.selected.length && this.selected[column];
+    }
+
+    /**
+     * @return the index of the last selected column, the rest of a row after it is never needed
+     */
+    public int getLastColumn() {
+        return this.selected.length - 1;
+    }
+
+    /**
+     * @return the indexes of the selected columns, ascending
+     */
+    public int[] getColumns() {
+        return this.columns.clone();
+    }
+
+    @Override
+    public String toString() {
+        return "columns " + Arrays.toString(this.columns);
+    }
+}
@@ -5,14 +5,315 @@
 
 package utils;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.Arrays;
+
 /**
  * The purpose of this program is to read and parse csv files, taking into account custom separators, or double quotes.
+ *
+ * Besides the static parseCSVLine methods, a CustomCSVReader object is a reusable RFC 4180 tokenizer. It is fed one
+ * line at a time and keeps its state across lines, so a quoted field may span several lines, and a doubled quote
+ * stands for one literal quote. Fields are handed to a FieldHandler as a CharSequence view of an internal buffer that
+ * is reused for every field, so parsing a row allocates nothing once the buffer has grown to the longest field.
+ *
+ * With a ColumnProjection, only the selected fields are buffered and handed to the FieldHandler. Once the last selected
+ * field of a row is done, the rest of the row is only scanned for quotes, to find out whether it continues on the next
+ * line, so unselected columns after it cost a character comparison each.
  */
 public class CustomCSVReader {
     private static final char SEPARATOR_CHAR = ',';
     private static final char QUOTE_CHAR = '"';
 
+    // Tokenizer states
+    private static final int FIELD_START = 0;
+    private static final int UNQUOTED = 1;
+    private static final int QUOTED = 2;
+    private static final int QUOTE_IN_UNQUOTED = 3; // Saw a quote inside an unquoted field, may be a doubled quote
+    private static final int QUOTE_IN_QUOTED = 4; // Saw a quote inside a quoted field, either the end or a doubled quote
+
+    /**
+     * Receives the fields of a row. The field is a view of a buffer that is reused for the next field, so it must be
+     * copied (e.g. with toString()) if it is needed after the call.
+     */
+    public interface FieldHandler {
+        /**
+         * @param fieldIndex is the position of the field in its row, starting at 0
+         * @param field      is the parsed field, without its quotes
+         */
+        void onField(int fieldIndex, CharSequence field);
+    }
+
+    private final char separator;
+    private final char quote;
+    private final FieldView fieldView;
+    private final StringBuilder flattenedRow; // Used by readRow, fields of a row appended together
+    private final FieldHandler flattenFields;
+    private ColumnProjection columnProjection; // Null for every column
+    private int lastColumn; // The last column anything is done with, Integer.MAX_VALUE for every column
+    private boolean collecting; // Whether the current field is selected, and buffered
+    private char[] fieldBuffer;
+    private int fieldLength;
+    private int fieldIndex;
+    private int state;
+
     public CustomCSVReader() {
+        this(SEPARATOR_CHAR, QUOTE_CHAR);
+    }
+
+    /**
+     * @param separator is the custom separator
+     * @param quote     is the custom quote
+     */
+    public CustomCSVReader(char separator, char quote) {
+        this.separator = separator;
+        this.quote = quote;
+        this.fieldBuffer = new char[64];
+        this.fieldView = new FieldView();
+        this.flattenedRow = new StringBuilder();
+        this.flattenFields = (fieldIndex, field) -> this.flattenedRow.append(field);
+        this.state = FIELD_START;
+        setColumnProjection(null);
+    }
+
+    /**
+     * Sets which fields of every row are parsed and handed over, from the next row on.
+     *
+     * @param columnProjection is the selected columns, or null for every column
+     */
+    public void setColumnProjection(ColumnProjection columnProjection) {
+        this.columnProjection = columnProjection;
+        this.lastColumn = columnProjection == null ? Integer.MAX_VALUE : columnProjection.getLastColumn();
+        this.collecting = isSelected(this.fieldIndex);
+    }
+
+    /**
+     * Reads the next row from a reader, and returns its fields appended together (like parseCSVLine does). A row may
+     * span several lines when a quoted field contains line breaks.
+     *
+     * @param bufferedReader is the reader to read the row's lines from
+     * @return String object of the parsed row, or null at the end of the reader
+     * @throws IOException in case there are any IO errors
+     */
+    public String readRow(BufferedReader bufferedReader) throws IOException {
+        this.flattenedRow.setLength(0);
+        String csvLine;
+
+        while ((csvLine = bufferedReader.readLine()) != null) {
+            if (parseLine(csvLine, this.flattenFields)) {
+                return this.flattenedRow.toString();
+            }
+        }
+
+        // The reader ended in the middle of a quoted field
+        return finish(this.flattenFields) ? this.flattenedRow.toString() : null;
+    }
+
+    /**
+     * Reads the next row from a reader, and hands its fields to the handler. A row may span several lines when a
+     * quoted field contains line breaks.
+     *
+     * @param bufferedReader is the reader to read the row's lines from
+     * @param fieldHandler   is the handler for every (selected) field of the row
+     * @return true if a row was read, false at the end of the reader
+     * @throws IOException in case there are any IO errors
+     */
+    public boolean readRow(BufferedReader bufferedReader, FieldHandler fieldHandler) throws IOException {
+        String csvLine;
+        while ((csvLine = bufferedReader.readLine()) != null) {
+            if (parseLine(csvLine, fieldHandler)) {
+                return true;
+            }
+        }
+        return finish(fieldHandler);
+    }
+
+    /**
+     * Tokenizes one line (without its line break) and hands every complete field to the handler. If the line ends
+     * inside a quoted field, the field continues on the next line: the line break is kept in the field, and the rest
+     * of the row is handed over by the following parseLine calls.
+     *
+     * @param csvLine      is the line to parse
+     * @param fieldHandler is the handler for every field of the row
+     * @return true if the row is complete, false if a quoted field continues on the next line
+     */
+    public boolean parseLine(CharSequence csvLine, FieldHandler fieldHandler) {
+        if (this.fieldIndex > this.lastColumn) {
+            return skipRestOfRow(csvLine, 0, fieldHandler); // Continuing an unselected field after the last selected one
+        }
+        if (this.state == QUOTED) {
+            append('\n'); // We are continuing a quoted field from the previous line
+        }
+
+        for (int i = 0; i < csvLine.length(); i++) {
+            char currentCharacter = csvLine.charAt(i);
+
+            // A pending quote is resolved by the character after it
+            if (this.state == QUOTE_IN_QUOTED) {
+                if (currentCharacter == this.quote) {
+                    append(this.quote);
+                    this.state = QUOTED;
+                    continue;
+                }
+                this.state = UNQUOTED; // The quoted part ended, handle this character as unquoted
+            } else if (this.state == QUOTE_IN_UNQUOTED) {
+                if (currentCharacter == this.quote) {
+                    append(this.quote);
+                    this.state = UNQUOTED;
+                    continue;
+                }
+                this.state = QUOTED; // The quote opened a quoted part, handle this character as quoted
+            }
+
+            if (this.state == QUOTED) {
+                if (currentCharacter == this.quote) {
+                    this.state = QUOTE_IN_QUOTED;
+                } else {
+                    append(currentCharacter);
+                }
+            } else if (currentCharacter == this.quote) {
+                this.state = this.state == FIELD_START ? QUOTED : QUOTE_IN_UNQUOTED;
+            } else if (currentCharacter == this.separator) {
+                endField(fieldHandler);
+                this.state = FIELD_START;
+                if (this.fieldIndex > this.lastColumn) {
+                    return skipRestOfRow(csvLine, i + 1, fieldHandler);
+                }
+            } else if (currentCharacter != '\r') {
+                append(currentCharacter);
+                this.state = UNQUOTED;
+            }
+        }
+
+        // A quote at the very end of a quoted field closes it
+        if (this.state == QUOTE_IN_QUOTED) {
+            this.state = UNQUOTED;
+        } else if (this.state == QUOTE_IN_UNQUOTED) {
+            this.state = QUOTED;
+        }
+
+        if (this.state == QUOTED) {
+            return false;
+        }
+        endRow(fieldHandler);
+        return true;
+    }
+
+    /**
+     * Scans the rest of a row that has no selected fields left. Only quotes matter: every quote switches between
+     * quoted and unquoted, including both quotes of a doubled quote, so the row ends with the line if there was an even
+     * number of them.
+     *
+     * @param csvLine      is the line to scan
+     * @param start        is the index of the first character to scan
+     * @param fieldHandler is the handler of the row
+     * @return true if the row is complete, false if a quoted field continues on the next line
+     */
+    private boolean skipRestOfRow(CharSequence csvLine, int start, FieldHandler fieldHandler) {
+        boolean quoted = this.state == QUOTED;
+        for (int i = start; i < csvLine.length(); i++) {
+            if (csvLine.charAt(i) == this.quote) {
+                quoted = !quoted;
+            }
+        }
+
+        if (quoted) {
+            this.state = QUOTED;
+            return false;
+        }
+        endRow(fieldHandler);
+        return true;
+    }
+
+    /**
+     * Ends the input. If the last row was left open by an unterminated quoted field, what was read of it is handed to
+     * the handler.
+     *
+     * @param fieldHandler is the handler for the rest of the open row
+     * @return true if an open row was handed over
+     */
+    public boolean finish(FieldHandler fieldHandler) {
+        if (this.state != QUOTED) {
+            return false;
+        }
+        endRow(fieldHandler);
+        return true;
+    }
+
+    /**
+     * Hands the current field to the handler, and starts the next field of the row.
+     *
+     * @param fieldHandler is the handler for the field
+     */
+    private void endField(FieldHandler fieldHandler) {
+        if (this.collecting) {
+            this.fieldView.length = this.fieldLength;
+            fieldHandler.onField(this.fieldIndex, this.fieldView);
+        }
+        this.fieldIndex++;
+        this.fieldLength = 0;
+        this.collecting = isSelected(this.fieldIndex);
+    }
+
+    /**
+     * Hands the last field of the row to the handler, and gets ready for the next row.
+     *
+     * @param fieldHandler is the handler for the field
+     */
+    private void endRow(FieldHandler fieldHandler) {
+        endField(fieldHandler);
+        this.fieldIndex = 0;
+        this.collecting = isSelected(0);
+        this.state = FIELD_START;
+    }
+
+    private boolean isSelected(int column) {
+        return this.columnProjection == null || this.columnProjection.isSelected(column);
+    }
+
+    /**
+     * Adds a character to the field buffer, growing it when a field is longer than any field before it.
+     *
+     * @param parsedCharacter is the character to add
+     */
+    private void append(char parsedCharacter) {
+        if (!this.collecting) {
+            return;
+        }
+        if (this.fieldLength == this.fieldBuffer.length) {
+            this.fieldBuffer = Arrays.copyOf(this.fieldBuffer, this.fieldBuffer.length * 2);
+        }
+        this.fieldBuffer[this.fieldLength++] = parsedCharacter;
+    }
+
+    /**
+     * Read-only CharSequence view of the field buffer.
+     */
+    private final class FieldView implements CharSequence {
+        private int length;
+
+        @Override
+        public int length() {
+            return this.length;
+        }
+
+        @Override
+        public char charAt(int index) {
+            if (index < 0 || index >= this.length) {
+                throw new IndexOutOfBoundsException("index " + index + ", length " + this.length);
+            }
+            return fieldBuffer[index];
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            return toString().substring(start, end);
+        }
+
+        @Override
+        public String toString() {
+            return new String(fieldBuffer, 0, this.length);
+        }
     }
 
     /**
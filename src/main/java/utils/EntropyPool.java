@@ -0,0 +1,203 @@
+/*
+ Author: Samuel Agyakwa
+ Date: 02/20/2020
+ */
+
+package utils;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * The purpose of this class is to hand out seed material to many DRBGs without each of them reading the entropy source
+ * for every reseed. A background thread reads the source in large blocks, cuts every block into seeds, and keeps them
+ * in a lock-free ring buffer, so a thousand 32 byte seeds cost one 32 KB read instead of a thousand small ones, and
+ * taking a seed is a single poll that never waits on the source. If the pool is ever empty, the caller makes the read
+ * itself, keeps the first seed, and puts the rest of the block in the pool for the next callers. The underrun is
+ * counted.
+ *
+ * Every seed is handed out once. Callers should wipe a seed (fill it with zeroes) when they are done with it.
+ */
+public class EntropyPool implements AutoCloseable {
+    public static final int DEFAULT_SEED_SIZE = 32; // 256 bits
+    public static final int DEFAULT_READ_SIZE = 1 << 16;
+    public static final int DEFAULT_CAPACITY = 8192;
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final EntropySource entropySource;
+    private final LockFreeRingBuffer<byte[]> seeds;
+    private final int seedSize;
+    private final byte[] readBlock;
+    private final int refillWatermark;
+    private final Thread refillThread;
+    private volatile boolean running;
+    private volatile IOException refillFailure;
+
+    // Metrics
+    private final AtomicLong sourceReads;
+    private final AtomicLong seedsTaken;
+    private final AtomicLong underruns;
+
+    /**
+     * Constructor with 32 byte seeds, 64 KB reads, and room for 8192 seeds.
+     *
+     * @param entropySource is the source to read seed material from
+     */
+    public EntropyPool(EntropySource entropySource) {
+        this(entropySource, DEFAULT_SEED_SIZE, DEFAULT_READ_SIZE, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Constructor that creates the pool and starts its refill thread.
+     *
+     * @param entropySource is the source to read seed material from
+     * @param seedSize      is the number of bytes of every seed
+     * @param readSize      is the number of bytes to read from the source at a time, a multiple of seedSize
+     * @param capacity      is the maximum number of seeds in the pool, at least two reads worth (rounded up to a power
+     *                      of two)
+     */
+    public EntropyPool(EntropySource entropySource, int seedSize, int readSize, int capacity) {
+        if (seedSize < 1 || readSize < seedSize || readSize % seedSize != 0) {
+            throw new IllegalArgumentException("Read size must be a positive multiple of the seed size");
+        }
+        this.seeds = new LockFreeRingBuffer<>(capacity);
+        int seedsPerRead = readSize / seedSize;
+        if (this.seeds.capacity() < 2 * seedsPerRead) {
+            throw new IllegalArgumentException("Capacity must hold at least two reads worth of seeds");
+        }
+
+        this.entropySource = entropySource;
+        this.seedSize = seedSize;
+        this.readBlock = new byte[readSize];
+        // Only refill when a whole read fits, so no read is ever cut short
+        this.refillWatermark = this.seeds.capacity() - seedsPerRead;
+        this.sourceReads = new AtomicLong();
+        this.seedsTaken = new AtomicLong();
+        this.underruns = new AtomicLong();
+
+        this.running = true;
+        this.refillThread = new Thread(this::refill, "entropy-pool-refill");
+        this.refillThread.setDaemon(true);
+        this.refillThread.start();
+    }
+
+    /**
+     * Takes a seed from the pool, or reads one from the source if the pool is empty.
+     *
+     * @return seedSize bytes of seed material, handed out to nobody else
+     * @throws IOException in case the pool is empty and the source can't be read
+     */
+    public byte[] takeSeed() throws IOException {
+        byte[] seed = this.seeds.poll();
+        this.seedsTaken.incrementAndGet();
+
+        if (seed == null) {
+            this.underruns.incrementAndGet();
+            LockSupport.unpark(this.refillThread);
+
+            // Still one read per block, even when the refill thread falls behind
+            byte[] block = new byte[this.readBlock.length];
+            this.entropySource.fill(block);
+            this.sourceReads.incrementAndGet();
+            seed = Arrays.copyOf(block, this.seedSize);
+            offerSeeds(block, this.seedSize);
+            Arrays.fill(block, (byte) 0);
+        } else if (this.seeds.size() == this.refillWatermark) {
+            // Wake the refill thread as soon as a whole read fits, instead of waiting for it to poll
+            LockSupport.unpark(this.refillThread);
+        }
+        return seed;
+    }
+
+    /**
+     * Refill loop: reads a block from the source whenever a whole block of seeds fits in the pool.
+     */
+    private void refill() {
+        while (this.running) {
+            if (this.seeds.size() > this.refillWatermark) {
+                LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+                continue;
+            }
+
+            try {
+                this.entropySource.fill(this.readBlock);
+                this.sourceReads.incrementAndGet();
+            } catch (IOException e) {
+                // Callers fall back to reading the source themselves, and see the error there
+                this.refillFailure = e;
+                return;
+            }
+            offerSeeds(this.readBlock, 0);
+            Arrays.fill(this.readBlock, (byte) 0);
+        }
+    }
+
+    /**
+     * Cuts a block read from the source into seeds, and adds them to the pool. Seeds that don't fit are dropped.
+     *
+     * @param block      is the block read from the source
+     * @param fromOffset is the offset of the first seed to add
+     */
+    private void offerSeeds(byte[] block, int fromOffset) {
+        for (int offset = fromOffset; offset < block.length; offset += this.seedSize) {
+            if (!this.seeds.offer(Arrays.copyOfRange(block, offset, offset + this.seedSize))) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * @return the number of bytes of every seed
+     */
+    public int getSeedSize() {
+        return this.seedSize;
+    }
+
+    /**
+     * @return the number of seeds ready in the pool right now
+     */
+    public int getDepth() {
+        return this.seeds.size();
+    }
+
+    /**
+     * @return the number of reads made on the entropy source, by the refill thread and by callers that found the pool
+     * empty
+     */
+    public long getSourceReads() {
+        return this.sourceReads.get();
+    }
+
+    /**
+     * @return the number of seeds handed out
+     */
+    public long getSeedsTaken() {
+        return this.seedsTaken.get();
+    }
+
+    /**
+     * @return the number of takeSeed() calls that found the pool empty and read the source themselves
+     */
+    public long getUnderruns() {
+        return this.underruns.get();
+    }
+
+    /**
+     * @return the error that stopped the refill thread, or null if it is still running (or was closed)
+     */
+    public IOException getRefillFailure() {
+        return this.refillFailure;
+    }
+
+    /**
+     * Stops the refill thread. Seeds still in the pool can be taken, after that takeSeed() reads the source directly.
+     */
+    @Override
+    public void close() {
+        this.running = false;
+        LockSupport.unpark(this.refillThread);
+    }
+}
@@ -0,0 +1,22 @@
+/*
+ Author: Samuel Agyakwa
+ Date: 02/20/2020
+ */
+
+package utils;
+
+import java.io.IOException;
+
+/**
+ * The purpose of this interface is to decouple where seed material comes from (the OS entropy device, a file, or an
+ * in-memory stand-in in tests) from the EntropyPool that hands it out.
+ */
+public interface EntropySource {
+    /**
+     * Fills a buffer with entropy. May be called from several threads, so implementations must be thread safe.
+     *
+     * @param buffer is the buffer to fill completely
+     * @throws IOException in case the source can't be read, or has run out
+     */
+    void fill(byte[] buffer) throws IOException;
+}
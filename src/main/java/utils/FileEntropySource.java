@@ -0,0 +1,57 @@
+/*
+ Author: Samuel Agyakwa
+ Date: 02/20/2020
+ */
+
+package utils;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * The purpose of this class is to read entropy from a file, normally the OS entropy device. Every fill is one read on
+ * the file, so the number of reads (system calls) can be compared. A regular file works too (e.g. recorded entropy in
+ * a test), and reports EOFException once it has been read to the end.
+ */
+public class FileEntropySource implements EntropySource, AutoCloseable {
+    public static final Path URANDOM = Paths.get("/dev/urandom");
+
+    private final FileChannel fileChannel;
+    private long reads;
+
+    /**
+     * @param entropyFile is the file to read entropy from, e.g. URANDOM
+     * @throws IOException in case the file can't be opened
+     */
+    public FileEntropySource(Path entropyFile) throws IOException {
+        this.fileChannel = FileChannel.open(entropyFile, StandardOpenOption.READ);
+    }
+
+    @Override
+    public synchronized void fill(byte[] buffer) throws IOException {
+        ByteBuffer destination = ByteBuffer.wrap(buffer);
+        while (destination.hasRemaining()) {
+            this.reads++;
+            if (this.fileChannel.read(destination) < 0) {
+                throw new EOFException("Entropy source ran out");
+            }
+        }
+    }
+
+    /**
+     * @return the number of reads made on the file
+     */
+    public synchronized long getReads() {
+        return this.reads;
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.fileChannel.close();
+    }
+}
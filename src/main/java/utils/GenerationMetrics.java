@@ -0,0 +1,53 @@
+/*
+ Author: Samuel Agyakwa
+ Date: 02/20/2020
+ */
+
+package utils;
+
+/**
+ * The purpose of this interface is to let the generators report how long each phase of generating an ID takes, without
+ * tying them to one metrics library. RecordingMetrics keeps histograms and exposes them over JMX, other implementations
+ * can forward the timings anywhere else.
+ *
+ * The generators only read the clock when isEnabled() is true, so the DISABLED metrics cost one boolean check per
+ * phase and nothing else.
+ */
+public interface GenerationMetrics {
+    /**
+     * Metrics that record nothing. Generators use these unless they are given others.
+     */
+    GenerationMetrics DISABLED = new GenerationMetrics() {
+        @Override
+        public boolean isEnabled() {
+            return false;
+        }
+
+        @Override
+        public void record(Phase phase, long elapsedNanos) {
+        }
+    };
+
+    /**
+     * The timed phases of generating an ID.
+     */
+    enum Phase {
+        CSV_PARSE, // Reading and parsing one CSV row
+        DRBG_SEED, // Instantiating or reseeding a DRBG
+        BYTE_DRAW, // One nextBytes call on the DRBG, for one ID or a whole batch
+        CHARACTER_MAPPING // Mapping random bytes onto the alphabet, for one ID
+    }
+
+    /**
+     * @return true if timings should be measured and recorded
+     */
+    boolean isEnabled();
+
+    /**
+     * Records one occurrence of a phase. May be called from several threads at the same time.
+     *
+     * @param phase        is the phase that ran
+     * @param elapsedNanos is how long it took, in nanoseconds
+     */
+    void record(Phase phase, long elapsedNanos);
+}
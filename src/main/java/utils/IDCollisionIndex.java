@@ -0,0 +1,287 @@
+/*
+ Author: Samuel Agyakwa
+ Date: 02/20/2020
+ */
+
+package utils;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * The purpose of this class is to remember every ID that was ever issued, so a repeated ID can be caught when it is
+ * generated instead of downstream. IDs are keyed on their packed bytes (see IdBlock, 18 bytes for a 24 character ID).
+ *
+ * Everything lives off-heap in one memory mapped file, so the index survives restarts:
+ * - a header with the layout and the number of IDs,
+ * - a bloom filter, checked first: for a new ID (the normal case) it usually answers "never seen" without touching the
+ *   much larger table,
+ * - an open addressing hash table with linear probing, one slot per ID: an occupied flag followed by the packed key.
+ *
+ * The capacity is fixed when the file is created, and the table is kept at most 75% full, so a lookup costs a fixed
+ * number of bloom filter probes plus a short probe sequence in the table. The file is mapped in segments, so it can be
+ * larger than 2 GB.
+ */
+public class IDCollisionIndex implements AutoCloseable {
+    private static final int MAGIC = 0x49444958; // "IDIX"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 64;
+    private static final int COUNT_OFFSET = 32;
+    private static final int BLOOM_BITS_PER_ID = 10;
+    private static final int BLOOM_HASHES = 7;
+    private static final double MAX_LOAD_FACTOR = 0.75;
+    private static final int SEGMENT_SIZE = 1 << 30;
+    private static final byte OCCUPIED = 1;
+
+    private final FileChannel fileChannel;
+    private final MappedByteBuffer header;
+    private final MappedSegments bloomFilter;
+    private final MappedSegments table;
+    private final int keySize;
+    private final int slotSize;
+    private final long capacity;
+    private final long slotCount;
+    private final long bloomBits;
+    private long count;
+
+    /**
+     * Opens an existing index file, or creates a new one.
+     *
+     * @param indexFile is the path of the index file
+     * @param keySize   is the number of bytes of every packed ID
+     * @param capacity  is the number of IDs a new index is sized for (ignored when the file exists)
+     * @return the opened index
+     * @throws IOException in case there are any IO errors, or the file was created for a different key size
+     */
+    public static IDCollisionIndex open(Path indexFile, int keySize, long capacity) throws IOException {
+        if (keySize < 1 || capacity < 1) {
+            throw new IllegalArgumentException("Key size and capacity must be at least 1");
+        }
+
+        boolean exists = Files.exists(indexFile) && Files.size(indexFile) > 0;
+        FileChannel fileChannel = FileChannel.open(indexFile, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        try {
+            return new IDCollisionIndex(fileChannel, exists, keySize, capacity);
+        } catch (IOException | RuntimeException e) {
+            fileChannel.close();
+            throw e;
+        }
+    }
+
+    private IDCollisionIndex(FileChannel fileChannel, boolean exists, int keySize, long capacity) throws IOException {
+        this.fileChannel = fileChannel;
+        this.keySize = keySize;
+        this.slotSize = keySize + 1;
+
+        if (exists) {
+            ByteBuffer existingHeader = ByteBuffer.allocate(HEADER_SIZE);
+            fileChannel.read(existingHeader, 0);
+            existingHeader.flip();
+            if (existingHeader.getInt() != MAGIC || existingHeader.getInt() != VERSION) {
+                throw new IOException("Not an ID collision index file");
+            }
+            if (existingHeader.getInt() != keySize) {
+                throw new IOException("Index file was created for a different key size");
+            }
+            existingHeader.getInt(); // Padding
+            this.capacity = existingHeader.getLong();
+            this.slotCount = existingHeader.getLong();
+            this.count = existingHeader.getLong();
+            this.bloomBits = existingHeader.getLong();
+        } else {
+            this.capacity = capacity;
+            this.slotCount = (long) Math.ceil(capacity / MAX_LOAD_FACTOR) + 1;
+            this.bloomBits = (capacity * BLOOM_BITS_PER_ID + Long.SIZE - 1) / Long.SIZE * Long.SIZE;
+            this.count = 0;
+        }
+
+        long bloomBytes = this.bloomBits / Byte.SIZE;
+        long tableBytes = this.slotCount * this.slotSize;
+        int slotsPerSegment = SEGMENT_SIZE / this.slotSize;
+
+        this.header = fileChannel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE);
+        this.bloomFilter = new MappedSegments(fileChannel, HEADER_SIZE, bloomBytes, SEGMENT_SIZE);
+        this.table = new MappedSegments(fileChannel, HEADER_SIZE + bloomBytes, tableBytes,
+                slotsPerSegment * this.slotSize);
+
+        if (!exists) {
+            this.header.putInt(MAGIC).putInt(VERSION).putInt(keySize).putInt(0)
+                    .putLong(this.capacity).putLong(this.slotCount).putLong(0).putLong(this.bloomBits);
+        }
+    }
+
+    /**
+     * Adds a packed ID to the index, unless it is already there.
+     *
+     * @param key    is the buffer holding the packed ID
+     * @param offset is the index of the first byte of the packed ID
+     * @return true if the ID is new, false if it was already issued (a collision)
+     */
+    public synchronized boolean add(byte[] key, int offset) {
+        long hash = hash(key, offset);
+        if (mightContain(hash) && findSlot(key, offset, hash) >= 0) {
+            return false;
+        }
+        if (this.count >= this.capacity) {
+            throw new IllegalStateException("ID collision index is full, it was sized for " + this.capacity + " IDs");
+        }
+
+        // Not in the table, claim the first free slot of the probe sequence
+        long slot = Long.remainderUnsigned(hash, this.slotCount);
+        while (this.table.get(slot * this.slotSize) == OCCUPIED) {
+            slot = slot + 1 == this.slotCount ? 0 : slot + 1;
+        }
+        long slotPosition = slot * this.slotSize;
+        for (int i = 0; i < this.keySize; i++) {
+            this.table.put(slotPosition + 1 + i, key[offset + i]);
+        }
+        this.table.put(slotPosition, OCCUPIED);
+
+        addToBloomFilter(hash);
+        this.header.putLong(COUNT_OFFSET, ++this.count);
+        return true;
+    }
+
+    /**
+     * @param key    is the buffer holding the packed ID
+     * @param offset is the index of the first byte of the packed ID
+     * @return true if the ID was already issued
+     */
+    public synchronized boolean contains(byte[] key, int offset) {
+        long hash = hash(key, offset);
+        return mightContain(hash) && findSlot(key, offset, hash) >= 0;
+    }
+
+    /**
+     * @return the number of IDs in the index
+     */
+    public synchronized long size() {
+        return this.count;
+    }
+
+    /**
+     * Writes the mapped pages back to the file.
+     */
+    public synchronized void flush() {
+        this.header.force();
+        this.bloomFilter.force();
+        this.table.force();
+    }
+
+    /**
+     * Flushes the index and closes the file.
+     *
+     * @throws IOException in case there are any IO errors
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        flush();
+        this.fileChannel.close();
+    }
+
+    /**
+     * Probes the table for a packed ID.
+     *
+     * @return the slot holding the ID, or -1 if it isn't in the table
+     */
+    private long findSlot(byte[] key, int offset, long hash) {
+        long slot = Long.remainderUnsigned(hash, this.slotCount);
+
+        while (this.table.get(slot * this.slotSize) == OCCUPIED) {
+            if (keyEquals(slot * this.slotSize + 1, key, offset)) {
+                return slot;
+            }
+            slot = slot + 1 == this.slotCount ? 0 : slot + 1;
+        }
+        return -1;
+    }
+
+    private boolean keyEquals(long keyPosition, byte[] key, int offset) {
+        for (int i = 0; i < this.keySize; i++) {
+            if (this.table.get(keyPosition + i) != key[offset + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Bloom filter bits come from double hashing: bit i = h1 + i * h2
+    private boolean mightContain(long hash) {
+        long h2 = secondHash(hash);
+        for (int i = 0; i < BLOOM_HASHES; i++) {
+            long bit = Long.remainderUnsigned(hash + i * h2, this.bloomBits);
+            if ((this.bloomFilter.get(bit >>> 3) & (1 << (bit & 7))) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void addToBloomFilter(long hash) {
+        long h2 = secondHash(hash);
+        for (int i = 0; i < BLOOM_HASHES; i++) {
+            long bit = Long.remainderUnsigned(hash + i * h2, this.bloomBits);
+            this.bloomFilter.put(bit >>> 3, (byte) (this.bloomFilter.get(bit >>> 3) | 1 << (bit & 7)));
+        }
+    }
+
+    // 64 bit hash of the packed ID, mixing every byte through the MurmurHash3 finalizer
+    private long hash(byte[] key, int offset) {
+        long hash = 0x9E3779B97F4A7C15L;
+        for (int i = 0; i < this.keySize; i++) {
+            hash = (hash ^ (key[offset + i] & 0xFF)) * 0x100000001B3L;
+        }
+        return mix(hash);
+    }
+
+    private static long secondHash(long hash) {
+        return mix(hash + 0x9E3779B97F4A7C15L) | 1; // Odd, so the probes don't repeat early
+    }
+
+    private static long mix(long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xFF51AFD7ED558CCDL;
+        hash ^= hash >>> 33;
+        hash *= 0xC4CEB9FE1A85EC53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    /**
+     * A region of a file that is mapped as several buffers, so it can be larger than 2 GB.
+     */
+    private static final class MappedSegments {
+        private final MappedByteBuffer[] segments;
+        private final int segmentSize;
+
+        MappedSegments(FileChannel fileChannel, long start, long length, int segmentSize) throws IOException {
+            this.segmentSize = segmentSize;
+            this.segments = new MappedByteBuffer[(int) ((length + segmentSize - 1) / segmentSize)];
+            for (int i = 0; i < this.segments.length; i++) {
+                long segmentStart = (long) i * segmentSize;
+                this.segments[i] = fileChannel.map(FileChannel.MapMode.READ_WRITE, start + segmentStart,
+                        Math.min(segmentSize, length - segmentStart));
+            }
+        }
+
+        byte get(long position) {
+            return this.segments[(int) (position / this.segmentSize)].get((int) (position % this.segmentSize));
+        }
+
+        void put(long position, byte value) {
+            this.segments[(int) (position / this.segmentSize)].put((int) (position % this.segmentSize), value);
+        }
+
+        void force() {
+            for (MappedByteBuffer segment : this.segments) {
+                segment.force();
+            }
+        }
+    }
+}
@@ -0,0 +1,182 @@
+/*
+ Author: Samuel Agyakwa
+ Date: 02/20/2020
+ */
+
+package utils;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * The purpose of this class is to write generated IDs to a file as fast as they are generated, instead of keeping them
+ * all in a list. Every ID is written as a (row number, ID) record, in one of two formats:
+ * - CSV: "rowNumber,ID" and a line break,
+ * - BINARY: the row number as an 8 byte big-endian long, followed by the ID packed the way IdBlock packs it (18 bytes
+ *   for a 24 character ID), so every record has the same size.
+ *
+ * Records are encoded straight into one large direct buffer, which is written to the FileChannel whenever it fills up.
+ * The writer can start at any position of an existing file, cutting off everything after it, so a run that was
+ * interrupted can carry on from its last checkpoint (see RunCheckpoint).
+ */
+public class IDOutputWriter implements AutoCloseable {
+    public static final int DEFAULT_BUFFER_SIZE = 1 << 20; // 1 MB
+    private static final int MAX_ROW_NUMBER_DIGITS = 19;
+
+    /**
+     * The layout of the records in the output file.
+     */
+    public enum Format {
+        CSV,
+        BINARY
+    }
+
+    private final FileChannel fileChannel;
+    private final ByteBuffer buffer;
+    private final Format format;
+    private final IdBlock idCodec; // Empty, only used to pack binary records
+    private final byte[] packedID;
+    private final int maxRecordSize;
+
+    /**
+     * @param outputFile    is the path of the file to write, created if it doesn't exist
+     * @param format        is the layout of the records
+     * @param idFormat      is the format of the IDs, which sets the size of the records
+     * @param startPosition is the byte position to start writing at, anything after it in the file is cut off
+     * @throws IOException in case there are any IO errors, or the file is shorter than the start position
+     */
+    public IDOutputWriter(Path outputFile, Format format, IdFormat idFormat, long startPosition) throws IOException {
+        this(outputFile, format, idFormat, startPosition, DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * @param outputFile    is the path of the file to write, created if it doesn't exist
+     * @param format        is the layout of the records
+     * @param idFormat      is the format of the IDs, which sets the size of the records
+     * @param startPosition is the byte position to start writing at, anything after it in the file is cut off
+     * @param bufferSize    is the size of the direct buffer records are collected in
+     * @throws IOException in case there are any IO errors, or the file is shorter than the start position
+     */
+    public IDOutputWriter(Path outputFile, Format format, IdFormat idFormat, long startPosition, int bufferSize)
+            throws IOException {
+        this.format = format;
+        this.idCodec = new IdBlock(idFormat, 0);
+        this.packedID = new byte[this.idCodec.bytesPerId()];
+        this.maxRecordSize = format == Format.BINARY
+                ? Long.BYTES + this.idCodec.bytesPerId()
+                : MAX_ROW_NUMBER_DIGITS + this.idCodec.idLength() + 2; // Plus the separator and the line break
+        if (bufferSize < this.maxRecordSize) {
+            throw new IllegalArgumentException("Buffer size must fit at least one record");
+        }
+
+        this.fileChannel = FileChannel.open(outputFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        try {
+            if (startPosition < 0 || startPosition > this.fileChannel.size()) {
+                throw new IOException("Start position " + startPosition + " is outside of " + outputFile);
+            }
+            // A crashed run may have written records after its last checkpoint, they are written again
+            this.fileChannel.truncate(startPosition);
+            this.fileChannel.position(startPosition);
+        } catch (IOException | RuntimeException e) {
+            this.fileChannel.close();
+            throw e;
+        }
+        this.buffer = ByteBuffer.allocateDirect(bufferSize);
+    }
+
+    /**
+     * Adds a record to the buffer, writing the buffer to the file first if the record doesn't fit.
+     *
+     * @param rowNumber is the (non negative) number of the input row the ID was generated for
+     * @param id        is the generated ID
+     * @throws IOException in case there are any IO errors
+     */
+    public void write(long rowNumber, CharSequence id) throws IOException {
+        if (rowNumber < 0) {
+            throw new IllegalArgumentException("Row number can't be negative");
+        }
+        if (this.buffer.remaining() < this.maxRecordSize) {
+            flush();
+        }
+
+        if (this.format == Format.BINARY) {
+            this.idCodec.pack(id, this.packedID, 0);
+            this.buffer.putLong(rowNumber).put(this.packedID);
+        } else {
+            putDigits(rowNumber);
+            this.buffer.put((byte) ',');
+            for (int i = 0; i < id.length(); i++) {
+                this.buffer.put((byte) id.charAt(i)); // IDs are ASCII
+            }
+            this.buffer.put((byte) '\n');
+        }
+    }
+
+    /**
+     * @return the position in the file right after the last record written, including records still in the buffer
+     * @throws IOException in case there are any IO errors
+     */
+    public long position() throws IOException {
+        return this.fileChannel.position() + this.buffer.position();
+    }
+
+    /**
+     * Writes the buffered records to the file.
+     *
+     * @throws IOException in case there are any IO errors
+     */
+    public void flush() throws IOException {
+        this.buffer.flip();
+        while (this.buffer.hasRemaining()) {
+            this.fileChannel.write(this.buffer);
+        }
+        this.buffer.clear();
+    }
+
+    /**
+     * Writes the buffered records to the file, and waits until they are on the storage device. Everything before
+     * position() survives a crash after this returns.
+     *
+     * @throws IOException in case there are any IO errors
+     */
+    public void sync() throws IOException {
+        flush();
+        this.fileChannel.force(false);
+    }
+
+    /**
+     * Writes the buffered records to the file, and closes it.
+     *
+     * @throws IOException in case there are any IO errors
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            this.fileChannel.close();
+        }
+    }
+
+    /**
+     * Writes the decimal digits of a number into the buffer, without creating a String.
+     *
+     * @param number is the non negative number to write
+     */
+    private void putDigits(long number) {
+        int digits = 1;
+        for (long remaining = number / 10; remaining > 0; remaining /= 10) {
+            digits++;
+        }
+
+        int position = this.buffer.position();
+        for (int i = digits - 1; i >= 0; i--) {
+            this.buffer.put(position + i, (byte) ('0' + number % 10));
+            number /= 10;
+        }
+        this.buffer.position(position + digits);
+    }
+}
@@ -0,0 +1,197 @@
+/*
+ Author: Samuel Agyakwa
+ Date: 02/20/2020
+ */
+
+package utils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+/**
+ * The purpose of this class is to hold a large number of IDs in a compact form. Instead of one StringBuilder per ID
+ * (an object header, a char array and a list slot each), every random character is stored as its 6 bit index in the
+ * alphabet, and all IDs are packed into one byte array. A 24 character ID takes 18 bytes. The prefix of the ID format
+ * is the same for every ID, and the check character follows from the others, so neither is stored. IDs are only turned
+ * back into characters when they are asked for.
+ */
+public class IdBlock {
+    private static final int BITS_PER_CHARACTER = 6;
+    private static final int MAX_ALPHABET_LENGTH = 1 << BITS_PER_CHARACTER;
+    private static final int MAX_BLOCK_BYTES = Integer.MAX_VALUE - 8; // Largest array most VMs can allocate
+
+    private final IdFormat idFormat;
+    private final String alphabet;
+    private final int randomLength; // The number of random characters, the only ones that are stored
+    private final int bytesPerId;
+    private byte[] packedIDs;
+    private int size;
+
+    /**
+     * @param alphabet        is the characters IDs are made of, between 2 and 64 of them
+     * @param idLength        is the number of characters in every ID
+     * @param initialCapacity is the number of IDs to make room for up front
+     */
+    public IdBlock(String alphabet, int idLength, int initialCapacity) {
+        this(new IdFormat(alphabet, idLength), initialCapacity);
+    }
+
+    /**
+     * @param idFormat        is the format of the IDs
+     * @param initialCapacity is the number of IDs to make room for up front
+     */
+    public IdBlock(IdFormat idFormat, int initialCapacity) {
+        if (initialCapacity < 0) {
+            throw new IllegalArgumentException("Capacity can't be negative");
+        }
+
+        this.idFormat = idFormat;
+        this.alphabet = idFormat.getAlphabet();
+        this.randomLength = idFormat.getLength();
+        this.bytesPerId = (this.randomLength * BITS_PER_CHARACTER + Byte.SIZE - 1) / Byte.SIZE;
+        this.packedIDs = new byte[Math.max(1, initialCapacity) * this.bytesPerId];
+    }
+
+    /**
+     * Packs an ID and adds it to the end of the block.
+     *
+     * @param id is the ID to add, in the block's format
+     * @return the index of the added ID
+     */
+    public int add(CharSequence id) {
+        long requiredBytes = (long) (this.size + 1) * this.bytesPerId;
+        if (requiredBytes > this.packedIDs.length) {
+            if (requiredBytes > MAX_BLOCK_BYTES) {
+                throw new IllegalStateException("IdBlock is full, start a new block");
+            }
+            this.packedIDs = Arrays.copyOf(this.packedIDs,
+                    (int) Math.min(MAX_BLOCK_BYTES, Math.max(2L * this.packedIDs.length, requiredBytes)));
+        }
+
+        pack(id, this.packedIDs, this.size * this.bytesPerId);
+        return this.size++;
+    }
+
+    /**
+     * Packs an ID into a caller supplied buffer, in the same format the block uses (e.g. as a key for a lookup).
+     *
+     * @param id          is the ID to pack, in the block's format
+     * @param destination is the buffer to pack into, with room for bytesPerId() bytes
+     * @param offset      is the index to pack the first byte at
+     */
+    public void pack(CharSequence id, byte[] destination, int offset) {
+        if (!this.idFormat.isValid(id)) {
+            throw new IllegalArgumentException("'" + id + "' is not an ID of " + this.idFormat);
+        }
+
+        int position = offset;
+        int bitBuffer = 0;
+        int bitsInBuffer = 0;
+        int prefixLength = this.idFormat.getPrefix().length();
+        for (int i = prefixLength; i < prefixLength + this.randomLength; i++) {
+            bitBuffer = bitBuffer << BITS_PER_CHARACTER | this.idFormat.indexOf(id.charAt(i));
+            bitsInBuffer += BITS_PER_CHARACTER;
+            if (bitsInBuffer >= Byte.SIZE) {
+                bitsInBuffer -= Byte.SIZE;
+                destination[position++] = (byte) (bitBuffer >>> bitsInBuffer);
+            }
+        }
+        if (bitsInBuffer > 0) {
+            // Left align the last, partial byte
+            destination[position] = (byte) (bitBuffer << (Byte.SIZE - bitsInBuffer));
+        }
+    }
+
+    /**
+     * Unpacks an ID and appends its characters.
+     *
+     * @param index       is the index of the ID
+     * @param destination is where to append the ID's characters
+     */
+    public void appendTo(int index, StringBuilder destination) {
+        if (index < 0 || index >= this.size) {
+            throw new IndexOutOfBoundsException("index " + index + ", size " + this.size);
+        }
+        unpack(this.packedIDs, index * this.bytesPerId, destination);
+    }
+
+    /**
+     * Unpacks an ID packed by pack (e.g. read back from a binary IDOutputWriter file) and appends its characters.
+     *
+     * @param source      is the buffer holding the packed ID
+     * @param offset      is the index of the packed ID's first byte
+     * @param destination is where to append the ID's characters
+     */
+    public void unpack(byte[] source, int offset, StringBuilder destination) {
+        int position = offset;
+        int bitBuffer = 0;
+        int bitsInBuffer = 0;
+        destination.append(this.idFormat.getPrefix());
+        for (int i = 0; i < this.randomLength; i++) {
+            if (bitsInBuffer < BITS_PER_CHARACTER) {
+                bitBuffer = bitBuffer << Byte.SIZE | (source[position++] & 0xFF);
+                bitsInBuffer += Byte.SIZE;
+            }
+            bitsInBuffer -= BITS_PER_CHARACTER;
+            destination.append(this.alphabet.charAt(bitBuffer >>> bitsInBuffer & MAX_ALPHABET_LENGTH - 1));
+        }
+        this.idFormat.appendCheckCharacter(destination);
+    }
+
+    /**
+     * @param index is the index of the ID
+     * @return the ID's characters, rendered on demand
+     */
+    public CharSequence get(int index) {
+        StringBuilder id = new StringBuilder(this.idFormat.getTotalLength());
+        appendTo(index, id);
+        return id;
+    }
+
+    /**
+     * Writes every ID as text, one per line.
+     *
+     * @param destination is where to write the IDs
+     * @throws IOException in case there are any IO errors
+     */
+    public void writeText(Appendable destination) throws IOException {
+        StringBuilder id = new StringBuilder(this.idFormat.getTotalLength());
+        for (int index = 0; index < this.size; index++) {
+            id.setLength(0);
+            appendTo(index, id);
+            destination.append(id).append('\n');
+        }
+    }
+
+    /**
+     * Writes the packed bytes of every ID in one go, bytesPerId() bytes per ID.
+     *
+     * @param destination is where to write the packed IDs
+     * @throws IOException in case there are any IO errors
+     */
+    public void writePacked(OutputStream destination) throws IOException {
+        destination.write(this.packedIDs, 0, this.size * this.bytesPerId);
+    }
+
+    /**
+     * @return the number of IDs in the block
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * @return the number of characters in every ID, prefix and check character included
+     */
+    public int idLength() {
+        return this.idFormat.getTotalLength();
+    }
+
+    /**
+     * @return the number of bytes every packed ID takes
+     */
+    public int bytesPerId() {
+        return this.bytesPerId;
+    }
+}
@@ -0,0 +1,204 @@
+/*
+ Author: Samuel Agyakwa
+ Date: 02/20/2020
+ */
+
+package utils;
+
+/**
+ * The purpose of this class is to turn random bytes into characters of an alphabet while wasting as few random bits
+ * as possible. Everything that depends on the alphabet is worked out once, when the encoder is made:
+ * - an alphabet of 2, 4, 8, ... characters takes exactly log2(length) bits per character. The bits are read in groups
+ *   of whole bytes that hold a whole number of characters (3 bytes for 8 base 8 characters, 5 bytes for 8 Crockford
+ *   base 32 characters, ...), and every character is one shift and mask from a precomputed table, with no rejection,
+ *   so nothing is ever wasted.
+ * - any other alphabet takes a group of bits, and treats it as a number written with several characters of the
+ *   alphabet at once. The group size is the one that wastes the fewest bits per character, counting rejected groups.
+ *   A value of the group that would make some characters more likely than others is rejected (rejection sampling),
+ *   so every character stays equally likely.
+ *
+ * A base 62 ID costs a little over 6 bits per character this way, instead of a whole byte plus the rejected bytes.
+ * Encoders keep no state, so one encoder can be shared by every thread.
+ */
+public abstract class IdEncoder {
+    private static final int MAX_GROUP_BITS = 56; // A group plus a partial byte fits in a long
+
+    final char[] characters;
+
+    private IdEncoder(String alphabet) {
+        this.characters = alphabet.toCharArray();
+    }
+
+    /**
+     * @param alphabet is the characters to encode to, between 2 and 256 of them
+     * @return the fastest encoder for the alphabet
+     */
+    public static IdEncoder forAlphabet(String alphabet) {
+        if (alphabet.length() < 2 || alphabet.length() > 256) {
+            throw new IllegalArgumentException("Alphabet must have between 2 and 256 characters");
+        }
+        return Integer.bitCount(alphabet.length()) == 1
+                ? new PowerOfTwoEncoder(alphabet)
+                : new RejectionEncoder(alphabet);
+    }
+
+    /**
+     * Appends characters to an ID, consuming random bytes from the given position until the ID is complete or the
+     * bytes run out. The unused bits of the last byte read are thrown away.
+     *
+     * @param randomBytes is the block of random bytes to read from
+     * @param position    is the index of the first unused byte
+     * @param end         is the index after the last usable byte
+     * @param id          is the ID to append the characters to
+     * @param idLength    is the length the ID should reach
+     * @return the index of the first unused byte after appending
+     */
+    public abstract int append(byte[] randomBytes, int position, int end, StringBuilder id, int idLength);
+
+    /**
+     * @return the average number of random bits used for every character, rejected bits included
+     */
+    public abstract double bitsPerCharacter();
+
+    /**
+     * Encoder for alphabets with a power of two number of characters: every character is the next log2(length) bits.
+     */
+    private static final class PowerOfTwoEncoder extends IdEncoder {
+        private final int bitsPerCharacter;
+        private final int mask;
+        private final int bytesPerGroup;
+        private final int charactersPerGroup;
+        private final int[] shifts; // Where each character of a group sits in the group
+
+        private PowerOfTwoEncoder(String alphabet) {
+            super(alphabet);
+            this.bitsPerCharacter = Integer.numberOfTrailingZeros(alphabet.length());
+            this.mask = alphabet.length() - 1;
+
+            // The smallest number of whole bytes that holds a whole number of characters
+            int groupBits = Byte.SIZE;
+            while (groupBits % this.bitsPerCharacter != 0) {
+                groupBits += Byte.SIZE;
+            }
+            this.bytesPerGroup = groupBits / Byte.SIZE;
+            this.charactersPerGroup = groupBits / this.bitsPerCharacter;
+            this.shifts = new int[this.charactersPerGroup];
+            for (int i = 0; i < this.charactersPerGroup; i++) {
+                this.shifts[i] = groupBits - (i + 1) * this.bitsPerCharacter;
+            }
+        }
+
+        @Override
+        public int append(byte[] randomBytes, int position, int end, StringBuilder id, int idLength) {
+            int characterCount = (int) Math.min(idLength - id.length(),
+                    (long) (end - position) * Byte.SIZE / this.bitsPerCharacter);
+            while (characterCount > 0) {
+                // The last group may be cut short, its missing bytes read as zeros and never used
+                int groupCharacters = Math.min(this.charactersPerGroup, characterCount);
+                int groupBytes = (groupCharacters * this.bitsPerCharacter + Byte.SIZE - 1) / Byte.SIZE;
+                long group = 0;
+                for (int i = 0; i < groupBytes; i++) {
+                    group = group << Byte.SIZE | (randomBytes[position + i] & 0xFF);
+                }
+                group <<= (this.bytesPerGroup - groupBytes) * Byte.SIZE;
+
+                for (int i = 0; i < groupCharacters; i++) {
+                    id.append(this.characters[(int) (group >>> this.shifts[i]) & this.mask]);
+                }
+                position += groupBytes;
+                characterCount -= groupCharacters;
+            }
+            return position;
+        }
+
+        @Override
+        public double bitsPerCharacter() {
+            return this.bitsPerCharacter;
+        }
+    }
+
+    /**
+     * Encoder for every other alphabet: a group of bits is read as a number below length^charactersPerGroup, one
+     * character per digit in base length, and a group that is too large is rejected.
+     */
+    private static final class RejectionEncoder extends IdEncoder {
+        private final int groupBits;
+        private final long groupMask;
+        private final int charactersPerGroup;
+        private final long acceptedGroupValues;
+        private final long[] placeValues; // length^(charactersPerGroup - 1), ..., length, 1
+        private final double bitsPerCharacter;
+
+        private RejectionEncoder(String alphabet) {
+            super(alphabet);
+            long radix = alphabet.length();
+
+            // Try every group size that fits in a long, and keep the one that costs the fewest bits per character
+            int bestCharacters = 1;
+            double bestBitsPerCharacter = Double.MAX_VALUE;
+            long values = radix;
+            for (int characters = 1; bitsFor(values) <= MAX_GROUP_BITS; characters++, values *= radix) {
+                int bits = bitsFor(values);
+                double acceptance = values / Math.pow(2, bits);
+                double cost = bits / acceptance / characters;
+                if (cost < bestBitsPerCharacter) {
+                    bestBitsPerCharacter = cost;
+                    bestCharacters = characters;
+                }
+                if (values > Long.MAX_VALUE / radix) {
+                    break;
+                }
+            }
+
+            this.charactersPerGroup = bestCharacters;
+            this.bitsPerCharacter = bestBitsPerCharacter;
+            this.placeValues = new long[bestCharacters];
+            long placeValue = 1;
+            for (int i = bestCharacters - 1; i >= 0; i--) {
+                this.placeValues[i] = placeValue;
+                placeValue *= radix;
+            }
+            this.acceptedGroupValues = placeValue;
+            this.groupBits = bitsFor(placeValue);
+            this.groupMask = (1L << this.groupBits) - 1;
+        }
+
+        /**
+         * @param values is a number of distinct values
+         * @return the number of bits needed to write the largest of them
+         */
+        private static int bitsFor(long values) {
+            return Long.SIZE - Long.numberOfLeadingZeros(values - 1);
+        }
+
+        @Override
+        public int append(byte[] randomBytes, int position, int end, StringBuilder id, int idLength) {
+            long bitBuffer = 0;
+            int bitsInBuffer = 0;
+            while (id.length() < idLength) {
+                while (bitsInBuffer < this.groupBits && position < end) {
+                    bitBuffer = bitBuffer << Byte.SIZE | (randomBytes[position++] & 0xFF);
+                    bitsInBuffer += Byte.SIZE;
+                }
+                if (bitsInBuffer < this.groupBits) {
+                    break; // Out of random bytes
+                }
+
+                bitsInBuffer -= this.groupBits;
+                long groupValue = bitBuffer >>> bitsInBuffer & this.groupMask;
+                if (groupValue < this.acceptedGroupValues) {
+                    int groupCharacters = Math.min(this.charactersPerGroup, idLength - id.length());
+                    for (int i = 0; i < groupCharacters; i++) {
+                        id.append(this.characters[(int) (groupValue / this.placeValues[i] % this.characters.length)]);
+                    }
+                }
+            }
+            return position;
+        }
+
+        @Override
+        public double bitsPerCharacter() {
+            return this.bitsPerCharacter;
+        }
+    }
+}
@@ -0,0 +1,286 @@
+/*
+ Author: Samuel Agyakwa
+ Date: 02/20/2020
+ */
+
+package utils;
+
+import java.util.Arrays;
+
+/**
+ * The purpose of this class is to describe what a generated ID looks like: the alphabet its random characters come
+ * from, how many random characters it has, an optional fixed prefix (e.g. "cus_"), and an optional check character
+ * at the end. An ID is the prefix, then the random characters, then the check character.
+ *
+ * The check character is computed with the Luhn mod N algorithm over the random characters, using the same alphabet,
+ * so it catches every single mistyped character and almost every swap of two neighbouring characters.
+ *
+ * Formats are immutable, and share one stateless IdEncoder (see IdEncoder), so a format can be used by every thread.
+ */
+public final class IdFormat {
+    // The alphabet IDs have always been generated from
+    public static final String BASE62_ALPHABET = "AaBbCcDdEeFfGgHhIiJjKkLlMmNnOoPpQqRrSsTtUuVvWwXxYyZz0123456789";
+    // Leaves out I, L, O and U, so IDs can be read out and typed in without mixing up characters
+    public static final String CROCKFORD_BASE32_ALPHABET = "0123456789ABCDEFGHJKMNPQRSTVWXYZ";
+    public static final String HEX_ALPHABET = "0123456789abcdef";
+    // Safe in URLs and file names without escaping (RFC 4648)
+    public static final String BASE64_URL_ALPHABET =
+            "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-_";
+
+    private static final byte NOT_IN_ALPHABET = -1;
+    private static final char FIRST_ALLOWED_CHARACTER = '!';
+    private static final char LAST_ALLOWED_CHARACTER = '~';
+    private static final int MAX_LENGTH = 1024;
+
+    private final String alphabet;
+    private final int length;
+    private final String prefix;
+    private final boolean checkCharacter;
+    private final byte[] characterIndexes; // Reverse lookup from a character to its index in the alphabet
+    private final IdEncoder encoder;
+
+    /**
+     * @param alphabet is the characters the random part of an ID is made of
+     * @param length   is the number of random characters in every ID
+     */
+    public IdFormat(String alphabet, int length) {
+        this(alphabet, length, "", false);
+    }
+
+    /**
+     * @param alphabet       is the characters the random part of an ID is made of, between 2 and 64 printable ASCII
+     *                       characters other than ',' and '"', each one once
+     * @param length         is the number of random characters in every ID
+     * @param prefix         is the fixed text every ID starts with, printable ASCII other than ',' and '"'
+     * @param checkCharacter is true to end every ID with a check character
+     */
+    public IdFormat(String alphabet, int length, String prefix, boolean checkCharacter) {
+        if (alphabet.length() < 2 || alphabet.length() > 64) {
+            throw new IllegalArgumentException("Alphabet must have between 2 and 64 characters");
+        }
+        if (length < 1 || length > MAX_LENGTH) {
+            throw new IllegalArgumentException("ID length must be between 1 and " + MAX_LENGTH);
+        }
+        checkAllowedCharacters(alphabet);
+        checkAllowedCharacters(prefix);
+
+        this.characterIndexes = new byte[LAST_ALLOWED_CHARACTER + 1];
+        Arrays.fill(this.characterIndexes, NOT_IN_ALPHABET);
+        for (int index = 0; index < alphabet.length(); index++) {
+            if (this.characterIndexes[alphabet.charAt(index)] != NOT_IN_ALPHABET) {
+                throw new IllegalArgumentException("'" + alphabet.charAt(index) + "' is in the alphabet twice");
+            }
+            this.characterIndexes[alphabet.charAt(index)] = (byte) index;
+        }
+
+        this.alphabet = alphabet;
+        this.length = length;
+        this.prefix = prefix;
+        this.checkCharacter = checkCharacter;
+        this.encoder = IdEncoder.forAlphabet(alphabet);
+    }
+
+    /**
+     * @param length is the number of random characters in every ID
+     * @return a format of upper and lower case letters and digits, the format IDs have always had
+     */
+    public static IdFormat base62(int length) {
+        return new IdFormat(BASE62_ALPHABET, length);
+    }
+
+    /**
+     * @param length is the number of random characters in every ID
+     * @return a format of Crockford's base 32 digits (upper case, without I, L, O and U), 5 bits per character
+     */
+    public static IdFormat crockfordBase32(int length) {
+        return new IdFormat(CROCKFORD_BASE32_ALPHABET, length);
+    }
+
+    /**
+     * @param length is the number of random characters in every ID
+     * @return a format of lower case hex digits, 4 bits per character
+     */
+    public static IdFormat hex(int length) {
+        return new IdFormat(HEX_ALPHABET, length);
+    }
+
+    /**
+     * @param length is the number of random characters in every ID
+     * @return a format of URL and file name safe base 64 characters, 6 bits per character
+     */
+    public static IdFormat base64Url(int length) {
+        return new IdFormat(BASE64_URL_ALPHABET, length);
+    }
+
+    /**
+     * @param prefix is the fixed text every ID starts with
+     * @return the same format, with the prefix
+     */
+    public IdFormat withPrefix(String prefix) {
+        return new IdFormat(this.alphabet, this.length, prefix, this.checkCharacter);
+    }
+
+    /**
+     * @return the same format, with a check character at the end of every ID
+     */
+    public IdFormat withCheckCharacter() {
+        return new IdFormat(this.alphabet, this.length, this.prefix, true);
+    }
+
+    /**
+     * Appends the random characters of an ID, consuming random bytes from the given position until the random part is
+     * complete or the bytes run out. The ID must already start with the prefix.
+     *
+     * @param randomBytes is the block of random bytes to read from
+     * @param position    is the index of the first unused byte
+     * @param end         is the index after the last usable byte
+     * @param id          is the ID to append the characters to
+     * @return the index of the first unused byte after appending
+     */
+    public int appendRandomCharacters(byte[] randomBytes, int position, int end, StringBuilder id) {
+        return this.encoder.append(randomBytes, position, end, id, this.prefix.length() + this.length);
+    }
+
+    /**
+     * Appends the check character to an ID whose prefix and random characters are complete, and are the last
+     * characters of the builder. Does nothing when the format has no check character.
+     *
+     * @param id is the ID to complete
+     */
+    public void appendCheckCharacter(StringBuilder id) {
+        if (this.checkCharacter) {
+            id.append(computeCheckCharacter(id, id.length() - this.length));
+        }
+    }
+
+    /**
+     * Luhn mod N: from the last random character backwards, every other character's index is doubled (and its digits
+     * in base N added up), and the check character is the one that brings the sum to a multiple of N.
+     *
+     * @param id    is the text holding the random characters
+     * @param start is the index of the first random character
+     * @return the check character for the random characters
+     */
+    private char computeCheckCharacter(CharSequence id, int start) {
+        int radix = this.alphabet.length();
+        int sum = 0;
+        boolean doubled = true;
+        for (int i = start + this.length - 1; i >= start; i--) {
+            int addend = indexOf(id.charAt(i));
+            if (doubled) {
+                addend *= 2;
+                addend = addend / radix + addend % radix;
+            }
+            sum += addend;
+            doubled = !doubled;
+        }
+        return this.alphabet.charAt((radix - sum % radix) % radix);
+    }
+
+    /**
+     * @param id is the text to check
+     * @return true if the text has this format's prefix, length and alphabet, and a correct check character
+     */
+    public boolean isValid(CharSequence id) {
+        if (id.length() != getTotalLength()) {
+            return false;
+        }
+        for (int i = 0; i < this.prefix.length(); i++) {
+            if (id.charAt(i) != this.prefix.charAt(i)) {
+                return false;
+            }
+        }
+        for (int i = this.prefix.length(); i < id.length(); i++) {
+            if (indexOf(id.charAt(i)) == NOT_IN_ALPHABET) {
+                return false;
+            }
+        }
+        return !this.checkCharacter || id.charAt(id.length() - 1) == computeCheckCharacter(id, this.prefix.length());
+    }
+
+    /**
+     * @param character is the character to look up
+     * @return the index of the character in the alphabet, or -1 if it isn't in it
+     */
+    public int indexOf(char character) {
+        return character < this.characterIndexes.length ? this.characterIndexes[character] : NOT_IN_ALPHABET;
+    }
+
+    /**
+     * @return the number of random bytes that almost always cover one ID, so IDs can be drawn in fixed size slices.
+     * Exact for power of two alphabets, with a quarter on top of the average for any other alphabet.
+     */
+    public int randomBytesPerId() {
+        double bits = this.length * this.encoder.bitsPerCharacter();
+        if (Integer.bitCount(this.alphabet.length()) != 1) {
+            bits *= 1.25;
+        }
+        return (int) Math.ceil(bits / Byte.SIZE);
+    }
+
+    /**
+     * @return the number of bits of entropy in every ID
+     */
+    public double getEntropyBits() {
+        return this.length * Math.log(this.alphabet.length()) / Math.log(2);
+    }
+
+    /**
+     * @return the characters the random part of an ID is made of
+     */
+    public String getAlphabet() {
+        return this.alphabet;
+    }
+
+    /**
+     * @return the number of random characters in every ID
+     */
+    public int getLength() {
+        return this.length;
+    }
+
+    /**
+     * @return the fixed text every ID starts with, empty for no prefix
+     */
+    public String getPrefix() {
+        return this.prefix;
+    }
+
+    /**
+     * @return true if every ID ends with a check character
+     */
+    public boolean hasCheckCharacter() {
+        return this.checkCharacter;
+    }
+
+    /**
+     * @return the number of characters in every ID, prefix and check character included
+     */
+    public int getTotalLength() {
+        return this.prefix.length() + this.length + (this.checkCharacter ? 1 : 0);
+    }
+
+    /**
+     * @return the encoder that maps random bytes onto the alphabet
+     */
+    public IdEncoder getEncoder() {
+        return this.encoder;
+    }
+
+    @Override
+    public String toString() {
+        return this.length + " characters of base " + this.alphabet.length()
+                + (this.prefix.isEmpty() ? "" : ", prefix \"" + this.prefix + "\"")
+                + (this.checkCharacter ? ", with a check character" : "");
+    }
+
+    private static void checkAllowedCharacters(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            char character = text.charAt(i);
+            if (character < FIRST_ALLOWED_CHARACTER || character > LAST_ALLOWED_CHARACTER
+                    || character == ',' || character == '"') {
+                throw new IllegalArgumentException("'" + character + "' can't be used in an ID");
+            }
+        }
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ Author: Samuel Agyakwa
+ Date: 02/20/2020
+ */
+
+package utils;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * The purpose of this class is to record latencies from several threads without locks, and answer percentile queries
+ * about them. Values are counted in log-linear buckets: every power of two range is split into 8 equal buckets, so a
+ * reported percentile is at most 12.5% above the real value, while the whole range of a long fits in 488 counters.
+ */
+public class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKETS = (Long.SIZE - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+    private final AtomicLongArray bucketCounts;
+    private final AtomicLong count;
+    private final AtomicLong total;
+    private final AtomicLong max;
+
+    public LatencyHistogram() {
+        this.bucketCounts = new AtomicLongArray(BUCKETS);
+        this.count = new AtomicLong();
+        this.total = new AtomicLong();
+        this.max = new AtomicLong();
+    }
+
+    /**
+     * @param value is the latency to record, negative values are counted as 0
+     */
+    public void record(long value) {
+        value = Math.max(0, value);
+        this.bucketCounts.incrementAndGet(bucketOf(value));
+        this.count.incrementAndGet();
+        this.total.addAndGet(value);
+        this.max.accumulateAndGet(value, Math::max);
+    }
+
+    /**
+     * @param quantile is the fraction of values to be at or below the result, between 0 and 1
+     * @return the smallest bucket bound that at least that fraction of the recorded values are at or below, or 0 if
+     * nothing was recorded
+     */
+    public long percentile(double quantile) {
+        if (quantile < 0 || quantile > 1) {
+            throw new IllegalArgumentException("Quantile must be between 0 and 1");
+        }
+
+        long recorded = 0;
+        for (int bucket = 0; bucket < BUCKETS; bucket++) {
+            recorded += this.bucketCounts.get(bucket);
+        }
+        long target = Math.max(1, (long) Math.ceil(quantile * recorded));
+
+        long seen = 0;
+        for (int bucket = 0; bucket < BUCKETS && recorded > 0; bucket++) {
+            seen += this.bucketCounts.get(bucket);
+            if (seen >= target) {
+                return Math.min(upperBound(bucket), this.max.get());
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * @return the number of recorded values
+     */
+    public long getCount() {
+        return this.count.get();
+    }
+
+    /**
+     * @return the mean of the recorded values, or 0 if nothing was recorded
+     */
+    public long getMean() {
+        long recorded = this.count.get();
+        return recorded == 0 ? 0 : this.total.get() / recorded;
+    }
+
+    /**
+     * @return the largest recorded value
+     */
+    public long getMax() {
+        return this.max.get();
+    }
+
+    /**
+     * Forgets every recorded value. Values recorded while resetting may or may not be kept.
+     */
+    public void reset() {
+        for (int bucket = 0; bucket < BUCKETS; bucket++) {
+            this.bucketCounts.set(bucket, 0);
+        }
+        this.count.set(0);
+        this.total.set(0);
+        this.max.set(0);
+    }
+
+    // Values below 8 get a bucket each, after that the highest bit picks the range and the next 3 bits the bucket
+    private static int bucketOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int highestBit = Long.SIZE - 1 - Long.numberOfLeadingZeros(value);
+        int subBucket = (int) (value >>> (highestBit - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (highestBit - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    private static long upperBound(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int shift = bucket / SUB_BUCKETS - 1;
+        long lowerBound = (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << shift;
+        return lowerBound + (1L << shift) - 1;
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ Author: Samuel Agyakwa
+ Date: 02/20/2020
+ */
+
+package utils;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * The purpose of this class is to hand elements from producers to consumers without locks. It is a bounded,
+ * multi-producer, multi-consumer ring buffer (Dmitry Vyukov's design): every slot carries a sequence number that says
+ * whether it is ready to be written or read in the current lap, so offer and poll only need one compare-and-set on the
+ * tail or head counter.
+ *
+ * @param <E> is the type of the elements
+ */
+public class LockFreeRingBuffer<E> {
+    private final AtomicReferenceArray<E> elements;
+    private final AtomicLongArray sequences;
+    private final int mask;
+    private final AtomicLong head; // Next position to read
+    private final AtomicLong tail; // Next position to write
+
+    /**
+     * @param capacity is the maximum number of elements, rounded up to a power of two
+     */
+    public LockFreeRingBuffer(int capacity) {
+        if (capacity < 1 || capacity > 1 << 30) {
+            throw new IllegalArgumentException("Capacity must be between 1 and 2^30");
+        }
+
+        int powerOfTwoCapacity = Integer.highestOneBit(capacity);
+        if (powerOfTwoCapacity < capacity) {
+            powerOfTwoCapacity <<= 1;
+        }
+
+        this.elements = new AtomicReferenceArray<>(powerOfTwoCapacity);
+        this.sequences = new AtomicLongArray(powerOfTwoCapacity);
+        for (int slot = 0; slot < powerOfTwoCapacity; slot++) {
+            this.sequences.set(slot, slot);
+        }
+        this.mask = powerOfTwoCapacity - 1;
+        this.head = new AtomicLong();
+        this.tail = new AtomicLong();
+    }
+
+    /**
+     * Adds an element, unless the buffer is full.
+     *
+     * @param element is the element to add
+     * @return true if the element was added, false if the buffer is full
+     */
+    public boolean offer(E element) {
+        if (element == null) {
+            throw new NullPointerException("Ring buffer elements can't be null");
+        }
+
+        while (true) {
+            long position = this.tail.get();
+            int slot = (int) position & this.mask;
+            long difference = this.sequences.get(slot) - position;
+
+            if (difference == 0) {
+                // The slot is free in this lap, claim it
+                if (this.tail.compareAndSet(position, position + 1)) {
+                    this.elements.lazySet(slot, element);
+                    this.sequences.set(slot, position + 1); // Publish the element to consumers
+                    return true;
+                }
+            } else if (difference < 0) {
+                return false; // The slot still holds an element from the previous lap, so we are full
+            }
+            // Otherwise another producer claimed the position first, try again
+        }
+    }
+
+    /**
+     * Removes the oldest element, if there is one.
+     *
+     * @return the oldest element, or null if the buffer is empty
+     */
+    public E poll() {
+        while (true) {
+            long position = this.head.get();
+            int slot = (int) position & this.mask;
+            long difference = this.sequences.get(slot) - (position + 1);
+
+            if (difference == 0) {
+                // The slot holds a published element, claim it
+                if (this.head.compareAndSet(position, position + 1)) {
+                    E element = this.elements.get(slot);
+                    this.elements.lazySet(slot, null);
+                    this.sequences.set(slot, position + this.mask + 1); // Free the slot for the next lap
+                    return element;
+                }
+            } else if (difference < 0) {
+                return null; // Nothing has been published in this slot yet, so we are empty
+            }
+            // Otherwise another consumer claimed the position first, try again
+        }
+    }
+
+    /**
+     * @return the number of elements, which may already be out of date when there are concurrent producers or consumers
+     */
+    public int size() {
+        long size = this.tail.get() - this.head.get();
+        return (int) Math.max(0, Math.min(size, capacity()));
+    }
+
+    /**
+     * @return the maximum number of elements
+     */
+    public int capacity() {
+        return this.mask + 1;
+    }
+}
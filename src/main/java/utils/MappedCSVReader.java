@@ -0,0 +1,272 @@
+/*
+ Author: Samuel Agyakwa
+ Date: 02/20/2020
+ */
+
+package utils;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * The purpose of this class is to read csv files through a memory map, parsing the rows straight from the mapped bytes.
+ * Like CustomCSVReader.parseCSVLine, the fields of a row are flattened into one value: separators are dropped, quotes
+ * around a field are removed, and a doubled quote stands for one literal quote. Separators and line breaks inside a
+ * quoted field are kept, so a quoted field can span several lines.
+ *
+ * No Strings are created per row: the parsed bytes of each row are collected in one reusable buffer and handed to a
+ * RowHandler. Where each field ends in the buffer is kept as well (see getFieldEnds), for handlers that must tell
+ * ("1", "23") from ("12", "3"). The file is mapped in segments, and the parser state carries over from one segment to
+ * the next, so rows may cross segment boundaries and files larger than 2 GB can be read.
+ */
+public class MappedCSVReader {
+    public static final int DEFAULT_SEGMENT_SIZE = 1 << 28; // 256 MB per mapping
+    private static final byte SEPARATOR_BYTE = ',';
+    private static final byte QUOTE_BYTE = '"';
+    private static final byte CARRIAGE_RETURN = '\r';
+    private static final byte LINE_FEED = '\n';
+
+    // Parser states
+    private static final int FIELD_START = 0;
+    private static final int UNQUOTED = 1;
+    private static final int QUOTED = 2;
+    private static final int QUOTE_IN_UNQUOTED = 3; // Saw a quote inside an unquoted field, may be a doubled quote
+    private static final int QUOTE_IN_QUOTED = 4; // Saw a quote inside a quoted field, either the end or a doubled quote
+
+    /**
+     * Receives the parsed bytes of each row. The buffer is reused for the next row, so it must not be kept.
+     */
+    public interface RowHandler {
+        /**
+         * @param rowBuffer is the buffer holding the parsed row, starting at index 0
+         * @param rowLength is the number of parsed bytes in the buffer
+         */
+        void onRow(byte[] rowBuffer, int rowLength);
+    }
+
+    private final int segmentSize;
+    private byte[] rowBuffer;
+    private int rowLength;
+    private int[] fieldEnds;
+    private int fieldCount;
+    private long rowStartOffset;
+    private long rowEndOffset;
+    private boolean rowTerminated;
+
+    public MappedCSVReader() {
+        this(DEFAULT_SEGMENT_SIZE);
+    }
+
+    /**
+     * @param segmentSize is the number of bytes to map at a time
+     */
+    public MappedCSVReader(int segmentSize) {
+        if (segmentSize < 1) {
+            throw new IllegalArgumentException("Segment size must be at least 1");
+        }
+        this.segmentSize = segmentSize;
+        this.rowBuffer = new byte[256];
+        this.fieldEnds = new int[16];
+    }
+
+    /**
+     * Maps a csv file and hands every parsed row to the handler, in file order.
+     *
+     * @param csvFilePath is the path of the csv file
+     * @param withHeader  is a boolean value to be set if the first row is a header and should be skipped
+     * @param rowHandler  is the handler for every parsed row
+     * @return the number of rows handed to the handler
+     * @throws IOException in case the file doesn't exist, or there are any IO errors
+     */
+    public long read(Path csvFilePath, boolean withHeader, RowHandler rowHandler) throws IOException {
+        return read(csvFilePath, 0, withHeader, rowHandler);
+    }
+
+    /**
+     * Maps a csv file from a byte offset on, and hands every parsed row to the handler, in file order. This is used to
+     * pick up a run where it left off: the offset must be the start of a row, e.g. a previous getRowEndOffset().
+     *
+     * @param csvFilePath is the path of the csv file
+     * @param startOffset is the byte offset of the first row to read
+     * @param withHeader  is a boolean value to be set if the first row read is a header and should be skipped
+     * @param rowHandler  is the handler for every parsed row
+     * @return the number of rows handed to the handler
+     * @throws IOException in case the file doesn't exist, or there are any IO errors
+     */
+    public long read(Path csvFilePath, long startOffset, boolean withHeader, RowHandler rowHandler)
+            throws IOException {
+        return read(csvFilePath, startOffset, Long.MAX_VALUE, withHeader, rowHandler);
+    }
+
+    /**
+     * Maps the byte range [startOffset, endOffset) of a csv file, and hands every parsed row in it to the handler, in
+     * file order. Both offsets must be the start of a row (or the end of the file), e.g. the boundaries of
+     * CSVByteRangeSplitter.split, so several readers can each read a range of the same file.
+     *
+     * @param csvFilePath is the path of the csv file
+     * @param startOffset is the byte offset of the first row to read
+     * @param endOffset   is the byte offset to stop reading at, past the end of the file to read to the end
+     * @param withHeader  is a boolean value to be set if the first row read is a header and should be skipped
+     * @param rowHandler  is the handler for every parsed row
+     * @return the number of rows handed to the handler
+     * @throws IOException in case the file doesn't exist, or there are any IO errors
+     */
+    public long read(Path csvFilePath, long startOffset, long endOffset, boolean withHeader, RowHandler rowHandler)
+            throws IOException {
+        if (startOffset < 0 || endOffset < startOffset) {
+            throw new IllegalArgumentException("Start offset can't be negative, or after the end offset");
+        }
+
+        long rowCount = 0;
+        boolean skipRow = withHeader;
+        boolean rowHasBytes = false; // A last line without a line break is still a row
+        int state = FIELD_START;
+        this.rowLength = 0;
+        this.fieldCount = 0;
+        this.rowStartOffset = startOffset;
+        this.rowEndOffset = startOffset;
+        this.rowTerminated = true;
+
+        try (FileChannel fileChannel = FileChannel.open(csvFilePath, StandardOpenOption.READ)) {
+            long readEnd = Math.min(endOffset, fileChannel.size());
+
+            for (long segmentStart = startOffset; segmentStart < readEnd; segmentStart += this.segmentSize) {
+                MappedByteBuffer segment = fileChannel.map(FileChannel.MapMode.READ_ONLY, segmentStart,
+                        Math.min(this.segmentSize, readEnd - segmentStart));
+
+                while (segment.hasRemaining()) {
+                    byte currentByte = segment.get();
+                    rowHasBytes = true;
+
+                    // A pending quote is resolved by the byte after it
+                    if (state == QUOTE_IN_QUOTED) {
+                        if (currentByte == QUOTE_BYTE) {
+                            append(QUOTE_BYTE);
+                            state = QUOTED;
+                            continue;
+                        }
+                        state = UNQUOTED; // The quoted part ended, handle this byte as unquoted
+                    } else if (state == QUOTE_IN_UNQUOTED) {
+                        if (currentByte == QUOTE_BYTE) {
+                            append(QUOTE_BYTE);
+                            state = UNQUOTED;
+                            continue;
+                        }
+                        state = QUOTED; // The quote opened a quoted part, handle this byte as quoted
+                    }
+
+                    if (state == QUOTED) {
+                        if (currentByte == QUOTE_BYTE) {
+                            state = QUOTE_IN_QUOTED;
+                        } else {
+                            append(currentByte);
+                        }
+                    } else if (currentByte == QUOTE_BYTE) {
+                        state = state == FIELD_START ? QUOTED : QUOTE_IN_UNQUOTED;
+                    } else if (currentByte == SEPARATOR_BYTE) {
+                        endField();
+                        state = FIELD_START;
+                    } else if (currentByte == LINE_FEED) {
+                        // The end of the row
+                        this.rowEndOffset = segmentStart + segment.position();
+                        endField();
+                        if (skipRow) {
+                            skipRow = false;
+                        } else {
+                            rowHandler.onRow(this.rowBuffer, this.rowLength);
+                            rowCount++;
+                        }
+                        this.rowLength = 0;
+                        this.fieldCount = 0;
+                        this.rowStartOffset = this.rowEndOffset;
+                        rowHasBytes = false;
+                        state = FIELD_START;
+                    } else if (currentByte != CARRIAGE_RETURN) {
+                        append(currentByte);
+                        state = UNQUOTED;
+                    }
+                }
+            }
+
+            if (rowHasBytes && !skipRow) {
+                this.rowEndOffset = readEnd;
+                this.rowTerminated = false;
+                endField();
+                rowHandler.onRow(this.rowBuffer, this.rowLength);
+                rowCount++;
+            }
+        }
+        return rowCount;
+    }
+
+    /**
+     * @return the byte offset just past the row most recently handed to the handler (or skipped as the header), which
+     * is where reading would resume after it. Only meaningful from inside RowHandler.onRow, or after read returns
+     */
+    public long getRowEndOffset() {
+        return this.rowEndOffset;
+    }
+
+    /**
+     * @return the byte offset of the start of the row most recently handed to the handler. Only meaningful from inside
+     * RowHandler.onRow
+     */
+    public long getRowStartOffset() {
+        return this.rowStartOffset;
+    }
+
+    /**
+     * @return false if the row most recently handed to the handler is the last line of the read range and has no line
+     * break. Such a row may still be being written, so a reader resuming later should start at its getRowStartOffset()
+     * rather than past it. Only meaningful from inside RowHandler.onRow, or after read returns
+     */
+    public boolean isRowTerminated() {
+        return this.rowTerminated;
+    }
+
+    /**
+     * @return the end of every field of the row most recently handed to the handler, as an index into the row buffer:
+     * field i is [getFieldEnds()[i - 1], getFieldEnds()[i]) (field 0 starts at 0). The array is reused for the next
+     * row and may be longer than getFieldCount(). Only meaningful from inside RowHandler.onRow
+     */
+    public int[] getFieldEnds() {
+        return this.fieldEnds;
+    }
+
+    /**
+     * @return the number of fields of the row most recently handed to the handler. Only meaningful from inside
+     * RowHandler.onRow
+     */
+    public int getFieldCount() {
+        return this.fieldCount;
+    }
+
+    /**
+     * Marks the end of the current field at the current end of the row buffer.
+     */
+    private void endField() {
+        if (this.fieldCount == this.fieldEnds.length) {
+            int[] largerFieldEnds = new int[this.fieldEnds.length * 2];
+            System.arraycopy(this.fieldEnds, 0, largerFieldEnds, 0, this.fieldCount);
+            this.fieldEnds = largerFieldEnds;
+        }
+        this.fieldEnds[this.fieldCount++] = this.rowLength;
+    }
+
+    /**
+     * Adds a byte to the row buffer, growing it when a row is longer than any row before it.
+     *
+     * @param parsedByte is the byte to add
+     */
+    private void append(byte parsedByte) {
+        if (this.rowLength == this.rowBuffer.length) {
+            byte[] largerBuffer = new byte[this.rowBuffer.length * 2];
+            System.arraycopy(this.rowBuffer, 0, largerBuffer, 0, this.rowLength);
+            this.rowBuffer = largerBuffer;
+        }
+        this.rowBuffer[this.rowLength++] = parsedByte;
+    }
+}
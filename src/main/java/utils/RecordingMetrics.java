@@ -0,0 +1,129 @@
+/*
+ Author: Samuel Agyakwa
+ Date: 02/20/2020
+ */
+
+package utils;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.ToLongFunction;
+
+/**
+ * The purpose of this class is to keep a count and a latency histogram for every phase of generating IDs, and to
+ * publish them as a JMX MBean, so a long run can be watched (e.g. with JConsole) instead of printing every row.
+ * It can be shared by several generators and threads.
+ */
+public class RecordingMetrics implements GenerationMetrics, RecordingMetricsMXBean {
+    public static final String DOMAIN = "Alphanumeric-Secure-Random-Generator";
+
+    private final LatencyHistogram[] histograms;
+
+    public RecordingMetrics() {
+        this.histograms = new LatencyHistogram[Phase.values().length];
+        for (int phase = 0; phase < this.histograms.length; phase++) {
+            this.histograms[phase] = new LatencyHistogram();
+        }
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return true;
+    }
+
+    @Override
+    public void record(Phase phase, long elapsedNanos) {
+        this.histograms[phase.ordinal()].record(elapsedNanos);
+    }
+
+    /**
+     * @param phase is the phase to look up
+     * @return the histogram of the phase's latencies
+     */
+    public LatencyHistogram getHistogram(Phase phase) {
+        return this.histograms[phase.ordinal()];
+    }
+
+    /**
+     * Registers these metrics with the platform MBean server.
+     *
+     * @param name is the name to tell these metrics apart from other registered ones
+     * @return the name the MBean was registered under, for unregister
+     * @throws JMException in case the name is invalid or already registered
+     */
+    public ObjectName register(String name) throws JMException {
+        ObjectName objectName = new ObjectName(DOMAIN + ":type=GenerationMetrics,name=" + ObjectName.quote(name));
+        ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+        return objectName;
+    }
+
+    /**
+     * @param objectName is the name returned by register
+     * @throws JMException in case nothing is registered under the name
+     */
+    public static void unregister(ObjectName objectName) throws JMException {
+        ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+    }
+
+    @Override
+    public Map<String, Long> getCounts() {
+        return perPhase(LatencyHistogram::getCount);
+    }
+
+    @Override
+    public Map<String, Long> getMeanNanos() {
+        return perPhase(LatencyHistogram::getMean);
+    }
+
+    @Override
+    public Map<String, Long> getMedianNanos() {
+        return perPhase(histogram -> histogram.percentile(0.5));
+    }
+
+    @Override
+    public Map<String, Long> getP99Nanos() {
+        return perPhase(histogram -> histogram.percentile(0.99));
+    }
+
+    @Override
+    public Map<String, Long> getMaxNanos() {
+        return perPhase(LatencyHistogram::getMax);
+    }
+
+    @Override
+    public void reset() {
+        for (LatencyHistogram histogram : this.histograms) {
+            histogram.reset();
+        }
+    }
+
+    /**
+     * @return one line per phase that ran, with its count and latencies
+     */
+    @Override
+    public String toString() {
+        StringBuilder summary = new StringBuilder();
+        for (Phase phase : Phase.values()) {
+            LatencyHistogram histogram = getHistogram(phase);
+            if (histogram.getCount() > 0) {
+                summary.append(phase).append(": count=").append(histogram.getCount())
+                        .append(" mean=").append(histogram.getMean())
+                        .append("ns p50=").append(histogram.percentile(0.5))
+                        .append("ns p99=").append(histogram.percentile(0.99))
+                        .append("ns max=").append(histogram.getMax()).append("ns\n");
+            }
+        }
+        return summary.toString();
+    }
+
+    private Map<String, Long> perPhase(ToLongFunction<LatencyHistogram> value) {
+        Map<String, Long> values = new LinkedHashMap<>();
+        for (Phase phase : Phase.values()) {
+            values.put(phase.name(), value.applyAsLong(getHistogram(phase)));
+        }
+        return values;
+    }
+}
@@ -0,0 +1,25 @@
+/*
+ Author: Samuel Agyakwa
+ Date: 02/20/2020
+ */
+
+package utils;
+
+import java.util.Map;
+
+/**
+ * The JMX view of RecordingMetrics. Every attribute maps a phase name to a value, in nanoseconds for the latencies.
+ */
+public interface RecordingMetricsMXBean {
+    Map<String, Long> getCounts();
+
+    Map<String, Long> getMeanNanos();
+
+    Map<String, Long> getMedianNanos();
+
+    Map<String, Long> getP99Nanos();
+
+    Map<String, Long> getMaxNanos();
+
+    void reset();
+}
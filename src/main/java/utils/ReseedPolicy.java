@@ -0,0 +1,180 @@
+/*
+ Author: Samuel Agyakwa
+ Date: 02/20/2020
+ */
+
+package utils;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The purpose of this class is to say how often a long-lived DRBG pulls fresh entropy from the system entropy source.
+ * Reseeding is by far the most expensive thing a DRBG does, so this trades fresh entropy against throughput:
+ * - never: the DRBG only runs on the entropy it was instantiated with (plus the additional input of every call),
+ * - prediction resistance on every call: every draw reseeds first, so no output can be predicted even by someone who
+ *   learned the internal state before it (SP 800-90A prediction resistance), at the cost of a reseed per ID or batch,
+ * - every N IDs, every T milliseconds or every N bytes: a reseed once the limit is reached, before the next draw, which
+ *   bounds how much output depends on one seed while spreading the cost of the reseed over many IDs.
+ *
+ * The default is a reseed every DEFAULT_RESEED_IDS IDs, so a long-lived DRBG keeps taking in fresh entropy at a cost
+ * that is lost in the noise. never() has to be asked for explicitly.
+ *
+ * A policy is immutable and can be shared, the counting is done by whoever applies it (see DRBGEngine).
+ */
+public final class ReseedPolicy {
+    /**
+     * What triggers a reseed.
+     */
+    public enum Trigger {
+        NEVER,
+        EVERY_CALL,
+        ID_COUNT,
+        ELAPSED_TIME,
+        BYTE_COUNT
+    }
+
+    public static final long DEFAULT_RESEED_IDS = 10_000;
+    private static final ReseedPolicy NEVER = new ReseedPolicy(Trigger.NEVER, 0);
+    private static final ReseedPolicy EVERY_CALL = new ReseedPolicy(Trigger.EVERY_CALL, 0);
+    private static final ReseedPolicy DEFAULT = new ReseedPolicy(Trigger.ID_COUNT, DEFAULT_RESEED_IDS);
+
+    private final Trigger trigger;
+    private final long limit;
+
+    private ReseedPolicy(Trigger trigger, long limit) {
+        this.trigger = trigger;
+        this.limit = limit;
+    }
+
+    /**
+     * @return the policy of a DRBG that wasn't given one, a reseed every DEFAULT_RESEED_IDS IDs
+     */
+    public static ReseedPolicy defaultPolicy() {
+        return DEFAULT;
+    }
+
+    /**
+     * @return a policy that never reseeds, so the DRBG only runs on the entropy it was instantiated with
+     */
+    public static ReseedPolicy never() {
+        return NEVER;
+    }
+
+    /**
+     * @return a policy that asks for prediction resistance on every draw, which reseeds before each one
+     */
+    public static ReseedPolicy predictionResistanceOnEveryCall() {
+        return EVERY_CALL;
+    }
+
+    /**
+     * @param ids is the number of IDs to draw between reseeds
+     * @return a policy that reseeds every ids IDs
+     */
+    public static ReseedPolicy everyIds(long ids) {
+        return new ReseedPolicy(Trigger.ID_COUNT, requirePositive(ids));
+    }
+
+    /**
+     * @param millis is the number of milliseconds between reseeds
+     * @return a policy that reseeds before the first draw that comes millis milliseconds or more after the last reseed
+     */
+    public static ReseedPolicy everyMillis(long millis) {
+        return new ReseedPolicy(Trigger.ELAPSED_TIME, TimeUnit.MILLISECONDS.toNanos(requirePositive(millis)));
+    }
+
+    /**
+     * @param bytes is the number of random bytes to draw between reseeds
+     * @return a policy that reseeds every bytes random bytes
+     */
+    public static ReseedPolicy everyBytes(long bytes) {
+        return new ReseedPolicy(Trigger.BYTE_COUNT, requirePositive(bytes));
+    }
+
+    /**
+     * @return what triggers a reseed
+     */
+    public Trigger getTrigger() {
+        return this.trigger;
+    }
+
+    /**
+     * @return true if every draw should ask for prediction resistance
+     */
+    public boolean isPredictionResistant() {
+        return this.trigger == Trigger.EVERY_CALL;
+    }
+
+    /**
+     * @return true if the policy needs the time of the last reseed, so the clock only has to be read for those
+     */
+    public boolean isTimed() {
+        return this.trigger == Trigger.ELAPSED_TIME;
+    }
+
+    /**
+     * Tells whether a reseed is due before the next draw. Prediction resistant draws reseed by themselves, so they never
+     * need a separate reseed.
+     *
+     * @param idsSinceReseed   is the number of IDs drawn since the last reseed (or instantiation)
+     * @param bytesSinceReseed is the number of random bytes drawn since the last reseed
+     * @param nanosSinceReseed is the time since the last reseed, only looked at by timed policies
+     * @return true if the DRBG should reseed before the next draw
+     */
+    public boolean isReseedDue(long idsSinceReseed, long bytesSinceReseed, long nanosSinceReseed) {
+        switch (this.trigger) {
+            case ID_COUNT:
+                return idsSinceReseed >= this.limit;
+            case ELAPSED_TIME:
+                return nanosSinceReseed >= this.limit;
+            case BYTE_COUNT:
+                return bytesSinceReseed >= this.limit;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Tells how many more IDs can be drawn before an ID count policy is due to reseed, so a batch draw can be split at
+     * the limit instead of overshooting it.
+     *
+     * @param idsSinceReseed is the number of IDs drawn since the last reseed (or instantiation)
+     * @return the number of IDs left before the next reseed, Long.MAX_VALUE if the policy doesn't count IDs
+     */
+    public long idsBeforeReseed(long idsSinceReseed) {
+        return this.trigger == Trigger.ID_COUNT ? Math.max(0, this.limit - idsSinceReseed) : Long.MAX_VALUE;
+    }
+
+    /**
+     * Tells how many more random bytes can be drawn before a byte count policy is due to reseed, like idsBeforeReseed.
+     *
+     * @param bytesSinceReseed is the number of random bytes drawn since the last reseed
+     * @return the number of bytes left before the next reseed, Long.MAX_VALUE if the policy doesn't count bytes
+     */
+    public long bytesBeforeReseed(long bytesSinceReseed) {
+        return this.trigger == Trigger.BYTE_COUNT ? Math.max(0, this.limit - bytesSinceReseed) : Long.MAX_VALUE;
+    }
+
+    @Override
+    public String toString() {
+        switch (this.trigger) {
+            case ID_COUNT:
+                return "reseed every " + this.limit + " IDs";
+            case ELAPSED_TIME:
+                return "reseed every " + TimeUnit.NANOSECONDS.toMillis(this.limit) + " ms";
+            case BYTE_COUNT:
+                return "reseed every " + this.limit + " bytes";
+            case EVERY_CALL:
+                return "prediction resistance on every call";
+            default:
+                return "never reseed";
+        }
+    }
+
+    private static long requirePositive(long limit) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("Reseed limit must be at least 1");
+        }
+        return limit;
+    }
+}
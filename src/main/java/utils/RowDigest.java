@@ -0,0 +1,142 @@
+/*
+ Author: Samuel Agyakwa
+ Date: 02/20/2020
+ */
+
+package utils;
+
+import java.security.DigestException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * The purpose of this class is to reduce the fields of a customer row to a fixed size SHA-256 digest, which goes to the
+ * DRBG as additional input (or personalization string) instead of the whole row encoded as UTF-16. The DRBG hashes its
+ * input anyway, so 32 bytes carry everything the row can add, whatever the width of the row, without the BOM and the
+ * doubled byte count of UTF-16.
+ *
+ * The digest is computed as the fields are parsed: it is a CustomCSVReader.FieldHandler, and every field is encoded to
+ * UTF-8 through a small fixed buffer straight into the digest. Every field is preceded by its column index and length,
+ * so ("ab", "c") and ("a", "bc") give different digests. Nothing is allocated per row or per field, and the digest is
+ * written to a buffer that is reused for the next row, so a RowDigest should not be shared between threads.
+ */
+public final class RowDigest implements CustomCSVReader.FieldHandler {
+    public static final int DIGEST_SIZE = 32;
+    private static final String DIGEST_ALGORITHM = "SHA-256";
+    private static final int ENCODE_BUFFER_SIZE = 256;
+
+    private final MessageDigest messageDigest;
+    private final byte[] encodeBuffer; // UTF-8 bytes on their way into the digest
+    private final byte[] digest;
+    private int encodedLength;
+
+    public RowDigest() {
+        try {
+            this.messageDigest = MessageDigest.getInstance(DIGEST_ALGORITHM);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Every Java platform must support " + DIGEST_ALGORITHM, e);
+        }
+        this.encodeBuffer = new byte[ENCODE_BUFFER_SIZE];
+        this.digest = new byte[DIGEST_SIZE];
+    }
+
+    /**
+     * Adds a field of the current row to the digest.
+     *
+     * @param fieldIndex is the column of the field
+     * @param field      is the parsed field
+     */
+    @Override
+    public void onField(int fieldIndex, CharSequence field) {
+        putInt(fieldIndex);
+        putInt(field.length());
+        for (int i = 0; i < field.length(); i++) {
+            char character = field.charAt(i);
+            if (character < 0x80) {
+                put(character);
+            } else if (character < 0x800) {
+                put(0xC0 | character >> 6);
+                put(0x80 | character & 0x3F);
+            } else if (Character.isHighSurrogate(character) && i + 1 < field.length()
+                    && Character.isLowSurrogate(field.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(character, field.charAt(++i));
+                put(0xF0 | codePoint >> 18);
+                put(0x80 | codePoint >> 12 & 0x3F);
+                put(0x80 | codePoint >> 6 & 0x3F);
+                put(0x80 | codePoint & 0x3F);
+            } else if (Character.isSurrogate(character)) {
+                put('?'); // An unpaired surrogate, encoded like String.getBytes does
+            } else {
+                put(0xE0 | character >> 12);
+                put(0x80 | character >> 6 & 0x3F);
+                put(0x80 | character & 0x3F);
+            }
+        }
+    }
+
+    /**
+     * Completes the digest of the current row, and starts the next row.
+     *
+     * @return the digest of the row's fields, in a buffer that is reused for the next row
+     */
+    public byte[] finish() {
+        this.messageDigest.update(this.encodeBuffer, 0, this.encodedLength);
+        this.encodedLength = 0;
+        try {
+            this.messageDigest.digest(this.digest, 0, DIGEST_SIZE);
+        } catch (DigestException e) {
+            throw new IllegalStateException(e); // The buffer always fits the digest
+        }
+        return this.digest;
+    }
+
+    /**
+     * Digests the selected fields of a row parsed by MappedCSVReader. The fields are already UTF-8 bytes, so they go to
+     * the digest as they are, each preceded by its column index and its length in bytes.
+     *
+     * @param row              is the buffer holding the parsed row, starting at index 0
+     * @param fieldEnds        is the end of every field in the buffer, e.g. MappedCSVReader.getFieldEnds()
+     * @param fieldCount       is the number of fields of the row
+     * @param columnProjection is the columns to digest
+     * @return the digest of the selected fields, in a buffer that is reused for the next row
+     */
+    public byte[] digest(byte[] row, int[] fieldEnds, int fieldCount, ColumnProjection columnProjection) {
+        int lastField = Math.min(fieldCount - 1, columnProjection.getLastColumn());
+        int fieldStart = 0;
+        for (int field = 0; field <= lastField; field++) {
+            if (columnProjection.isSelected(field)) {
+                putInt(field);
+                putInt(fieldEnds[field] - fieldStart);
+                this.messageDigest.update(this.encodeBuffer, 0, this.encodedLength);
+                this.encodedLength = 0;
+                this.messageDigest.update(row, fieldStart, fieldEnds[field] - fieldStart);
+            }
+            fieldStart = fieldEnds[field];
+        }
+        return finish();
+    }
+
+    /**
+     * @param text is a whole row (or any other text), digested as a single field
+     * @return the digest of the text, in a buffer that is reused for the next row
+     */
+    public byte[] digest(CharSequence text) {
+        onField(0, text);
+        return finish();
+    }
+
+    private void putInt(int value) {
+        put(value >>> 24);
+        put(value >>> 16);
+        put(value >>> 8);
+        put(value);
+    }
+
+    private void put(int encodedByte) {
+        if (this.encodedLength == this.encodeBuffer.length) {
+            this.messageDigest.update(this.encodeBuffer, 0, this.encodedLength);
+            this.encodedLength = 0;
+        }
+        this.encodeBuffer[this.encodedLength++] = (byte) encodedByte;
+    }
+}
@@ -0,0 +1,411 @@
+/*
+ Author: Samuel Agyakwa
+ Date: 02/20/2020
+ */
+
+package utils;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * The purpose of this class is to remember which ID every row of a CSV file was given, so the next run over the same
+ * file only has to generate IDs for the rows that changed. Every row is kept as a fingerprint of its parsed fields
+ * (the first 16 bytes of their SHA-256 digest, so a row can't be crafted to look like another) and its ID, in file
+ * order. Like RowDigest, every field is preceded by its column index and length, so ("1", "23") and ("12", "3") are
+ * different rows. 16 bytes plus the ID per row keeps the index a fraction of the size of the CSV file.
+ *
+ * A new run claims the previous ID of each row with claim: first the row at the same position, then any other row with
+ * the same fingerprint that wasn't claimed yet (so rows that merely moved, e.g. after a row above them was deleted,
+ * keep their IDs). Rows that can't claim an ID are new or changed, and rows of the previous run that are never claimed
+ * were changed or deleted.
+ *
+ * The index is saved to a temporary file that is renamed over the previous index, so an interrupted run leaves the
+ * previous index in place. An index holds at most about 50 million rows.
+ */
+public final class RowIndex {
+    public static final int FINGERPRINT_SIZE = 16;
+    private static final String FINGERPRINT_ALGORITHM = "SHA-256";
+    private static final int MAGIC = 0x49445258; // "IDRX"
+    private static final int VERSION = 2; // Version 1 fingerprinted rows without their field boundaries
+    private static final int NO_ROW = -1;
+
+    private final IdFormat idFormat;
+    private final int idLength;
+    private byte[] fingerprints; // FINGERPRINT_SIZE bytes per row
+    private byte[] ids; // idLength ASCII bytes per row
+    private int size;
+
+    // Built when the first row is claimed
+    private int[] slots; // Open addressing table of fingerprints, each slot is the first row with it + 1, or 0
+    private int[] nextSameFingerprint; // The next row with the same fingerprint, or NO_ROW
+    private int[] chainCursors; // For the first row of each fingerprint, the first row of it that may be unclaimed
+    private BitSet claimed;
+    private int claimedCount;
+
+    /**
+     * Makes an empty index, to add the rows of a run to.
+     *
+     * @param idFormat        is the format of the IDs
+     * @param initialCapacity is the number of rows to make room for up front
+     */
+    public RowIndex(IdFormat idFormat, int initialCapacity) {
+        this.idFormat = idFormat;
+        this.idLength = idFormat.getTotalLength();
+        this.fingerprints = new byte[Math.max(1, initialCapacity) * FINGERPRINT_SIZE];
+        this.ids = new byte[Math.max(1, initialCapacity) * this.idLength];
+    }
+
+    /**
+     * Loads the index a previous run saved.
+     *
+     * @param indexFile is the path of the index file
+     * @param idFormat  is the format of the IDs
+     * @return the saved index, or an empty index if there is no index file
+     * @throws IOException in case there are any IO errors, or the file is not an index for IDs of this format
+     */
+    public static RowIndex load(Path indexFile, IdFormat idFormat) throws IOException {
+        if (!Files.exists(indexFile)) {
+            return new RowIndex(idFormat, 0);
+        }
+
+        ByteBuffer contents = ByteBuffer.wrap(Files.readAllBytes(indexFile));
+        byte[] formatKey = formatKey(idFormat);
+        if (contents.remaining() < 3 * Integer.BYTES + formatKey.length || contents.getInt() != MAGIC
+                || contents.getInt() != VERSION) {
+            throw new IOException("Not a row index file: " + indexFile);
+        }
+        byte[] savedFormatKey = new byte[formatKey.length];
+        contents.get(savedFormatKey);
+        if (!Arrays.equals(savedFormatKey, formatKey)) {
+            throw new IOException(indexFile + " was saved for IDs of a different format than " + idFormat);
+        }
+
+        int rowCount = contents.getInt();
+        RowIndex rowIndex = new RowIndex(idFormat, rowCount);
+        if (contents.remaining() != (long) rowCount * (FINGERPRINT_SIZE + rowIndex.idLength)) {
+            throw new IOException("Row index file is cut short: " + indexFile);
+        }
+        contents.get(rowIndex.fingerprints, 0, rowCount * FINGERPRINT_SIZE);
+        contents.get(rowIndex.ids, 0, rowCount * rowIndex.idLength);
+        rowIndex.size = rowCount;
+        return rowIndex;
+    }
+
+    /**
+     * Saves this index, replacing the previous one.
+     *
+     * @param indexFile is the path of the index file
+     * @throws IOException in case there are any IO errors
+     */
+    public void save(Path indexFile) throws IOException {
+        Path temporaryFile = indexFile.resolveSibling(indexFile.getFileName() + ".tmp");
+        byte[] formatKey = formatKey(this.idFormat);
+        ByteBuffer header = ByteBuffer.allocate(3 * Integer.BYTES + formatKey.length);
+        header.putInt(MAGIC).putInt(VERSION).put(formatKey).putInt(this.size).flip();
+        ByteBuffer[] contents = {header, ByteBuffer.wrap(this.fingerprints, 0, this.size * FINGERPRINT_SIZE),
+                ByteBuffer.wrap(this.ids, 0, this.size * this.idLength)};
+
+        try (FileChannel fileChannel = FileChannel.open(temporaryFile, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (contents[contents.length - 1].hasRemaining()) {
+                fileChannel.write(contents);
+            }
+            fileChannel.force(true);
+        }
+        Files.move(temporaryFile, indexFile, StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Adds a row to the end of the index.
+     *
+     * @param fingerprint is the row's fingerprint, FINGERPRINT_SIZE bytes
+     * @param id          is the row's ID
+     */
+    public void add(byte[] fingerprint, CharSequence id) {
+        if (id.length() != this.idLength) {
+            throw new IllegalArgumentException("ID must have " + this.idLength + " characters");
+        }
+        if (this.size * FINGERPRINT_SIZE == this.fingerprints.length) {
+            int capacity = (int) Math.min(Integer.MAX_VALUE / (FINGERPRINT_SIZE + this.idLength), 2L * this.size);
+            if (capacity == this.size) {
+                throw new IllegalStateException("RowIndex is full");
+            }
+            this.fingerprints = Arrays.copyOf(this.fingerprints, capacity * FINGERPRINT_SIZE);
+            this.ids = Arrays.copyOf(this.ids, capacity * this.idLength);
+        }
+
+        this.slots = null; // The lookup no longer covers every row
+        System.arraycopy(fingerprint, 0, this.fingerprints, this.size * FINGERPRINT_SIZE, FINGERPRINT_SIZE);
+        int idOffset = this.size * this.idLength;
+        for (int i = 0; i < this.idLength; i++) {
+            this.ids[idOffset + i] = (byte) id.charAt(i); // IDs are ASCII
+        }
+        this.size++;
+    }
+
+    /**
+     * Claims the row of this (previous run's) index that a row of the new run is the same as: the row at the same
+     * position if it has the same fingerprint, otherwise the first unclaimed row with the same fingerprint. Every row
+     * is only claimed once.
+     *
+     * @param fingerprint is the fingerprint of the new row
+     * @param position    is the position of the new row in the file
+     * @return the claimed row, whose ID the new row keeps, or -1 if no unclaimed row has the fingerprint
+     */
+    public int claim(byte[] fingerprint, int position) {
+        if (this.slots == null) {
+            buildLookup();
+        }
+        if (position < this.size && !this.claimed.get(position) && hasFingerprint(position, fingerprint)) {
+            markClaimed(position);
+            return position;
+        }
+
+        int slot = findSlot(fingerprint);
+        if (this.slots[slot] == 0) {
+            return NO_ROW;
+        }
+        int firstRow = this.slots[slot] - 1;
+        int row = this.chainCursors[firstRow];
+        while (row != NO_ROW && this.claimed.get(row)) {
+            row = this.nextSameFingerprint[row];
+        }
+        this.chainCursors[firstRow] = row;
+        if (row != NO_ROW) {
+            markClaimed(row);
+        }
+        return row;
+    }
+
+    /**
+     * @param row is the row to check
+     * @return true if a row of the new run claimed the row
+     */
+    public boolean isClaimed(int row) {
+        return this.claimed != null && this.claimed.get(row);
+    }
+
+    /**
+     * @return the number of rows claimed by rows of the new run
+     */
+    public int getClaimedCount() {
+        return this.claimedCount;
+    }
+
+    /**
+     * Appends the ID of a row.
+     *
+     * @param row         is the row
+     * @param destination is where to append the ID's characters
+     */
+    public void appendID(int row, StringBuilder destination) {
+        if (row < 0 || row >= this.size) {
+            throw new IndexOutOfBoundsException("row " + row + ", size " + this.size);
+        }
+        int idOffset = row * this.idLength;
+        for (int i = 0; i < this.idLength; i++) {
+            destination.append((char) this.ids[idOffset + i]);
+        }
+    }
+
+    /**
+     * @return the number of rows in the index
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Builds the fingerprint lookup. Rows are pushed onto the front of their fingerprint's chain from the last row
+     * back, so every chain is in file order.
+     */
+    private void buildLookup() {
+        int tableSize = Integer.highestOneBit(Math.max(1, this.size) * 2 - 1) * 2;
+        this.slots = new int[tableSize];
+        this.nextSameFingerprint = new int[this.size];
+        this.chainCursors = new int[this.size];
+        this.claimed = new BitSet(this.size);
+        this.claimedCount = 0;
+
+        byte[] fingerprint = new byte[FINGERPRINT_SIZE];
+        for (int row = this.size - 1; row >= 0; row--) {
+            System.arraycopy(this.fingerprints, row * FINGERPRINT_SIZE, fingerprint, 0, FINGERPRINT_SIZE);
+            int slot = findSlot(fingerprint);
+            this.nextSameFingerprint[row] = this.slots[slot] - 1;
+            this.slots[slot] = row + 1;
+        }
+        for (int slot : this.slots) {
+            if (slot != 0) {
+                this.chainCursors[slot - 1] = slot - 1;
+            }
+        }
+    }
+
+    /**
+     * @param fingerprint is the fingerprint to look up
+     * @return the slot holding the fingerprint's first row, or the empty slot it would go in
+     */
+    private int findSlot(byte[] fingerprint) {
+        int mask = this.slots.length - 1;
+        // The fingerprint is a digest, so any 4 of its bytes are already evenly spread
+        int slot = (fingerprint[0] & 0xFF | (fingerprint[1] & 0xFF) << 8 | (fingerprint[2] & 0xFF) << 16
+                | (fingerprint[3] & 0xFF) << 24) & mask;
+        while (this.slots[slot] != 0 && !hasFingerprint(this.slots[slot] - 1, fingerprint)) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private boolean hasFingerprint(int row, byte[] fingerprint) {
+        int offset = row * FINGERPRINT_SIZE;
+        for (int i = 0; i < FINGERPRINT_SIZE; i++) {
+            if (this.fingerprints[offset + i] != fingerprint[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void markClaimed(int row) {
+        this.claimed.set(row);
+        this.claimedCount++;
+    }
+
+    /**
+     * @param idFormat is the format of the IDs
+     * @return the bytes identifying the format in the index file header: a length, then the format's description
+     */
+    private static byte[] formatKey(IdFormat idFormat) {
+        byte[] description = (idFormat.getAlphabet() + '\0' + idFormat.getLength() + '\0' + idFormat.getPrefix()
+                + '\0' + idFormat.hasCheckCharacter()).getBytes(StandardCharsets.US_ASCII);
+        return ByteBuffer.allocate(Integer.BYTES + description.length).putInt(description.length).put(description)
+                .array();
+    }
+
+    /**
+     * Computes row fingerprints, reusing one digest and one output buffer. Not thread safe.
+     */
+    public static final class Fingerprinter {
+        private final MessageDigest digest;
+        private final byte[] digestBuffer;
+        private final byte[] fingerprint;
+        private final ByteBuffer frame; // The column index and length before each field
+
+        public Fingerprinter() {
+            try {
+                this.digest = MessageDigest.getInstance(FINGERPRINT_ALGORITHM);
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException("Every Java platform must support " + FINGERPRINT_ALGORITHM, e);
+            }
+            this.digestBuffer = new byte[this.digest.getDigestLength()];
+            this.fingerprint = new byte[FINGERPRINT_SIZE];
+            this.frame = ByteBuffer.allocate(2 * Integer.BYTES);
+        }
+
+        /**
+         * @param row        is the buffer holding the parsed row, starting at index 0
+         * @param fieldEnds  is the end of every field in the buffer, e.g. MappedCSVReader.getFieldEnds()
+         * @param fieldCount is the number of fields of the row
+         * @return the row's fingerprint, in a buffer that is reused for the next row
+         */
+        public byte[] fingerprint(byte[] row, int[] fieldEnds, int fieldCount) {
+            int fieldStart = 0;
+            for (int field = 0; field < fieldCount; field++) {
+                int fieldLength = fieldEnds[field] - fieldStart;
+                this.frame.clear();
+                this.frame.putInt(field).putInt(fieldLength);
+                this.digest.update(this.frame.array(), 0, this.frame.position());
+                this.digest.update(row, fieldStart, fieldLength);
+                fieldStart = fieldEnds[field];
+            }
+            try {
+                this.digest.digest(this.digestBuffer, 0, this.digestBuffer.length);
+            } catch (DigestException e) {
+                throw new IllegalStateException(e); // The buffer always fits the digest
+            }
+            System.arraycopy(this.digestBuffer, 0, this.fingerprint, 0, FINGERPRINT_SIZE);
+            return this.fingerprint;
+        }
+    }
+
+    /**
+     * What changed between two runs over a CSV file, and the IDs of the new run.
+     */
+    public static final class Delta {
+        private final List<StringBuilder> ids;
+        private final int unchanged;
+        private final int appended;
+        private final int changed;
+        private final int deleted;
+
+        /**
+         * @param ids       is the ID of every row of the new run, in file order
+         * @param unchanged is the number of rows that kept the ID of the previous run
+         * @param appended  is the number of rows that are new (added anywhere in the file)
+         * @param changed   is the number of rows that replaced a different row at the same position
+         * @param deleted   is the number of rows of the previous run that are gone
+         */
+        public Delta(List<StringBuilder> ids, int unchanged, int appended, int changed, int deleted) {
+            this.ids = ids;
+            this.unchanged = unchanged;
+            this.appended = appended;
+            this.changed = changed;
+            this.deleted = deleted;
+        }
+
+        /**
+         * @return the ID of every row of the new run, in file order
+         */
+        public List<StringBuilder> getIds() {
+            return this.ids;
+        }
+
+        /**
+         * @return the number of rows that kept the ID of the previous run
+         */
+        public int getUnchanged() {
+            return this.unchanged;
+        }
+
+        /**
+         * @return the number of new rows, which were given new IDs
+         */
+        public int getAppended() {
+            return this.appended;
+        }
+
+        /**
+         * @return the number of changed rows, which were given new IDs
+         */
+        public int getChanged() {
+            return this.changed;
+        }
+
+        /**
+         * @return the number of rows of the previous run that are gone
+         */
+        public int getDeleted() {
+            return this.deleted;
+        }
+
+        @Override
+        public String toString() {
+            return this.unchanged + " unchanged, " + this.appended + " appended, " + this.changed + " changed, "
+                    + this.deleted + " deleted";
+        }
+    }
+}
@@ -0,0 +1,193 @@
+/*
+ Author: Samuel Agyakwa
+ Date: 02/20/2020
+ */
+
+package utils;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+
+/**
+ * The purpose of this class is to record how far a batch run got, so an interrupted run can pick up from there instead
+ * of starting over. A checkpoint holds the byte offset of the next input row to read, the position in the output file
+ * right after the last record written for the rows before it, and the number of rows done. It also holds a SHA-256
+ * digest of the input offset and the (at most 4 KB of) input bytes right before it, so a run won't resume at the offset
+ * of an input file that was rewritten, shortened or replaced since (see matchesInput).
+ *
+ * A checkpoint is only worth something if the output up to its position is already on disk, so the output must be
+ * synced before the checkpoint is saved. Saving writes a temporary file and renames it over the old checkpoint, so a
+ * crash while saving leaves the previous checkpoint in place.
+ */
+public final class RunCheckpoint {
+    private static final int MAGIC = 0x49444350; // "IDCP"
+    private static final int VERSION = 2; // Version 1 had no input digest
+    private static final String DIGEST_ALGORITHM = "SHA-256";
+    private static final int DIGEST_SIZE = 32;
+    private static final int INPUT_TAIL_SIZE = 4096; // The input bytes before the offset that go into the digest
+    private static final int SIZE = 2 * Integer.BYTES + 3 * Long.BYTES + DIGEST_SIZE;
+
+    private final long inputOffset;
+    private final long outputPosition;
+    private final long rowCount;
+    private final byte[] inputDigest;
+
+    /**
+     * @param inputOffset    is the byte offset of the next input row to read
+     * @param outputPosition is the output file position right after the records of the rows done
+     * @param rowCount       is the number of rows done
+     * @param inputDigest    is the digest of the input before the offset, see digestInput
+     */
+    public RunCheckpoint(long inputOffset, long outputPosition, long rowCount, byte[] inputDigest) {
+        if (inputOffset < 0 || outputPosition < 0 || rowCount < 0) {
+            throw new IllegalArgumentException("Checkpoint values can't be negative");
+        }
+        if (inputDigest.length != DIGEST_SIZE) {
+            throw new IllegalArgumentException("The input digest must be " + DIGEST_SIZE + " bytes");
+        }
+        this.inputOffset = inputOffset;
+        this.outputPosition = outputPosition;
+        this.rowCount = rowCount;
+        this.inputDigest = inputDigest.clone();
+    }
+
+    /**
+     * Makes a checkpoint of a run over an input file, with the digest of the input before the offset.
+     *
+     * @param inputFile      is the input file of the run
+     * @param inputOffset    is the byte offset of the next input row to read
+     * @param outputPosition is the output file position right after the records of the rows done
+     * @param rowCount       is the number of rows done
+     * @return the checkpoint
+     * @throws IOException in case the input file is shorter than the offset, or there are any IO errors
+     */
+    public static RunCheckpoint of(Path inputFile, long inputOffset, long outputPosition, long rowCount)
+            throws IOException {
+        byte[] inputDigest = digestInput(inputFile, inputOffset);
+        if (inputDigest == null) {
+            throw new IOException("The input file is shorter than the checkpoint offset " + inputOffset);
+        }
+        return new RunCheckpoint(inputOffset, outputPosition, rowCount, inputDigest);
+    }
+
+    /**
+     * @param inputFile is the input file a run would resume on
+     * @return true if the input file still holds the bytes this checkpoint was made after, so a run can resume at its
+     * offset
+     * @throws IOException in case there are any IO errors
+     */
+    public boolean matchesInput(Path inputFile) throws IOException {
+        return Arrays.equals(digestInput(inputFile, this.inputOffset), this.inputDigest);
+    }
+
+    /**
+     * Digests the input offset and up to INPUT_TAIL_SIZE input bytes right before it. Those bytes end with the line
+     * break of the last row done, so the digest changes when a rewritten file no longer has a row ending there.
+     *
+     * @param inputFile   is the input file
+     * @param inputOffset is the byte offset of the next input row to read
+     * @return the digest, or null if the file is shorter than the offset
+     * @throws IOException in case there are any IO errors
+     */
+    private static byte[] digestInput(Path inputFile, long inputOffset) throws IOException {
+        MessageDigest messageDigest;
+        try {
+            messageDigest = MessageDigest.getInstance(DIGEST_ALGORITHM);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Every Java platform must support " + DIGEST_ALGORITHM, e);
+        }
+        messageDigest.update(ByteBuffer.allocate(Long.BYTES).putLong(inputOffset).array());
+
+        try (FileChannel fileChannel = FileChannel.open(inputFile, StandardOpenOption.READ)) {
+            if (fileChannel.size() < inputOffset) {
+                return null;
+            }
+            long tailStart = Math.max(0, inputOffset - INPUT_TAIL_SIZE);
+            ByteBuffer tail = ByteBuffer.allocate((int) (inputOffset - tailStart));
+            while (tail.hasRemaining()) {
+                if (fileChannel.read(tail, tailStart + tail.position()) < 0) {
+                    return null;
+                }
+            }
+            tail.flip();
+            messageDigest.update(tail);
+        }
+        return messageDigest.digest();
+    }
+
+    /**
+     * Loads a saved checkpoint.
+     *
+     * @param checkpointFile is the path of the checkpoint file
+     * @return the saved checkpoint, or null if there is no checkpoint file
+     * @throws IOException in case there are any IO errors, or the file is not a checkpoint
+     */
+    public static RunCheckpoint load(Path checkpointFile) throws IOException {
+        if (!Files.exists(checkpointFile)) {
+            return null;
+        }
+
+        ByteBuffer contents = ByteBuffer.wrap(Files.readAllBytes(checkpointFile));
+        if (contents.remaining() != SIZE || contents.getInt() != MAGIC || contents.getInt() != VERSION) {
+            throw new IOException("Not a run checkpoint file: " + checkpointFile);
+        }
+        long inputOffset = contents.getLong();
+        long outputPosition = contents.getLong();
+        long rowCount = contents.getLong();
+        byte[] inputDigest = new byte[DIGEST_SIZE];
+        contents.get(inputDigest);
+        return new RunCheckpoint(inputOffset, outputPosition, rowCount, inputDigest);
+    }
+
+    /**
+     * Saves this checkpoint, replacing the previous one.
+     *
+     * @param checkpointFile is the path of the checkpoint file
+     * @throws IOException in case there are any IO errors
+     */
+    public void save(Path checkpointFile) throws IOException {
+        Path temporaryFile = checkpointFile.resolveSibling(checkpointFile.getFileName() + ".tmp");
+        ByteBuffer contents = ByteBuffer.allocate(SIZE);
+        contents.putInt(MAGIC).putInt(VERSION).putLong(this.inputOffset).putLong(this.outputPosition)
+                .putLong(this.rowCount).put(this.inputDigest).flip();
+
+        try (FileChannel fileChannel = FileChannel.open(temporaryFile, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (contents.hasRemaining()) {
+                fileChannel.write(contents);
+            }
+            fileChannel.force(true);
+        }
+        Files.move(temporaryFile, checkpointFile, StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * @return the byte offset of the next input row to read
+     */
+    public long getInputOffset() {
+        return this.inputOffset;
+    }
+
+    /**
+     * @return the output file position right after the records of the rows done
+     */
+    public long getOutputPosition() {
+        return this.outputPosition;
+    }
+
+    /**
+     * @return the number of rows done
+     */
+    public long getRowCount() {
+        return this.rowCount;
+    }
+}
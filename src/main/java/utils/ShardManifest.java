@@ -0,0 +1,283 @@
+/*
+ Author: Samuel Agyakwa
+ Date: 02/20/2020
+ */
+
+package utils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Properties;
+import java.util.UUID;
+
+/**
+ * The purpose of this class is to describe a sharded run over a CSV file, so worker processes (on this host, or on any
+ * host that sees the same files) and the process merging their results agree on the work without talking to each
+ * other. The manifest holds the byte range of every shard, the size and modification time of the CSV file when it was
+ * split, the ID format and DRBG mechanism, and a run ID that is new for every split.
+ *
+ * Every shard's worker writes its records to the shard's output file, next to the manifest, and then a done marker
+ * with the run ID and the shard's row count. A worker never writes to a file of another shard, so no locking is
+ * needed, and a marker is only written once its output is on disk, so a shard with a marker of this run is finished
+ * even if its worker crashed right after. Manifests and markers are text, written to a temporary file that is renamed
+ * over the old one.
+ */
+public final class ShardManifest {
+    private static final int VERSION = 1;
+
+    private final Path manifestFile;
+    private final String runId;
+    private final Path csvFile;
+    private final long csvFileSize;
+    private final long csvFileModified;
+    private final IdFormat idFormat;
+    private final String drbgMechanism;
+    private final long[] boundaries; // Shard i is [boundaries[i], boundaries[i + 1])
+
+    private ShardManifest(Path manifestFile, String runId, Path csvFile, long csvFileSize, long csvFileModified,
+                          IdFormat idFormat, String drbgMechanism, long[] boundaries) {
+        this.manifestFile = manifestFile;
+        this.runId = runId;
+        this.csvFile = csvFile;
+        this.csvFileSize = csvFileSize;
+        this.csvFileModified = csvFileModified;
+        this.idFormat = idFormat;
+        this.drbgMechanism = drbgMechanism;
+        this.boundaries = boundaries;
+    }
+
+    /**
+     * Describes a new run over a CSV file, with a new run ID. Call save to write it.
+     *
+     * @param manifestFile  is the path the manifest is saved to, the shard files go next to it
+     * @param csvFile       is the path of the CSV file
+     * @param boundaries    is the shard boundaries, see CSVByteRangeSplitter.split
+     * @param idFormat      is the format of the IDs
+     * @param drbgMechanism is the DRBG mechanism every worker generates with
+     * @return the manifest of the run
+     * @throws IOException in case the CSV file doesn't exist, or there are any IO errors
+     */
+    public static ShardManifest create(Path manifestFile, Path csvFile, long[] boundaries, IdFormat idFormat,
+                                       String drbgMechanism) throws IOException {
+        if (boundaries.length < 2) {
+            throw new IllegalArgumentException("There must be at least 1 shard");
+        }
+        Path absoluteCsvFile = csvFile.toAbsolutePath();
+        return new ShardManifest(manifestFile, UUID.randomUUID().toString(), absoluteCsvFile, Files.size(
+                absoluteCsvFile), Files.getLastModifiedTime(absoluteCsvFile).toMillis(), idFormat, drbgMechanism,
+                boundaries.clone());
+    }
+
+    /**
+     * Loads a saved manifest.
+     *
+     * @param manifestFile is the path of the manifest file
+     * @return the saved manifest, or null if there is no manifest file
+     * @throws IOException in case there are any IO errors, or the file is not a shard manifest
+     */
+    public static ShardManifest load(Path manifestFile) throws IOException {
+        if (!Files.exists(manifestFile)) {
+            return null;
+        }
+        Properties contents = new Properties();
+        try (InputStream inputStream = Files.newInputStream(manifestFile)) {
+            contents.load(inputStream);
+        }
+
+        try {
+            if (Integer.parseInt(contents.getProperty("version")) != VERSION) {
+                throw new IOException("Unknown shard manifest version in " + manifestFile);
+            }
+            IdFormat idFormat = new IdFormat(contents.getProperty("idAlphabet"), Integer.parseInt(contents
+                    .getProperty("idLength")), contents.getProperty("idPrefix"), Boolean.parseBoolean(contents
+                    .getProperty("idCheckCharacter")));
+            long[] boundaries = new long[Integer.parseInt(contents.getProperty("shardCount")) + 1];
+            for (int shard = 0; shard < boundaries.length - 1; shard++) {
+                boundaries[shard] = Long.parseLong(contents.getProperty("shard." + shard + ".start"));
+                boundaries[shard + 1] = Long.parseLong(contents.getProperty("shard." + shard + ".end"));
+            }
+            return new ShardManifest(manifestFile, contents.getProperty("runId"), manifestFile.getFileSystem()
+                    .getPath(contents.getProperty("csvFile")), Long.parseLong(contents.getProperty("csvFileSize")),
+                    Long.parseLong(contents.getProperty("csvFileModified")), idFormat,
+                    contents.getProperty("drbgMechanism"), boundaries);
+        } catch (NullPointerException | IllegalArgumentException e) {
+            throw new IOException("Not a shard manifest file: " + manifestFile, e);
+        }
+    }
+
+    /**
+     * Saves this manifest, replacing the previous one.
+     *
+     * @throws IOException in case there are any IO errors
+     */
+    public void save() throws IOException {
+        Properties contents = new Properties();
+        contents.setProperty("version", Integer.toString(VERSION));
+        contents.setProperty("runId", this.runId);
+        contents.setProperty("csvFile", this.csvFile.toString());
+        contents.setProperty("csvFileSize", Long.toString(this.csvFileSize));
+        contents.setProperty("csvFileModified", Long.toString(this.csvFileModified));
+        contents.setProperty("idAlphabet", this.idFormat.getAlphabet());
+        contents.setProperty("idLength", Integer.toString(this.idFormat.getLength()));
+        contents.setProperty("idPrefix", this.idFormat.getPrefix());
+        contents.setProperty("idCheckCharacter", Boolean.toString(this.idFormat.hasCheckCharacter()));
+        contents.setProperty("drbgMechanism", this.drbgMechanism);
+        contents.setProperty("shardCount", Integer.toString(getShardCount()));
+        for (int shard = 0; shard < getShardCount(); shard++) {
+            contents.setProperty("shard." + shard + ".start", Long.toString(getStartOffset(shard)));
+            contents.setProperty("shard." + shard + ".end", Long.toString(getEndOffset(shard)));
+        }
+        store(contents, this.manifestFile, "Shard manifest");
+    }
+
+    /**
+     * Records that a shard is finished. Call this only after the shard's output is synced to disk.
+     *
+     * @param shard    is the shard
+     * @param rowCount is the number of rows of the shard
+     * @throws IOException in case there are any IO errors
+     */
+    public void markDone(int shard, long rowCount) throws IOException {
+        Properties contents = new Properties();
+        contents.setProperty("runId", this.runId);
+        contents.setProperty("rowCount", Long.toString(rowCount));
+        store(contents, getDoneMarker(shard), "Shard " + shard + " is done");
+    }
+
+    /**
+     * @param shard is the shard
+     * @return the number of rows of the shard if it is finished in this run, or -1 if it isn't
+     * @throws IOException in case there are any IO errors
+     */
+    public long getDoneRowCount(int shard) throws IOException {
+        Path doneMarker = getDoneMarker(shard);
+        if (!Files.exists(doneMarker)) {
+            return -1;
+        }
+        Properties contents = new Properties();
+        try (InputStream inputStream = Files.newInputStream(doneMarker)) {
+            contents.load(inputStream);
+        }
+        // A marker left over from an earlier run over another split doesn't count
+        if (!this.runId.equals(contents.getProperty("runId")) || contents.getProperty("rowCount") == null) {
+            return -1;
+        }
+        return Long.parseLong(contents.getProperty("rowCount"));
+    }
+
+    /**
+     * @return true if the CSV file still has the size and modification time it had when it was split
+     * @throws IOException in case there are any IO errors
+     */
+    public boolean isInputUnchanged() throws IOException {
+        return Files.exists(this.csvFile) && Files.size(this.csvFile) == this.csvFileSize
+                && Files.getLastModifiedTime(this.csvFile).toMillis() == this.csvFileModified;
+    }
+
+    /**
+     * Deletes the manifest, and the output and done marker of every shard.
+     *
+     * @throws IOException in case there are any IO errors
+     */
+    public void delete() throws IOException {
+        for (int shard = 0; shard < getShardCount(); shard++) {
+            Files.deleteIfExists(getShardOutput(shard));
+            Files.deleteIfExists(getDoneMarker(shard));
+        }
+        Files.deleteIfExists(this.manifestFile);
+    }
+
+    /**
+     * @param shard is the shard
+     * @return the path of the file the shard's worker writes its records to
+     */
+    public Path getShardOutput(int shard) {
+        return shardFile(shard, "");
+    }
+
+    /**
+     * @param shard is the shard
+     * @return the path of the file the shard's worker writes when it is finished
+     */
+    public Path getDoneMarker(int shard) {
+        return shardFile(shard, ".done");
+    }
+
+    /**
+     * @param shard is the shard
+     * @return the path of the file the output of a local worker process goes to
+     */
+    public Path getWorkerLog(int shard) {
+        return shardFile(shard, ".log");
+    }
+
+    public Path getManifestFile() {
+        return this.manifestFile;
+    }
+
+    /**
+     * @return the ID of this run, different for every split of every file
+     */
+    public String getRunId() {
+        return this.runId;
+    }
+
+    /**
+     * @return the absolute path of the CSV file
+     */
+    public Path getCsvFile() {
+        return this.csvFile;
+    }
+
+    public IdFormat getIdFormat() {
+        return this.idFormat;
+    }
+
+    public String getDrbgMechanism() {
+        return this.drbgMechanism;
+    }
+
+    public int getShardCount() {
+        return this.boundaries.length - 1;
+    }
+
+    /**
+     * @param shard is the shard
+     * @return the byte offset of the shard's first row
+     */
+    public long getStartOffset(int shard) {
+        return this.boundaries[shard];
+    }
+
+    /**
+     * @param shard is the shard
+     * @return the byte offset right after the shard's last row
+     */
+    public long getEndOffset(int shard) {
+        return this.boundaries[shard + 1];
+    }
+
+    private Path shardFile(int shard, String suffix) {
+        if (shard < 0 || shard >= getShardCount()) {
+            throw new IndexOutOfBoundsException("shard " + shard + ", shard count " + getShardCount());
+        }
+        return this.manifestFile.resolveSibling(this.manifestFile.getFileName() + ".shard-" + shard + suffix);
+    }
+
+    private static void store(Properties contents, Path file, String comment) throws IOException {
+        Path temporaryFile = file.resolveSibling(file.getFileName() + ".tmp");
+        try (OutputStream outputStream = Files.newOutputStream(temporaryFile)) {
+            contents.store(outputStream, comment);
+        }
+        Files.move(temporaryFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    @Override
+    public String toString() {
+        return "run " + this.runId + " over " + this.csvFile + ", " + getShardCount() + " shards";
+    }
+}
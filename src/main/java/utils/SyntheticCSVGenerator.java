@@ -0,0 +1,163 @@
+/*
+ Author: Samuel Agyakwa
+ Date: 02/20/2020
+ */
+
+package utils;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+/**
+ * The purpose of this class is to write synthetic customer CSV files for tests and load tests, so they don't depend on
+ * a real customer export. The first columns look like the customers.csv export (account, company, names, address,
+ * city, state, zip), and any further columns are short notes.
+ *
+ * Files are deterministic: the same shape and seed always give the same bytes, on any JVM, since java.util.Random's
+ * algorithm is part of its specification. The shape is the number of columns, the fraction of fields that are quoted
+ * (each of them with a separator inside, and every other one with a doubled quote), and the fraction of quoted fields
+ * that also span two lines.
+ */
+public final class SyntheticCSVGenerator {
+    private static final String[] HEADER = {"Account", "Company", "Firstname", "Lastname", "Address_1", "Address_2",
+            "City", "State", "Zip"};
+    private static final String[] COMPANIES = {"A.K. ASSOCIATES INC.", "WALLACE INTERNATIONAL", "NORTH SHORE DENTAL",
+            "BAY STATE MOVERS", "HARBOR LIGHT CAFE", "PIONEER VALLEY FARMS"};
+    private static final String[] FIRST_NAMES = {"AMIN", "MARIA", "JAMES", "LINDA", "WEI", "FATIMA", "", ""};
+    private static final String[] LAST_NAMES = {"SMITH", "NGUYEN", "GARCIA", "OKAFOR", "MURPHY", "", ""};
+    private static final String[] STREETS = {"WALPOLE STREET", "MCCLELLAN HWY", "MAIN ST", "CENTRAL AVE", "ELM ROAD"};
+    private static final String[] CITIES = {"SHARON", "EAST BOSTON", "WORCESTER", "SPRINGFIELD", "LOWELL"};
+    private static final String[] STATES = {"MA", "NH", "RI", "CT", "VT", "ME"};
+    private static final String[] NOTES = {"preferred", "net 30", "call first", "closed", "on hold", "new"};
+
+    private final int columns;
+    private final double quotedFieldDensity;
+    private final double newlineDensity;
+    private final long seed;
+
+    /**
+     * @param columns            is the number of columns of every row, at least 1
+     * @param quotedFieldDensity is the fraction of fields that are quoted, between 0 and 1
+     * @param newlineDensity     is the fraction of quoted fields that contain a line break, between 0 and 1
+     * @param seed               is the seed of the file's contents
+     */
+    public SyntheticCSVGenerator(int columns, double quotedFieldDensity, double newlineDensity, long seed) {
+        if (columns < 1) {
+            throw new IllegalArgumentException("There must be at least 1 column");
+        }
+        if (!(quotedFieldDensity >= 0 && quotedFieldDensity <= 1) || !(newlineDensity >= 0 && newlineDensity <= 1)) {
+            throw new IllegalArgumentException("Densities must be between 0 and 1");
+        }
+        this.columns = columns;
+        this.quotedFieldDensity = quotedFieldDensity;
+        this.newlineDensity = newlineDensity;
+        this.seed = seed;
+    }
+
+    /**
+     * Writes a file of the given number of rows, replacing the file if it exists.
+     *
+     * @param csvFile    is the path of the file to write
+     * @param rows       is the number of rows, not counting the header
+     * @param withHeader is true to start the file with a header row
+     * @return the number of bytes written
+     * @throws IOException in case there are any IO errors
+     */
+    public long write(Path csvFile, long rows, boolean withHeader) throws IOException {
+        Random random = new Random(this.seed);
+        StringBuilder csvRow = new StringBuilder(64 * this.columns);
+        long bytesWritten = 0;
+
+        try (BufferedWriter writer = Files.newBufferedWriter(csvFile, StandardCharsets.US_ASCII)) {
+            if (withHeader) {
+                for (int column = 0; column < this.columns; column++) {
+                    csvRow.append(column == 0 ? "" : ",").append(column < HEADER.length ? HEADER[column]
+                            : "Note_" + column);
+                }
+                bytesWritten += writeRow(writer, csvRow);
+            }
+
+            for (long row = 0; row < rows; row++) {
+                for (int column = 0; column < this.columns; column++) {
+                    if (column > 0) {
+                        csvRow.append(',');
+                    }
+                    appendField(csvRow, row, column, random);
+                }
+                bytesWritten += writeRow(writer, csvRow);
+            }
+        }
+        return bytesWritten;
+    }
+
+    private static long writeRow(BufferedWriter writer, StringBuilder csvRow) throws IOException {
+        csvRow.append('\n');
+        writer.append(csvRow);
+        int length = csvRow.length();
+        csvRow.setLength(0);
+        return length;
+    }
+
+    /**
+     * Appends one field, quoted with a separator inside (and maybe a doubled quote and a line break) for the
+     * configured fraction of fields.
+     */
+    private void appendField(StringBuilder csvRow, long row, int column, Random random) {
+        String value = value(row, column, random);
+        if (random.nextDouble() >= this.quotedFieldDensity) {
+            csvRow.append(value);
+            return;
+        }
+
+        csvRow.append('"').append(value).append(", ").append(pick(NOTES, random));
+        if ((row + column) % 2 == 0) {
+            csvRow.append(" \"\"").append(pick(NOTES, random)).append("\"\"");
+        }
+        if (random.nextDouble() < this.newlineDensity) {
+            csvRow.append('\n').append(pick(NOTES, random));
+        }
+        csvRow.append('"');
+    }
+
+    private static String value(long row, int column, Random random) {
+        switch (column) {
+            case 0:
+                // Account numbers are unique, like the hex account numbers of the real export
+                return Long.toHexString(0x13342870113f5L + row * 0x9E3779B97L) + Integer.toHexString(
+                        random.nextInt(0x1000000));
+            case 1:
+                return pick(COMPANIES, random);
+            case 2:
+                return pick(FIRST_NAMES, random);
+            case 3:
+                return pick(LAST_NAMES, random);
+            case 4:
+                return (1 + random.nextInt(999)) + " " + pick(STREETS, random);
+            case 5:
+                return random.nextInt(4) == 0 ? "SUITE " + (1 + random.nextInt(400)) : "";
+            case 6:
+                return pick(CITIES, random);
+            case 7:
+                return pick(STATES, random);
+            case 8:
+                String zip = Integer.toString(random.nextInt(100_000)); // Not String.format, digits depend on locale
+                return "00000".substring(zip.length()) + zip;
+            default:
+                return pick(NOTES, random);
+        }
+    }
+
+    private static String pick(String[] values, Random random) {
+        return values[random.nextInt(values.length)];
+    }
+
+    @Override
+    public String toString() {
+        return this.columns + " columns, " + this.quotedFieldDensity + " quoted, " + this.newlineDensity
+                + " of those with a line break, seed " + this.seed;
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ Author: Samuel Agyakwa
+ Date: 02/20/2020
+ */
+
+import org.junit.Test;
+import utils.CSVByteRangeSplitter;
+import utils.MappedCSVReader;
+import utils.SyntheticCSVGenerator;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class CSVByteRangeSplitterTest {
+
+    @Test
+    public void rangesHoldEveryRowExactlyOnce() throws IOException {
+        Path csvFile = Files.createTempFile("split", ".csv");
+        try {
+            // Plenty of quoted fields with line breaks, so many line breaks are not row ends
+            new SyntheticCSVGenerator(6, 0.5, 0.5, 7).write(csvFile, 300, true);
+
+            for (boolean withHeader : new boolean[]{false, true}) {
+                List<Long> rowStarts = new ArrayList<>();
+                MappedCSVReader wholeFileReader = new MappedCSVReader();
+                List<String> allRows = new ArrayList<>();
+                wholeFileReader.read(csvFile, withHeader, (rowBuffer, rowLength) -> {
+                    allRows.add(new String(rowBuffer, 0, rowLength, StandardCharsets.UTF_8));
+                    rowStarts.add(wholeFileReader.getRowEndOffset());
+                });
+                Set<Long> rowBoundaries = new HashSet<>(rowStarts); // Every row end is the next row's start
+
+                for (int segmentSize : new int[]{7, 4096}) {
+                    for (int rangeCount = 1; rangeCount <= 8; rangeCount++) {
+                        long[] boundaries = CSVByteRangeSplitter.split(csvFile, withHeader, rangeCount, segmentSize);
+                        assertThat(boundaries.length, is(rangeCount + 1));
+                        assertThat(boundaries[rangeCount], is(Files.size(csvFile)));
+
+                        List<String> rangeRows = new ArrayList<>();
+                        for (int range = 0; range < rangeCount; range++) {
+                            if (range > 0) {
+                                assertThat(rowBoundaries.contains(boundaries[range]), is(true));
+                            }
+                            new MappedCSVReader().read(csvFile, boundaries[range], boundaries[range + 1], false,
+                                    (rowBuffer, rowLength) -> rangeRows.add(new String(rowBuffer, 0, rowLength,
+                                            StandardCharsets.UTF_8)));
+                        }
+                        assertThat(rangeRows, is(allRows));
+                    }
+                }
+            }
+        } finally {
+            Files.delete(csvFile);
+        }
+    }
+
+    @Test
+    public void moreRangesThanRowsLeavesEmptyRanges() throws IOException {
+        Path csvFile = Files.createTempFile("split", ".csv");
+        try {
+            Files.write(csvFile, "Account,Company\n1,\"A\nB\"\n2,C\n".getBytes(StandardCharsets.UTF_8));
+            long[] boundaries = CSVByteRangeSplitter.split(csvFile, true, 5);
+
+            assertThat(boundaries[0], is(16L)); // Right after the header
+            int nonEmptyRanges = 0;
+            for (int range = 0; range < 5; range++) {
+                assertThat(boundaries[range] <= boundaries[range + 1], is(true));
+                if (boundaries[range] < boundaries[range + 1]) {
+                    nonEmptyRanges++;
+                }
+            }
+            assertThat(nonEmptyRanges, is(2));
+            assertThat(boundaries[5], is(Files.size(csvFile)));
+        } finally {
+            Files.delete(csvFile);
+        }
+    }
+}
@@ -0,0 +1,137 @@
+/*
+ Author: Samuel Agyakwa
+ Date: 02/20/2020
+ */
+
+import org.junit.Test;
+
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class ConcurrentTransactionGeneratorTest {
+    private static final String CSV_FILE = "src/main/java/1000_line_csv.csv";
+    private static final int ROWS_PER_FILE = 10_000;
+
+    @Test
+    public void sharedGeneratorGivesEveryThreadValidUniqueIDs() throws Exception {
+        final int threads = 8;
+        final int filesPerThread = 2;
+        TransactionGenerator tr = new TransactionGenerator();
+
+        List<List<StringBuilder>> results = runOnThreads(threads, () -> {
+            List<StringBuilder> ids = new ArrayList<>();
+            for (int file = 0; file < filesPerThread; file++) {
+                ids.addAll(tr.generateAllAlphaNumericID(CSV_FILE));
+            }
+            return ids;
+        });
+
+        Set<String> uniqueIDs = new HashSet<>();
+        for (List<StringBuilder> ids : results) {
+            assertThat(ids.size(), is(filesPerThread * ROWS_PER_FILE));
+            for (StringBuilder id : ids) {
+                assertThat(id.toString().matches("[A-Za-z0-9]{24}"), is(true));
+                uniqueIDs.add(id.toString());
+            }
+        }
+        assertThat(uniqueIDs.size(), is(threads * filesPerThread * ROWS_PER_FILE));
+        assertThat(tr.getRowCount(), is((long) threads * filesPerThread * ROWS_PER_FILE));
+    }
+
+    @Test
+    public void perCallGenerationIsSafeWhileOtherMechanismsInstantiate() throws Exception {
+        final int threads = 6;
+        TransactionGenerator tr = new TransactionGenerator();
+        AtomicInteger threadNumber = new AtomicInteger();
+
+        // Half the threads instantiate other mechanisms, which switches the JVM-wide property back and forth
+        List<List<String>> results = runOnThreads(threads, () -> {
+            List<String> outcomes = new ArrayList<>();
+            boolean switcher = threadNumber.getAndIncrement() % 2 == 0;
+            for (int call = 0; call < 50; call++) {
+                if (switcher) {
+                    String mechanism = call % 2 == 0 ? "HMAC_DRBG" : "CTR_DRBG";
+                    SecureRandom secureRandom = DRBGEngine.instantiate(mechanism, null);
+                    outcomes.add(secureRandom.toString().startsWith(mechanism) ? "ok" : secureRandom.toString());
+                } else {
+                    SecureRandom secureRandom = DRBGEngine.instantiate(DRBGEngine.HASH_DRBG, null);
+                    outcomes.add(secureRandom.toString().startsWith("Hash_DRBG") ? "ok" : secureRandom.toString());
+                    String id = tr.generateRandomAlphaNumericString("customer " + call).toString();
+                    outcomes.add(id.matches("[A-Za-z0-9]{24}") ? "ok" : id);
+                }
+            }
+            return outcomes;
+        });
+
+        for (List<String> outcomes : results) {
+            for (String outcome : outcomes) {
+                assertThat(outcome, is("ok"));
+            }
+        }
+    }
+
+    @Test
+    public void throughputScalesWithThreads() throws Exception {
+        TransactionGenerator tr = new TransactionGenerator();
+        tr.generateAllAlphaNumericID(CSV_FILE); // Warm up
+
+        System.out.println("Available processors: " + Runtime.getRuntime().availableProcessors());
+        double singleThreadRate = 0;
+        long rowCount = tr.getRowCount();
+        for (int threads = 1; threads <= 4; threads *= 2) {
+            long startTime = System.nanoTime();
+            List<List<StringBuilder>> results = runOnThreads(threads, () -> tr.generateAllAlphaNumericID(CSV_FILE));
+            double idsPerSecond = threads * ROWS_PER_FILE * 1_000_000_000.0 / (System.nanoTime() - startTime);
+
+            // Going faster must not cost correctness: every thread still gets a whole file of valid, unique IDs
+            Set<String> uniqueIDs = new HashSet<>();
+            for (List<StringBuilder> ids : results) {
+                assertThat(ids.size(), is(ROWS_PER_FILE));
+                for (StringBuilder id : ids) {
+                    assertThat(id.toString().matches("[A-Za-z0-9]{24}"), is(true));
+                    uniqueIDs.add(id.toString());
+                }
+            }
+            assertThat(uniqueIDs.size(), is(threads * ROWS_PER_FILE));
+            rowCount += threads * ROWS_PER_FILE;
+            assertThat(tr.getRowCount(), is(rowCount));
+            if (threads == 1) {
+                singleThreadRate = idsPerSecond;
+            }
+
+            System.out.println(threads + " threads, one shared generator: " + (long) idsPerSecond + " IDs per second, "
+                    + String.format("%.2f", idsPerSecond / singleThreadRate) + "x");
+        }
+    }
+
+    /**
+     * Runs the same task on several threads at once, and returns every thread's result.
+     */
+    private static <T> List<T> runOnThreads(int threads, Callable<T> task) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<T>> futures = new ArrayList<>();
+            for (int thread = 0; thread < threads; thread++) {
+                futures.add(executor.submit(task));
+            }
+            List<T> results = new ArrayList<>();
+            for (Future<T> future : futures) {
+                results.add(future.get());
+            }
+            return results;
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
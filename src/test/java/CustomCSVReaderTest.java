@@ -3,10 +3,18 @@
  Date: 02/20/2020
  */
 
+import com.sun.management.ThreadMXBean;
 import org.hamcrest.core.IsNull;
 import org.junit.Test;
+import utils.ColumnProjection;
 import utils.CustomCSVReader;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 
@@ -73,5 +81,114 @@ public class CustomCSVReaderTest {
 
     }
 
-}
+    @Test
+    public void tokenizerCorpus() {
+        // Each entry: the lines of one row, followed by its expected fields
+        String[][][] corpus = {
+                {{"10,AU,Australia"}, {"10", "AU", "Australia"}},
+                {{"\"10\",\"AU\",\"Aus,tralia\""}, {"10", "AU", "Aus,tralia"}},
+                {{"\"10\",\"AU\",\"Aus\"\"tralia\""}, {"10", "AU", "Aus\"tralia"}},
+                {{"10,AU,Aus\"\"tralia"}, {"10", "AU", "Aus\"tralia"}},
+                {{"a,,\"\",d"}, {"a", "", "", "d"}},
+                {{""}, {""}},
+                {{"trailing,"}, {"trailing", ""}},
+                {{"crlf,row\r"}, {"crlf", "row"}},
+                {{"1,\"first line", "second line\",3"}, {"1", "first line\nsecond line", "3"}},
+                {{"\"", "", "\""}, {"\n\n"}},
+                {{"\"say \"\"hi\"\"", "there\""}, {"say \"hi\"\nthere"}},
+        };
+
+        CustomCSVReader csvReader = new CustomCSVReader();
+        for (String[][] entry : corpus) {
+            List<String> fields = new ArrayList<>();
+            String[] lines = entry[0];
+            for (int i = 0; i < lines.length; i++) {
+                boolean rowComplete = csvReader.parseLine(lines[i], (fieldIndex, field) -> {
+                    assertThat(fieldIndex, is(fields.size()));
+                    fields.add(field.toString());
+                });
+                assertThat(rowComplete, is(i == lines.length - 1));
+            }
+            assertThat(fields, is(Arrays.asList(entry[1])));
+        }
+    }
+
+    @Test
+    public void projectionOnlyHandsOverSelectedFields() {
+        // Each entry: the lines of one row, followed by its expected fields in columns 0 and 2
+        String[][][] corpus = {
+                {{"10,AU,Australia,extra"}, {"10", "Australia"}},
+                {{"\"10\",\"A,U\",\"Aus\"\"tralia\",\"x,y\""}, {"10", "Aus\"tralia"}},
+                {{"1,\"skipped", "over lines\",3"}, {"1", "3"}},
+                {{"1,2,3,\"trailing", "quoted, \"\"skipped\"\"", "field\",5"}, {"1", "3"}},
+                {{"1,2,3,un\"quoted", "quote\""}, {"1", "3"}},
+                {{"only,two"}, {"only"}},
+        };
+
+        CustomCSVReader csvReader = new CustomCSVReader();
+        csvReader.setColumnProjection(ColumnProjection.of(2, 0));
+        for (String[][] entry : corpus) {
+            List<String> fields = new ArrayList<>();
+            String[] lines = entry[0];
+            for (int i = 0; i < lines.length; i++) {
+                boolean rowComplete = csvReader.parseLine(lines[i], (fieldIndex, field) -> {
+                    assertThat(fieldIndex == 0 || fieldIndex == 2, is(true));
+                    fields.add(field.toString());
+                });
+                assertThat(rowComplete, is(i == lines.length - 1));
+            }
+            assertThat(fields, is(Arrays.asList(entry[1])));
+        }
+
+        assertThat(ColumnProjection.ofNames("customer_id, name ,account_number", "account_number", "customer_id")
+                .getColumns(), is(new int[]{0, 2}));
+    }
+
+    @Test
+    public void tokenizerCustomSeparatorAndQuote() {
+        CustomCSVReader csvReader = new CustomCSVReader(';', '\'');
+        List<String> fields = new ArrayList<>();
+        csvReader.parseLine("10;'AU;NZ';'it''s'", (fieldIndex, field) -> fields.add(field.toString()));
 
+        assertThat(fields, is(Arrays.asList("10", "AU;NZ", "it's")));
+    }
+
+    @Test
+    public void readRowJoinsMultiLineQuotedFields() throws IOException {
+        BufferedReader bufferedReader = new BufferedReader(new StringReader(
+                "10,AU,Australia\n\"11\",\"NZ\",\"New\nZealand\"\n12,\"unterminated\nrow"));
+        CustomCSVReader csvReader = new CustomCSVReader();
+
+        assertThat(csvReader.readRow(bufferedReader), is("10AUAustralia"));
+        assertThat(csvReader.readRow(bufferedReader), is("11NZNew\nZealand"));
+        assertThat(csvReader.readRow(bufferedReader), is("12unterminated\nrow"));
+        assertThat(csvReader.readRow(bufferedReader), IsNull.nullValue());
+    }
+
+    @Test
+    public void tokenizerAllocationRate() {
+        ThreadMXBean threadMXBean = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+        String[] rows = {
+                "13342870113f5f7781cf665,A.K. ASSOCIATES INC.,AMIN,,41 WALPOLE STREET,,SHARON,MA,02067",
+                "\"9604804353f608e8a86286\",\"WALLACE, INTERNATIONAL\",,,\"175 \"\"MCCLELLAN\"\" HWY\",,EAST BOSTON,MA,02128",
+        };
+        CustomCSVReader csvReader = new CustomCSVReader();
+        long[] fieldLengths = new long[1];
+        CustomCSVReader.FieldHandler fieldHandler = (fieldIndex, field) -> fieldLengths[0] += field.length();
+
+        // Warm up, so the field buffer has grown to the longest field
+        for (int i = 0; i < 100_000; i++) {
+            csvReader.parseLine(rows[i & 1], fieldHandler);
+        }
+
+        long threadId = Thread.currentThread().getId();
+        long allocatedBefore = threadMXBean.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < 1_000_000; i++) {
+            csvReader.parseLine(rows[i & 1], fieldHandler);
+        }
+        long allocatedBytes = threadMXBean.getThreadAllocatedBytes(threadId) - allocatedBefore;
+
+        System.out.println("Tokenizer allocated " + ((double) allocatedBytes / 1_000_000) + " bytes per row");
+        assertThat(allocatedBytes < 1_000_000, is(true));
+    }
+}
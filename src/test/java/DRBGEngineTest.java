@@ -0,0 +1,135 @@
+/*
+ Author: Samuel Agyakwa
+ Date: 02/20/2020
+ */
+
+import org.junit.Test;
+
+import java.security.NoSuchAlgorithmException;
+import java.security.NoSuchProviderException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class DRBGEngineTest {
+    private static final int ROWS = 2_000;
+    private static final int UNIFORMITY_IDS = 20_000;
+    // Chi-square critical value for 61 degrees of freedom at a significance level of 0.0001
+    private static final double CHI_SQUARE_CRITICAL_VALUE = 111.0;
+    // Well below the 13x measured on 2,000 rows, so only a lost speedup fails, not a slow or busy machine
+    private static final double MIN_ENGINE_SPEEDUP = 5.0;
+
+    @Test
+    public void generatesTwentyFourAlphanumericCharacters() throws NoSuchAlgorithmException, NoSuchProviderException {
+        DRBGEngine engine = new DRBGEngine();
+        for (int i = 0; i < 100; i++) {
+            String id = engine.generate("10,AU,Australia " + i).toString();
+            assertThat(id.length(), is(24));
+            assertThat(id.matches("[A-Za-z0-9]{24}"), is(true));
+        }
+    }
+
+    @Test
+    public void sameRowGivesDifferentIDs() throws NoSuchAlgorithmException, NoSuchProviderException {
+        DRBGEngine engine = new DRBGEngine();
+        String first = engine.generate("Samuel Agyakwa 16 Myrick Avenue").toString();
+        String second = engine.generate("Samuel Agyakwa 16 Myrick Avenue").toString();
+        assertThat(first, not(is(second)));
+    }
+
+    @Test
+    public void engineThroughputAgainstPerRowInstantiation() throws NoSuchAlgorithmException, NoSuchProviderException {
+        TransactionGenerator tr = new TransactionGenerator();
+        long startTime = System.nanoTime();
+        for (int i = 0; i < ROWS; i++) {
+            tr.generateRandomAlphaNumericString("13342870113f5f7781cf665 A.K. ASSOCIATES INC. " + i);
+        }
+        long perRowTime = System.nanoTime() - startTime;
+
+        DRBGEngine engine = new DRBGEngine();
+        startTime = System.nanoTime();
+        for (int i = 0; i < ROWS; i++) {
+            engine.generate("13342870113f5f7781cf665 A.K. ASSOCIATES INC. " + i);
+        }
+        long engineTime = System.nanoTime() - startTime;
+
+        System.out.println("Per-row instantiation: " + (ROWS * 1_000_000_000L / perRowTime) + " IDs/second");
+        System.out.println("Long-lived engine: " + (ROWS * 1_000_000_000L / engineTime) + " IDs/second");
+        System.out.println("Speedup: " + ((double) perRowTime / engineTime) + "x");
+        assertThat(perRowTime > MIN_ENGINE_SPEEDUP * engineTime, is(true));
+    }
+
+    @Test
+    public void batchGivesOneIDPerRowInOrder() throws NoSuchAlgorithmException, NoSuchProviderException {
+        DRBGEngine engine = new DRBGEngine();
+        List<String> rows = new ArrayList<>();
+        for (int i = 0; i < 1_000; i++) {
+            rows.add("10,AU,Australia " + i);
+        }
+
+        List<StringBuilder> ids = engine.generateBatch(rows);
+
+        assertThat(ids.size(), is(1_000));
+        for (StringBuilder id : ids) {
+            assertThat(id.toString().matches("[A-Za-z0-9]{24}"), is(true));
+        }
+        assertThat(engine.generateBatch(new ArrayList<>()).isEmpty(), is(true));
+    }
+
+    @Test
+    public void perIDCharactersAreUniformlyDistributed() throws NoSuchAlgorithmException, NoSuchProviderException {
+        DRBGEngine engine = new DRBGEngine();
+        long[] counts = new long[DRBGEngine.ACCEPTED_CHARACTERS.length()];
+        for (int i = 0; i < UNIFORMITY_IDS; i++) {
+            countCharacters(engine.generate("Same customer row"), counts);
+        }
+
+        double chiSquare = chiSquare(counts);
+        System.out.println("Per ID chi-square: " + chiSquare);
+        assertThat(chiSquare < CHI_SQUARE_CRITICAL_VALUE, is(true));
+    }
+
+    @Test
+    public void batchCharactersAreUniformlyDistributed() throws NoSuchAlgorithmException, NoSuchProviderException {
+        DRBGEngine engine = new DRBGEngine();
+        List<String> rows = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            rows.add("Same customer row");
+        }
+
+        long[] counts = new long[DRBGEngine.ACCEPTED_CHARACTERS.length()];
+        for (int batch = 0; batch < UNIFORMITY_IDS / rows.size(); batch++) {
+            for (StringBuilder id : engine.generateBatch(rows)) {
+                countCharacters(id, counts);
+            }
+        }
+
+        double chiSquare = chiSquare(counts);
+        System.out.println("Batch chi-square: " + chiSquare);
+        assertThat(chiSquare < CHI_SQUARE_CRITICAL_VALUE, is(true));
+    }
+
+    private static void countCharacters(StringBuilder id, long[] counts) {
+        for (int i = 0; i < id.length(); i++) {
+            counts[DRBGEngine.ACCEPTED_CHARACTERS.indexOf(id.charAt(i))]++;
+        }
+    }
+
+    // Pearson's chi-square statistic against a uniform distribution over the accepted characters
+    private static double chiSquare(long[] counts) {
+        long total = 0;
+        for (long count : counts) {
+            total += count;
+        }
+
+        double expected = (double) total / counts.length;
+        double chiSquare = 0;
+        for (long count : counts) {
+            chiSquare += (count - expected) * (count - expected) / expected;
+        }
+        return chiSquare;
+    }
+}
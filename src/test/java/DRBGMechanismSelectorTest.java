@@ -0,0 +1,70 @@
+/*
+ Author: Samuel Agyakwa
+ Date: 02/20/2020
+ */
+
+import org.junit.Test;
+
+import java.security.NoSuchAlgorithmException;
+import java.security.Security;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class DRBGMechanismSelectorTest {
+    @Test
+    public void picksTheFastestMechanismWithinTheBudget() throws Exception {
+        long startTime = System.nanoTime();
+        DRBGMechanismSelector.Selection selection = new DRBGMechanismSelector().select();
+        long elapsedMillis = (System.nanoTime() - startTime) / 1_000_000;
+        System.out.println(selection + " in " + elapsedMillis + " milliseconds");
+
+        assertThat(selection.getIdsPerSecond().keySet(), is(new LinkedHashSet<>(
+                DRBGMechanismSelector.ALL_MECHANISMS)));
+        double fastestRate = Collections.max(selection.getIdsPerSecond().values());
+        assertThat(selection.getIdsPerSecond().get(selection.getMechanism()), is(fastestRate));
+        // The budget only bounds the measuring, instantiating the DRBGs comes on top
+        assertThat(elapsedMillis < 3 * DRBGMechanismSelector.DEFAULT_CALIBRATION_MILLIS, is(true));
+    }
+
+    @Test
+    public void skipsUnsupportedMechanisms() throws Exception {
+        List<String> mechanisms = Arrays.asList("NO_SUCH_DRBG", "HMAC_DRBG,SHA-224", "HMAC_DRBG");
+        DRBGMechanismSelector.Selection selection = new DRBGMechanismSelector(mechanisms, 256, 60).select();
+
+        assertThat(selection.getMechanism(), is("HMAC_DRBG"));
+        assertThat(selection.getUnsupported().keySet().toString(), is("[NO_SUCH_DRBG, HMAC_DRBG,SHA-224]"));
+    }
+
+    @Test(expected = NoSuchAlgorithmException.class)
+    public void failsWhenNothingIsSupported() throws Exception {
+        new DRBGMechanismSelector(Collections.singletonList("NO_SUCH_DRBG"), 128, 10).select();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsAStrengthAboveWhatTheEnginesUse() {
+        new DRBGMechanismSelector(DRBGMechanismSelector.ALL_MECHANISMS, 512, 10);
+    }
+
+    @Test
+    public void generatorUsesTheSelectedMechanism() throws Exception {
+        TransactionGenerator tr = new TransactionGenerator();
+        DRBGMechanismSelector.Selection selection = tr.autoSelectDRBGMechanism(
+                new DRBGMechanismSelector(Collections.singletonList("HMAC_DRBG"), 256, 20));
+        assertThat(selection.getMechanism(), is("HMAC_DRBG"));
+
+        assertThat(tr.generateAllAlphaNumericID("src/main/java/customers.csv").isEmpty(), is(false));
+        assertThat(Security.getProperty("securerandom.drbg.config"), is("HMAC_DRBG"));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void mechanismCantChangeAfterGenerating() throws Exception {
+        TransactionGenerator tr = new TransactionGenerator();
+        tr.generateAllAlphaNumericID("src/main/java/customers.csv");
+        tr.setDRBGMechanism("CTR_DRBG");
+    }
+}
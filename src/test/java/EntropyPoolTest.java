@@ -0,0 +1,165 @@
+/*
+ Author: Samuel Agyakwa
+ Date: 02/20/2020
+ */
+
+import org.junit.Test;
+import utils.EntropyPool;
+import utils.FileEntropySource;
+import utils.ReseedPolicy;
+
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class EntropyPoolTest {
+    @Test
+    public void handsOutTheSourceInOrderWithoutUnderruns() throws Exception {
+        byte[] recordedEntropy = new byte[1 << 16];
+        new Random(42).nextBytes(recordedEntropy);
+        Path entropyFile = Files.createTempFile("entropy", ".bin");
+        Files.write(entropyFile, recordedEntropy);
+
+        try (FileEntropySource entropySource = new FileEntropySource(entropyFile);
+             EntropyPool entropyPool = new EntropyPool(entropySource, 32, 4096, 512)) {
+            waitForDepth(entropyPool, 512);
+
+            ByteArrayOutputStream seeds = new ByteArrayOutputStream();
+            for (int i = 0; i < 300; i++) {
+                byte[] seed = entropyPool.takeSeed();
+                assertThat(seed.length, is(32));
+                seeds.write(seed);
+            }
+
+            assertThat(Arrays.equals(seeds.toByteArray(), Arrays.copyOf(recordedEntropy, 300 * 32)), is(true));
+            assertThat(entropyPool.getUnderruns(), is(0L));
+            assertThat(entropyPool.getSeedsTaken(), is(300L));
+        } finally {
+            Files.delete(entropyFile);
+        }
+    }
+
+    @Test(expected = EOFException.class)
+    public void reportsAnExhaustedSource() throws Exception {
+        Path entropyFile = Files.createTempFile("entropy", ".bin");
+        Files.write(entropyFile, new byte[64 + 32]); // One full read, and a partial one
+
+        try (FileEntropySource entropySource = new FileEntropySource(entropyFile);
+             EntropyPool entropyPool = new EntropyPool(entropySource, 32, 64, 4)) {
+            long deadline = System.nanoTime() + 5_000_000_000L;
+            while (entropyPool.getRefillFailure() == null && System.nanoTime() < deadline) {
+                Thread.sleep(1);
+            }
+            assertThat(entropyPool.getRefillFailure(), is(not(nullValue())));
+
+            entropyPool.takeSeed();
+            entropyPool.takeSeed();
+            entropyPool.takeSeed(); // The pool is empty, and the source has nothing left
+        } finally {
+            Files.delete(entropyFile);
+        }
+    }
+
+    @Test
+    public void engineReseedsFromThePool() throws Exception {
+        AtomicLong sourceFills = new AtomicLong();
+        Random standInSource = new Random(7);
+
+        try (EntropyPool entropyPool = new EntropyPool(buffer -> {
+            sourceFills.incrementAndGet();
+            synchronized (standInSource) {
+                standInSource.nextBytes(buffer);
+            }
+        })) {
+            DRBGEngine engine = new DRBGEngine(DRBGEngine.HASH_DRBG, "EntropyPoolTest".getBytes(StandardCharsets.UTF_8));
+            engine.setReseedPolicy(ReseedPolicy.everyIds(1));
+            engine.setEntropyPool(entropyPool);
+
+            for (int i = 0; i < 5_000; i++) {
+                assertThat(engine.generate("customer " + i).toString().matches("[A-Za-z0-9]{24}"), is(true));
+            }
+
+            // Every reseed takes its entropy input from the pool
+            assertThat(engine.getReseeds(), is(4_999L));
+            assertThat(entropyPool.getSeedsTaken(), is(4_999L));
+            assertThat(entropyPool.getSourceReads(), is(sourceFills.get()));
+            System.out.println("5000 reseeds: " + sourceFills.get() + " entropy source reads, "
+                    + entropyPool.getUnderruns() + " underruns");
+        }
+    }
+
+    @Test
+    public void aPoolCantStandInForPredictionResistance() throws Exception {
+        try (EntropyPool entropyPool = new EntropyPool(buffer -> Arrays.fill(buffer, (byte) 1));
+             EntropyPool shortSeedPool = new EntropyPool(buffer -> Arrays.fill(buffer, (byte) 1), 16, 4096, 512)) {
+            DRBGEngine engine = new DRBGEngine(DRBGEngine.HASH_DRBG, "EntropyPoolTest".getBytes(StandardCharsets.UTF_8));
+            engine.setReseedPolicy(ReseedPolicy.predictionResistanceOnEveryCall());
+            try {
+                engine.setEntropyPool(entropyPool);
+                throw new AssertionError("A pool was accepted for prediction resistant draws");
+            } catch (IllegalStateException expected) {
+                // The engine keeps reseeding from the entropy source
+            }
+
+            engine.setReseedPolicy(ReseedPolicy.everyIds(10));
+            engine.setEntropyPool(entropyPool);
+            try {
+                engine.setReseedPolicy(ReseedPolicy.predictionResistanceOnEveryCall());
+                throw new AssertionError("Prediction resistance was accepted with a pool");
+            } catch (IllegalStateException expected) {
+                // The engine keeps its periodic policy
+            }
+            try {
+                engine.setEntropyPool(shortSeedPool);
+                throw new AssertionError("A pool of 128 bit seeds was accepted");
+            } catch (IllegalArgumentException expected) {
+                // The engine keeps its pool
+            }
+        }
+    }
+
+    @Test
+    public void pooledSeedsCutSystemCalls() throws Exception {
+        final int seeds = 10_000;
+        try (FileEntropySource directSource = new FileEntropySource(FileEntropySource.URANDOM)) {
+            long startTime = System.nanoTime();
+            byte[] seed = new byte[EntropyPool.DEFAULT_SEED_SIZE];
+            for (int i = 0; i < seeds; i++) {
+                directSource.fill(seed);
+            }
+            long directNanos = System.nanoTime() - startTime;
+
+            try (FileEntropySource pooledSource = new FileEntropySource(FileEntropySource.URANDOM);
+                 EntropyPool entropyPool = new EntropyPool(pooledSource)) {
+                startTime = System.nanoTime();
+                for (int i = 0; i < seeds; i++) {
+                    entropyPool.takeSeed();
+                }
+                long pooledNanos = System.nanoTime() - startTime;
+
+                System.out.println(seeds + " seeds from /dev/urandom: " + directSource.getReads() + " reads and "
+                        + directNanos / seeds + " ns per seed direct, " + pooledSource.getReads() + " reads and "
+                        + pooledNanos / seeds + " ns per seed pooled (" + entropyPool.getUnderruns() + " underruns)");
+                assertThat(pooledSource.getReads() < directSource.getReads(), is(true));
+            }
+        }
+    }
+
+    private static void waitForDepth(EntropyPool entropyPool, int depth) throws InterruptedException {
+        long deadline = System.nanoTime() + 5_000_000_000L;
+        while (entropyPool.getDepth() < depth && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+        assertThat(entropyPool.getDepth(), is(depth));
+    }
+}
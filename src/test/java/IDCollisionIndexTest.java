@@ -0,0 +1,129 @@
+/*
+ Author: Samuel Agyakwa
+ Date: 02/20/2020
+ */
+
+import org.junit.Test;
+import utils.IDCollisionIndex;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.SecureRandom;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class IDCollisionIndexTest {
+    private static final int KEY_SIZE = 18;
+
+    @Test
+    public void detectsRepeatedIDs() throws IOException {
+        Path indexFile = Files.createTempFile("ids", ".idx");
+        try (IDCollisionIndex index = IDCollisionIndex.open(indexFile, KEY_SIZE, 1_000)) {
+            byte[] allZeroes = new byte[KEY_SIZE];
+            byte[] key = key(42);
+
+            assertThat(index.add(allZeroes, 0), is(true));
+            assertThat(index.add(key, 0), is(true));
+            assertThat(index.add(key.clone(), 0), is(false));
+            assertThat(index.contains(allZeroes, 0), is(true));
+            assertThat(index.contains(key(43), 0), is(false));
+            assertThat(index.size(), is(2L));
+        } finally {
+            Files.delete(indexFile);
+        }
+    }
+
+    @Test
+    public void survivesAReopen() throws IOException {
+        Path indexFile = Files.createTempFile("ids", ".idx");
+        try {
+            try (IDCollisionIndex index = IDCollisionIndex.open(indexFile, KEY_SIZE, 10_000)) {
+                for (int i = 0; i < 5_000; i++) {
+                    index.add(key(i), 0);
+                }
+            }
+
+            // The capacity passed on reopen is ignored, the file keeps its own
+            try (IDCollisionIndex index = IDCollisionIndex.open(indexFile, KEY_SIZE, 1)) {
+                assertThat(index.size(), is(5_000L));
+                for (int i = 0; i < 5_000; i++) {
+                    assertThat(index.add(key(i), 0), is(false));
+                }
+                assertThat(index.add(key(5_000), 0), is(true));
+            }
+        } finally {
+            Files.delete(indexFile);
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void rejectsADifferentKeySize() throws IOException {
+        Path indexFile = Files.createTempFile("ids", ".idx");
+        try {
+            IDCollisionIndex.open(indexFile, KEY_SIZE, 10).close();
+            IDCollisionIndex.open(indexFile, KEY_SIZE + 1, 10).close();
+        } finally {
+            Files.delete(indexFile);
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void refusesToGrowPastItsCapacity() throws IOException {
+        Path indexFile = Files.createTempFile("ids", ".idx");
+        try (IDCollisionIndex index = IDCollisionIndex.open(indexFile, KEY_SIZE, 10)) {
+            for (int i = 0; i < 11; i++) {
+                index.add(key(i), 0);
+            }
+        } finally {
+            Files.delete(indexFile);
+        }
+    }
+
+    @Test
+    public void costPerID() throws IOException {
+        final int ids = 500_000;
+        SecureRandom random = new SecureRandom();
+        byte[] keys = new byte[ids * KEY_SIZE];
+        random.nextBytes(keys);
+
+        Path indexFile = Files.createTempFile("ids", ".idx");
+        try (IDCollisionIndex index = IDCollisionIndex.open(indexFile, KEY_SIZE, ids)) {
+            long startTime = System.nanoTime();
+            for (int i = 0; i < ids; i++) {
+                index.add(keys, i * KEY_SIZE);
+            }
+            long elapsedTime = System.nanoTime() - startTime;
+
+            System.out.println("Collision index: " + (elapsedTime / ids) + " nanoseconds per ID at 100% of capacity, "
+                    + Files.size(indexFile) / ids + " bytes per ID on disk");
+            assertThat(index.size(), is((long) ids));
+        } finally {
+            Files.delete(indexFile);
+        }
+    }
+
+    @Test
+    public void guardAddsEveryGeneratedID() throws Exception {
+        Path indexFile = Files.createTempFile("ids", ".idx");
+        try (IDCollisionIndex index = IDCollisionIndex.open(indexFile, KEY_SIZE, 20_000)) {
+            TransactionGenerator tr = new TransactionGenerator();
+            tr.enableUniquenessGuard(index);
+
+            long startTime = System.nanoTime();
+            int generated = tr.generateAllAlphaNumericID("src/main/java/1000_line_csv.csv").size();
+            long elapsedTime = System.nanoTime() - startTime;
+
+            System.out.println("Guarded generation: " + (elapsedTime / generated) + " nanoseconds per ID");
+            assertThat(index.size(), is((long) generated));
+        } finally {
+            Files.delete(indexFile);
+        }
+    }
+
+    private static byte[] key(int value) {
+        return ByteBuffer.allocate(KEY_SIZE).putInt(7, value).array();
+    }
+}
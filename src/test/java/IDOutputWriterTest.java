@@ -0,0 +1,219 @@
+/*
+ Author: Samuel Agyakwa
+ Date: 02/20/2020
+ */
+
+import org.junit.Test;
+import utils.IDOutputWriter;
+import utils.IdBlock;
+import utils.RunCheckpoint;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class IDOutputWriterTest {
+    private static final String ID = "AaBbCcDdEeFfGgHh01234567";
+
+    @Test
+    public void writesCSVRecords() throws IOException {
+        Path outputFile = Files.createTempFile("ids", ".csv");
+        try (IDOutputWriter outputWriter = new IDOutputWriter(outputFile, IDOutputWriter.Format.CSV,
+                DRBGEngine.DEFAULT_ID_FORMAT, 0, 64)) {
+            outputWriter.write(0, ID);
+            outputWriter.write(7, ID);
+            outputWriter.write(1234567890123L, ID);
+        }
+        try {
+            assertThat(Files.readAllLines(outputFile).toString(),
+                    is("[0," + ID + ", 7," + ID + ", 1234567890123," + ID + "]"));
+        } finally {
+            Files.delete(outputFile);
+        }
+    }
+
+    @Test
+    public void writesFixedSizeBinaryRecords() throws IOException {
+        Path outputFile = Files.createTempFile("ids", ".bin");
+        IdBlock idBlock = DRBGEngine.newIdBlock(0);
+        try {
+            try (IDOutputWriter outputWriter = new IDOutputWriter(outputFile, IDOutputWriter.Format.BINARY,
+                    DRBGEngine.DEFAULT_ID_FORMAT, 0)) {
+                outputWriter.write(42, ID);
+                assertThat(outputWriter.position(), is((long) Long.BYTES + idBlock.bytesPerId()));
+            }
+
+            ByteBuffer record = ByteBuffer.wrap(Files.readAllBytes(outputFile));
+            assertThat(record.remaining(), is(Long.BYTES + idBlock.bytesPerId()));
+            assertThat(record.getLong(), is(42L));
+            byte[] packedID = new byte[idBlock.bytesPerId()];
+            idBlock.pack(ID, packedID, 0);
+            assertThat(record.slice().equals(ByteBuffer.wrap(packedID)), is(true));
+        } finally {
+            Files.delete(outputFile);
+        }
+    }
+
+    @Test
+    public void startingAtAPositionCutsOffTheRest() throws IOException {
+        Path outputFile = Files.createTempFile("ids", ".csv");
+        try {
+            Files.write(outputFile, ("1," + ID + "\npartial reco").getBytes(StandardCharsets.US_ASCII));
+            try (IDOutputWriter outputWriter = new IDOutputWriter(outputFile, IDOutputWriter.Format.CSV,
+                    DRBGEngine.DEFAULT_ID_FORMAT, ID.length() + 3)) {
+                outputWriter.write(2, ID);
+            }
+            assertThat(Files.readAllLines(outputFile).toString(), is("[1," + ID + ", 2," + ID + "]"));
+        } finally {
+            Files.delete(outputFile);
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void refusesToStartPastTheEndOfTheFile() throws IOException {
+        Path outputFile = Files.createTempFile("ids", ".csv");
+        try {
+            new IDOutputWriter(outputFile, IDOutputWriter.Format.CSV, DRBGEngine.DEFAULT_ID_FORMAT, 10).close();
+        } finally {
+            Files.delete(outputFile);
+        }
+    }
+
+    @Test
+    public void interruptedRunResumesFromItsLastCheckpoint() throws Exception {
+        List<String> csvLines = Files.readAllLines(Paths.get("src/main/java/1000_line_csv.csv"));
+        Path csvFile = Files.createTempFile("customers", ".csv");
+        Path outputFile = Files.createTempFile("ids", ".csv");
+        Path checkpointFile = Paths.get(outputFile + ".checkpoint");
+        try {
+            // The first run only sees the first half of the file
+            Files.write(csvFile, csvLines.subList(0, csvLines.size() / 2));
+            TransactionGenerator tr = new TransactionGenerator();
+            long firstRunRows = tr.generateAllAlphaNumericIDToFile(csvFile.toString(), true, outputFile.toString(),
+                    IDOutputWriter.Format.CSV, 1000);
+            RunCheckpoint firstCheckpoint = RunCheckpoint.load(checkpointFile);
+            assertThat(firstCheckpoint.getRowCount(), is(firstRunRows));
+            assertThat(firstCheckpoint.getOutputPosition(), is(Files.size(outputFile)));
+            List<String> firstRunRecords = Files.readAllLines(outputFile);
+
+            // Then the run is interrupted part way through the whole file, leaving a torn record behind
+            Files.write(csvFile, csvLines);
+            tr.generateAllAlphaNumericIDToFile(csvFile.toString(), true, outputFile.toString(),
+                    IDOutputWriter.Format.CSV, 1000);
+            firstCheckpoint.save(checkpointFile);
+            Files.write(outputFile, "123,Aa".getBytes(StandardCharsets.US_ASCII), StandardOpenOption.APPEND);
+
+            long totalRows = tr.generateAllAlphaNumericIDToFile(csvFile.toString(), true, outputFile.toString(),
+                    IDOutputWriter.Format.CSV, 1000);
+            List<String> records = Files.readAllLines(outputFile);
+
+            assertThat(totalRows, is((long) csvLines.size() - 1));
+            assertThat(records.size(), is(csvLines.size() - 1));
+            assertThat(records.subList(0, firstRunRecords.size()), is(firstRunRecords));
+            for (int row = 0; row < records.size(); row++) {
+                assertThat(records.get(row).matches((row + 1) + ",[A-Za-z0-9]{24}"), is(true));
+            }
+            assertThat(RunCheckpoint.load(checkpointFile).getInputOffset(), is(Files.size(csvFile)));
+        } finally {
+            Files.delete(csvFile);
+            Files.delete(outputFile);
+            Files.deleteIfExists(checkpointFile);
+        }
+    }
+
+    @Test
+    public void aLastRowWithoutALineBreakIsReadAgainAfterAnAppend() throws Exception {
+        Path csvFile = Files.createTempFile("customers", ".csv");
+        Path outputFile = Files.createTempFile("ids", ".csv");
+        Path checkpointFile = Paths.get(outputFile + ".checkpoint");
+        try {
+            // The last row is still being written when the first run reads the file
+            Files.write(csvFile, "Account,Company\n1,a\n2,b".getBytes(StandardCharsets.UTF_8));
+            TransactionGenerator tr = new TransactionGenerator();
+            assertThat(tr.generateAllAlphaNumericIDToFile(csvFile.toString(), true, outputFile.toString(),
+                    IDOutputWriter.Format.CSV, 1), is(2L));
+            RunCheckpoint firstCheckpoint = RunCheckpoint.load(checkpointFile);
+            assertThat(firstCheckpoint.getRowCount(), is(1L));
+            assertThat(firstCheckpoint.getInputOffset(), is((long) "Account,Company\n1,a\n".length()));
+
+            Files.write(csvFile, "ob\n3,c\n".getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+            long totalRows = tr.generateAllAlphaNumericIDToFile(csvFile.toString(), true, outputFile.toString(),
+                    IDOutputWriter.Format.CSV, 1);
+            List<String> records = Files.readAllLines(outputFile);
+
+            assertThat(totalRows, is(3L));
+            assertThat(records.size(), is(3));
+            for (int row = 0; row < records.size(); row++) {
+                assertThat(records.get(row).matches((row + 1) + ",[A-Za-z0-9]{24}"), is(true));
+            }
+            assertThat(RunCheckpoint.load(checkpointFile).getInputOffset(), is(Files.size(csvFile)));
+        } finally {
+            Files.delete(csvFile);
+            Files.delete(outputFile);
+            Files.deleteIfExists(checkpointFile);
+        }
+    }
+
+    @Test
+    public void aRewrittenInputFileIsNotResumed() throws Exception {
+        Path csvFile = Files.createTempFile("customers", ".csv");
+        Path outputFile = Files.createTempFile("ids", ".csv");
+        Path checkpointFile = Paths.get(outputFile + ".checkpoint");
+        try {
+            Files.write(csvFile, "Account,Company\n1,a\n2,b\n".getBytes(StandardCharsets.UTF_8));
+            TransactionGenerator tr = new TransactionGenerator();
+            tr.generateAllAlphaNumericIDToFile(csvFile.toString(), true, outputFile.toString(),
+                    IDOutputWriter.Format.CSV, 1);
+            byte[] firstRunOutput = Files.readAllBytes(outputFile);
+
+            // Rewritten with longer rows, so the checkpoint offset falls in the middle of a row
+            String[] rewrites = {"Account,Company\n1,aaaa\n2,bbbb\n3,c\n", "Account,Company\n1,a\n"};
+            for (String rewrite : rewrites) {
+                Files.write(csvFile, rewrite.getBytes(StandardCharsets.UTF_8));
+                try {
+                    tr.generateAllAlphaNumericIDToFile(csvFile.toString(), true, outputFile.toString(),
+                            IDOutputWriter.Format.CSV, 1);
+                    throw new AssertionError("A run resumed on a rewritten input file");
+                } catch (IOException expected) {
+                    assertThat(Arrays.equals(Files.readAllBytes(outputFile), firstRunOutput), is(true));
+                }
+            }
+        } finally {
+            Files.delete(csvFile);
+            Files.delete(outputFile);
+            Files.deleteIfExists(checkpointFile);
+        }
+    }
+
+    @Test
+    public void writeThroughput() throws IOException {
+        final int ids = 2_000_000;
+        for (IDOutputWriter.Format format : IDOutputWriter.Format.values()) {
+            Path outputFile = Files.createTempFile("ids", "." + format);
+            try {
+                long startTime = System.nanoTime();
+                try (IDOutputWriter outputWriter = new IDOutputWriter(outputFile, format,
+                        DRBGEngine.DEFAULT_ID_FORMAT, 0)) {
+                    for (int row = 1; row <= ids; row++) {
+                        outputWriter.write(row, ID);
+                    }
+                }
+                long elapsedTime = System.nanoTime() - startTime;
+
+                System.out.println(format + " output: " + (elapsedTime / ids) + " nanoseconds per record, "
+                        + Files.size(outputFile) / ids + " bytes per record");
+            } finally {
+                Files.delete(outputFile);
+            }
+        }
+    }
+}
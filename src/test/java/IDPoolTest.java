@@ -0,0 +1,89 @@
+/*
+ Author: Samuel Agyakwa
+ Date: 02/20/2020
+ */
+
+import org.junit.Test;
+
+import java.security.NoSuchAlgorithmException;
+import java.security.NoSuchProviderException;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class IDPoolTest {
+    // A ring buffer poll takes well under a microsecond, this only fails if takes stop being served from the buffer
+    private static final long MAX_AVERAGE_TAKE_NANOS = 5_000;
+
+    @Test
+    public void producerFillsToTheHighWatermark() throws Exception {
+        try (IDPool pool = new IDPool(1024, 256, 1000)) {
+            waitForDepth(pool, 1000);
+            assertThat(pool.getDepth(), is(1000));
+            assertThat(pool.getUnderruns(), is(0L));
+            assertThat(pool.getRefillRate() > 0, is(true));
+        }
+    }
+
+    @Test
+    public void takesUniqueIDsAndFallsBackWhenEmpty() throws NoSuchAlgorithmException, NoSuchProviderException {
+        IDPool pool = new IDPool(16, 4, 16);
+        pool.close(); // Stop the producer, so the pool is drained for good
+
+        Set<String> ids = new HashSet<>();
+        for (int i = 0; i < 100; i++) {
+            String id = pool.take();
+            assertThat(id.matches("[A-Za-z0-9]{24}"), is(true));
+            ids.add(id);
+        }
+
+        assertThat(ids.size(), is(100));
+        assertThat(pool.getUnderruns() >= 100 - pool.getProducedIDs(), is(true));
+    }
+
+    @Test
+    public void producesWithTheGivenMechanism() throws Exception {
+        try (IDPool pool = new IDPool("HMAC_DRBG", 64, 16, 64)) {
+            waitForDepth(pool, 64);
+            assertThat(pool.take().matches("[A-Za-z0-9]{24}"), is(true));
+        }
+    }
+
+    @Test(expected = NoSuchAlgorithmException.class)
+    public void refusesAnUnknownMechanism() throws Exception {
+        new IDPool("NO_SUCH_DRBG", 64, 16, 64).close();
+    }
+
+    @Test
+    public void takeLatency() throws Exception {
+        try (IDPool pool = new IDPool(1 << 16, 1 << 14, 1 << 16)) {
+            waitForDepth(pool, 1 << 16);
+
+            // Warm up, then time takes that are served from the buffer
+            for (int i = 0; i < 10_000; i++) {
+                pool.take();
+            }
+            waitForDepth(pool, 1 << 16);
+            long startTime = System.nanoTime();
+            for (int i = 0; i < 40_000; i++) {
+                pool.take();
+            }
+            long elapsedTime = System.nanoTime() - startTime;
+
+            System.out.println("Average take: " + (elapsedTime / 40_000) + " nanoseconds, underruns: "
+                    + pool.getUnderruns() + ", refill rate: " + (long) pool.getRefillRate() + " IDs/second");
+            // The pool never drops to its low watermark, so no take falls back to generating
+            assertThat(pool.getUnderruns(), is(0L));
+            assertThat(elapsedTime / 40_000 < MAX_AVERAGE_TAKE_NANOS, is(true));
+        }
+    }
+
+    private static void waitForDepth(IDPool pool, int depth) throws InterruptedException {
+        long deadline = System.nanoTime() + 30_000_000_000L;
+        while (pool.getDepth() < depth && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+    }
+}
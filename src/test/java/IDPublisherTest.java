@@ -0,0 +1,167 @@
+/*
+ Author: Samuel Agyakwa
+ Date: 02/20/2020
+ */
+
+import org.junit.After;
+import org.junit.Test;
+import utils.ColumnProjection;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class IDPublisherTest {
+    private static final String CSV_FILE = "src/main/java/1000_line_csv.csv";
+    private static final int ROWS = 10_000;
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+
+    @After
+    public void shutDownExecutor() {
+        this.executor.shutdownNow();
+    }
+
+    @Test
+    public void generatesOnlyDemandAndTheBudgetAhead() throws Exception {
+        IDPublisher publisher = new TransactionGenerator().publishAlphaNumericID(CSV_FILE, true, 20, this.executor);
+        RecordingSubscriber subscriber = new RecordingSubscriber();
+        publisher.subscribe(subscriber);
+
+        subscriber.awaitSubscription().request(10);
+        waitFor(() -> publisher.getGeneratedCount() == 30);
+        Thread.sleep(100);
+        assertThat(subscriber.ids.size(), is(10));
+        assertThat(publisher.getGeneratedCount(), is(30L));
+
+        subscriber.subscription.request(Long.MAX_VALUE);
+        assertThat(subscriber.terminated.await(10, TimeUnit.SECONDS), is(true));
+        assertThat(subscriber.completed, is(true));
+        assertThat(subscriber.ids.size(), is(ROWS));
+        assertThat(new HashSet<>(subscriber.ids).size(), is(ROWS));
+        for (String id : subscriber.ids) {
+            assertThat(id.matches("[A-Za-z0-9]{24}"), is(true));
+        }
+        assertThat(publisher.getGeneratedCount(), is((long) ROWS));
+    }
+
+    @Test
+    public void feedsTheColumnProjection() throws Exception {
+        TransactionGenerator tr = new TransactionGenerator();
+        tr.setColumnProjection(ColumnProjection.of(0, 2));
+        IDPublisher publisher = tr.publishAlphaNumericID(CSV_FILE, true, 20, this.executor);
+        RecordingSubscriber subscriber = new RecordingSubscriber();
+        publisher.subscribe(subscriber);
+
+        subscriber.awaitSubscription().request(Long.MAX_VALUE);
+        assertThat(subscriber.terminated.await(10, TimeUnit.SECONDS), is(true));
+        assertThat(subscriber.completed, is(true));
+        assertThat(new HashSet<>(subscriber.ids).size(), is(ROWS));
+    }
+
+    @Test
+    public void withoutABudgetGeneratesOnlyOnDemand() throws Exception {
+        IDPublisher publisher = new TransactionGenerator().publishAlphaNumericID(CSV_FILE, true, 0, this.executor);
+        RecordingSubscriber subscriber = new RecordingSubscriber();
+        publisher.subscribe(subscriber);
+
+        Flow.Subscription subscription = subscriber.awaitSubscription();
+        for (int i = 1; i <= 5; i++) {
+            subscription.request(1);
+            int delivered = i;
+            waitFor(() -> subscriber.ids.size() == delivered);
+            assertThat(publisher.getGeneratedCount(), is((long) delivered));
+        }
+    }
+
+    @Test
+    public void cancellingStopsGenerating() throws Exception {
+        IDPublisher publisher = new TransactionGenerator().publishAlphaNumericID(CSV_FILE, true, 50, this.executor);
+        RecordingSubscriber subscriber = new RecordingSubscriber();
+        publisher.subscribe(subscriber);
+
+        Flow.Subscription subscription = subscriber.awaitSubscription();
+        subscription.request(5);
+        waitFor(() -> subscriber.ids.size() == 5);
+        subscription.cancel();
+        subscription.request(100);
+        this.executor.submit(() -> { }).get(); // Every signal before this one has been handled
+
+        long generatedIDs = publisher.getGeneratedCount();
+        Thread.sleep(100);
+        assertThat(publisher.getGeneratedCount(), is(generatedIDs));
+        assertThat(generatedIDs <= 55, is(true));
+        assertThat(subscriber.ids.size(), is(5));
+        assertThat(subscriber.terminated.getCount(), is(1L));
+    }
+
+    @Test
+    public void nonPositiveRequestsFailTheSubscription() throws Exception {
+        IDPublisher publisher = new TransactionGenerator().publishAlphaNumericID(CSV_FILE, true, 10, this.executor);
+        RecordingSubscriber subscriber = new RecordingSubscriber();
+        publisher.subscribe(subscriber);
+
+        subscriber.awaitSubscription().request(0);
+        assertThat(subscriber.terminated.await(10, TimeUnit.SECONDS), is(true));
+        assertThat(subscriber.error instanceof IllegalArgumentException, is(true));
+        assertThat(subscriber.ids.size(), is(0));
+    }
+
+    private static void waitFor(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() > deadline) {
+                throw new AssertionError("Timed out waiting");
+            }
+            Thread.sleep(1);
+        }
+    }
+
+    // Requests nothing by itself, the test requests through the subscription
+    private static final class RecordingSubscriber implements Flow.Subscriber<CharSequence> {
+        private final List<String> ids = Collections.synchronizedList(new ArrayList<>());
+        private final CountDownLatch subscribed = new CountDownLatch(1);
+        private final CountDownLatch terminated = new CountDownLatch(1);
+        private volatile Flow.Subscription subscription;
+        private volatile boolean completed;
+        private volatile Throwable error;
+
+        Flow.Subscription awaitSubscription() throws InterruptedException {
+            assertThat(this.subscribed.await(10, TimeUnit.SECONDS), is(true));
+            return this.subscription;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            this.subscribed.countDown();
+        }
+
+        @Override
+        public void onNext(CharSequence id) {
+            this.ids.add(id.toString());
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            this.error = throwable;
+            this.terminated.countDown();
+        }
+
+        @Override
+        public void onComplete() {
+            this.completed = true;
+            this.terminated.countDown();
+        }
+    }
+}
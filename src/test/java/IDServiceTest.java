@@ -0,0 +1,119 @@
+/*
+ Author: Samuel Agyakwa
+ Date: 02/20/2020
+ */
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.HttpURLConnection;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class IDServiceTest {
+    private IDService service;
+
+    @Before
+    public void startService() throws IOException {
+        this.service = new TransactionGenerator().serveAlphaNumericID(new InetSocketAddress(
+                InetAddress.getLoopbackAddress(), 0), 10_000);
+    }
+
+    @After
+    public void stopService() {
+        this.service.close();
+    }
+
+    @Test
+    public void issuesSingleIDs() throws IOException {
+        List<String> first = get("/id");
+        List<String> second = get("/id?customer=10%2CAU%2CAustralia");
+        assertThat(first.size(), is(1));
+        assertThat(first.get(0).matches("[A-Za-z0-9]{24}"), is(true));
+        assertThat(second.get(0).matches("[A-Za-z0-9]{24}"), is(true));
+        assertThat(first.get(0).equals(second.get(0)), is(false));
+    }
+
+    @Test
+    public void streamsBatches() throws IOException {
+        HttpURLConnection connection = open("/ids?count=10000");
+        assertThat(connection.getResponseCode(), is(200));
+        assertThat(connection.getHeaderField("Transfer-Encoding"), is("chunked"));
+
+        List<String> ids = read(connection);
+        assertThat(ids.size(), is(10_000));
+        assertThat(new HashSet<>(ids).size(), is(10_000));
+        for (String id : ids) {
+            assertThat(id.matches("[A-Za-z0-9]{24}"), is(true));
+        }
+    }
+
+    @Test
+    public void refusesBadRequests() throws IOException {
+        assertThat(open("/ids").getResponseCode(), is(400));
+        assertThat(open("/ids?count=0").getResponseCode(), is(400));
+        assertThat(open("/ids?count=10001").getResponseCode(), is(400));
+        assertThat(open("/ids?count=ten").getResponseCode(), is(400));
+        assertThat(open("/ids?count=1%").getResponseCode(), is(400));
+        assertThat(open("/id?customer=%zz").getResponseCode(), is(400));
+        assertThat(open("/idx").getResponseCode(), is(404));
+
+        HttpURLConnection post = open("/id");
+        post.setRequestMethod("POST");
+        assertThat(post.getResponseCode(), is(405));
+    }
+
+    @Test
+    public void loadGeneratorReportsThroughputAndLatency() throws Exception {
+        IDServiceLoadGenerator loadGenerator = new IDServiceLoadGenerator(url("/id"), 8);
+        IDServiceLoadGenerator.Result result = loadGenerator.run(500, TimeUnit.MILLISECONDS);
+        System.out.println((this.service.usesVirtualThreads() ? "Virtual" : "Platform") + " threads, "
+                + this.service.getEngineCount() + " engines: " + result);
+
+        assertThat(result.getErrors(), is(0L));
+        assertThat(result.getRequests() > 0, is(true));
+        assertThat(result.getRequestsPerSecond() > 0, is(true));
+        assertThat(result.getP50() <= result.getP99() && result.getP99() <= result.getMax(), is(true));
+        // Engines are reused across requests, not made per request
+        assertThat(this.service.getEngineCount() <= 8, is(true));
+    }
+
+    private URL url(String pathAndQuery) throws IOException {
+        return new URL("http://localhost:" + this.service.getPort() + pathAndQuery);
+    }
+
+    private HttpURLConnection open(String pathAndQuery) throws IOException {
+        return (HttpURLConnection) url(pathAndQuery).openConnection();
+    }
+
+    private List<String> get(String pathAndQuery) throws IOException {
+        HttpURLConnection connection = open(pathAndQuery);
+        assertThat(connection.getResponseCode(), is(200));
+        return read(connection);
+    }
+
+    private static List<String> read(HttpURLConnection connection) throws IOException {
+        List<String> lines = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(connection.getInputStream(),
+                StandardCharsets.US_ASCII))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lines.add(line);
+            }
+        }
+        return lines;
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ Author: Samuel Agyakwa
+ Date: 02/20/2020
+ */
+
+import org.junit.Test;
+import utils.IdBlock;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class IdBlockTest {
+    private static final String ALPHABET = "AaBbCcDdEeFfGgHhIiJjKkLlMmNnOoPpQqRrSsTtUuVvWwXxYyZz0123456789";
+
+    @Test
+    public void packsAndRendersIDs() throws IOException {
+        IdBlock idBlock = new IdBlock(ALPHABET, 24, 1);
+        List<String> ids = new ArrayList<>();
+        ids.add("AAAAAAAAAAAAAAAAAAAAAAAA");
+        ids.add("999999999999999999999999");
+        ids.add("qQzY5cgs6zHpEuyGnHgbYqIq");
+        ids.add("ZboroCzA43vWlQlrzQORZfZb");
+
+        for (int i = 0; i < ids.size(); i++) {
+            assertThat(idBlock.add(ids.get(i)), is(i));
+        }
+
+        assertThat(idBlock.size(), is(4));
+        assertThat(idBlock.bytesPerId(), is(18));
+        for (int i = 0; i < ids.size(); i++) {
+            assertThat(idBlock.get(i).toString(), is(ids.get(i)));
+        }
+
+        StringBuilder text = new StringBuilder();
+        idBlock.writeText(text);
+        assertThat(text.toString(), is(String.join("\n", ids) + "\n"));
+
+        ByteArrayOutputStream packed = new ByteArrayOutputStream();
+        idBlock.writePacked(packed);
+        assertThat(packed.size(), is(4 * 18));
+    }
+
+    @Test
+    public void lengthsThatDoNotFillWholeBytes() {
+        IdBlock idBlock = new IdBlock("0123456789abcdef", 5, 0);
+        idBlock.add("f0a9e");
+        idBlock.add("00001");
+
+        assertThat(idBlock.bytesPerId(), is(4));
+        assertThat(idBlock.get(0).toString(), is("f0a9e"));
+        assertThat(idBlock.get(1).toString(), is("00001"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsCharactersOutsideTheAlphabet() {
+        new IdBlock(ALPHABET, 24, 1).add("AAAAAAAAAAAAAAAAAAAAAAA-");
+    }
+
+    @Test
+    public void generatesAFileIntoABlock() throws Exception {
+        TransactionGenerator tr = new TransactionGenerator();
+        IdBlock idBlock = tr.generateAllAlphaNumericIDBlock("src/main/java/1000_line_csv.csv", true);
+
+        assertThat(idBlock.size(), is(10_000));
+        for (int i = 0; i < idBlock.size(); i++) {
+            assertThat(idBlock.get(i).toString().matches("[A-Za-z0-9]{24}"), is(true));
+        }
+        System.out.println("Packed " + idBlock.size() + " IDs into " + (idBlock.size() * idBlock.bytesPerId())
+                + " bytes");
+    }
+}
@@ -0,0 +1,213 @@
+/*
+ Author: Samuel Agyakwa
+ Date: 02/20/2020
+ */
+
+import org.junit.Test;
+import utils.IdBlock;
+import utils.IdFormat;
+
+import java.security.NoSuchAlgorithmException;
+import java.security.NoSuchProviderException;
+import java.util.Random;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class IdFormatTest {
+    private static final String BASE36_ALPHABET = "0123456789abcdefghijklmnopqrstuvwxyz";
+    private static final String DIGITS = "0123456789";
+    private static final int UNIFORMITY_IDS = 1_000;
+
+    @Test
+    public void powerOfTwoAlphabetsTakeExactlyTheirBits() {
+        byte[] hexBytes = {0x01, 0x23, 0x45, 0x67};
+        StringBuilder hexID = new StringBuilder();
+        assertThat(IdFormat.hex(8).appendRandomCharacters(hexBytes, 0, hexBytes.length, hexID), is(4));
+        assertThat(hexID.toString(), is("01234567"));
+
+        // 00000 00001 00010 00011 00100 00101 00110 00111
+        byte[] crockfordBytes = {0x00, 0x44, 0x32, 0x14, (byte) 0xC7};
+        StringBuilder crockfordID = new StringBuilder();
+        assertThat(IdFormat.crockfordBase32(8).appendRandomCharacters(crockfordBytes, 0, 5, crockfordID), is(5));
+        assertThat(crockfordID.toString(), is("01234567"));
+
+        // A cut short group only reads the bytes its characters need
+        StringBuilder shortID = new StringBuilder();
+        assertThat(IdFormat.crockfordBase32(3).appendRandomCharacters(crockfordBytes, 0, 5, shortID), is(2));
+        assertThat(shortID.toString(), is("012"));
+
+        assertThat(IdFormat.hex(32).randomBytesPerId(), is(16));
+        assertThat(IdFormat.crockfordBase32(26).randomBytesPerId(), is(17));
+        assertThat(IdFormat.base64Url(22).randomBytesPerId(), is(17));
+    }
+
+    @Test
+    public void otherAlphabetsRejectGroupsOutOfRange() {
+        // Base 62 takes 6 bits per character, and rejects the values 62 and 63
+        byte[] randomBytes = {(byte) 0b11111011, (byte) 0b11100000, 0b00000001};
+        StringBuilder id = new StringBuilder();
+        assertThat(IdFormat.base62(2).appendRandomCharacters(randomBytes, 0, randomBytes.length, id), is(3));
+        assertThat(id.toString(), is("Aa"));
+
+        // Running out of bytes leaves the ID short, to be topped up
+        StringBuilder shortID = new StringBuilder();
+        IdFormat.base62(4).appendRandomCharacters(randomBytes, 0, randomBytes.length, shortID);
+        assertThat(shortID.toString(), is("Aa"));
+    }
+
+    @Test
+    public void everyAlphabetIsUniformlyDistributed() {
+        String[] alphabets = {IdFormat.BASE62_ALPHABET, IdFormat.CROCKFORD_BASE32_ALPHABET, IdFormat.HEX_ALPHABET,
+                IdFormat.BASE64_URL_ALPHABET, BASE36_ALPHABET, DIGITS};
+        Random random = new Random(20200220);
+        for (String alphabet : alphabets) {
+            IdFormat idFormat = new IdFormat(alphabet, 1_000);
+            byte[] randomBytes = new byte[idFormat.randomBytesPerId()];
+            StringBuilder id = new StringBuilder(idFormat.getLength());
+            long[] counts = new long[alphabet.length()];
+            for (int ids = 0; ids < UNIFORMITY_IDS; ids++) {
+                random.nextBytes(randomBytes);
+                id.setLength(0);
+                idFormat.appendRandomCharacters(randomBytes, 0, randomBytes.length, id);
+                assertThat(id.length(), is(idFormat.getLength()));
+                for (int i = 0; i < id.length(); i++) {
+                    counts[idFormat.indexOf(id.charAt(i))]++;
+                }
+            }
+            double chiSquare = chiSquare(counts);
+            System.out.println("Base " + alphabet.length() + ": " + idFormat.getEncoder().bitsPerCharacter()
+                    + " bits per character, chi-square " + chiSquare);
+            assertThat(chiSquare < criticalValue(alphabet.length() - 1), is(true));
+        }
+    }
+
+    @Test
+    public void everyCharacterIsHitByTheSameNumberOfValues() {
+        // Every 6 bit value once: base 62 maps 0 to 61 to one character each, and rejects 62 and 63
+        byte[] everySixBitValue = new byte[64 * 6 / Byte.SIZE];
+        for (int value = 0; value < 64; value++) {
+            for (int bit = 0; bit < 6; bit++) {
+                if ((value >> (5 - bit) & 1) != 0) {
+                    int position = value * 6 + bit;
+                    everySixBitValue[position / Byte.SIZE] |= 0x80 >> position % Byte.SIZE;
+                }
+            }
+        }
+        StringBuilder base62ID = new StringBuilder();
+        IdFormat.base62(64).appendRandomCharacters(everySixBitValue, 0, everySixBitValue.length, base62ID);
+        assertThat(base62ID.toString(), is(IdFormat.BASE62_ALPHABET));
+
+        // Every byte value once: hex maps each to two characters, so every character is hit 32 times
+        byte[] everyByteValue = new byte[256];
+        for (int i = 0; i < everyByteValue.length; i++) {
+            everyByteValue[i] = (byte) i;
+        }
+        IdFormat hexFormat = IdFormat.hex(512);
+        StringBuilder hexID = new StringBuilder();
+        hexFormat.appendRandomCharacters(everyByteValue, 0, everyByteValue.length, hexID);
+        int[] counts = new int[IdFormat.HEX_ALPHABET.length()];
+        for (int i = 0; i < hexID.length(); i++) {
+            counts[hexFormat.indexOf(hexID.charAt(i))]++;
+        }
+        for (int count : counts) {
+            assertThat(count, is(32));
+        }
+    }
+
+    @Test
+    public void usesLessRandomnessThanAByteLookupTable() {
+        IdFormat idFormat = IdFormat.base62(24);
+        Random random = new Random(1);
+        byte[] randomBytes = new byte[1 << 20];
+        random.nextBytes(randomBytes);
+
+        int encoderPosition = 0;
+        int ids = 0;
+        StringBuilder id = new StringBuilder(24);
+        // Stops well before the end, so it never runs out of bytes part way through an ID
+        while (encoderPosition + 64 <= randomBytes.length) {
+            id.setLength(0);
+            encoderPosition = idFormat.appendRandomCharacters(randomBytes, encoderPosition, randomBytes.length, id);
+            ids++;
+        }
+
+        // A byte per character, with the 8 byte values past the last multiple of 62 rejected
+        double lookupTableBytesPerId = 24 * 256.0 / 248;
+        System.out.println("Random bytes per base 62 ID: " + (double) encoderPosition / ids + " encoded, "
+                + lookupTableBytesPerId + " with a byte lookup table");
+        assertThat(encoderPosition < ids * lookupTableBytesPerId * 4 / 5, is(true));
+        assertThat(idFormat.randomBytesPerId() < 32, is(true));
+    }
+
+    @Test
+    public void checkCharacterCatchesMistypedCharacters() {
+        IdFormat idFormat = IdFormat.crockfordBase32(12).withPrefix("cus_").withCheckCharacter();
+        byte[] randomBytes = new byte[idFormat.randomBytesPerId()];
+        new Random(7).nextBytes(randomBytes);
+        StringBuilder id = new StringBuilder(idFormat.getPrefix());
+        idFormat.appendRandomCharacters(randomBytes, 0, randomBytes.length, id);
+        idFormat.appendCheckCharacter(id);
+
+        assertThat(id.length(), is(idFormat.getTotalLength()));
+        assertThat(id.toString().startsWith("cus_"), is(true));
+        assertThat(idFormat.isValid(id), is(true));
+        for (int i = idFormat.getPrefix().length(); i < id.length(); i++) {
+            for (char replacement : IdFormat.CROCKFORD_BASE32_ALPHABET.toCharArray()) {
+                if (replacement != id.charAt(i)) {
+                    StringBuilder mistyped = new StringBuilder(id);
+                    mistyped.setCharAt(i, replacement);
+                    assertThat(idFormat.isValid(mistyped), is(false));
+                }
+            }
+        }
+        assertThat(idFormat.isValid("cux_" + id.substring(4)), is(false));
+        assertThat(idFormat.isValid(id.substring(1)), is(false));
+    }
+
+    @Test
+    public void engineGeneratesIDsOfTheFormat() throws NoSuchAlgorithmException, NoSuchProviderException {
+        IdFormat idFormat = IdFormat.crockfordBase32(26).withPrefix("txn_").withCheckCharacter();
+        DRBGEngine engine = new DRBGEngine();
+        engine.setIdFormat(idFormat);
+        IdBlock idBlock = new IdBlock(idFormat, 0);
+
+        for (int i = 0; i < 1_000; i++) {
+            String id = engine.generate("10,AU,Australia " + i).toString();
+            assertThat(id.matches("txn_[0-9A-HJKMNP-TV-Z]{27}"), is(true));
+            assertThat(idFormat.isValid(id), is(true));
+            assertThat(idBlock.get(idBlock.add(id)).toString(), is(id));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void refusesAlphabetsWithRepeatedCharacters() {
+        new IdFormat("0123456789abcdea", 10);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void refusesCharactersThatBreakCSVOutput() {
+        IdFormat.hex(10).withPrefix("id,");
+    }
+
+    // Pearson's chi-square statistic against a uniform distribution over the alphabet
+    private static double chiSquare(long[] counts) {
+        long total = 0;
+        for (long count : counts) {
+            total += count;
+        }
+
+        double expected = (double) total / counts.length;
+        double chiSquare = 0;
+        for (long count : counts) {
+            chiSquare += (count - expected) * (count - expected) / expected;
+        }
+        return chiSquare;
+    }
+
+    // Wilson-Hilferty approximation of the chi-square critical value at a significance level of 0.0001
+    private static double criticalValue(int degreesOfFreedom) {
+        double spread = 2.0 / (9 * degreesOfFreedom);
+        return degreesOfFreedom * Math.pow(1 - spread + 3.719 * Math.sqrt(spread), 3);
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ Author: Samuel Agyakwa
+ Date: 02/20/2020
+ */
+
+import org.junit.Test;
+import utils.LockFreeRingBuffer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class LockFreeRingBufferTest {
+    @Test
+    public void offerAndPollInOrderUntilFull() {
+        LockFreeRingBuffer<Integer> ringBuffer = new LockFreeRingBuffer<>(3);
+        assertThat(ringBuffer.capacity(), is(4));
+
+        for (int i = 0; i < 4; i++) {
+            assertThat(ringBuffer.offer(i), is(true));
+        }
+        assertThat(ringBuffer.offer(4), is(false));
+        assertThat(ringBuffer.size(), is(4));
+
+        for (int i = 0; i < 4; i++) {
+            assertThat(ringBuffer.poll(), is(i));
+        }
+        assertThat(ringBuffer.poll(), nullValue());
+        assertThat(ringBuffer.size(), is(0));
+    }
+
+    @Test
+    public void everyElementIsConsumedExactlyOnce() throws InterruptedException {
+        final int producers = 2;
+        final int consumers = 4;
+        final int elementsPerProducer = 200_000;
+        LockFreeRingBuffer<Integer> ringBuffer = new LockFreeRingBuffer<>(1024);
+        AtomicIntegerArray timesConsumed = new AtomicIntegerArray(producers * elementsPerProducer);
+
+        List<Thread> threads = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            final int firstElement = p * elementsPerProducer;
+            threads.add(new Thread(() -> {
+                for (int i = 0; i < elementsPerProducer; i++) {
+                    while (!ringBuffer.offer(firstElement + i)) {
+                        Thread.yield();
+                    }
+                }
+            }));
+        }
+        for (int c = 0; c < consumers; c++) {
+            threads.add(new Thread(() -> {
+                while (!Thread.currentThread().isInterrupted()) {
+                    Integer element = ringBuffer.poll();
+                    if (element != null) {
+                        timesConsumed.incrementAndGet(element);
+                    } else {
+                        Thread.yield();
+                    }
+                }
+            }));
+        }
+
+        threads.forEach(Thread::start);
+        for (int p = 0; p < producers; p++) {
+            threads.get(p).join();
+        }
+        while (ringBuffer.size() > 0) {
+            Thread.sleep(1);
+        }
+        Thread.sleep(10); // Let consumers finish the elements they already claimed
+        for (int c = producers; c < threads.size(); c++) {
+            threads.get(c).interrupt();
+            threads.get(c).join();
+        }
+
+        for (int element = 0; element < timesConsumed.length(); element++) {
+            assertThat(timesConsumed.get(element), is(1));
+        }
+    }
+}
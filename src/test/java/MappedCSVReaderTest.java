@@ -0,0 +1,95 @@
+/*
+ Author: Samuel Agyakwa
+ Date: 02/20/2020
+ */
+
+import org.junit.Test;
+import utils.MappedCSVReader;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class MappedCSVReaderTest {
+    private static final String CSV = "10,AU,Australia\r\n"
+            + "10,AU,Aus\"\"tralia\n"
+            + "\"10\",\"AU\",\"Australia\"\n"
+            + "\"10\",\"AU\",\"Aus\"\"tralia\"\n"
+            + "\"10\",\"AU\",\"Aus,tralia\"\n"
+            + "\"10\",\"AU\",\"Aus\ntralia\"\n"
+            + "11,NZ,New Zealand";
+
+    private static final List<String> EXPECTED_ROWS = Arrays.asList("10AUAustralia", "10AUAus\"tralia",
+            "10AUAustralia", "10AUAus\"tralia", "10AUAus,tralia", "10AUAus\ntralia", "11NZNew Zealand");
+
+    @Test
+    public void parsesRowsLikeCustomCSVReader() throws IOException {
+        assertThat(readAll(CSV, false, MappedCSVReader.DEFAULT_SEGMENT_SIZE), is(EXPECTED_ROWS));
+    }
+
+    @Test
+    public void rowsMayCrossSegmentBoundaries() throws IOException {
+        for (int segmentSize = 1; segmentSize < 16; segmentSize++) {
+            assertThat(readAll(CSV, false, segmentSize), is(EXPECTED_ROWS));
+        }
+    }
+
+    @Test
+    public void skipsTheHeader() throws IOException {
+        assertThat(readAll(CSV, true, 5), is(EXPECTED_ROWS.subList(1, EXPECTED_ROWS.size())));
+    }
+
+    @Test
+    public void resumesFromARowEndOffset() throws IOException {
+        Path csvFile = Files.createTempFile("mapped", ".csv");
+        try {
+            Files.write(csvFile, CSV.getBytes(StandardCharsets.UTF_8));
+            MappedCSVReader csvReader = new MappedCSVReader(7);
+            List<Long> rowEndOffsets = new ArrayList<>();
+            csvReader.read(csvFile, false, (rowBuffer, rowLength) -> rowEndOffsets.add(csvReader.getRowEndOffset()));
+            assertThat(rowEndOffsets.get(rowEndOffsets.size() - 1), is(Files.size(csvFile)));
+
+            // Starting at the end of any row reads exactly the rows after it
+            for (int row = 0; row < rowEndOffsets.size(); row++) {
+                List<String> rows = new ArrayList<>();
+                csvReader.read(csvFile, rowEndOffsets.get(row), false, (rowBuffer, rowLength) ->
+                        rows.add(new String(rowBuffer, 0, rowLength, StandardCharsets.UTF_8)));
+                assertThat(rows, is(EXPECTED_ROWS.subList(row + 1, EXPECTED_ROWS.size())));
+            }
+        } finally {
+            Files.delete(csvFile);
+        }
+    }
+
+    @Test
+    public void generatesOneIDPerMappedRow() throws Exception {
+        TransactionGenerator tr = new TransactionGenerator();
+        List<StringBuilder> ids = tr.generateAllAlphaNumericIDMapped("src/main/java/1000_line_csv.csv", true);
+
+        assertThat(ids.size(), is(tr.generateAllAlphaNumericID("src/main/java/1000_line_csv.csv").size()));
+        for (StringBuilder id : ids) {
+            assertThat(id.toString().matches("[A-Za-z0-9]{24}"), is(true));
+        }
+    }
+
+    private static List<String> readAll(String csv, boolean withHeader, int segmentSize) throws IOException {
+        Path csvFile = Files.createTempFile("mapped", ".csv");
+        try {
+            Files.write(csvFile, csv.getBytes(StandardCharsets.UTF_8));
+            List<String> rows = new ArrayList<>();
+            long rowCount = new MappedCSVReader(segmentSize).read(csvFile, withHeader,
+                    (rowBuffer, rowLength) -> rows.add(new String(rowBuffer, 0, rowLength, StandardCharsets.UTF_8)));
+            assertThat(rowCount, is((long) rows.size()));
+            return rows;
+        } finally {
+            Files.delete(csvFile);
+        }
+    }
+}
@@ -0,0 +1,126 @@
+/*
+ Author: Samuel Agyakwa
+ Date: 02/20/2020
+ */
+
+import org.junit.Test;
+import utils.IDCollisionIndex;
+import utils.IdBlock;
+import utils.IdFormat;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.NoSuchAlgorithmException;
+import java.security.NoSuchProviderException;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class ParallelIDGeneratorTest {
+    private static final double MIN_ALL_CORES_RELATIVE_RATE = 0.8;
+
+    @Test
+    public void generatesOneIDPerRowOnACustomExecutor()
+            throws IOException, NoSuchAlgorithmException, NoSuchProviderException {
+        StringBuilder csv = new StringBuilder();
+        for (int i = 0; i < 1_000; i++) {
+            csv.append(i).append(",AU,\"Aus,tralia\"\n");
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        try (ParallelIDGenerator generator = new ParallelIDGenerator(executor, 3, 64)) {
+            List<StringBuilder> ids = generator.generateAll(new BufferedReader(new StringReader(csv.toString())));
+
+            Set<String> uniqueIDs = new HashSet<>();
+            for (StringBuilder id : ids) {
+                assertThat(id.toString().matches("[A-Za-z0-9]{24}"), is(true));
+                uniqueIDs.add(id.toString());
+            }
+            assertThat(ids.size(), is(1_000));
+            assertThat(uniqueIDs.size(), is(1_000));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void parallelGenerationMatchesSequentialCount() throws Exception {
+        TransactionGenerator tr = new TransactionGenerator();
+        List<StringBuilder> sequential = tr.generateAllAlphaNumericID("src/main/java/1000_line_csv.csv");
+        List<StringBuilder> parallel = tr.generateAllAlphaNumericIDParallel("src/main/java/1000_line_csv.csv", true, 2);
+
+        assertThat(parallel.size(), is(sequential.size()));
+    }
+
+    @Test
+    public void parallelGenerationUsesTheGeneratorSettings() throws Exception {
+        Path indexFile = Files.createTempFile("issued", ".index");
+        Files.delete(indexFile);
+        IdFormat idFormat = IdFormat.crockfordBase32(26).withPrefix("cus_");
+        try (IDCollisionIndex collisionIndex = IDCollisionIndex.open(indexFile, new IdBlock(idFormat, 0).bytesPerId(),
+                20_000)) {
+            TransactionGenerator tr = new TransactionGenerator();
+            tr.setIdFormat(idFormat);
+            tr.enableUniquenessGuard(collisionIndex);
+            List<StringBuilder> ids = tr.generateAllAlphaNumericIDParallel("src/main/java/1000_line_csv.csv", true, 2);
+
+            for (StringBuilder id : ids) {
+                assertThat(idFormat.isValid(id), is(true));
+            }
+            assertThat(collisionIndex.size(), is((long) ids.size()));
+        } finally {
+            Files.deleteIfExists(indexFile);
+        }
+    }
+
+    @Test(expected = NoSuchAlgorithmException.class)
+    public void parallelGenerationUsesTheGeneratorMechanism() throws Exception {
+        TransactionGenerator tr = new TransactionGenerator();
+        tr.setDRBGMechanism("NO_SUCH_DRBG");
+        tr.generateAllAlphaNumericIDParallel("src/main/java/1000_line_csv.csv", true, 2);
+    }
+
+    @Test
+    public void scalingFromOneToAllCores() throws IOException, NoSuchAlgorithmException, NoSuchProviderException {
+        StringBuilder csv = new StringBuilder();
+        for (int i = 0; i < 50_000; i++) {
+            csv.append(i).append(",A.K. ASSOCIATES INC.,AMIN,,41 WALPOLE STREET,,SHARON,MA,02067\n");
+        }
+
+        int cores = Runtime.getRuntime().availableProcessors();
+        long singleThreadRate = 0;
+        long allCoresRate = 0;
+        for (int parallelism = 1; parallelism <= cores; parallelism = nextParallelism(parallelism, cores)) {
+            try (ParallelIDGenerator generator = new ParallelIDGenerator(parallelism)) {
+                long startTime = System.nanoTime();
+                List<StringBuilder> ids = generator.generateAll(new BufferedReader(new StringReader(csv.toString())));
+                long elapsedTime = System.nanoTime() - startTime;
+                assertThat(ids.size(), is(50_000));
+
+                long idsPerSecond = 50_000L * 1_000_000_000L / elapsedTime;
+                System.out.println(parallelism + " thread(s): " + idsPerSecond + " IDs/second");
+                if (parallelism == 1) {
+                    singleThreadRate = idsPerSecond;
+                }
+                allCoresRate = idsPerSecond;
+            }
+        }
+
+        // Engines are never shared, so more threads must not make it slower. The margin is for a busy machine, and the
+        // speedup itself depends on the number of cores, so only the numbers above show it
+        assertThat(allCoresRate >= singleThreadRate * MIN_ALL_CORES_RELATIVE_RATE, is(true));
+    }
+
+    // Doubles the parallelism, but always finishes with a run on every core
+    private static int nextParallelism(int parallelism, int cores) {
+        return parallelism < cores && parallelism * 2 > cores ? cores : parallelism * 2;
+    }
+}
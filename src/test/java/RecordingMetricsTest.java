@@ -0,0 +1,106 @@
+/*
+ Author: Samuel Agyakwa
+ Date: 02/20/2020
+ */
+
+import org.junit.Test;
+import utils.GenerationMetrics;
+import utils.LatencyHistogram;
+import utils.RecordingMetrics;
+
+import javax.management.ObjectName;
+import javax.management.openmbean.TabularData;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class RecordingMetricsTest {
+    @Test
+    public void percentilesAreWithinOneBucket() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long value = 1; value <= 10_000; value++) {
+            histogram.record(value);
+        }
+
+        assertThat(histogram.getCount(), is(10_000L));
+        assertThat(histogram.getMean(), is(5_000L));
+        assertThat(histogram.getMax(), is(10_000L));
+        for (double quantile : new double[]{0.5, 0.9, 0.99}) {
+            long exact = (long) (quantile * 10_000);
+            assertThat(histogram.percentile(quantile) >= exact, is(true));
+            assertThat(histogram.percentile(quantile) <= exact * 1.125, is(true));
+        }
+        assertThat(histogram.percentile(1), is(10_000L));
+
+        histogram.reset();
+        assertThat(histogram.percentile(0.5), is(0L));
+    }
+
+    @Test
+    public void recordsEveryPhaseOfARun() throws Exception {
+        RecordingMetrics metrics = new RecordingMetrics();
+        TransactionGenerator tr = new TransactionGenerator();
+        tr.setMetrics(metrics);
+
+        List<StringBuilder> ids = tr.generateAllAlphaNumericID("src/main/java/1000_line_csv.csv");
+
+        assertThat(metrics.getCounts().get("CSV_PARSE"), is((long) ids.size()));
+        assertThat(metrics.getCounts().get("DRBG_SEED"), is(1L));
+        assertThat(metrics.getCounts().get("BYTE_DRAW"), is((long) ids.size()));
+        assertThat(metrics.getCounts().get("CHARACTER_MAPPING"), is((long) ids.size()));
+        assertThat(metrics.getMedianNanos().get("BYTE_DRAW") > 0, is(true));
+        System.out.print(metrics);
+    }
+
+    @Test
+    public void isReadableOverJMX() throws Exception {
+        RecordingMetrics metrics = new RecordingMetrics();
+        metrics.record(GenerationMetrics.Phase.BYTE_DRAW, 1_000);
+        metrics.record(GenerationMetrics.Phase.BYTE_DRAW, 3_000);
+
+        ObjectName objectName = metrics.register("RecordingMetricsTest");
+        try {
+            TabularData counts = (TabularData) ManagementFactory.getPlatformMBeanServer()
+                    .getAttribute(objectName, "Counts");
+            assertThat(counts.get(new Object[]{"BYTE_DRAW"}).get("value"), is(2L));
+
+            TabularData means = (TabularData) ManagementFactory.getPlatformMBeanServer()
+                    .getAttribute(objectName, "MeanNanos");
+            assertThat(means.get(new Object[]{"BYTE_DRAW"}).get("value"), is(2_000L));
+        } finally {
+            RecordingMetrics.unregister(objectName);
+        }
+    }
+
+    @Test
+    public void disabledMetricsCostNextToNothing() throws Exception {
+        final int ids = 20_000;
+        DRBGEngine engine = new DRBGEngine(DRBGEngine.HASH_DRBG, "overhead".getBytes(StandardCharsets.UTF_8));
+        String customerRow = "13342870113f5f7781cf665A.K. ASSOCIATES INC.AMIN41 WALPOLE STREETSHARONMA02067";
+
+        // Alternate between the two a few times, so warm-up doesn't count against either
+        long disabledNanos = 0;
+        long recordingNanos = 0;
+        for (int round = 0; round < 4; round++) {
+            engine.setMetrics(GenerationMetrics.DISABLED);
+            long startTime = System.nanoTime();
+            for (int i = 0; i < ids; i++) {
+                engine.generate(customerRow);
+            }
+            disabledNanos = System.nanoTime() - startTime;
+
+            engine.setMetrics(new RecordingMetrics());
+            startTime = System.nanoTime();
+            for (int i = 0; i < ids; i++) {
+                engine.generate(customerRow);
+            }
+            recordingNanos = System.nanoTime() - startTime;
+        }
+
+        System.out.println("Metrics disabled: " + (disabledNanos / ids) + " nanoseconds per ID, recording: "
+                + (recordingNanos / ids) + " nanoseconds per ID");
+    }
+}
@@ -0,0 +1,139 @@
+/*
+ Author: Samuel Agyakwa
+ Date: 02/20/2020
+ */
+
+import org.junit.Test;
+import utils.IDCollisionIndex;
+import utils.IdBlock;
+import utils.IdFormat;
+import utils.ReseedPolicy;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class ReseedPolicyTest {
+    private static final String CUSTOMER_ROW = "13342870113f5f7781cf665A.K. ASSOCIATES INC.AMIN41 WALPOLE STREETSHARONMA02067";
+
+    @Test
+    public void countPoliciesReseedOnceTheLimitIsReached() throws Exception {
+        // The 11th, 21st, ... 91st draw find the limit reached
+        assertThat(reseedsFor(ReseedPolicy.everyIds(10), 100), is(9L));
+        int bytesPerId = DRBGEngine.DEFAULT_ID_FORMAT.randomBytesPerId();
+        assertThat(reseedsFor(ReseedPolicy.everyBytes(10 * bytesPerId), 100), is(9L));
+        assertThat(reseedsFor(ReseedPolicy.everyBytes(1), 100), is(100L * bytesPerId - 1)); // Before every byte
+        assertThat(reseedsFor(ReseedPolicy.predictionResistanceOnEveryCall(), 100), is(100L));
+        assertThat(reseedsFor(ReseedPolicy.never(), 100), is(0L));
+    }
+
+    @Test
+    public void batchesAreSplitAtTheLimit() throws Exception {
+        DRBGEngine engine = newEngine();
+        engine.setReseedPolicy(ReseedPolicy.everyIds(10));
+        List<String> batch = new ArrayList<>();
+        for (int i = 0; i < 25; i++) {
+            batch.add(CUSTOMER_ROW + i);
+        }
+
+        // Drawn as 10 + 10 + 5 IDs, with a reseed before the 11th and the 21st
+        assertValidIDs(engine.generateBatch(batch), 25);
+        assertThat(engine.getReseeds(), is(2L));
+        // The first 5 IDs of the next batch fill up the last piece, then the 11th ID of every 10 reseeds again
+        assertValidIDs(engine.generateBatch(batch), 25);
+        assertThat(engine.getReseeds(), is(4L));
+
+        int bytesPerId = DRBGEngine.DEFAULT_ID_FORMAT.randomBytesPerId();
+        engine = newEngine();
+        engine.setReseedPolicy(ReseedPolicy.everyBytes(4 * bytesPerId + 1)); // Limits that fall inside an ID
+        assertValidIDs(engine.generateBatch(batch), 25);
+        assertThat(engine.getReseeds(), is((25L * bytesPerId - 1) / (4 * bytesPerId + 1)));
+    }
+
+    @Test
+    public void timedPolicyReseedsAfterTheInterval() throws Exception {
+        DRBGEngine engine = newEngine();
+        engine.setReseedPolicy(ReseedPolicy.everyMillis(50));
+        engine.generate(CUSTOMER_ROW);
+        assertThat(engine.getReseeds(), is(0L));
+
+        Thread.sleep(60);
+        engine.generate(CUSTOMER_ROW);
+        engine.generate(CUSTOMER_ROW);
+        assertThat(engine.getReseeds(), is(1L));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsAZeroLimit() {
+        ReseedPolicy.everyIds(0);
+    }
+
+    @Test
+    public void throughputPerPolicy() throws Exception {
+        final long budgetNanos = 300_000_000L;
+        for (ReseedPolicy reseedPolicy : Arrays.asList(ReseedPolicy.never(), ReseedPolicy.everyIds(10_000),
+                ReseedPolicy.everyIds(100), ReseedPolicy.everyMillis(10), ReseedPolicy.everyBytes(1 << 16),
+                ReseedPolicy.predictionResistanceOnEveryCall())) {
+            DRBGEngine engine = newEngine();
+            engine.setReseedPolicy(reseedPolicy);
+
+            long generatedIDs = 0;
+            long startTime = System.nanoTime();
+            while (System.nanoTime() - startTime < budgetNanos) {
+                engine.generate(CUSTOMER_ROW);
+                generatedIDs++;
+            }
+            long elapsedTime = System.nanoTime() - startTime;
+
+            System.out.println(reseedPolicy + ": " + generatedIDs * 1_000_000_000L / elapsedTime + " IDs per second, "
+                    + engine.getReseeds() + " reseeds");
+        }
+    }
+
+    @Test
+    public void uniquenessRedrawsFollowThePolicy() throws Exception {
+        Path indexFile = Files.createTempFile("reseed-collisions", ".idx");
+        DRBGEngine engine = newEngine();
+        IdFormat idFormat = IdFormat.hex(1); // 16 possible IDs, so 14 IDs almost surely collide
+        engine.setIdFormat(idFormat);
+        engine.setReseedPolicy(ReseedPolicy.predictionResistanceOnEveryCall());
+        try (IDCollisionIndex collisionIndex = IDCollisionIndex.open(indexFile, new IdBlock(idFormat, 0).bytesPerId(),
+                16)) {
+            engine.setCollisionIndex(collisionIndex);
+            for (int i = 0; i < 14; i++) {
+                engine.generate(CUSTOMER_ROW);
+            }
+        } finally {
+            Files.delete(indexFile);
+        }
+
+        // Every redraw is a prediction resistant draw too
+        assertThat(engine.getReseeds(), is(14 + engine.getCollisions()));
+    }
+
+    private static void assertValidIDs(List<StringBuilder> ids, int count) {
+        assertThat(ids.size(), is(count));
+        for (StringBuilder id : ids) {
+            assertThat(DRBGEngine.DEFAULT_ID_FORMAT.isValid(id), is(true));
+        }
+    }
+
+    private static long reseedsFor(ReseedPolicy reseedPolicy, int ids) throws Exception {
+        DRBGEngine engine = newEngine();
+        engine.setReseedPolicy(reseedPolicy);
+        for (int i = 0; i < ids; i++) {
+            engine.generate(CUSTOMER_ROW);
+        }
+        return engine.getReseeds();
+    }
+
+    private static DRBGEngine newEngine() throws Exception {
+        return new DRBGEngine(DRBGEngine.HASH_DRBG, "ReseedPolicyTest".getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ Author: Samuel Agyakwa
+ Date: 02/20/2020
+ */
+
+import com.sun.management.ThreadMXBean;
+import org.junit.Test;
+import utils.ColumnProjection;
+import utils.CustomCSVReader;
+import utils.MappedCSVReader;
+import utils.RowDigest;
+
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class RowDigestTest {
+    @Test
+    public void digestsFieldsWithTheirIndexAndLength() throws Exception {
+        StringBuilder longField = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            longField.append("é😀€a");
+        }
+        String[] fields = {"10", "", "Zürich", longField.toString(), "bad \uD800 surrogate"};
+
+        RowDigest rowDigest = new RowDigest();
+        MessageDigest expectedDigest = MessageDigest.getInstance("SHA-256");
+        for (int i = 0; i < fields.length; i++) {
+            rowDigest.onField(i, fields[i]);
+            expectedDigest.update(ByteBuffer.allocate(8).putInt(i).putInt(fields[i].length()).array());
+            expectedDigest.update(fields[i].getBytes(StandardCharsets.UTF_8));
+        }
+
+        byte[] digest = rowDigest.finish();
+        assertThat(digest.length, is(RowDigest.DIGEST_SIZE));
+        assertThat(Arrays.equals(digest, expectedDigest.digest()), is(true));
+    }
+
+    @Test
+    public void fieldBoundariesChangeTheDigest() {
+        RowDigest rowDigest = new RowDigest();
+        rowDigest.onField(0, "ab");
+        rowDigest.onField(1, "c");
+        byte[] splitAfterB = rowDigest.finish().clone();
+        rowDigest.onField(0, "a");
+        rowDigest.onField(1, "bc");
+        byte[] splitAfterA = rowDigest.finish().clone();
+
+        assertThat(Arrays.equals(splitAfterA, splitAfterB), is(false));
+        assertThat(Arrays.equals(rowDigest.digest("abc"), rowDigest.digest("abc")), is(true));
+    }
+
+    @Test
+    public void mappedRowsDigestLikeParsedRows() throws Exception {
+        ColumnProjection columnProjection = ColumnProjection.of(0, 2);
+        Path csvFile = Files.createTempFile("rows", ".csv");
+        try {
+            Files.write(csvFile, "1,first,23\n1,second,23\n12,first,3\n".getBytes(StandardCharsets.UTF_8));
+            RowDigest rowDigest = new RowDigest();
+            List<byte[]> digests = new ArrayList<>();
+            MappedCSVReader mappedCSVReader = new MappedCSVReader();
+            mappedCSVReader.read(csvFile, false, (rowBuffer, rowLength) -> digests.add(rowDigest.digest(rowBuffer,
+                    mappedCSVReader.getFieldEnds(), mappedCSVReader.getFieldCount(), columnProjection).clone()));
+
+            CustomCSVReader csvReader = new CustomCSVReader();
+            csvReader.setColumnProjection(columnProjection);
+            csvReader.parseLine("1,first,23", rowDigest);
+            assertThat(Arrays.equals(digests.get(0), rowDigest.finish()), is(true));
+            assertThat(Arrays.equals(digests.get(0), digests.get(1)), is(true)); // Only an unselected column differs
+            assertThat(Arrays.equals(digests.get(0), digests.get(2)), is(false));
+        } finally {
+            Files.delete(csvFile);
+        }
+    }
+
+    @Test
+    public void projectedRowsAreDigestedWithoutAllocating() {
+        ThreadMXBean threadMXBean = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+        StringBuilder wideRow = new StringBuilder("13342870113f5f7781cf665,A.K. ASSOCIATES INC.,4411223");
+        for (int column = 0; column < 200; column++) {
+            wideRow.append(",\"column ").append(column).append(", unused\"");
+        }
+        String row = wideRow.toString();
+        CustomCSVReader csvReader = new CustomCSVReader();
+        csvReader.setColumnProjection(ColumnProjection.of(0, 2));
+        RowDigest rowDigest = new RowDigest();
+        long[] digestBytes = new long[1];
+
+        // Warm up, so the field buffer has grown and the loop is compiled
+        for (int i = 0; i < 100_000; i++) {
+            csvReader.parseLine(row, rowDigest);
+            digestBytes[0] += rowDigest.finish()[0];
+        }
+
+        long threadId = Thread.currentThread().getId();
+        long allocatedBefore = threadMXBean.getThreadAllocatedBytes(threadId);
+        long startTime = System.nanoTime();
+        for (int i = 0; i < 1_000_000; i++) {
+            csvReader.parseLine(row, rowDigest);
+            digestBytes[0] += rowDigest.finish()[0];
+        }
+        long elapsedTime = System.nanoTime() - startTime;
+        long allocatedBytes = threadMXBean.getThreadAllocatedBytes(threadId) - allocatedBefore;
+
+        System.out.println("Projected digest of a " + row.length() + " character row: " + elapsedTime / 1_000_000
+                + " ns, " + ((double) allocatedBytes / 1_000_000) + " bytes allocated per row");
+        assertThat(allocatedBytes < 1_000_000, is(true));
+    }
+}
@@ -0,0 +1,166 @@
+/*
+ Author: Samuel Agyakwa
+ Date: 02/20/2020
+ */
+
+import org.junit.Test;
+import utils.IdFormat;
+import utils.RowIndex;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class RowIndexTest {
+    private static final IdFormat ID_FORMAT = IdFormat.hex(4);
+
+    @Test
+    public void claimsTheSamePositionFirstAndEveryRowOnce() {
+        RowIndex rowIndex = new RowIndex(ID_FORMAT, 0);
+        rowIndex.add(fingerprint("a"), "000a");
+        rowIndex.add(fingerprint("b"), "000b");
+        rowIndex.add(fingerprint("a"), "001a");
+        rowIndex.add(fingerprint("c"), "000c");
+
+        // "b" was deleted, so every row after it moved up by one
+        assertThat(rowIndex.claim(fingerprint("a"), 0), is(0));
+        assertThat(rowIndex.claim(fingerprint("a"), 1), is(2));
+        assertThat(rowIndex.claim(fingerprint("c"), 2), is(3));
+        assertThat(rowIndex.claim(fingerprint("a"), 3), is(-1));
+        assertThat(rowIndex.claim(fingerprint("d"), 4), is(-1));
+
+        assertThat(rowIndex.getClaimedCount(), is(3));
+        assertThat(rowIndex.isClaimed(1), is(false));
+        StringBuilder id = new StringBuilder();
+        rowIndex.appendID(2, id);
+        assertThat(id.toString(), is("001a"));
+    }
+
+    @Test
+    public void savesAndLoads() throws IOException {
+        Path indexFile = Files.createTempFile("rows", ".index");
+        try {
+            RowIndex rowIndex = new RowIndex(ID_FORMAT, 1);
+            for (int row = 0; row < 100; row++) {
+                rowIndex.add(fingerprint("row " + row), String.format("%04x", row));
+            }
+            rowIndex.save(indexFile);
+
+            RowIndex loadedIndex = RowIndex.load(indexFile, ID_FORMAT);
+            assertThat(loadedIndex.size(), is(100));
+            for (int row = 99; row >= 0; row--) {
+                assertThat(loadedIndex.claim(fingerprint("row " + row), 0), is(row));
+            }
+            assertThat(RowIndex.load(indexFile.resolveSibling("missing.index"), ID_FORMAT).size(), is(0));
+        } finally {
+            Files.delete(indexFile);
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void refusesAnIndexOfAnotherIDFormat() throws IOException {
+        Path indexFile = Files.createTempFile("rows", ".index");
+        try {
+            new RowIndex(ID_FORMAT, 0).save(indexFile);
+            RowIndex.load(indexFile, ID_FORMAT.withPrefix("id_"));
+        } finally {
+            Files.delete(indexFile);
+        }
+    }
+
+    @Test
+    public void onlyChangedRowsGetNewIDs() throws Exception {
+        List<String> csvLines = Files.readAllLines(Paths.get("src/main/java/1000_line_csv.csv"));
+        Path csvFile = Files.createTempFile("customers", ".csv");
+        Path indexFile = Files.createTempFile("customers", ".index");
+        Files.delete(indexFile);
+        try {
+            Files.write(csvFile, csvLines);
+            TransactionGenerator tr = new TransactionGenerator();
+            long startTime = System.nanoTime();
+            RowIndex.Delta firstRun = tr.generateAllAlphaNumericIDIncremental(csvFile.toString(), true,
+                    indexFile.toString());
+            long fullRunTime = System.nanoTime() - startTime;
+            int rows = csvLines.size() - 1;
+            assertThat(firstRun.getAppended(), is(rows));
+            assertThat(firstRun.getIds().size(), is(rows));
+
+            startTime = System.nanoTime();
+            RowIndex.Delta unchangedRun = tr.generateAllAlphaNumericIDIncremental(csvFile.toString(), true,
+                    indexFile.toString());
+            long unchangedRunTime = System.nanoTime() - startTime;
+            assertThat(unchangedRun.toString(), is(rows + " unchanged, 0 appended, 0 changed, 0 deleted"));
+            assertThat(text(unchangedRun.getIds()), is(text(firstRun.getIds())));
+
+            // Change the 5th row, delete the 10th, and append three
+            List<String> editedLines = new ArrayList<>(csvLines);
+            editedLines.set(5, editedLines.get(5) + " (changed)");
+            editedLines.remove(10);
+            editedLines.add("1,new customer");
+            editedLines.add("2,new customer");
+            editedLines.add("3,new customer");
+            Files.write(csvFile, editedLines);
+
+            RowIndex.Delta editedRun = tr.generateAllAlphaNumericIDIncremental(csvFile.toString(), true,
+                    indexFile.toString());
+            assertThat(editedRun.toString(), is((rows - 2) + " unchanged, 3 appended, 1 changed, 1 deleted"));
+            List<String> firstIDs = text(firstRun.getIds());
+            List<String> editedIDs = text(editedRun.getIds());
+            assertThat(editedIDs.subList(0, 4), is(firstIDs.subList(0, 4)));
+            assertThat(editedIDs.get(4), not(is(firstIDs.get(4))));
+            assertThat(editedIDs.subList(9, rows - 1), is(firstIDs.subList(10, rows)));
+
+            System.out.println("Full run: " + fullRunTime / 1_000_000 + " ms, unchanged run: "
+                    + unchangedRunTime / 1_000_000 + " ms for " + rows + " rows");
+        } finally {
+            Files.delete(csvFile);
+            Files.deleteIfExists(indexFile);
+        }
+    }
+
+    @Test
+    public void movingASeparatorChangesTheRow() throws Exception {
+        Path csvFile = Files.createTempFile("customers", ".csv");
+        Path indexFile = Files.createTempFile("customers", ".index");
+        Files.delete(indexFile);
+        try {
+            Files.write(csvFile, "1,23\n4,56\n".getBytes(StandardCharsets.UTF_8));
+            TransactionGenerator tr = new TransactionGenerator();
+            List<String> firstIDs = text(tr.generateAllAlphaNumericIDIncremental(csvFile.toString(), false,
+                    indexFile.toString()).getIds());
+
+            // The same parsed bytes, split into other fields
+            Files.write(csvFile, "12,3\n4,56\n".getBytes(StandardCharsets.UTF_8));
+            RowIndex.Delta editedRun = tr.generateAllAlphaNumericIDIncremental(csvFile.toString(), false,
+                    indexFile.toString());
+            assertThat(editedRun.toString(), is("1 unchanged, 0 appended, 1 changed, 0 deleted"));
+            List<String> editedIDs = text(editedRun.getIds());
+            assertThat(editedIDs.get(0), not(is(firstIDs.get(0))));
+            assertThat(editedIDs.get(1), is(firstIDs.get(1)));
+        } finally {
+            Files.delete(csvFile);
+            Files.deleteIfExists(indexFile);
+        }
+    }
+
+    private static byte[] fingerprint(String row) {
+        byte[] rowBytes = row.getBytes(StandardCharsets.UTF_8);
+        return new RowIndex.Fingerprinter().fingerprint(rowBytes, new int[]{rowBytes.length}, 1);
+    }
+
+    private static List<String> text(List<StringBuilder> ids) {
+        List<String> text = new ArrayList<>(ids.size());
+        for (StringBuilder id : ids) {
+            text.add(id.toString());
+        }
+        return text;
+    }
+}
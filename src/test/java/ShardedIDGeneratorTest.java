@@ -0,0 +1,126 @@
+/*
+ Author: Samuel Agyakwa
+ Date: 02/20/2020
+ */
+
+import org.junit.Test;
+import utils.IDOutputWriter;
+import utils.ShardManifest;
+import utils.SyntheticCSVGenerator;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class ShardedIDGeneratorTest {
+    private static final int ROWS = 3000;
+
+    @Test
+    public void mergesTheShardsOfLocalWorkersIntoInputOrder() throws IOException {
+        Path directory = Files.createTempDirectory("sharded");
+        Path csvFile = directory.resolve("customers.csv");
+        Path outputFile = directory.resolve("customer_ids.csv");
+        try {
+            new SyntheticCSVGenerator(9, 0.3, 0.3, 11).write(csvFile, ROWS, true);
+            long rowCount = new TransactionGenerator().generateAllAlphaNumericIDSharded(csvFile.toString(), true,
+                    outputFile.toString(), IDOutputWriter.Format.CSV, 3);
+
+            assertThat(rowCount, is((long) ROWS));
+            assertOutputHasEveryRow(outputFile, ROWS);
+            // Only the output is left once the merge is done
+            try (Stream<Path> files = Files.list(directory)) {
+                assertThat(files.count(), is(2L));
+            }
+        } finally {
+            deleteAll(directory);
+        }
+    }
+
+    @Test
+    public void onlyRerunsShardsThatAreNotDone() throws Exception {
+        Path directory = Files.createTempDirectory("sharded");
+        Path csvFile = directory.resolve("customers.csv");
+        Path outputFile = directory.resolve("customer_ids.csv");
+        try {
+            new SyntheticCSVGenerator(9, 0.3, 0.3, 12).write(csvFile, ROWS, true);
+            ShardedIDGenerator shardedIDGenerator = new ShardedIDGenerator(DRBGEngine.DEFAULT_ID_FORMAT,
+                    DRBGEngine.HASH_DRBG);
+            ShardManifest manifest = shardedIDGenerator.plan(csvFile, true, directory.resolve("run.manifest"), 3);
+
+            // Shard 1 finishes in this process, as if its worker ran on another host
+            long shardRows = ShardedIDGenerator.runWorker(manifest.getManifestFile(), 1);
+            byte[] shardOutput = Files.readAllBytes(manifest.getShardOutput(1));
+            assertThat(manifest.getDoneRowCount(1), is(shardRows));
+            assertThat(manifest.getDoneRowCount(0), is(-1L));
+
+            // Planning again keeps the run, and only shards 0 and 2 get a worker
+            ShardManifest samePlan = shardedIDGenerator.plan(csvFile, true, manifest.getManifestFile(), 3);
+            assertThat(samePlan.getRunId(), is(manifest.getRunId()));
+            shardedIDGenerator.runLocalWorkers(samePlan);
+            assertThat(Arrays.equals(Files.readAllBytes(manifest.getShardOutput(1)), shardOutput), is(true));
+
+            assertThat(ShardedIDGenerator.merge(samePlan, outputFile, IDOutputWriter.Format.CSV), is((long) ROWS));
+            assertOutputHasEveryRow(outputFile, ROWS);
+        } finally {
+            deleteAll(directory);
+        }
+    }
+
+    @Test
+    public void aChangedFileIsSplitAgain() throws Exception {
+        Path directory = Files.createTempDirectory("sharded");
+        Path csvFile = directory.resolve("customers.csv");
+        try {
+            new SyntheticCSVGenerator(9, 0.3, 0.3, 13).write(csvFile, 100, true);
+            ShardedIDGenerator shardedIDGenerator = new ShardedIDGenerator(DRBGEngine.DEFAULT_ID_FORMAT,
+                    DRBGEngine.HASH_DRBG);
+            ShardManifest manifest = shardedIDGenerator.plan(csvFile, true, directory.resolve("run.manifest"), 2);
+            Files.write(csvFile, "extra,row\n".getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+
+            // A worker won't generate from a file that changed after the split
+            try {
+                ShardedIDGenerator.runWorker(manifest.getManifestFile(), 0);
+                throw new AssertionError("The worker generated from a changed file");
+            } catch (IOException expected) {
+                assertThat(manifest.getDoneRowCount(0), is(-1L));
+            }
+            assertThat(shardedIDGenerator.plan(csvFile, true, manifest.getManifestFile(), 2).getRunId(),
+                    not(manifest.getRunId()));
+        } finally {
+            deleteAll(directory);
+        }
+    }
+
+    private static void assertOutputHasEveryRow(Path outputFile, int rows) throws IOException {
+        List<String> records = Files.readAllLines(outputFile, StandardCharsets.US_ASCII);
+        assertThat(records.size(), is(rows));
+        Set<String> ids = new HashSet<>();
+        for (int row = 0; row < rows; row++) {
+            String[] record = records.get(row).split(",");
+            assertThat(record[0], is(Integer.toString(row + 1)));
+            assertThat(DRBGEngine.DEFAULT_ID_FORMAT.isValid(record[1]), is(true));
+            ids.add(record[1]);
+        }
+        assertThat(ids.size(), is(rows));
+    }
+
+    private static void deleteAll(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(directory);
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ Author: Samuel Agyakwa
+ Date: 02/20/2020
+ */
+
+import org.junit.Test;
+import utils.CustomCSVReader;
+import utils.SyntheticCSVGenerator;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.stream.Stream;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class SyntheticCSVGeneratorTest {
+    @Test
+    public void sameShapeAndSeedGiveTheSameFile() throws IOException {
+        Path firstFile = Files.createTempFile("synthetic", ".csv");
+        Path secondFile = Files.createTempFile("synthetic", ".csv");
+        Path otherSeedFile = Files.createTempFile("synthetic", ".csv");
+        try {
+            long bytesWritten = new SyntheticCSVGenerator(12, 0.3, 0.1, 42).write(firstFile, 5_000, true);
+            new SyntheticCSVGenerator(12, 0.3, 0.1, 42).write(secondFile, 5_000, true);
+            new SyntheticCSVGenerator(12, 0.3, 0.1, 43).write(otherSeedFile, 5_000, true);
+
+            assertThat(Files.size(firstFile), is(bytesWritten));
+            assertThat(Arrays.equals(Files.readAllBytes(firstFile), Files.readAllBytes(secondFile)), is(true));
+            assertThat(Arrays.equals(Files.readAllBytes(firstFile), Files.readAllBytes(otherSeedFile)), is(false));
+        } finally {
+            Files.delete(firstFile);
+            Files.delete(secondFile);
+            Files.delete(otherSeedFile);
+        }
+    }
+
+    @Test
+    public void filesHaveTheRequestedShape() throws IOException {
+        Path csvFile = Files.createTempFile("synthetic", ".csv");
+        try {
+            new SyntheticCSVGenerator(15, 0.5, 0.2, 7).write(csvFile, 2_000, true);
+
+            int[] rowShape = new int[3]; // Rows, fields, fields with a line break
+            int[] fieldsInRow = new int[1];
+            CustomCSVReader csvReader = new CustomCSVReader();
+            try (BufferedReader bufferedReader = Files.newBufferedReader(csvFile, StandardCharsets.US_ASCII)) {
+                assertThat(csvReader.readRow(bufferedReader).startsWith("AccountCompanyFirstname"), is(true));
+                while (csvReader.readRow(bufferedReader, (fieldIndex, field) -> {
+                    fieldsInRow[0]++;
+                    for (int i = 0; i < field.length(); i++) {
+                        if (field.charAt(i) == '\n') {
+                            rowShape[2]++;
+                        }
+                    }
+                })) {
+                    assertThat(fieldsInRow[0], is(15));
+                    fieldsInRow[0] = 0;
+                    rowShape[0]++;
+                }
+            }
+
+            // Half of 30,000 fields quoted, a fifth of those with a line break
+            long physicalLines;
+            try (Stream<String> lines = Files.lines(csvFile)) {
+                physicalLines = lines.count();
+            }
+            assertThat(rowShape[0], is(2_000));
+            assertThat(rowShape[2] > 2_500 && rowShape[2] < 3_500, is(true));
+            assertThat(physicalLines, is(1L + 2_000 + rowShape[2]));
+        } finally {
+            Files.delete(csvFile);
+        }
+    }
+}
@@ -1,10 +1,19 @@
 import org.jetbrains.annotations.NotNull;
 import org.junit.Test;
+import utils.ColumnProjection;
+import utils.IDOutputWriter;
+import utils.IdBlock;
 
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.security.NoSuchAlgorithmException;
 import java.security.NoSuchProviderException;
 import java.security.Security;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
 
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.MatcherAssert.assertThat;
@@ -83,4 +92,116 @@ public class TransactionGeneratorTest {
             e.printStackTrace();
         }
     }
+
+    @Test
+    public void batchGenerationGivesOneIDPerLine() throws IOException {
+        TransactionGenerator tr = new TransactionGenerator();
+        long startTime = System.nanoTime();
+        List<StringBuilder> perIDList = tr.generateAllAlphaNumericID("src/main/java/1000_line_csv.csv", true, false, 1);
+        long perIDTime = System.nanoTime() - startTime;
+
+        startTime = System.nanoTime();
+        List<StringBuilder> batchList = tr.generateAllAlphaNumericID("src/main/java/1000_line_csv.csv", true, false, 256);
+        long batchTime = System.nanoTime() - startTime;
+
+        System.out.println("Per ID draws: " + perIDTime + " nanoseconds\nBatch draws: " + batchTime + " nanoseconds");
+        assertThat(batchList.size(), is(perIDList.size()));
+        assertThat(batchList.size(), is(10_000));
+    }
+
+    @Test
+    public void columnProjectionGivesOneIDPerLine()
+            throws IOException, NoSuchAlgorithmException, NoSuchProviderException {
+        // A wide export: the customer ID and the account number, among 200 other columns
+        List<String> csvLines = new ArrayList<>();
+        csvLines.add("customer_id,name,account_number");
+        for (int row = 0; row < 2_000; row++) {
+            StringBuilder csvLine = new StringBuilder().append(row).append(",\"Customer, ").append(row)
+                    .append("\",").append(4_000_000 + row);
+            for (int column = 0; column < 200; column++) {
+                csvLine.append(",unused column ").append(column);
+            }
+            csvLines.add(csvLine.toString());
+        }
+        Path csvFile = Files.createTempFile("wide", ".csv");
+        try {
+            Files.write(csvFile, csvLines);
+            TransactionGenerator tr = new TransactionGenerator();
+            tr.generateAllAlphaNumericID(csvFile.toString(), true, false, 1); // Warm up
+            long startTime = System.nanoTime();
+            assertThat(tr.generateAllAlphaNumericID(csvFile.toString(), true, false, 1).size(), is(2_000));
+            long wholeRowTime = System.nanoTime() - startTime;
+
+            tr.setColumnProjection(ColumnProjection.ofNames(csvLines.get(0), "customer_id", "account_number"));
+            startTime = System.nanoTime();
+            List<StringBuilder> projectedIDs = tr.generateAllAlphaNumericID(csvFile.toString(), true, false, 1);
+            long projectedTime = System.nanoTime() - startTime;
+            assertThat(projectedIDs.size(), is(2_000));
+            for (StringBuilder id : projectedIDs) {
+                assertThat(id.toString().matches("[A-Za-z0-9]{24}"), is(true));
+            }
+            assertThat(tr.generateAllAlphaNumericID(csvFile.toString(), true, false, 7).size(), is(2_000));
+
+            IdBlock idBlock = tr.generateAllAlphaNumericIDBlock(csvFile.toString(), true);
+            assertThat(idBlock.size(), is(2_000));
+            assertOneIDPerLine(tr.generateAllAlphaNumericIDMapped(csvFile.toString(), true), 2_000);
+            assertOneIDPerLine(tr.generateAllAlphaNumericIDParallel(csvFile.toString(), true, 2), 2_000);
+            try (Stream<CharSequence> ids = tr.streamAlphaNumericID(csvFile.toString(), true)) {
+                assertThat(ids.filter(id -> id.toString().matches("[A-Za-z0-9]{24}")).count(), is(2_000L));
+            }
+
+            Path outputFile = Files.createTempFile("ids", ".csv");
+            Path checkpointFile = Paths.get(outputFile + ".checkpoint");
+            Path indexFile = Paths.get(csvFile + ".index");
+            try {
+                assertThat(tr.generateAllAlphaNumericIDToFile(csvFile.toString(), true, outputFile.toString(),
+                        IDOutputWriter.Format.CSV, 500), is(2_000L));
+                assertOneIDPerLine(tr.generateAllAlphaNumericIDIncremental(csvFile.toString(), true,
+                        indexFile.toString()).getIds(), 2_000);
+            } finally {
+                Files.delete(outputFile);
+                Files.deleteIfExists(checkpointFile);
+                Files.deleteIfExists(indexFile);
+            }
+
+            System.out.println("Whole rows: " + wholeRowTime / 1_000_000 + " ms, projected columns: "
+                    + projectedTime / 1_000_000 + " ms");
+        } finally {
+            Files.delete(csvFile);
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void shardedGenerationRefusesAColumnProjection() throws IOException {
+        TransactionGenerator tr = new TransactionGenerator();
+        tr.setColumnProjection(ColumnProjection.of(0));
+        tr.generateAllAlphaNumericIDSharded("src/main/java/1000_line_csv.csv", true, "ids.csv",
+                IDOutputWriter.Format.CSV, 2);
+    }
+
+    private static void assertOneIDPerLine(List<StringBuilder> ids, int lines) {
+        assertThat(ids.size(), is(lines));
+        for (StringBuilder id : ids) {
+            assertThat(id.toString().matches("[A-Za-z0-9]{24}"), is(true));
+        }
+    }
+
+    @Test
+    public void streamGivesOneIDPerLineInASinglePass()
+            throws IOException, NoSuchAlgorithmException, NoSuchProviderException {
+        TransactionGenerator tr = new TransactionGenerator();
+        try (Stream<CharSequence> ids = tr.streamAlphaNumericID("src/main/java/1000_line_csv.csv", true)) {
+            assertThat(ids.filter(id -> id.toString().matches("[A-Za-z0-9]{24}")).count(), is(10_000L));
+        }
+
+        // Only the IDs that are asked for are generated
+        try (Stream<CharSequence> ids = tr.streamAlphaNumericID("src/main/java/1000_line_csv.csv", false)) {
+            assertThat(ids.limit(5).count(), is(5L));
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void streamReportsMissingFile() throws IOException, NoSuchAlgorithmException, NoSuchProviderException {
+        new TransactionGenerator().streamAlphaNumericID("src/main/java/missing.csv", true);
+    }
 }